@@ -0,0 +1,72 @@
+package io.github.oldmanpushcart.benchmark.qianfan4j;
+
+import io.github.oldmanpushcart.qianfan4j.vector.Metric;
+import io.github.oldmanpushcart.qianfan4j.vector.Neighbor;
+import io.github.oldmanpushcart.qianfan4j.vector.Similarity;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 相似度计算的基准测试：同一组数据分别以标量内核和SIMD内核各跑一个fork
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SimilarityBenchmark {
+
+    @Param({"384", "1024"})
+    private int dimension;
+
+    @Param({"50000"})
+    private int rows;
+
+    private float[] a;
+    private float[] b;
+    private float[] matrix;
+
+    @Setup
+    public void setup() {
+        final var random = new Random(1);
+        a = random(random, dimension);
+        b = random(random, dimension);
+        matrix = random(random, rows * dimension);
+    }
+
+    private static float[] random(Random random, int length) {
+        final var vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dqianfan4j.vector.scalar=true")
+    public float dot$scalar() {
+        return Similarity.dot(a, b);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+    public float dot$vectorized() {
+        return Similarity.dot(a, b);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dqianfan4j.vector.scalar=true")
+    public List<Neighbor> topK$scalar() {
+        return Similarity.topK(Metric.DOT_PRODUCT, a, matrix, dimension, 10);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+    public List<Neighbor> topK$vectorized() {
+        return Similarity.topK(Metric.DOT_PRODUCT, a, matrix, dimension, 10);
+    }
+
+}
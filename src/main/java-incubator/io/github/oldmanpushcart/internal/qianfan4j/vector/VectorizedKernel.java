@@ -0,0 +1,47 @@
+package io.github.oldmanpushcart.internal.qianfan4j.vector;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD内核；基于{@code jdk.incubator.vector}，只有该模块可用时才会被加载
+ */
+final class VectorizedKernel implements Kernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        var sum = FloatVector.zero(SPECIES);
+        var i = 0;
+        for (final var bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            final var va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            final var vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            sum = va.fma(vb, sum);
+        }
+        var result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+
+    @Override
+    public float squareDistance(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        var sum = FloatVector.zero(SPECIES);
+        var i = 0;
+        for (final var bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            final var diff = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .sub(FloatVector.fromArray(SPECIES, b, bOffset + i));
+            sum = diff.fma(diff, sum);
+        }
+        var result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            final var d = a[aOffset + i] - b[bOffset + i];
+            result += d * d;
+        }
+        return result;
+    }
+
+}
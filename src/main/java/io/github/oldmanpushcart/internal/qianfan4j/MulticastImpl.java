@@ -0,0 +1,254 @@
+package io.github.oldmanpushcart.internal.qianfan4j;
+
+import io.github.oldmanpushcart.qianfan4j.Multicast;
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 多播操作实现
+ * <p>
+ * 上游的消费器只把应答放入各订阅者的队列，从不等待订阅者；每个订阅者在线程池中按请求数量投递，同一时刻最多一个投递任务，保证顺序。
+ * 锁的顺序为先多播再订阅者，订阅者的回调都在锁外执行。
+ * </p>
+ *
+ * @param <R> 应答类型
+ */
+public class MulticastImpl<R> implements Multicast<R> {
+
+    private final int replay;
+    private final int buffer;
+    private final Executor executor;
+    private final ArrayDeque<R> history = new ArrayDeque<>();
+    private final List<Downstream> downstreams = new ArrayList<>();
+    private final CompletableFuture<R> result = new CompletableFuture<>();
+    private boolean done;
+    private Throwable error;
+
+    private MulticastImpl(int replay, int buffer, Executor executor) {
+        this.replay = replay;
+        this.buffer = buffer;
+        this.executor = executor;
+    }
+
+    /**
+     * 开始多播操作
+     *
+     * @param op       操作
+     * @param replay   订阅者加入时重放的最近应答数量
+     * @param buffer   每个订阅者未投递应答的数量上限
+     * @param executor 投递应答的线程池
+     * @param <R>      应答类型
+     * @return 多播操作
+     */
+    public static <R> Multicast<R> start(QianFanClient.Op<R> op, int replay, int buffer, Executor executor) {
+        check(buffer, buffer > 0, "buffer must be greater than 0");
+        check(replay, replay >= 0 && replay <= buffer, "replay must be between 0 and buffer");
+        final var multicast = new MulticastImpl<R>(replay, buffer, requireNonNull(executor));
+        CompletableFuture<R> future;
+        try {
+            future = op.stream(multicast::publish);
+        } catch (Throwable cause) {
+            future = CompletableFuture.failedFuture(cause);
+        }
+        future.whenComplete((response, ex) -> {
+            multicast.terminate(null == ex ? null : ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex);
+            if (null != ex) {
+                multicast.result.completeExceptionally(ex);
+            } else {
+                multicast.result.complete(response);
+            }
+        });
+        return multicast;
+    }
+
+    @Override
+    public CompletableFuture<R> result() {
+        return result;
+    }
+
+    @Override
+    public synchronized int subscribers() {
+        return downstreams.size();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        final var downstream = new Downstream(requireNonNull(subscriber));
+        synchronized (this) {
+            downstream.queue.addAll(history);
+            if (done) {
+                downstream.terminate(error);
+            } else {
+                downstreams.add(downstream);
+            }
+        }
+        subscriber.onSubscribe(downstream);
+        downstream.subscribed = true;
+        downstream.signal();
+    }
+
+    // 上游应答：记录重放并放入各订阅者的队列，队列已满的订阅者被移除
+    private synchronized void publish(R response) {
+        if (replay > 0) {
+            if (history.size() == replay) {
+                history.poll();
+            }
+            history.add(response);
+        }
+        downstreams.removeIf(downstream -> !downstream.offer(response));
+    }
+
+    // 上游结束
+    private synchronized void terminate(Throwable error) {
+        this.done = true;
+        this.error = error;
+        downstreams.forEach(downstream -> downstream.terminate(error));
+        downstreams.clear();
+    }
+
+    private synchronized void remove(Downstream downstream) {
+        downstreams.remove(downstream);
+    }
+
+    /**
+     * 订阅者
+     */
+    private class Downstream implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super R> subscriber;
+        private final ArrayDeque<R> queue = new ArrayDeque<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean subscribed;
+        private long requested;
+        private boolean terminated;
+        private boolean cancelled;
+        private Throwable error;
+
+        private Downstream(Flow.Subscriber<? super R> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        // 放入应答，队列已满时丢弃队列并以异常结束
+        boolean offer(R response) {
+            final boolean accepted;
+            synchronized (this) {
+                if (terminated || cancelled) {
+                    return false;
+                }
+                accepted = queue.size() < buffer;
+                if (accepted) {
+                    queue.add(response);
+                } else {
+                    queue.clear();
+                    terminated = true;
+                    error = new IllegalStateException("subscriber is too slow, more than %d responses are pending".formatted(buffer));
+                }
+            }
+            signal();
+            return accepted;
+        }
+
+        void terminate(Throwable error) {
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                this.terminated = true;
+                this.error = error;
+            }
+            signal();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                synchronized (this) {
+                    queue.clear();
+                    terminated = true;
+                    error = new IllegalArgumentException("request must be greater than 0");
+                }
+                remove(this);
+            } else {
+                synchronized (this) {
+                    requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+                }
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                queue.clear();
+            }
+            remove(this);
+        }
+
+        void signal() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        // 投递应答，直到没有可投递的应答或请求数量耗尽
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                if (subscribed) {
+                    while (true) {
+                        final R response;
+                        final Throwable cause;
+                        synchronized (this) {
+                            if (cancelled) {
+                                return;
+                            }
+                            if (requested > 0 && !queue.isEmpty()) {
+                                response = queue.poll();
+                                cause = null;
+                                requested--;
+                            } else if (terminated && queue.isEmpty()) {
+                                cancelled = true;
+                                cause = error;
+                                response = null;
+                            } else {
+                                break;
+                            }
+                        }
+                        if (null == response) {
+                            if (null == cause) {
+                                subscriber.onComplete();
+                            } else {
+                                subscriber.onError(cause);
+                            }
+                            return;
+                        }
+                        try {
+                            subscriber.onNext(response);
+                        } catch (Throwable ex) {
+                            cancel();
+                            return;
+                        }
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+    }
+
+}
@@ -1,8 +1,26 @@
 package io.github.oldmanpushcart.internal.qianfan4j;
 
+import io.github.oldmanpushcart.internal.qianfan4j.base.algo.TokenCalibrator;
 import io.github.oldmanpushcart.internal.qianfan4j.base.api.ApiExecutor;
+import io.github.oldmanpushcart.internal.qianfan4j.base.api.ApiInvoker;
+import io.github.oldmanpushcart.internal.qianfan4j.cache.EmbeddingCacheImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.cache.ResponseCacheImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.cache.SemanticCacheImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.cache.SingleFlightImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.chat.ChatFunctionCache;
 import io.github.oldmanpushcart.internal.qianfan4j.chat.ChatResponseHandler;
+import io.github.oldmanpushcart.internal.qianfan4j.embedding.EmbeddingBatcher;
+import io.github.oldmanpushcart.internal.qianfan4j.image.caption.ImagePreprocessorImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.replay.RecorderImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.replay.ReplayerImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.scheduler.RequestSchedulerImpl;
 import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.base.algo.Model;
+import io.github.oldmanpushcart.qianfan4j.base.algo.TokenEstimator;
+import io.github.oldmanpushcart.qianfan4j.cache.EmbeddingCache;
+import io.github.oldmanpushcart.qianfan4j.cache.ResponseCache;
+import io.github.oldmanpushcart.qianfan4j.cache.SemanticCache;
+import io.github.oldmanpushcart.qianfan4j.cache.SingleFlight;
 import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
 import io.github.oldmanpushcart.qianfan4j.chat.ChatResponse;
 import io.github.oldmanpushcart.qianfan4j.completion.CompletionRequest;
@@ -11,10 +29,14 @@ import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
 import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse;
 import io.github.oldmanpushcart.qianfan4j.image.caption.CaptionImageRequest;
 import io.github.oldmanpushcart.qianfan4j.image.caption.CaptionImageResponse;
+import io.github.oldmanpushcart.qianfan4j.image.caption.ImagePreprocessor;
 import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageRequest;
 import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageResponse;
 import io.github.oldmanpushcart.qianfan4j.pluginapp.PluginAppRequest;
 import io.github.oldmanpushcart.qianfan4j.pluginapp.PluginAppResponse;
+import io.github.oldmanpushcart.qianfan4j.replay.Recorder;
+import io.github.oldmanpushcart.qianfan4j.replay.Replayer;
+import io.github.oldmanpushcart.qianfan4j.scheduler.RequestScheduler;
 import io.github.oldmanpushcart.qianfan4j.util.Aggregator;
 
 import java.net.http.HttpClient;
@@ -30,7 +52,9 @@ import static java.util.Optional.ofNullable;
  */
 public class QianFanClientImpl implements QianFanClient {
 
-    private final ApiExecutor apiExecutor;
+    private final TokenCalibrator calibrator;
+    private final ApiInvoker apiExecutor;
+    private final ChatFunctionCache functionCache = new ChatFunctionCache();
 
     /**
      * 构造千帆客户端实现
@@ -38,11 +62,49 @@ public class QianFanClientImpl implements QianFanClient {
      * @param builder 构造器
      */
     public QianFanClientImpl(Builder builder) {
-        this.apiExecutor = new ApiExecutor(
+        this.calibrator = builder.tokenCalibration ? new TokenCalibrator() : null;
+        this.apiExecutor = newApiInvoker(builder);
+    }
+
+    // 构建API调用链
+    private ApiInvoker newApiInvoker(Builder builder) {
+        ApiInvoker invoker = new ApiExecutor(
                 new TokenRefresher(builder.ak, builder.sk),
                 newHttpClient(builder),
-                requireNonNull(builder.executor)
+                requireNonNull(builder.executor),
+                this::tokenEstimator
         );
+
+        // 调度在缓存之后，命中缓存的请求不排队
+        if (null != builder.scheduler) {
+            invoker = ((RequestSchedulerImpl) builder.scheduler).decorate(invoker);
+        }
+        if (null != calibrator) {
+            invoker = calibrator.decorate(invoker);
+        }
+        if (null != builder.imagePreprocessor) {
+            invoker = ((ImagePreprocessorImpl) builder.imagePreprocessor).decorate(invoker);
+        }
+        if (null != builder.embeddingBatchWindow) {
+            invoker = new EmbeddingBatcher(builder.embeddingBatchWindow, builder.executor).decorate(invoker);
+        }
+        if (null != builder.embeddingCache) {
+            invoker = ((EmbeddingCacheImpl) builder.embeddingCache).decorate(invoker);
+        }
+
+        // 合并在缓存之后、调度之前，跟随的请求不排队
+        if (null != builder.singleFlight) {
+            invoker = ((SingleFlightImpl) builder.singleFlight).decorate(invoker, builder.executor);
+        }
+        if (null != builder.semanticCache) {
+            invoker = ((SemanticCacheImpl) builder.semanticCache).decorate(invoker);
+        }
+
+        // 精确缓存在语义缓存之前，命中时无需向量计算
+        if (null != builder.responseCache) {
+            invoker = ((ResponseCacheImpl) builder.responseCache).decorate(invoker);
+        }
+        return invoker;
     }
 
     // 构建HTTP客户端
@@ -50,13 +112,30 @@ public class QianFanClientImpl implements QianFanClient {
         final var httpBuilder = HttpClient.newBuilder();
         ofNullable(builder.connectTimeout).ifPresent(httpBuilder::connectTimeout);
         ofNullable(builder.executor).ifPresent(httpBuilder::executor);
-        return httpBuilder.build();
+        var http = httpBuilder.build();
+
+        // 录制在重放之外，重放的交换同样可以录制
+        if (null != builder.replayer) {
+            http = ((ReplayerImpl) builder.replayer).decorate(http);
+        }
+        if (null != builder.recorder) {
+            http = ((RecorderImpl) builder.recorder).decorate(http);
+        }
+        return http;
+    }
+
+    @Override
+    public TokenEstimator tokenEstimator(Model model) {
+        return null != calibrator ? calibrator.estimator(model) : TokenEstimator.of(model);
     }
 
     @Override
     public Op<ChatResponse> chat(ChatRequest request) {
-        return consumer -> apiExecutor.execute(request, Aggregator::accumulate, consumer)
-                .thenCompose(new ChatResponseHandler(this, request, consumer));
+        return consumer -> {
+            final var handler = new ChatResponseHandler(this, functionCache, request, consumer);
+            return apiExecutor.execute(request, Aggregator::accumulate, consumer)
+                    .thenCompose(handler);
+        };
     }
 
     @Override
@@ -97,6 +176,16 @@ public class QianFanClientImpl implements QianFanClient {
         private String sk;
         private Executor executor;
         private Duration connectTimeout;
+        private ResponseCache responseCache;
+        private SemanticCache semanticCache;
+        private EmbeddingCache embeddingCache;
+        private Duration embeddingBatchWindow;
+        private ImagePreprocessor imagePreprocessor;
+        private RequestScheduler scheduler;
+        private SingleFlight singleFlight;
+        private boolean tokenCalibration;
+        private Recorder recorder;
+        private Replayer replayer;
 
         @Override
         public Builder ak(String ak) {
@@ -122,6 +211,66 @@ public class QianFanClientImpl implements QianFanClient {
             return this;
         }
 
+        @Override
+        public Builder responseCache(ResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        @Override
+        public Builder semanticCache(SemanticCache semanticCache) {
+            this.semanticCache = semanticCache;
+            return this;
+        }
+
+        @Override
+        public Builder embeddingCache(EmbeddingCache embeddingCache) {
+            this.embeddingCache = embeddingCache;
+            return this;
+        }
+
+        @Override
+        public Builder embeddingBatchWindow(Duration window) {
+            this.embeddingBatchWindow = window;
+            return this;
+        }
+
+        @Override
+        public Builder imagePreprocessor(ImagePreprocessor preprocessor) {
+            this.imagePreprocessor = preprocessor;
+            return this;
+        }
+
+        @Override
+        public Builder scheduler(RequestScheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        @Override
+        public Builder singleFlight(SingleFlight singleFlight) {
+            this.singleFlight = singleFlight;
+            return this;
+        }
+
+        @Override
+        public Builder tokenCalibration(boolean enable) {
+            this.tokenCalibration = enable;
+            return this;
+        }
+
+        @Override
+        public Builder recorder(Recorder recorder) {
+            this.recorder = recorder;
+            return this;
+        }
+
+        @Override
+        public Builder replayer(Replayer replayer) {
+            this.replayer = replayer;
+            return this;
+        }
+
         @Override
         public QianFanClient build() {
             return new QianFanClientImpl(this);
@@ -4,14 +4,18 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.oldmanpushcart.internal.qianfan4j.base.api.ApiRequestImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.base.api.http.ByteBufferBodyPublisher;
+import io.github.oldmanpushcart.internal.qianfan4j.base.api.http.ChunkedOutputStream;
 import io.github.oldmanpushcart.internal.qianfan4j.util.JacksonUtils;
 import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoRequest;
 import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoResponse;
 import io.github.oldmanpushcart.qianfan4j.base.algo.Model;
+import io.github.oldmanpushcart.qianfan4j.base.algo.TokenEstimator;
 import io.github.oldmanpushcart.qianfan4j.base.api.Option;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpRequest;
 import java.time.Duration;
@@ -69,15 +73,43 @@ public abstract class AlgoRequestImpl<M extends Model, R extends AlgoResponse> e
         return body;
     }
 
+    /**
+     * 构建请求体
+     * <p>Jackson直接以UTF-8写入分块的缓冲区，不产生完整的中间字符串或字节数组，请求体长度已知</p>
+     *
+     * @param mapper    mapper
+     * @param estimator 客户端的TOKEN估算器，供按TOKEN预算选择内容的请求使用
+     * @return 请求体
+     */
+    protected HttpRequest.BodyPublisher newBodyPublisher(ObjectMapper mapper, TokenEstimator estimator) {
+        final var output = new ChunkedOutputStream();
+        try {
+            mapper.writeValue(output, this);
+        } catch (IOException cause) {
+            throw new IllegalArgumentException("parse object to json failed!", cause);
+        }
+        return ByteBufferBodyPublisher.of(output.toBuffers());
+    }
+
     @Override
     public HttpRequest newHttpRequest(String token) {
-        final var body = JacksonUtils.toJson(mapper, this);
+        return newHttpRequest(token, TokenEstimator.of(model()));
+    }
+
+    /**
+     * 构建HTTP请求
+     *
+     * @param token     令牌
+     * @param estimator 客户端的TOKEN估算器(开启校准时为校准后的估算器)
+     * @return HTTP请求
+     */
+    public HttpRequest newHttpRequest(String token, TokenEstimator estimator) {
         if (logger.isDebugEnabled()) {
-            logger.debug("{} => {}", this, wrapLoggingRequestBody(body));
+            logger.debug("{} => {}", this, wrapLoggingRequestBody(JacksonUtils.toJson(mapper, this)));
         }
         return HttpRequest.newBuilder()
                 .uri(URI.create("%s?access_token=%s".formatted(model().remote(), token)))
-                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .POST(newBodyPublisher(mapper, estimator))
                 .build();
     }
 
@@ -0,0 +1,62 @@
+package io.github.oldmanpushcart.internal.qianfan4j.base.algo;
+
+import io.github.oldmanpushcart.internal.qianfan4j.base.api.ApiInvoker;
+import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoRequest;
+import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoResponse;
+import io.github.oldmanpushcart.qianfan4j.base.algo.Model;
+import io.github.oldmanpushcart.qianfan4j.base.algo.TokenEstimator;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiResponse;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+/**
+ * TOKEN估算器的自动校准
+ * <p>
+ * 每个客户端持有一个校准器，同一模型族共享一个估算器；不同客户端(例如访问不同的服务端)互不影响。
+ * 校准需要重新计算实际发送消息的估算值，只在客户端开启校准时使用
+ * </p>
+ */
+public class TokenCalibrator {
+
+    private final Map<String, TokenEstimatorImpl> estimators = new ConcurrentHashMap<>();
+
+    /**
+     * 获取模型所属模型族的估算器
+     *
+     * @param model 模型
+     * @return 估算器
+     */
+    public TokenEstimator estimator(Model model) {
+        return estimators.computeIfAbsent(TokenEstimatorImpl.family(model), TokenEstimatorImpl::new);
+    }
+
+    /**
+     * 在API调用器之后叠加自动校准：以每个成功应答的实际用量校准对应模型族的估算器
+     *
+     * @param delegate 被装饰的API调用器
+     * @return 带自动校准的API调用器
+     */
+    public ApiInvoker decorate(ApiInvoker delegate) {
+        return new ApiInvoker() {
+            @Override
+            public <R extends ApiResponse> CompletableFuture<R> execute(ApiRequest<R> request, BinaryOperator<R> accumulator, Consumer<R> consumer) {
+                final var future = delegate.execute(request, accumulator, consumer);
+                if (!(request instanceof AlgoRequest<?, ?> algoRequest)) {
+                    return future;
+                }
+                return future.thenApply(response -> {
+                    if (response instanceof AlgoResponse algoResponse && null != algoResponse.usage()) {
+                        estimator(algoRequest.model()).calibrate(algoRequest, algoResponse.usage());
+                    }
+                    return response;
+                });
+            }
+        };
+    }
+
+}
@@ -0,0 +1,206 @@
+package io.github.oldmanpushcart.internal.qianfan4j.base.algo;
+
+import io.github.oldmanpushcart.internal.qianfan4j.chat.SlidingWindowHistoryPolicy;
+import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoRequest;
+import io.github.oldmanpushcart.qianfan4j.base.algo.Model;
+import io.github.oldmanpushcart.qianfan4j.base.algo.TokenEstimator;
+import io.github.oldmanpushcart.qianfan4j.base.algo.Usage;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatOptions;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+import io.github.oldmanpushcart.qianfan4j.completion.CompletionRequest;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
+
+import java.util.List;
+
+/**
+ * TOKEN估算器实现
+ * <p>
+ * 校准系数以指数加权移动平均更新；只使用输入TOKEN({@code prompt_tokens})校准，且跳过带函数定义的对话请求(函数定义不参与估算)。
+ * 估算器本身不共享，由{@link TokenCalibrator}按客户端持有
+ * </p>
+ */
+public class TokenEstimatorImpl implements TokenEstimator {
+
+    // 每条消息的格式开销(角色、分隔符)
+    private static final double MESSAGE_OVERHEAD = 4;
+
+    // 连续字母数字：每个单词至少1.3个TOKEN，较长的单词按每4个字符1个TOKEN
+    private static final double TOKENS_PER_WORD = 1.3;
+    private static final double CHARS_PER_TOKEN = 4;
+
+    // 校准的平滑系数与系数的取值范围
+    private static final double ALPHA = 0.1;
+    private static final double MIN_RATIO = 0.25;
+    private static final double MAX_RATIO = 4;
+
+    private final String family;
+    private volatile double ratio = 1.0;
+
+    TokenEstimatorImpl(String family) {
+        this.family = family;
+    }
+
+    /**
+     * 创建模型所属模型族的未校准估算器
+     *
+     * @param model 模型
+     * @return 估算器
+     */
+    public static TokenEstimatorImpl of(Model model) {
+        return new TokenEstimatorImpl(family(model));
+    }
+
+    /**
+     * 获取模型族：模型名称中第一个{@code -}之前的部分
+     *
+     * @param model 模型
+     * @return 模型族
+     */
+    static String family(Model model) {
+        final var name = model.name();
+        final var index = name.indexOf('-');
+        return index > 0 ? name.substring(0, index) : name;
+    }
+
+    @Override
+    public String family() {
+        return family;
+    }
+
+    @Override
+    public double ratio() {
+        return ratio;
+    }
+
+    @Override
+    public int estimate(CharSequence text) {
+        return round(raw(text));
+    }
+
+    @Override
+    public int estimate(List<Message> messages) {
+        return round(raw(messages));
+    }
+
+    @Override
+    public int estimate(AlgoRequest<?, ?> request) {
+        return round(raw(request));
+    }
+
+    private int round(double raw) {
+        return (int) Math.ceil(raw * ratio);
+    }
+
+    @Override
+    public void calibrate(AlgoRequest<?, ?> request, Usage usage) {
+        if (request instanceof ChatRequest chat && !chat.functions().isEmpty()) {
+            return;
+        }
+        final var actual = usage.total(item -> "prompt_tokens".equals(item.name()));
+        final var raw = raw(request);
+        if (actual <= 0 || raw <= 0) {
+            return;
+        }
+        final var observed = Math.max(MIN_RATIO, Math.min(MAX_RATIO, actual / raw));
+        synchronized (this) {
+            ratio += ALPHA * (observed - ratio);
+        }
+    }
+
+    // 对话请求按本估算器选出的消息计算：开启校准时请求体同样由本估算器选择消息，校准的正是实际发送的内容
+    private double raw(AlgoRequest<?, ?> request) {
+        if (request instanceof ChatRequest chat) {
+            final var system = chat.option().get(ChatOptions.COSPLAY) instanceof String value ? raw(value) : 0;
+            return raw(chat) + system;
+        }
+        if (request instanceof CompletionRequest completion) {
+            return raw(completion.prompt());
+        }
+        if (request instanceof EmbeddingRequest embedding) {
+            var total = 0d;
+            for (final var text : embedding.texts()) {
+                total += raw(text);
+            }
+            return total;
+        }
+        return 0;
+    }
+
+    // 滑动窗口只计算发送的范围，不生成选出的消息列表；其他策略只能按其返回的列表计算
+    private double raw(ChatRequest chat) {
+        final var messages = chat.messages();
+        if (chat.historyPolicy() instanceof SlidingWindowHistoryPolicy policy) {
+            final var window = policy.window(this, messages);
+            return window.isAll()
+                    ? raw(messages, 0, messages.size())
+                    : raw(messages, 0, window.pinnedEnd()) + raw(messages, window.resumeAt(), messages.size());
+        }
+        return raw(chat.historyPolicy().apply(this, messages));
+    }
+
+    private static double raw(List<Message> messages) {
+        return raw(messages, 0, messages.size());
+    }
+
+    private static double raw(List<Message> messages, int from, int to) {
+        var total = 0d;
+        for (int i = from; i < to; i++) {
+            final var message = messages.get(i);
+            total += MESSAGE_OVERHEAD + raw(message.content());
+            final var call = message.call();
+            if (null != call) {
+                total += raw(call.name()) + raw(call.arguments());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 未校准的估算值
+     *
+     * @param text 文本
+     * @return 估算值
+     */
+    static double raw(CharSequence text) {
+        if (null == text) {
+            return 0;
+        }
+        var total = 0d;
+        var word = 0;
+        final var length = text.length();
+        for (int i = 0; i < length; i++) {
+            int cp = text.charAt(i);
+            if (Character.isHighSurrogate((char) cp) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                cp = Character.toCodePoint((char) cp, text.charAt(++i));
+            }
+            if (!isCjk(cp) && Character.isLetterOrDigit(cp)) {
+                word++;
+                continue;
+            }
+            if (word > 0) {
+                total += Math.max(TOKENS_PER_WORD, word / CHARS_PER_TOKEN);
+                word = 0;
+            }
+            if (!Character.isWhitespace(cp)) {
+                total += 1;
+            }
+        }
+        if (word > 0) {
+            total += Math.max(TOKENS_PER_WORD, word / CHARS_PER_TOKEN);
+        }
+        return total;
+    }
+
+    // 中日韩文字与全角符号
+    private static boolean isCjk(int cp) {
+        return (cp >= 0x4E00 && cp <= 0x9FFF)
+                || (cp >= 0x3400 && cp <= 0x4DBF)
+                || (cp >= 0x3000 && cp <= 0x30FF)
+                || (cp >= 0xAC00 && cp <= 0xD7AF)
+                || (cp >= 0xF900 && cp <= 0xFAFF)
+                || (cp >= 0xFF00 && cp <= 0xFFEF)
+                || (cp >= 0x20000 && cp <= 0x2FFFF);
+    }
+
+}
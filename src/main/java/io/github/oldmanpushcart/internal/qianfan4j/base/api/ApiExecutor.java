@@ -1,7 +1,10 @@
 package io.github.oldmanpushcart.internal.qianfan4j.base.api;
 
 import io.github.oldmanpushcart.internal.qianfan4j.TokenRefresher;
+import io.github.oldmanpushcart.internal.qianfan4j.base.algo.AlgoRequestImpl;
 import io.github.oldmanpushcart.qianfan4j.Constants;
+import io.github.oldmanpushcart.qianfan4j.base.algo.Model;
+import io.github.oldmanpushcart.qianfan4j.base.algo.TokenEstimator;
 import io.github.oldmanpushcart.qianfan4j.base.api.ApiException;
 import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
 import io.github.oldmanpushcart.qianfan4j.base.api.ApiResponse;
@@ -14,6 +17,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static io.github.oldmanpushcart.internal.qianfan4j.base.api.http.HttpHeader.ContentType.MIME_APPLICATION_JSON;
 import static io.github.oldmanpushcart.internal.qianfan4j.base.api.http.HttpHeader.HEADER_CONTENT_TYPE;
@@ -22,24 +26,34 @@ import static io.github.oldmanpushcart.internal.qianfan4j.base.api.http.HttpHead
 /**
  * API执行器
  */
-public class ApiExecutor {
+public class ApiExecutor implements ApiInvoker {
 
     private static final String CLIENT_INFO = "qianfan4j/%s".formatted(Constants.VERSION);
     private final TokenRefresher refresher;
     private final HttpClient http;
     private final Executor executor;
+    private final Function<Model, TokenEstimator> estimators;
 
     /**
      * 构造API执行器
      *
-     * @param refresher 令牌刷新器
-     * @param http      HTTP客户端
-     * @param executor  线程池
+     * @param refresher  令牌刷新器
+     * @param http       HTTP客户端
+     * @param executor   线程池
+     * @param estimators 客户端的TOKEN估算器，构建请求体时使用
      */
-    public ApiExecutor(TokenRefresher refresher, HttpClient http, Executor executor) {
+    public ApiExecutor(TokenRefresher refresher, HttpClient http, Executor executor, Function<Model, TokenEstimator> estimators) {
         this.refresher = refresher;
         this.http = http;
         this.executor = executor;
+        this.estimators = estimators;
+    }
+
+    // 算法请求以客户端的估算器构建请求体
+    private HttpRequest newHttpRequest(ApiRequest<?> request, String token) {
+        return request instanceof AlgoRequestImpl<?, ?> algo
+                ? algo.newHttpRequest(token, estimators.apply(algo.model()))
+                : request.newHttpRequest(token);
     }
 
     // 委派API请求
@@ -58,6 +72,7 @@ public class ApiExecutor {
      * @param <R>         应答类型
      * @return 执行结果
      */
+    @Override
     public <R extends ApiResponse> CompletableFuture<R> execute(ApiRequest<R> request, BinaryOperator<R> accumulator, Consumer<R> consumer) {
         return refresher
 
@@ -65,7 +80,7 @@ public class ApiExecutor {
                 .refresh(http)
 
                 // 签名HTTP请求
-                .thenApply(token -> delegateHttpRequest(request.newHttpRequest(token), builder -> builder
+                .thenApply(token -> delegateHttpRequest(newHttpRequest(request, token), builder -> builder
                         .headers(HEADER_X_QIANFAN_CLIENT, CLIENT_INFO)
                         .headers(HEADER_CONTENT_TYPE, MIME_APPLICATION_JSON))
                 )
@@ -0,0 +1,27 @@
+package io.github.oldmanpushcart.internal.qianfan4j.base.api;
+
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+/**
+ * API调用器
+ * <p>{@link ApiExecutor}负责真正的HTTP调用，其他实现以装饰的方式叠加在它之前(缓存、调度等)</p>
+ */
+public interface ApiInvoker {
+
+    /**
+     * 执行API请求
+     *
+     * @param request     API请求
+     * @param accumulator 应答累加器
+     * @param consumer    应答消费器
+     * @param <R>         应答类型
+     * @return 执行结果
+     */
+    <R extends ApiResponse> CompletableFuture<R> execute(ApiRequest<R> request, BinaryOperator<R> accumulator, Consumer<R> consumer);
+
+}
@@ -151,6 +151,7 @@ public class ApiResponseBodyHandler<R extends ApiResponse> implements HttpRespon
                         final var response = deserializer.apply(segments[1].trim());
                         if (null != response) {
                             responseRef.accumulateAndGet(response, accumulator);
+                            consumer.accept(response);
                         }
                     } else {
                         throw new RuntimeException("unsupported stream-event: %s".formatted(body));
@@ -163,6 +164,18 @@ public class ApiResponseBodyHandler<R extends ApiResponse> implements HttpRespon
 
         @Override
         public void onNext(List<ByteBuffer> buffers) {
+            try {
+                screening(buffers);
+            } catch (Throwable ex) {
+                subscriptionRef.get().cancel();
+                onError(ex);
+                return;
+            }
+            subscriptionRef.get().request(1);
+        }
+
+        // 按空行切分SSE事件，每个事件解析后累加并消费
+        private void screening(List<ByteBuffer> buffers) {
             synchronized (bytes) {
                 for (ByteBuffer buffer : buffers) {
                     while (buffer.hasRemaining()) {
@@ -183,7 +196,6 @@ public class ApiResponseBodyHandler<R extends ApiResponse> implements HttpRespon
                     }
                 }
             }
-            subscriptionRef.get().request(1);
         }
 
         @Override
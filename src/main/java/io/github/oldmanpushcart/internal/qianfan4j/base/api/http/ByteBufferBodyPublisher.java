@@ -0,0 +1,140 @@
+package io.github.oldmanpushcart.internal.qianfan4j.base.api.http;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 以ByteBuffer序列发布的HTTP请求体
+ * <p>
+ * 每次订阅从{@code supplier}获取一个新的迭代器，按订阅者的需求逐个发布；HTTP客户端重试或重定向时会重新订阅。
+ * 长度已知时以{@code Content-Length}发送，否则以分块编码发送。
+ * </p>
+ */
+public class ByteBufferBodyPublisher implements HttpRequest.BodyPublisher {
+
+    private final long contentLength;
+    private final Supplier<? extends Iterator<ByteBuffer>> supplier;
+
+    /**
+     * 构造请求体
+     *
+     * @param contentLength 长度，未知时为{@code -1}
+     * @param supplier      ByteBuffer迭代器的提供者
+     */
+    public ByteBufferBodyPublisher(long contentLength, Supplier<? extends Iterator<ByteBuffer>> supplier) {
+        this.contentLength = contentLength;
+        this.supplier = supplier;
+    }
+
+    /**
+     * 由多个ByteBuffer拼接的请求体；各订阅发布的是ByteBuffer的只读副本，互不影响
+     *
+     * @param buffers ByteBuffer列表
+     * @return 请求体
+     */
+    public static ByteBufferBodyPublisher of(List<ByteBuffer> buffers) {
+        final var length = buffers.stream().mapToLong(ByteBuffer::remaining).sum();
+        return new ByteBufferBodyPublisher(length, () -> buffers.stream()
+                .map(ByteBuffer::asReadOnlyBuffer)
+                .iterator());
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        final Iterator<ByteBuffer> iterator;
+        try {
+            iterator = supplier.get();
+        } catch (Throwable cause) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+
+                }
+
+                @Override
+                public void cancel() {
+
+                }
+            });
+            subscriber.onError(cause);
+            return;
+        }
+        final var subscription = new IteratorSubscription(subscriber, iterator);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * 迭代器订阅
+     * <p>以工作计数保证同一时刻只有一个线程在发布，订阅者在{@code onNext}中再次请求时不会重入</p>
+     */
+    private static class IteratorSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final Iterator<ByteBuffer> iterator;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean done;
+
+        private IteratorSubscription(Flow.Subscriber<? super ByteBuffer> subscriber, Iterator<ByteBuffer> iterator) {
+            this.subscriber = subscriber;
+            this.iterator = iterator;
+        }
+
+        @Override
+        public void request(long n) {
+            if (done) {
+                return;
+            }
+            if (n <= 0) {
+                done = true;
+                subscriber.onError(new IllegalArgumentException("request must be greater than 0, but was %d".formatted(n)));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (!done && demand.get() > 0) {
+                    final ByteBuffer buffer;
+                    try {
+                        if (!iterator.hasNext()) {
+                            done = true;
+                            subscriber.onComplete();
+                            break;
+                        }
+                        buffer = iterator.next();
+                    } catch (Throwable cause) {
+                        done = true;
+                        subscriber.onError(cause);
+                        break;
+                    }
+                    demand.decrementAndGet();
+                    subscriber.onNext(buffer);
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package io.github.oldmanpushcart.internal.qianfan4j.base.api.http;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 分块输出流
+ * <p>
+ * 写入的数据保存在一组块中，块从4KB开始逐个翻倍，最大64KB；写满一块后分配新的块，已写入的数据不再复制。
+ * 与{@link java.io.ByteArrayOutputStream}相比，扩容时没有整体复制，也没有{@code toByteArray()}时的再次复制。
+ * </p>
+ * <p>块在交给HTTP客户端后由其持有，客户端不会通知何时写出完毕，因此块不做复用</p>
+ */
+public class ChunkedOutputStream extends OutputStream {
+
+    private static final int MIN_CHUNK_SIZE = 4 * 1024;
+    private static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private byte[] current = new byte[MIN_CHUNK_SIZE];
+    private int position;
+    private long size;
+
+    private void next() {
+        chunks.add(ByteBuffer.wrap(current, 0, position));
+        current = new byte[Math.min(current.length << 1, MAX_CHUNK_SIZE)];
+        position = 0;
+    }
+
+    @Override
+    public void write(int b) {
+        if (position == current.length) {
+            next();
+        }
+        current[position++] = (byte) b;
+        size++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        while (length > 0) {
+            if (position == current.length) {
+                next();
+            }
+            final var n = Math.min(length, current.length - position);
+            System.arraycopy(bytes, offset, current, position, n);
+            position += n;
+            offset += n;
+            length -= n;
+            size += n;
+        }
+    }
+
+    /**
+     * 已写入的字节数
+     *
+     * @return 字节数
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 获取已写入的数据
+     *
+     * @return 按写入顺序排列的块
+     */
+    public List<ByteBuffer> toBuffers() {
+        final var buffers = new ArrayList<ByteBuffer>(chunks.size() + 1);
+        buffers.addAll(chunks);
+        if (position > 0) {
+            buffers.add(ByteBuffer.wrap(current, 0, position));
+        }
+        return buffers;
+    }
+
+}
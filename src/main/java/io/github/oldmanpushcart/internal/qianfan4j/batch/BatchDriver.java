@@ -0,0 +1,197 @@
+package io.github.oldmanpushcart.internal.qianfan4j.batch;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * 批处理驱动
+ * <p>
+ * 按输入顺序编号后并发处理，同时在途的输入不超过并发数。处理结果按编号连续写出后才释放在途名额，
+ * 因此乱序完成、等待写出的结果最多积压并发数个，内存占用与输入规模无关。
+ * 任意输入处理失败后不再提交新的输入，等待在途的输入结束后以该失败结束。
+ * </p>
+ * <p>
+ * 按完成顺序写出时，结果完成后立即写出并提交，但在途名额仍按编号连续完成后才释放，
+ * 因此已写出、但之前还有未完成输入的结果同样最多并发数个，便于检查点以有限的空间记录进度。
+ * </p>
+ *
+ * @param <I> 输入类型
+ * @param <O> 输出类型
+ */
+public class BatchDriver<I, O> {
+
+    private final int parallelism;
+    private final boolean ordered;
+    private final Function<I, CompletableFuture<O>> processor;
+    private final Sink<I, O> sink;
+
+    private final TreeMap<Long, Done<I, O>> pending = new TreeMap<>();
+    private long next;
+    private volatile Throwable failure;
+
+    /**
+     * 构造按输入顺序写出的批处理驱动
+     *
+     * @param parallelism 并发数
+     * @param processor   处理器
+     * @param sink        结果输出
+     */
+    public BatchDriver(int parallelism, Function<I, CompletableFuture<O>> processor, Sink<I, O> sink) {
+        this(parallelism, true, processor, sink);
+    }
+
+    /**
+     * 构造批处理驱动
+     *
+     * @param parallelism 并发数
+     * @param ordered     是否按输入顺序写出，否则按完成顺序写出
+     * @param processor   处理器
+     * @param sink        结果输出
+     */
+    public BatchDriver(int parallelism, boolean ordered, Function<I, CompletableFuture<O>> processor, Sink<I, O> sink) {
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+        this.processor = processor;
+        this.sink = sink;
+    }
+
+    /**
+     * 驱动全部输入，阻塞直到全部完成
+     *
+     * @param inputs 输入
+     * @return 处理的输入数量
+     * @throws InterruptedException 等待被中断
+     * @throws CompletionException  处理或写出失败
+     */
+    public long drive(Iterator<I> inputs) throws InterruptedException {
+        final var semaphore = new Semaphore(parallelism);
+        var sequence = 0L;
+        while (null == failure && inputs.hasNext()) {
+            semaphore.acquire();
+            if (null != failure) {
+                semaphore.release();
+                break;
+            }
+            final var input = inputs.next();
+            final var current = sequence++;
+            CompletableFuture<O> future;
+            try {
+                future = processor.apply(input);
+            } catch (Throwable cause) {
+                future = CompletableFuture.failedFuture(cause);
+            }
+            future.whenComplete((output, ex) -> complete(semaphore, current, input, output, ex));
+        }
+
+        // 等待在途的输入全部结束
+        semaphore.acquire(parallelism);
+        if (null != failure) {
+            throw failure instanceof CompletionException completionEx
+                    ? completionEx
+                    : new CompletionException(failure);
+        }
+        return sequence;
+    }
+
+    private synchronized void complete(Semaphore semaphore, long sequence, I input, O output, Throwable ex) {
+
+        // 已经失败，丢弃结果
+        if (null != failure) {
+            semaphore.release();
+            return;
+        }
+
+        if (null != ex) {
+            failed(semaphore, ex, 1);
+            return;
+        }
+
+        // 按完成顺序立即写出；等待释放名额的只记录编号
+        if (!ordered) {
+            try {
+                sink.write(sequence, input, output);
+                sink.commit();
+            } catch (IOException cause) {
+                failed(semaphore, cause, 1);
+                return;
+            }
+            pending.put(sequence, Done.empty());
+            while (!pending.isEmpty() && pending.firstKey() == next) {
+                pending.pollFirstEntry();
+                next++;
+                semaphore.release();
+            }
+            return;
+        }
+
+        // 按编号连续写出
+        pending.put(sequence, new Done<>(input, output));
+        try {
+            var written = false;
+            while (!pending.isEmpty() && pending.firstKey() == next) {
+                final var done = pending.firstEntry().getValue();
+                sink.write(next, done.input(), done.output());
+                pending.pollFirstEntry();
+                next++;
+                semaphore.release();
+                written = true;
+            }
+            if (written) {
+                sink.commit();
+            }
+        } catch (IOException cause) {
+            failed(semaphore, cause, 0);
+        }
+    }
+
+    // 标记失败，释放当前和所有等待写出的名额
+    private void failed(Semaphore semaphore, Throwable ex, int permits) {
+        failure = ex;
+        semaphore.release(permits + pending.size());
+        pending.clear();
+    }
+
+    /**
+     * 结果输出
+     *
+     * @param <I> 输入类型
+     * @param <O> 输出类型
+     */
+    public interface Sink<I, O> {
+
+        /**
+         * 写出结果；按输入顺序写出时按编号顺序调用，否则按完成顺序调用
+         *
+         * @param sequence 编号
+         * @param input    输入
+         * @param output   输出
+         * @throws IOException 写出失败
+         */
+        void write(long sequence, I input, O output) throws IOException;
+
+        /**
+         * 提交已写出的结果，通常用于保存检查点
+         *
+         * @throws IOException 提交失败
+         */
+        void commit() throws IOException;
+
+    }
+
+    private record Done<I, O>(I input, O output) {
+
+        private static final Done<?, ?> EMPTY = new Done<>(null, null);
+
+        @SuppressWarnings("unchecked")
+        static <I, O> Done<I, O> empty() {
+            return (Done<I, O>) EMPTY;
+        }
+
+    }
+
+}
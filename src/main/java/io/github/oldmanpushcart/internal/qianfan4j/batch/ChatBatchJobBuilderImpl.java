@@ -0,0 +1,134 @@
+package io.github.oldmanpushcart.internal.qianfan4j.batch;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.batch.ChatBatchJob;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.completion.CompletionModel;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+import static java.util.Objects.requireNonNull;
+
+public class ChatBatchJobBuilderImpl implements ChatBatchJob.Builder {
+
+    private QianFanClient client;
+    private ChatModel chatModel;
+    private CompletionModel completionModel;
+    private Stream<String> lines;
+    private Path input;
+    private Path output;
+    private Path checkpoint;
+    private ChatBatchJob.Order order = ChatBatchJob.Order.INPUT;
+    private Executor executor;
+    private int parallelism = 4;
+    private int rpm;
+    private int maxRetries = 3;
+    private Duration backoff = Duration.ofSeconds(1);
+
+    @Override
+    public ChatBatchJob.Builder client(QianFanClient client) {
+        this.client = requireNonNull(client);
+        return this;
+    }
+
+    @Override
+    public ChatBatchJob.Builder model(ChatModel model) {
+        this.chatModel = requireNonNull(model);
+        return this;
+    }
+
+    @Override
+    public ChatBatchJob.Builder model(CompletionModel model) {
+        this.completionModel = requireNonNull(model);
+        return this;
+    }
+
+    @Override
+    public ChatBatchJob.Builder input(Stream<String> lines) {
+        this.lines = requireNonNull(lines);
+        this.input = null;
+        return this;
+    }
+
+    @Override
+    public ChatBatchJob.Builder input(Path path) {
+        this.input = requireNonNull(path);
+        this.lines = null;
+        return this;
+    }
+
+    @Override
+    public ChatBatchJob.Builder output(Path path) {
+        this.output = requireNonNull(path);
+        return this;
+    }
+
+    @Override
+    public ChatBatchJob.Builder checkpoint(Path path) {
+        this.checkpoint = requireNonNull(path);
+        return this;
+    }
+
+    @Override
+    public ChatBatchJob.Builder order(ChatBatchJob.Order order) {
+        this.order = requireNonNull(order);
+        return this;
+    }
+
+    @Override
+    public ChatBatchJob.Builder executor(Executor executor) {
+        this.executor = requireNonNull(executor);
+        return this;
+    }
+
+    @Override
+    public ChatBatchJob.Builder parallelism(int parallelism) {
+        this.parallelism = check(parallelism, parallelism > 0, "parallelism must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public ChatBatchJob.Builder rpm(int rpm) {
+        this.rpm = check(rpm, rpm > 0, "rpm must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public ChatBatchJob.Builder maxRetries(int maxRetries) {
+        this.maxRetries = check(maxRetries, maxRetries >= 0, "maxRetries must be greater than or equal to 0");
+        return this;
+    }
+
+    @Override
+    public ChatBatchJob.Builder backoff(Duration backoff) {
+        this.backoff = requireNonNull(backoff);
+        return this;
+    }
+
+    @Override
+    public ChatBatchJob build() {
+        check(lines, null != lines || null != input, "input is required");
+        check(chatModel, null != chatModel || null != completionModel, "model is required");
+        requireNonNull(output, "output is required");
+        requireNonNull(executor, "executor is required");
+        return new ChatBatchJobImpl(
+                requireNonNull(client, "client is required"),
+                chatModel,
+                completionModel,
+                lines,
+                input,
+                output,
+                null != checkpoint ? checkpoint : output.resolveSibling(output.getFileName() + ".checkpoint"),
+                order,
+                executor,
+                parallelism,
+                rpm > 0 ? new Pacer(rpm, executor) : null,
+                new Retry(maxRetries, backoff, executor)
+        );
+    }
+
+}
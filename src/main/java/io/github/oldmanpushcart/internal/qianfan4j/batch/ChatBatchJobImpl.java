@@ -0,0 +1,331 @@
+package io.github.oldmanpushcart.internal.qianfan4j.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.oldmanpushcart.internal.qianfan4j.util.JacksonUtils;
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.base.algo.Usage;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiException;
+import io.github.oldmanpushcart.qianfan4j.batch.BatchReport;
+import io.github.oldmanpushcart.qianfan4j.batch.ChatBatchJob;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.NotSafeChatResponseException;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+import io.github.oldmanpushcart.qianfan4j.completion.CompletionModel;
+import io.github.oldmanpushcart.qianfan4j.completion.CompletionRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * 批量对话任务实现
+ */
+class ChatBatchJobImpl implements ChatBatchJob {
+
+    private static final ObjectMapper mapper = JacksonUtils.mapper();
+
+    private final QianFanClient client;
+    private final ChatModel chatModel;
+    private final CompletionModel completionModel;
+    private final Stream<String> lines;
+    private final Path input;
+    private final Path output;
+    private final Path checkpoint;
+    private final Order order;
+    private final Executor executor;
+    private final int parallelism;
+    private final Pacer pacer;
+    private final Retry retry;
+
+    ChatBatchJobImpl(QianFanClient client, ChatModel chatModel, CompletionModel completionModel, Stream<String> lines, Path input, Path output, Path checkpoint, Order order, Executor executor, int parallelism, Pacer pacer, Retry retry) {
+        this.client = client;
+        this.chatModel = chatModel;
+        this.completionModel = completionModel;
+        this.lines = lines;
+        this.input = input;
+        this.output = output;
+        this.checkpoint = checkpoint;
+        this.order = order;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.pacer = pacer;
+        this.retry = retry;
+    }
+
+    @Override
+    public CompletableFuture<BatchReport> run() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return execute();
+            } catch (IOException cause) {
+                throw new UncheckedIOException(cause);
+            } catch (InterruptedException cause) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(cause);
+            }
+        }, executor);
+    }
+
+    private Stream<String> openInput() throws IOException {
+        return null != lines ? lines : Files.lines(input, StandardCharsets.UTF_8);
+    }
+
+    private BatchReport execute() throws IOException, InterruptedException {
+        final var restored = Checkpoint.load(checkpoint);
+        final var retries = new LongAdder();
+        try (final var channel = FileChannel.open(output, CREATE, WRITE);
+             final var texts = openInput()) {
+
+            // 丢弃检查点之后未提交的输出
+            channel.truncate(restored.offset());
+            channel.position(restored.offset());
+
+            final var sink = new JsonlSink(channel, restored);
+            final var specs = new SpecIterator(texts.iterator(), restored);
+            new BatchDriver<Spec, Result>(
+                    parallelism,
+                    order == Order.INPUT,
+                    spec -> process(spec, retries),
+                    sink
+            ).drive(specs);
+
+            return new BatchReport(sink.processed, specs.skipped, retries.sum(), sink.tokens);
+        }
+    }
+
+    // 执行请求；暂时性失败重试耗尽时任务失败，服务端拒绝的请求记录为错误
+    private CompletableFuture<Result> process(Spec spec, LongAdder retries) {
+        final JsonNode node;
+        try {
+            node = JacksonUtils.toNode(mapper, spec.text());
+        } catch (RuntimeException cause) {
+            return CompletableFuture.completedFuture(Result.ofError(null, "invalid_request", cause.getMessage()));
+        }
+        final var id = node.get("id");
+        final Supplier<CompletableFuture<Result>> action;
+        try {
+            action = newAction(node, id);
+        } catch (RuntimeException cause) {
+            return CompletableFuture.completedFuture(Result.ofError(id, "invalid_request", cause.getMessage()));
+        }
+        return retry.execute(() -> null == pacer ? action.get() : pacer.pace(action), retries::increment)
+                .handle((result, ex) -> {
+                    if (null == ex) {
+                        return result;
+                    }
+                    final var cause = ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex;
+                    if (cause instanceof ApiException apiEx && !Retry.isTransient(apiEx)) {
+                        return Result.ofError(id, apiEx.ret().code(), apiEx.ret().message());
+                    }
+                    if (cause instanceof NotSafeChatResponseException) {
+                        return Result.ofError(id, "not_safe", cause.getMessage());
+                    }
+                    throw ex instanceof CompletionException completionEx
+                            ? completionEx
+                            : new CompletionException(ex);
+                });
+    }
+
+    // 解析请求行
+    private Supplier<CompletableFuture<Result>> newAction(JsonNode node, JsonNode id) {
+        if (node.has("messages")) {
+            final var builder = ChatRequest.newBuilder()
+                    .model(requireModel(chatModel, "chat"))
+                    .messages(parseMessages(node.get("messages")));
+            node.path("options").fields().forEachRemaining(entry -> builder.option(entry.getKey(), toValue(entry.getValue())));
+            final var request = builder.build();
+            return () -> client.chat(request).async()
+                    .thenApply(response -> Result.of(id, response.content(), response.usage()));
+        }
+        if (node.has("prompt")) {
+            final var builder = CompletionRequest.newBuilder()
+                    .model(requireModel(completionModel, "completion"))
+                    .prompt(node.get("prompt").asText());
+            node.path("options").fields().forEachRemaining(entry -> builder.option(entry.getKey(), toValue(entry.getValue())));
+            final var request = builder.build();
+            return () -> client.completion(request).async()
+                    .thenApply(response -> Result.of(id, response.content(), response.usage()));
+        }
+        throw new IllegalArgumentException("messages or prompt is required");
+    }
+
+    private static <M> M requireModel(M model, String type) {
+        if (null == model) {
+            throw new IllegalArgumentException("%s model is not set".formatted(type));
+        }
+        return model;
+    }
+
+    private static Message[] parseMessages(JsonNode node) {
+        final var messages = new ArrayList<Message>();
+        node.forEach(message -> {
+            final var role = message.path("role").asText();
+            final var content = message.path("content").asText();
+            messages.add(switch (role) {
+                case "user" -> Message.ofUser(content);
+                case "assistant" -> Message.ofAi(content);
+                default -> throw new IllegalArgumentException("unsupported role: %s".formatted(role));
+            });
+        });
+        return messages.toArray(Message[]::new);
+    }
+
+    private static Object toValue(JsonNode node) {
+        return mapper.convertValue(node, Object.class);
+    }
+
+    /**
+     * 请求行
+     *
+     * @param index 请求序号(忽略空行)
+     * @param text  请求JSON
+     */
+    private record Spec(long index, String text) {
+
+    }
+
+    /**
+     * 请求结果
+     *
+     * @param id      请求行中的ID
+     * @param content 应答内容
+     * @param usage   用量
+     * @param code    错误码，成功时为{@code null}
+     * @param message 错误信息
+     */
+    private record Result(JsonNode id, String content, Usage usage, String code, String message) {
+
+        static Result of(JsonNode id, String content, Usage usage) {
+            return new Result(id, content, usage, null, null);
+        }
+
+        static Result ofError(JsonNode id, String code, String message) {
+            return new Result(id, null, null, code, message);
+        }
+
+    }
+
+    /**
+     * 请求行迭代：跳过空行和检查点中已完成的请求
+     */
+    private static class SpecIterator implements Iterator<Spec> {
+
+        private final Iterator<String> texts;
+        private final Checkpoint restored;
+        private long index;
+        private long skipped;
+        private Spec next;
+
+        private SpecIterator(Iterator<String> texts, Checkpoint restored) {
+            this.texts = texts;
+            this.restored = restored;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (null == next && texts.hasNext()) {
+                final var text = texts.next();
+                if (text.isBlank()) {
+                    continue;
+                }
+                final var current = index++;
+                if (restored.isCompleted(current)) {
+                    skipped++;
+                    continue;
+                }
+                next = new Spec(current, text);
+            }
+            return null != next;
+        }
+
+        @Override
+        public Spec next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final var spec = next;
+            next = null;
+            return spec;
+        }
+
+    }
+
+    /**
+     * JSONL输出；记录连续完成的请求数量和之后已经写出的请求序号，用于检查点
+     */
+    private class JsonlSink implements BatchDriver.Sink<Spec, Result> {
+
+        private final FileChannel channel;
+        private final TreeSet<Long> ahead;
+        private long completed;
+        private long processed;
+        private long tokens;
+
+        private JsonlSink(FileChannel channel, Checkpoint restored) {
+            this.channel = channel;
+            this.ahead = new TreeSet<>(restored.ahead());
+            this.completed = restored.completed();
+        }
+
+        @Override
+        public void write(long sequence, Spec spec, Result result) throws IOException {
+            final var node = mapper.createObjectNode();
+            node.put("index", spec.index());
+            if (null != result.id()) {
+                node.set("id", result.id());
+            }
+            if (null == result.code()) {
+                node.put("content", result.content());
+                final var usage = node.putObject("usage");
+                if (null != result.usage()) {
+                    result.usage().items().forEach(item -> usage.put(item.name(), item.cost()));
+                    tokens += result.usage().total();
+                }
+            } else {
+                node.putObject("error")
+                        .put("code", result.code())
+                        .put("message", result.message());
+            }
+
+            final var buffer = ByteBuffer.wrap((mapper.writeValueAsString(node) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            processed++;
+
+            // 推进连续完成的位置
+            if (spec.index() == completed) {
+                completed++;
+                while (ahead.remove(completed)) {
+                    completed++;
+                }
+            } else {
+                ahead.add(spec.index());
+            }
+        }
+
+        @Override
+        public void commit() throws IOException {
+            channel.force(false);
+            new Checkpoint(completed, channel.position(), List.copyOf(ahead)).save(checkpoint);
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+package io.github.oldmanpushcart.internal.qianfan4j.batch;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.oldmanpushcart.internal.qianfan4j.util.JacksonUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * 检查点
+ * <p>先写临时文件再原子替换，任何时刻检查点文件要么是旧的、要么是新的，不会是写了一半的</p>
+ *
+ * @param completed 已完成的输入数量(从头开始连续完成的部分)
+ * @param offset    已写出的结果在输出文件中的结束位置
+ * @param ahead     按完成顺序写出时，已完成的部分之后已经写出的输入编号
+ */
+public record Checkpoint(
+
+        @JsonProperty("completed")
+        long completed,
+
+        @JsonProperty("offset")
+        long offset,
+
+        @JsonProperty("ahead")
+        List<Long> ahead
+
+) {
+
+    private static final ObjectMapper mapper = JacksonUtils.mapper();
+
+    /**
+     * 初始检查点
+     */
+    public static final Checkpoint INITIAL = new Checkpoint(0, 0);
+
+    @JsonCreator
+    public Checkpoint {
+        ahead = null == ahead ? List.of() : List.copyOf(ahead);
+    }
+
+    /**
+     * 构造按输入顺序写出的检查点
+     *
+     * @param completed 已完成的输入数量
+     * @param offset    已完成部分在输出文件中的结束位置
+     */
+    public Checkpoint(long completed, long offset) {
+        this(completed, offset, List.of());
+    }
+
+    /**
+     * 输入是否已完成
+     *
+     * @param index 输入编号
+     * @return TRUE | FALSE
+     */
+    public boolean isCompleted(long index) {
+        return index < completed || ahead.contains(index);
+    }
+
+    /**
+     * 加载检查点
+     *
+     * @param path 检查点文件
+     * @return 检查点，文件不存在时返回{@link #INITIAL}
+     * @throws IOException 读取失败
+     */
+    public static Checkpoint load(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return INITIAL;
+        }
+        return mapper.readValue(path.toFile(), Checkpoint.class);
+    }
+
+    /**
+     * 保存检查点
+     *
+     * @param path 检查点文件
+     * @throws IOException 写入失败
+     */
+    public void save(Path path) throws IOException {
+        final var temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, mapper.writeValueAsBytes(this));
+        Files.move(temp, path, ATOMIC_MOVE, REPLACE_EXISTING);
+    }
+
+}
@@ -0,0 +1,107 @@
+package io.github.oldmanpushcart.internal.qianfan4j.batch;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.batch.EmbeddingBatchJob;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingModel;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+import static java.util.Objects.requireNonNull;
+
+public class EmbeddingBatchJobBuilderImpl implements EmbeddingBatchJob.Builder {
+
+    private QianFanClient client;
+    private EmbeddingModel model;
+    private Stream<String> texts;
+    private Path input;
+    private Path output;
+    private Path checkpoint;
+    private Executor executor;
+    private int parallelism = 4;
+    private int maxRetries = 3;
+    private Duration backoff = Duration.ofSeconds(1);
+
+    @Override
+    public EmbeddingBatchJob.Builder client(QianFanClient client) {
+        this.client = requireNonNull(client);
+        return this;
+    }
+
+    @Override
+    public EmbeddingBatchJob.Builder model(EmbeddingModel model) {
+        this.model = requireNonNull(model);
+        return this;
+    }
+
+    @Override
+    public EmbeddingBatchJob.Builder input(Stream<String> texts) {
+        this.texts = requireNonNull(texts);
+        this.input = null;
+        return this;
+    }
+
+    @Override
+    public EmbeddingBatchJob.Builder input(Path path) {
+        this.input = requireNonNull(path);
+        this.texts = null;
+        return this;
+    }
+
+    @Override
+    public EmbeddingBatchJob.Builder output(Path path) {
+        this.output = requireNonNull(path);
+        return this;
+    }
+
+    @Override
+    public EmbeddingBatchJob.Builder checkpoint(Path path) {
+        this.checkpoint = requireNonNull(path);
+        return this;
+    }
+
+    @Override
+    public EmbeddingBatchJob.Builder executor(Executor executor) {
+        this.executor = requireNonNull(executor);
+        return this;
+    }
+
+    @Override
+    public EmbeddingBatchJob.Builder parallelism(int parallelism) {
+        this.parallelism = check(parallelism, parallelism > 0, "parallelism must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public EmbeddingBatchJob.Builder maxRetries(int maxRetries) {
+        this.maxRetries = check(maxRetries, maxRetries >= 0, "maxRetries must be greater than or equal to 0");
+        return this;
+    }
+
+    @Override
+    public EmbeddingBatchJob.Builder backoff(Duration backoff) {
+        this.backoff = requireNonNull(backoff);
+        return this;
+    }
+
+    @Override
+    public EmbeddingBatchJob build() {
+        check(texts, null != texts || null != input, "input is required");
+        requireNonNull(output, "output is required");
+        return new EmbeddingBatchJobImpl(
+                requireNonNull(client, "client is required"),
+                requireNonNull(model, "model is required"),
+                texts,
+                input,
+                output,
+                null != checkpoint ? checkpoint : output.resolveSibling(output.getFileName() + ".checkpoint"),
+                requireNonNull(executor, "executor is required"),
+                parallelism,
+                new Retry(maxRetries, backoff, executor)
+        );
+    }
+
+}
@@ -0,0 +1,175 @@
+package io.github.oldmanpushcart.internal.qianfan4j.batch;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.batch.BatchReport;
+import io.github.oldmanpushcart.qianfan4j.batch.EmbeddingBatchJob;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingModel;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * 批量向量计算任务实现
+ */
+class EmbeddingBatchJobImpl implements EmbeddingBatchJob {
+
+    private final QianFanClient client;
+    private final EmbeddingModel model;
+    private final Stream<String> texts;
+    private final Path input;
+    private final Path output;
+    private final Path checkpoint;
+    private final Executor executor;
+    private final int parallelism;
+    private final Retry retry;
+
+    EmbeddingBatchJobImpl(QianFanClient client, EmbeddingModel model, Stream<String> texts, Path input, Path output, Path checkpoint, Executor executor, int parallelism, Retry retry) {
+        this.client = client;
+        this.model = model;
+        this.texts = texts;
+        this.input = input;
+        this.output = output;
+        this.checkpoint = checkpoint;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.retry = retry;
+    }
+
+    @Override
+    public CompletableFuture<BatchReport> run() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return execute();
+            } catch (IOException cause) {
+                throw new UncheckedIOException(cause);
+            } catch (InterruptedException cause) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(cause);
+            }
+        }, executor);
+    }
+
+    private Stream<String> openInput() throws IOException {
+        return null != texts ? texts : Files.lines(input, StandardCharsets.UTF_8);
+    }
+
+    private BatchReport execute() throws IOException, InterruptedException {
+        final var restored = Checkpoint.load(checkpoint);
+        final var retries = new LongAdder();
+        try (final var channel = FileChannel.open(output, CREATE, WRITE);
+             final var lines = openInput()) {
+
+            // 丢弃检查点之后未提交的输出
+            channel.truncate(restored.offset());
+            channel.position(restored.offset());
+
+            final var sink = new VectorSink(channel, restored);
+            new BatchDriver<List<String>, EmbeddingResponse>(
+                    parallelism,
+                    batch -> retry.execute(() -> embedding(batch), retries::increment),
+                    sink
+            ).drive(batches(lines.skip(restored.completed()).iterator(), model.batchSize()));
+
+            return new BatchReport(
+                    sink.completed - restored.completed(),
+                    restored.completed(),
+                    retries.sum(),
+                    sink.tokens
+            );
+        }
+    }
+
+    private CompletableFuture<EmbeddingResponse> embedding(List<String> batch) {
+        final var request = EmbeddingRequest.newBuilder()
+                .model(model)
+                .texts(batch)
+                .build();
+        return client.embedding(request).async();
+    }
+
+    // 将文本按批大小分组
+    private static Iterator<List<String>> batches(Iterator<String> texts, int batchSize) {
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return texts.hasNext();
+            }
+
+            @Override
+            public List<String> next() {
+                if (!texts.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final var batch = new ArrayList<String>(batchSize);
+                while (batch.size() < batchSize && texts.hasNext()) {
+                    batch.add(texts.next());
+                }
+                return batch;
+            }
+
+        };
+    }
+
+    /**
+     * 向量输出：{@code [int 维度][float[维度] 向量]}
+     */
+    private class VectorSink implements BatchDriver.Sink<List<String>, EmbeddingResponse> {
+
+        private final FileChannel channel;
+        private long completed;
+        private long tokens;
+
+        private VectorSink(FileChannel channel, Checkpoint restored) {
+            this.channel = channel;
+            this.completed = restored.completed();
+        }
+
+        @Override
+        public void write(long sequence, List<String> batch, EmbeddingResponse response) throws IOException {
+            final var matrix = response.matrix();
+            if (matrix.rows() != batch.size()) {
+                throw new IOException("embedding size mismatch, expect=%d, actual=%d".formatted(batch.size(), matrix.rows()));
+            }
+            final var buffer = ByteBuffer.allocate(Integer.BYTES + matrix.dimension() * Float.BYTES);
+            for (int row = 0; row < matrix.rows(); row++) {
+                buffer.clear();
+                buffer.putInt(matrix.dimension());
+                buffer.asFloatBuffer().put(matrix.row(row));
+                buffer.rewind();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            completed += batch.size();
+            tokens += null == response.usage() ? 0 : response.usage().total();
+        }
+
+        @Override
+        public void commit() throws IOException {
+            channel.force(false);
+            new Checkpoint(completed, channel.position()).save(checkpoint);
+        }
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package io.github.oldmanpushcart.internal.qianfan4j.batch;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 请求节拍
+ * <p>按每分钟请求数将请求的发出时刻均匀排开，不允许突发；到达过早的请求延迟到分配的时刻再发出</p>
+ */
+public class Pacer {
+
+    private final long intervalNanos;
+    private final Executor executor;
+    private final AtomicLong next = new AtomicLong(System.nanoTime());
+
+    /**
+     * 构造请求节拍
+     *
+     * @param rpm      每分钟请求数
+     * @param executor 线程池
+     */
+    public Pacer(int rpm, Executor executor) {
+        this.intervalNanos = Duration.ofMinutes(1).toNanos() / rpm;
+        this.executor = executor;
+    }
+
+    /**
+     * 在分配的时刻执行操作
+     *
+     * @param action 操作
+     * @param <T>    结果类型
+     * @return 操作结果
+     */
+    public <T> CompletableFuture<T> pace(Supplier<CompletableFuture<T>> action) {
+        final var now = System.nanoTime();
+        final var slot = next.updateAndGet(previous -> Math.max(previous, now) + intervalNanos) - intervalNanos;
+        final var delay = slot - now;
+        if (delay <= 0) {
+            return action.get();
+        }
+        final var delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, executor);
+        return CompletableFuture.supplyAsync(() -> null, delayed)
+                .thenCompose(v -> action.get());
+    }
+
+}
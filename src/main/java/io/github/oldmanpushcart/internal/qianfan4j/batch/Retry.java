@@ -0,0 +1,84 @@
+package io.github.oldmanpushcart.internal.qianfan4j.batch;
+
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 重试
+ * <p>只重试暂时性的失败，重试间隔按指数退避</p>
+ */
+public class Retry {
+
+    // 暂时性的错误码：服务暂不可用、集群超限、QPS超限、服务内部错误、RPM/TPM超限
+    private static final Set<String> transientCodes = Set.of("2", "4", "18", "336100", "336501", "336502");
+
+    private final int maxRetries;
+    private final Duration backoff;
+    private final Executor executor;
+
+    /**
+     * 构造重试
+     *
+     * @param maxRetries 最大重试次数
+     * @param backoff    首次重试间隔，之后每次翻倍
+     * @param executor   线程池
+     */
+    public Retry(int maxRetries, Duration backoff, Executor executor) {
+        this.maxRetries = maxRetries;
+        this.backoff = backoff;
+        this.executor = executor;
+    }
+
+    /**
+     * 是否暂时性的失败
+     *
+     * @param ex 异常
+     * @return TRUE | FALSE
+     */
+    public static boolean isTransient(Throwable ex) {
+        final var cause = ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex;
+        if (cause instanceof ApiException apiEx) {
+            return transientCodes.contains(apiEx.ret().code());
+        }
+        return cause instanceof IOException;
+    }
+
+    /**
+     * 执行并在暂时性失败时重试
+     *
+     * @param action  操作
+     * @param onRetry 每次重试前的回调
+     * @param <T>     结果类型
+     * @return 操作结果
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> action, Runnable onRetry) {
+        return execute(action, onRetry, 0);
+    }
+
+    private <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> action, Runnable onRetry, int attempt) {
+        return action.get()
+                .handle((result, ex) -> {
+                    if (null == ex) {
+                        return CompletableFuture.completedFuture(result);
+                    }
+                    if (attempt >= maxRetries || !isTransient(ex)) {
+                        return CompletableFuture.<T>failedFuture(ex);
+                    }
+                    onRetry.run();
+                    final var delay = backoff.toMillis() << Math.min(attempt, 16);
+                    final var delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor);
+                    return CompletableFuture.supplyAsync(() -> null, delayed)
+                            .thenCompose(v -> execute(action, onRetry, attempt + 1));
+                })
+                .thenCompose(future -> future);
+    }
+
+}
@@ -0,0 +1,46 @@
+package io.github.oldmanpushcart.internal.qianfan4j.cache;
+
+import io.github.oldmanpushcart.qianfan4j.cache.EmbeddingCache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+import static java.util.Objects.requireNonNull;
+
+public class EmbeddingCacheBuilderImpl implements EmbeddingCache.Builder {
+
+    private int capacity = 10000;
+    private Path path;
+    private long fileBytes = MappedEmbeddingStore.MAX_FILE_BYTES;
+
+    @Override
+    public EmbeddingCache.Builder capacity(int capacity) {
+        this.capacity = check(capacity, capacity > 0, "capacity must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public EmbeddingCache.Builder path(Path path) {
+        this.path = requireNonNull(path);
+        return this;
+    }
+
+    @Override
+    public EmbeddingCache.Builder fileBytes(long fileBytes) {
+        this.fileBytes = check(fileBytes, fileBytes >= MappedEmbeddingStore.MIN_FILE_BYTES && fileBytes <= MappedEmbeddingStore.MAX_FILE_BYTES,
+                "fileBytes must be in range [%d, %d]".formatted(MappedEmbeddingStore.MIN_FILE_BYTES, MappedEmbeddingStore.MAX_FILE_BYTES));
+        return this;
+    }
+
+    @Override
+    public EmbeddingCache build() {
+        try {
+            return new EmbeddingCacheImpl(capacity, null == path ? null : new MappedEmbeddingStore(path, fileBytes));
+        } catch (IOException cause) {
+            throw new UncheckedIOException("open embedding cache failed: %s".formatted(path), cause);
+        }
+    }
+
+}
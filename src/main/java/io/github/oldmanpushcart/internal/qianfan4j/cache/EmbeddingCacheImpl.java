@@ -0,0 +1,180 @@
+package io.github.oldmanpushcart.internal.qianfan4j.cache;
+
+import io.github.oldmanpushcart.internal.qianfan4j.base.api.ApiInvoker;
+import io.github.oldmanpushcart.internal.qianfan4j.embedding.EmbeddingMatrixImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.embedding.EmbeddingResponseImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.util.LruCache;
+import io.github.oldmanpushcart.internal.qianfan4j.util.StringUtils;
+import io.github.oldmanpushcart.qianfan4j.base.algo.Usage;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.qianfan4j.base.api.Ret;
+import io.github.oldmanpushcart.qianfan4j.cache.CacheStats;
+import io.github.oldmanpushcart.qianfan4j.cache.EmbeddingCache;
+import io.github.oldmanpushcart.qianfan4j.embedding.Embedding;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+import static io.github.oldmanpushcart.qianfan4j.Constants.LOGGER_NAME;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * 向量缓存实现
+ * <p>写入时同时写内存和持久化文件，读取时先读内存，未命中再读持久化文件并回填内存。</p>
+ * <p>缓存中的向量数组不对外暴露：写入时复制，应答由缓存的向量复制到新的矩阵中，调用方就地修改向量不会影响缓存</p>
+ */
+public class EmbeddingCacheImpl implements EmbeddingCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final LruCache<String, float[]> memory;
+    private final MappedEmbeddingStore store;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    EmbeddingCacheImpl(int capacity, MappedEmbeddingStore store) {
+        this.memory = new LruCache<>(capacity, null);
+        this.store = store;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.get(), misses.get(), null == store ? memory.size() : store.size());
+    }
+
+    @Override
+    public void close() {
+        if (null != store) {
+            try {
+                store.close();
+            } catch (IOException cause) {
+                throw new UncheckedIOException(cause);
+            }
+        }
+    }
+
+    /**
+     * 在API调用器之前叠加向量缓存
+     *
+     * @param delegate 被装饰的API调用器
+     * @return 带向量缓存的API调用器
+     */
+    public ApiInvoker decorate(ApiInvoker delegate) {
+        return new ApiInvoker() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public <R extends ApiResponse> CompletableFuture<R> execute(ApiRequest<R> request, BinaryOperator<R> accumulator, Consumer<R> consumer) {
+                return request instanceof EmbeddingRequest embeddingRequest
+                        ? (CompletableFuture<R>) cachingExecute(delegate, embeddingRequest, (Consumer<EmbeddingResponse>) consumer)
+                        : delegate.execute(request, accumulator, consumer);
+            }
+        };
+    }
+
+    private static String key(EmbeddingRequest request, String text) {
+        return StringUtils.sha256("%s\n%s".formatted(request.model().name(), text));
+    }
+
+    private float[] get(String key) {
+        final var vector = memory.get(key);
+        if (null != vector || null == store) {
+            return vector;
+        }
+        final var stored = store.get(key);
+        if (null != stored) {
+            memory.put(key, stored);
+        }
+        return stored;
+    }
+
+    private void put(String key, float[] vector) {
+        memory.put(key, vector.clone());
+        if (null != store) {
+            try {
+                if (!store.put(key, vector)) {
+                    logger.warn("{}/put skipped, file is full!", store);
+                }
+            } catch (IOException cause) {
+                logger.warn("{}/put failed!", store, cause);
+            }
+        }
+    }
+
+    private CompletableFuture<EmbeddingResponse> cachingExecute(ApiInvoker delegate, EmbeddingRequest request, Consumer<EmbeddingResponse> consumer) {
+
+        // 逐个文本查找缓存，未命中的文本按键去重
+        final var texts = request.texts();
+        final var keys = new String[texts.size()];
+        final var vectors = new float[texts.size()][];
+        final var missing = new LinkedHashMap<String, String>();
+        var hit = 0;
+        for (int index = 0; index < texts.size(); index++) {
+            keys[index] = key(request, texts.get(index));
+            vectors[index] = get(keys[index]);
+            if (null == vectors[index]) {
+                missing.putIfAbsent(keys[index], texts.get(index));
+            } else {
+                hit++;
+            }
+        }
+        hits.addAndGet(hit);
+        misses.addAndGet(texts.size() - hit);
+
+        // 全部命中
+        if (missing.isEmpty()) {
+            final var response = merge(null, Usage.ofEmpty(), keys, vectors);
+            consumer.accept(response);
+            return completedFuture(response);
+        }
+
+        // 只计算未命中的文本
+        final var missingKeys = List.copyOf(missing.keySet());
+        final var missingRequest = EmbeddingRequest.newBuilder(request)
+                .texts(true, List.copyOf(missing.values()))
+                .build();
+        return delegate.execute(missingRequest, (r1, r2) -> r2, r -> {
+                })
+                .thenApply(missingResponse -> {
+                    final var computed = new HashMap<String, float[]>();
+                    missingResponse.embeddings().forEach(embedding -> {
+                        final var key = missingKeys.get(embedding.index());
+                        computed.put(key, embedding.vector());
+                        put(key, embedding.vector());
+                    });
+                    for (int index = 0; index < keys.length; index++) {
+                        if (null == vectors[index]) {
+                            vectors[index] = computed.get(keys[index]);
+                        }
+                    }
+                    final var response = merge(missingResponse.uuid(), missingResponse.usage(), keys, vectors);
+                    consumer.accept(response);
+                    return response;
+                });
+    }
+
+    // 按原始顺序合并为应答，向量复制到应答的矩阵中
+    private static EmbeddingResponse merge(String uuid, Usage usage, String[] keys, float[][] vectors) {
+        final var embeddings = new ArrayList<Embedding>(keys.length);
+        for (int index = 0; index < keys.length; index++) {
+            if (null == vectors[index]) {
+                throw new IllegalStateException("embedding missing at index: %d".formatted(index));
+            }
+            embeddings.add(new Embedding(index, vectors[index]));
+        }
+        return new EmbeddingResponseImpl(uuid, Ret.of(null, null), usage, EmbeddingMatrixImpl.of(embeddings));
+    }
+
+}
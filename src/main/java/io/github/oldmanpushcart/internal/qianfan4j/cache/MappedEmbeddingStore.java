@@ -0,0 +1,178 @@
+package io.github.oldmanpushcart.internal.qianfan4j.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * 内存映射的向量存储
+ * <p>
+ * 文件格式：
+ * <pre>
+ * header : [int magic][int version][long end]
+ * record : [byte[32] key][int dimension][float[dimension] vector]
+ * </pre>
+ * 记录只追加不修改，写完记录后才推进头部的{@code end}，因此进程异常退出时最多丢失最后一条未完成的记录。
+ * 打开文件时顺序扫描全部记录，在内存中重建键到偏移量的哈希索引。文件大小不超过设定的上限(最大2GB)，写满后不再追加。
+ * </p>
+ */
+class MappedEmbeddingStore implements Closeable {
+
+    private static final int MAGIC = 0x51464543;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int KEY_BYTES = 32;
+
+    /**
+     * 文件大小上限
+     */
+    static final long MAX_FILE_BYTES = Integer.MAX_VALUE;
+
+    /**
+     * 最小的文件大小上限：文件头
+     */
+    static final long MIN_FILE_BYTES = HEADER_BYTES;
+    private static final int INITIAL_BYTES = 1 << 20;
+    private static final HexFormat hex = HexFormat.of();
+
+    private final Path path;
+    private final long limit;
+    private final FileChannel channel;
+    private final Map<String, Integer> index = new HashMap<>();
+    private MappedByteBuffer buffer;
+    private int end;
+
+    /**
+     * 打开向量存储，文件不存在时创建
+     *
+     * @param path  文件路径
+     * @param limit 文件大小上限，已有文件超过上限时不再追加
+     * @throws IOException 打开失败或文件格式不正确
+     */
+    MappedEmbeddingStore(Path path, long limit) throws IOException {
+        this.path = path;
+        this.limit = limit;
+        this.channel = FileChannel.open(path, CREATE, READ, WRITE);
+        try {
+            if (channel.size() == 0) {
+                map(Math.min(INITIAL_BYTES, limit));
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putLong(8, HEADER_BYTES);
+                end = HEADER_BYTES;
+            } else {
+                map(channel.size());
+                if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                    throw new IOException("illegal embedding cache file: %s".formatted(path));
+                }
+                end = (int) Math.min(buffer.getLong(8), buffer.capacity());
+                rebuild();
+            }
+        } catch (IOException cause) {
+            channel.close();
+            throw cause;
+        }
+    }
+
+    private void map(long size) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    // 扫描记录重建索引，遇到不完整的记录时截断
+    private void rebuild() {
+        final var key = new byte[KEY_BYTES];
+        var position = HEADER_BYTES;
+        while (position + KEY_BYTES + Integer.BYTES <= end) {
+            buffer.get(position, key);
+            final var dimension = buffer.getInt(position + KEY_BYTES);
+            final var next = (long) position + recordBytes(dimension);
+            if (dimension < 0 || next > end) {
+                break;
+            }
+            index.put(hex.formatHex(key), position);
+            position = (int) next;
+        }
+        end = position;
+    }
+
+    private static long recordBytes(int dimension) {
+        return KEY_BYTES + Integer.BYTES + (long) dimension * Float.BYTES;
+    }
+
+    /**
+     * 获取向量
+     *
+     * @param key 键(SHA-256摘要的16进制)
+     * @return 向量，不存在时返回{@code null}
+     */
+    synchronized float[] get(String key) {
+        final var position = index.get(key);
+        if (null == position) {
+            return null;
+        }
+        final var dimension = buffer.getInt(position + KEY_BYTES);
+        final var vector = new float[dimension];
+        buffer.slice(position + KEY_BYTES + Integer.BYTES, dimension * Float.BYTES)
+                .asFloatBuffer()
+                .get(vector);
+        return vector;
+    }
+
+    /**
+     * 追加向量；已存在时忽略
+     *
+     * @param key    键(SHA-256摘要的16进制)
+     * @param vector 向量
+     * @return 是否写入成功；写入后将超过文件大小上限时返回{@code false}
+     * @throws IOException 扩展文件失败
+     */
+    synchronized boolean put(String key, float[] vector) throws IOException {
+        if (index.containsKey(key)) {
+            return true;
+        }
+        final var required = end + recordBytes(vector.length);
+        if (required > limit) {
+            return false;
+        }
+        if (required > buffer.capacity()) {
+            map(Math.min(Math.max(required, (long) buffer.capacity() << 1), limit));
+        }
+        buffer.put(end, hex.parseHex(key));
+        buffer.putInt(end + KEY_BYTES, vector.length);
+        buffer.slice(end + KEY_BYTES + Integer.BYTES, vector.length * Float.BYTES)
+                .asFloatBuffer()
+                .put(vector);
+        index.put(key, end);
+        end = (int) required;
+        buffer.putLong(8, end);
+        return true;
+    }
+
+    /**
+     * 向量数量
+     *
+     * @return 向量数量
+     */
+    synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "qianfan://cache/embedding/%s".formatted(path);
+    }
+
+}
@@ -0,0 +1,61 @@
+package io.github.oldmanpushcart.internal.qianfan4j.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.oldmanpushcart.internal.qianfan4j.util.JacksonUtils;
+import io.github.oldmanpushcart.internal.qianfan4j.util.StringUtils;
+import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 请求键
+ * <p>根据请求规范化序列化后的内容生成稳定的摘要，语义相同的请求得到相同的键</p>
+ */
+public class RequestKeys {
+
+    private static final ObjectMapper mapper = JacksonUtils.mapper();
+
+    // 不影响应答内容的字段
+    private static final List<String> ignores = List.of("stream", "user_id");
+
+    /**
+     * 生成请求键
+     *
+     * @param request 算法请求
+     * @return 请求键
+     */
+    public static String of(AlgoRequest<?, ?> request) {
+        return digest(request, node -> {
+        });
+    }
+
+    /**
+     * 生成对话上下文键
+     * <p>与{@link #of(AlgoRequest)}相同，但不包含最后一条消息；用于区分最后一条消息所处的上下文</p>
+     *
+     * @param request 对话请求
+     * @return 对话上下文键
+     */
+    public static String ofContext(ChatRequest request) {
+        return digest(request, node -> {
+            if (node.get("messages") instanceof ArrayNode messages && !messages.isEmpty()) {
+                messages.remove(messages.size() - 1);
+            }
+        });
+    }
+
+    private static String digest(AlgoRequest<?, ?> request, Consumer<ObjectNode> customizer) {
+        final var node = mapper.valueToTree(request);
+        if (node instanceof ObjectNode objectNode) {
+            objectNode.remove(ignores);
+            customizer.accept(objectNode);
+        }
+        final var canonical = JacksonUtils.toJson(mapper, JacksonUtils.canonical(mapper, node));
+        return StringUtils.sha256("%s\n%s".formatted(request.model().remote(), canonical));
+    }
+
+}
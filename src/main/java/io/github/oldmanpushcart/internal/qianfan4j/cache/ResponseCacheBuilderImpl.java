@@ -0,0 +1,39 @@
+package io.github.oldmanpushcart.internal.qianfan4j.cache;
+
+import io.github.oldmanpushcart.qianfan4j.cache.ResponseCache;
+
+import java.time.Duration;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+import static java.util.Objects.requireNonNull;
+
+public class ResponseCacheBuilderImpl implements ResponseCache.Builder {
+
+    private int capacity = 1024;
+    private Duration expire = Duration.ofMinutes(10);
+    private float maxTemperature = ResponseCacheImpl.DEFAULT_MAX_TEMPERATURE;
+
+    @Override
+    public ResponseCache.Builder capacity(int capacity) {
+        this.capacity = check(capacity, capacity > 0, "capacity must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public ResponseCache.Builder expire(Duration expire) {
+        this.expire = requireNonNull(expire);
+        return this;
+    }
+
+    @Override
+    public ResponseCache.Builder maxTemperature(float maxTemperature) {
+        this.maxTemperature = check(maxTemperature, maxTemperature >= 0, "maxTemperature must be greater than or equal to 0");
+        return this;
+    }
+
+    @Override
+    public ResponseCache build() {
+        return new ResponseCacheImpl(capacity, expire, maxTemperature);
+    }
+
+}
@@ -0,0 +1,131 @@
+package io.github.oldmanpushcart.internal.qianfan4j.cache;
+
+import io.github.oldmanpushcart.internal.qianfan4j.base.api.ApiInvoker;
+import io.github.oldmanpushcart.internal.qianfan4j.util.LruCache;
+import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoOptions;
+import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoRequest;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiOptions;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.qianfan4j.cache.CacheStats;
+import io.github.oldmanpushcart.qianfan4j.cache.ResponseCache;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.completion.CompletionRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * 应答缓存实现
+ */
+public class ResponseCacheImpl implements ResponseCache {
+
+    // 服务端默认的TEMPERATURE
+    private static final float DEFAULT_TEMPERATURE = 0.8f;
+
+    // 默认只缓存接近贪心解码的请求，其余请求保留随机性
+    static final float DEFAULT_MAX_TEMPERATURE = 0.1f;
+
+    private final LruCache<String, Entry> cache;
+    private final float maxTemperature;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    ResponseCacheImpl(int capacity, Duration expire, float maxTemperature) {
+        this.cache = new LruCache<>(capacity, expire);
+        this.maxTemperature = maxTemperature;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.get(), misses.get(), cache.size());
+    }
+
+    @Override
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * 在API调用器之前叠加缓存
+     *
+     * @param delegate 被装饰的API调用器
+     * @return 带缓存的API调用器
+     */
+    public ApiInvoker decorate(ApiInvoker delegate) {
+        return new ApiInvoker() {
+            @Override
+            public <R extends ApiResponse> CompletableFuture<R> execute(ApiRequest<R> request, BinaryOperator<R> accumulator, Consumer<R> consumer) {
+                return isCacheable(request, maxTemperature)
+                        ? cachingExecute(delegate, (AlgoRequest<?, ?>) request, accumulator, consumer)
+                        : delegate.execute(request, accumulator, consumer);
+            }
+        };
+    }
+
+    // 只缓存对话和续写，且随机程度在允许范围内的请求
+    static boolean isCacheable(ApiRequest<?> request, float maxTemperature) {
+        if (!(request instanceof ChatRequest) && !(request instanceof CompletionRequest)) {
+            return false;
+        }
+        final var temperature = request.option().get(AlgoOptions.TEMPERATURE) instanceof Float value
+                ? value
+                : DEFAULT_TEMPERATURE;
+        return temperature <= maxTemperature;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R extends ApiResponse> CompletableFuture<R> cachingExecute(ApiInvoker delegate, AlgoRequest<?, ?> request, BinaryOperator<R> accumulator, Consumer<R> consumer) {
+        final var key = RequestKeys.of(request);
+        final var isStream = request.option().has(ApiOptions.IS_STREAM, true);
+
+        // 命中缓存：重放应答
+        final var existed = cache.get(key);
+        if (null != existed) {
+            hits.incrementAndGet();
+            if (isStream) {
+                existed.chunks().forEach(chunk -> consumer.accept((R) chunk));
+            } else {
+                consumer.accept((R) existed.response());
+            }
+            return completedFuture((R) existed.response());
+        }
+
+        // 未命中：执行请求并记录消费到的分片
+        misses.incrementAndGet();
+        final var chunks = new ArrayList<ApiResponse>();
+        return delegate.execute((ApiRequest<R>) request, accumulator, chunk -> {
+                    synchronized (chunks) {
+                        chunks.add(chunk);
+                    }
+                    consumer.accept(chunk);
+                })
+                .thenApply(response -> {
+                    synchronized (chunks) {
+                        cache.put(key, new Entry(
+                                isStream ? List.copyOf(chunks) : List.of(response),
+                                response
+                        ));
+                    }
+                    return response;
+                });
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param chunks   流式分片
+     * @param response 最终应答
+     */
+    private record Entry(List<ApiResponse> chunks, ApiResponse response) {
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package io.github.oldmanpushcart.internal.qianfan4j.cache;
+
+import io.github.oldmanpushcart.qianfan4j.cache.SemanticCache;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingModel;
+
+import java.time.Duration;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+import static java.util.Objects.requireNonNull;
+
+public class SemanticCacheBuilderImpl implements SemanticCache.Builder {
+
+    private EmbeddingModel model;
+    private float threshold = 0.95f;
+    private int capacity = 1024;
+    private Duration expire = Duration.ofMinutes(10);
+    private float maxTemperature = ResponseCacheImpl.DEFAULT_MAX_TEMPERATURE;
+
+    @Override
+    public SemanticCache.Builder model(EmbeddingModel model) {
+        this.model = requireNonNull(model);
+        return this;
+    }
+
+    @Override
+    public SemanticCache.Builder threshold(float threshold) {
+        this.threshold = check(threshold, threshold > 0.0f && threshold <= 1.0f, "threshold must be in range (0.0, 1.0]");
+        return this;
+    }
+
+    @Override
+    public SemanticCache.Builder capacity(int capacity) {
+        this.capacity = check(capacity, capacity > 0 && capacity <= SemanticCacheImpl.MAX_CAPACITY,
+                "capacity must be in range (0, %d]".formatted(SemanticCacheImpl.MAX_CAPACITY));
+        return this;
+    }
+
+    @Override
+    public SemanticCache.Builder expire(Duration expire) {
+        this.expire = requireNonNull(expire);
+        return this;
+    }
+
+    @Override
+    public SemanticCache.Builder maxTemperature(float maxTemperature) {
+        this.maxTemperature = check(maxTemperature, maxTemperature >= 0, "maxTemperature must be greater than or equal to 0");
+        return this;
+    }
+
+    @Override
+    public SemanticCache build() {
+        return new SemanticCacheImpl(requireNonNull(model, "model is required"), threshold, capacity, expire, maxTemperature);
+    }
+
+}
@@ -0,0 +1,281 @@
+package io.github.oldmanpushcart.internal.qianfan4j.cache;
+
+import io.github.oldmanpushcart.internal.qianfan4j.base.api.ApiInvoker;
+import io.github.oldmanpushcart.internal.qianfan4j.vector.Kernels;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.qianfan4j.cache.SemanticCache;
+import io.github.oldmanpushcart.qianfan4j.cache.SemanticCacheStats;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatResponse;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingModel;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+import static io.github.oldmanpushcart.qianfan4j.Constants.LOGGER_NAME;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * 语义缓存实现
+ * <p>
+ * 向量以归一化后的形式保存，内积即为余弦相似度。应答按上下文分组，查找只线性扫描相同上下文的分组，
+ * 每次查找的开销为O(分组大小×维度)，且分组大小不超过容量上限{@link #MAX_CAPACITY}：
+ * 8192条1024维的向量约为八百万次乘加(毫秒级)，相对于一次对话可以忽略。
+ * </p>
+ * <p>
+ * 不使用{@link io.github.oldmanpushcart.qianfan4j.vector.HnswIndex}：索引不支持删除，
+ * 而缓存需要按写入顺序淘汰和过期，并且只在相同上下文中比较；在上限以内精确扫描也没有近似查找的召回损失。
+ * </p>
+ */
+public class SemanticCacheImpl implements SemanticCache {
+
+    /**
+     * 容量上限，限制每次查找的扫描开销
+     */
+    static final int MAX_CAPACITY = 8192;
+
+    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+    private static final ArrayDeque<Entry> EMPTY = new ArrayDeque<>(0);
+
+    private final EmbeddingModel model;
+    private final float threshold;
+    private final int capacity;
+    private final long expireNanos;
+    private final float maxTemperature;
+
+    // 按写入顺序排列，队首最早写入；用于淘汰
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+    // 按上下文分组，组内同样按写入顺序排列；用于查找
+    private final Map<String, ArrayDeque<Entry>> contexts = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong compared = new AtomicLong();
+    private final DoubleAdder hitSimilarity = new DoubleAdder();
+    private final DoubleAdder similarity = new DoubleAdder();
+
+    SemanticCacheImpl(EmbeddingModel model, float threshold, int capacity, Duration expire, float maxTemperature) {
+        this.model = model;
+        this.threshold = threshold;
+        this.capacity = capacity;
+        this.expireNanos = expire.toNanos();
+        this.maxTemperature = maxTemperature;
+    }
+
+    @Override
+    public SemanticCacheStats stats() {
+        final var hitCount = hits.get();
+        final var comparedCount = compared.get();
+        return new SemanticCacheStats(
+                hitCount,
+                misses.get(),
+                size(),
+                hitCount == 0 ? 0d : hitSimilarity.sum() / hitCount,
+                comparedCount == 0 ? 0d : similarity.sum() / comparedCount
+        );
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            contexts.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 在API调用器之前叠加语义缓存
+     *
+     * @param delegate 被装饰的API调用器，同时用于向量计算
+     * @return 带语义缓存的API调用器
+     */
+    public ApiInvoker decorate(ApiInvoker delegate) {
+        return new ApiInvoker() {
+            @Override
+            public <R extends ApiResponse> CompletableFuture<R> execute(ApiRequest<R> request, BinaryOperator<R> accumulator, Consumer<R> consumer) {
+                return request instanceof ChatRequest chatRequest && isCacheable(chatRequest, maxTemperature)
+                        ? cachingExecute(delegate, chatRequest, accumulator, consumer)
+                        : delegate.execute(request, accumulator, consumer);
+            }
+        };
+    }
+
+    // 只缓存不带函数、以用户消息结尾、且随机程度在允许范围内的对话；随机程度的规则与应答缓存相同
+    private static boolean isCacheable(ChatRequest request, float maxTemperature) {
+        final var messages = request.messages();
+        return ResponseCacheImpl.isCacheable(request, maxTemperature)
+                && request.functions().isEmpty()
+                && !messages.isEmpty()
+                && messages.get(messages.size() - 1).role() == Message.Role.USER;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R extends ApiResponse> CompletableFuture<R> cachingExecute(ApiInvoker delegate, ChatRequest request, BinaryOperator<R> accumulator, Consumer<R> consumer) {
+        final var messages = request.messages();
+        final var text = messages.get(messages.size() - 1).content();
+        final var context = RequestKeys.ofContext(request);
+        return embedding(delegate, text)
+                .thenCompose(vector -> {
+
+                    // 向量计算失败，直接放行
+                    if (null == vector) {
+                        return delegate.execute((ApiRequest<R>) request, accumulator, consumer);
+                    }
+
+                    // 命中缓存：返回缓存的应答
+                    final var matched = search(context, vector);
+                    if (null != matched) {
+                        consumer.accept((R) matched);
+                        return completedFuture((R) matched);
+                    }
+
+                    // 未命中：执行请求，只缓存安全的文本应答
+                    return delegate.execute((ApiRequest<R>) request, accumulator, consumer)
+                            .thenApply(response -> {
+                                if (response instanceof ChatResponse chatResponse
+                                        && chatResponse.isSafe()
+                                        && !chatResponse.isFunctionCall()) {
+                                    put(new Entry(context, vector, chatResponse, System.nanoTime()));
+                                }
+                                return response;
+                            });
+
+                });
+    }
+
+    // 计算归一化向量，失败时返回null
+    private CompletableFuture<float[]> embedding(ApiInvoker delegate, String text) {
+        final var request = EmbeddingRequest.newBuilder()
+                .model(model)
+                .texts(text)
+                .build();
+        return delegate.execute(request, (r1, r2) -> r2, r -> {
+                })
+                .thenApply(response -> normalize(response.embeddings().get(0).vector()))
+                .exceptionally(ex -> {
+                    logger.warn("qianfan://cache/semantic embedding failed, bypass cache!", ex);
+                    return null;
+                });
+    }
+
+    private static float[] normalize(float[] vector) {
+        final var norm = Math.sqrt(Kernels.dot(vector, 0, vector, 0, vector.length));
+        final var normalized = new float[vector.length];
+        if (norm > 0d) {
+            for (int i = 0; i < vector.length; i++) {
+                normalized[i] = (float) (vector[i] / norm);
+            }
+        }
+        return normalized;
+    }
+
+    // 维度不同(切换过模型)的向量不可比较
+    private static float dot(float[] a, float[] b) {
+        return a.length == b.length
+                ? Kernels.dot(a, 0, b, 0, a.length)
+                : 0f;
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.created() >= expireNanos;
+    }
+
+    // 在相同上下文中查找最相似的应答，并记录统计
+    private ChatResponse search(String context, float[] vector) {
+        Entry best = null;
+        var bestScore = -1f;
+        lock.readLock().lock();
+        try {
+            final var group = contexts.getOrDefault(context, EMPTY);
+            final var now = System.nanoTime();
+            for (final var entry : group) {
+                if (isExpired(entry, now)) {
+                    continue;
+                }
+                final var score = dot(entry.vector(), vector);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = entry;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (null != best) {
+            compared.incrementAndGet();
+            similarity.add(bestScore);
+        }
+        if (null != best && bestScore >= threshold) {
+            hits.incrementAndGet();
+            hitSimilarity.add(bestScore);
+            return best.response();
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private void put(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            final var now = System.nanoTime();
+            while (!entries.isEmpty() && (entries.size() >= capacity || isExpired(entries.peekFirst(), now))) {
+                evict(entries.pollFirst());
+            }
+            entries.addLast(entry);
+            contexts.computeIfAbsent(entry.context(), key -> new ArrayDeque<>()).addLast(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 最早写入的条目同时是其分组的队首
+    private void evict(Entry entry) {
+        final var group = contexts.get(entry.context());
+        group.pollFirst();
+        if (group.isEmpty()) {
+            contexts.remove(entry.context());
+        }
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param context  上下文键
+     * @param vector   归一化后的问题向量
+     * @param response 对话应答
+     * @param created  写入时间(纳秒)
+     */
+    private record Entry(String context, float[] vector, ChatResponse response, long created) {
+
+    }
+
+}
@@ -0,0 +1,22 @@
+package io.github.oldmanpushcart.internal.qianfan4j.cache;
+
+import io.github.oldmanpushcart.qianfan4j.cache.SingleFlight;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+
+public class SingleFlightBuilderImpl implements SingleFlight.Builder {
+
+    private float maxTemperature = ResponseCacheImpl.DEFAULT_MAX_TEMPERATURE;
+
+    @Override
+    public SingleFlight.Builder maxTemperature(float maxTemperature) {
+        this.maxTemperature = check(maxTemperature, maxTemperature >= 0, "maxTemperature must be greater than or equal to 0");
+        return this;
+    }
+
+    @Override
+    public SingleFlight build() {
+        return new SingleFlightImpl(maxTemperature);
+    }
+
+}
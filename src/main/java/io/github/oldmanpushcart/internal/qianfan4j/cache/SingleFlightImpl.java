@@ -0,0 +1,270 @@
+package io.github.oldmanpushcart.internal.qianfan4j.cache;
+
+import io.github.oldmanpushcart.internal.qianfan4j.base.api.ApiInvoker;
+import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoRequest;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiOptions;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.qianfan4j.cache.CacheStats;
+import io.github.oldmanpushcart.qianfan4j.cache.SingleFlight;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.cache.ResponseCacheImpl.isCacheable;
+
+/**
+ * 相同请求合并实现
+ * <p>
+ * 第一个请求照常发出，执行期间收到的分片记录在{@link Flight}中；相同的请求到达时先重放已记录的分片，再登记为跟随者接收之后的分片。
+ * 分片和结果在{@link Flight}的锁内按顺序放入跟随者各自的队列，由执行器依次送达：跟随者的消费器不在被跟随请求的线程上执行，
+ * 收到的分片也不会乱序。跟随者的消费器抛出异常只结束该跟随者。
+ * 被跟随请求的消费器抛出异常时只结束被跟随的请求：仍有跟随者时底层请求继续执行直到完成，没有跟随者时随之中止。
+ * </p>
+ */
+public class SingleFlightImpl implements SingleFlight {
+
+    private final float maxTemperature;
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    SingleFlightImpl(float maxTemperature) {
+        this.maxTemperature = maxTemperature;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.get(), misses.get(), flights.size());
+    }
+
+    /**
+     * 在API调用器之前叠加相同请求合并
+     *
+     * @param delegate 被装饰的API调用器
+     * @param executor 向跟随者送达应答的执行器
+     * @return 带相同请求合并的API调用器
+     */
+    public ApiInvoker decorate(ApiInvoker delegate, Executor executor) {
+        return new ApiInvoker() {
+            @Override
+            public <R extends ApiResponse> CompletableFuture<R> execute(ApiRequest<R> request, BinaryOperator<R> accumulator, Consumer<R> consumer) {
+                return isCacheable(request, maxTemperature)
+                        ? flightExecute(delegate, executor, (AlgoRequest<?, ?>) request, accumulator, consumer)
+                        : delegate.execute(request, accumulator, consumer);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R extends ApiResponse> CompletableFuture<R> flightExecute(ApiInvoker delegate, Executor executor, AlgoRequest<?, ?> request, BinaryOperator<R> accumulator, Consumer<R> consumer) {
+        final var key = RequestKeys.of(request);
+        final var isStream = request.option().has(ApiOptions.IS_STREAM, true);
+
+        // 相同的请求正在执行：跟随；被跟随的请求已经中止时重新判断
+        final var flight = new Flight(isStream);
+        Flight existed;
+        while (null != (existed = flights.putIfAbsent(key, flight))) {
+            final var following = existed.join(isStream, (Consumer<ApiResponse>) consumer, executor);
+            if (null != following) {
+                hits.incrementAndGet();
+                return following.thenApply(response -> (R) response);
+            }
+            flights.remove(key, existed);
+        }
+
+        // 发出请求并转发分片，消费器异常时只结束本请求
+        misses.incrementAndGet();
+        final var failure = new AtomicReference<RuntimeException>();
+        final CompletableFuture<R> future;
+        try {
+            future = delegate.execute((ApiRequest<R>) request, accumulator, chunk -> {
+                flight.publish(chunk);
+                if (null != failure.get()) {
+                    return;
+                }
+                try {
+                    consumer.accept(chunk);
+                } catch (RuntimeException cause) {
+                    failure.set(cause);
+                    if (flight.abandon()) {
+                        flights.remove(key, flight);
+                        throw cause;
+                    }
+                }
+            });
+        } catch (Throwable cause) {
+            flights.remove(key, flight);
+            flight.complete(null, cause);
+            throw cause;
+        }
+        final var result = new CompletableFuture<R>();
+        future.whenComplete((response, ex) -> {
+            flights.remove(key, flight);
+            flight.complete(response, ex);
+            final var cause = null != failure.get() ? failure.get() : ex;
+            if (null != cause) {
+                result.completeExceptionally(cause);
+            } else {
+                result.complete(response);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 执行中的请求
+     */
+    private static class Flight {
+
+        private final boolean isStream;
+        private final List<ApiResponse> chunks = new ArrayList<>();
+        private final List<Follower> followers = new ArrayList<>();
+        private boolean done;
+        private boolean abandoned;
+        private ApiResponse response;
+        private Throwable ex;
+
+        private Flight(boolean isStream) {
+            this.isStream = isStream;
+        }
+
+        // 转发流式分片；块模式的应答在结束时统一送达
+        synchronized void publish(ApiResponse chunk) {
+            if (!isStream) {
+                return;
+            }
+            chunks.add(chunk);
+            followers.removeIf(follower -> follower.future.isDone());
+            followers.forEach(follower -> follower.accept(chunk));
+        }
+
+        // 被跟随请求的消费器异常：没有跟随者时中止，之后不再接受跟随
+        synchronized boolean abandon() {
+            followers.removeIf(follower -> follower.future.isDone());
+            abandoned = followers.isEmpty();
+            return abandoned;
+        }
+
+        synchronized void complete(ApiResponse response, Throwable ex) {
+            this.done = true;
+            this.response = response;
+            this.ex = ex;
+            followers.forEach(this::finish);
+            followers.clear();
+        }
+
+        // 跟随执行中的请求，请求已中止时返回null
+        synchronized CompletableFuture<ApiResponse> join(boolean isStream, Consumer<ApiResponse> consumer, Executor executor) {
+            if (abandoned) {
+                return null;
+            }
+            final var follower = new Follower(isStream, consumer, executor);
+
+            // 重放已收到的分片
+            if (isStream && this.isStream) {
+                chunks.forEach(follower::accept);
+            }
+
+            // 请求已经结束但还未移除
+            if (done) {
+                finish(follower);
+            } else {
+                followers.add(follower);
+            }
+            return follower.future;
+        }
+
+        // 送达结果：只在结束时收到最终应答的跟随者先收到最终应答
+        private void finish(Follower follower) {
+            if (null == ex && (!follower.isStream || !isStream)) {
+                follower.accept(response);
+            }
+            follower.complete(response, ex);
+        }
+
+    }
+
+    /**
+     * 跟随者
+     * <p>分片和结果按顺序放入队列，由执行器依次送达；消费器抛出异常时结束该跟随者，丢弃之后的分片</p>
+     */
+    private static class Follower {
+
+        private final boolean isStream;
+        private final Consumer<ApiResponse> consumer;
+        private final Executor executor;
+        private final CompletableFuture<ApiResponse> future = new CompletableFuture<>();
+        private final Queue<Runnable> pending = new ArrayDeque<>();
+        private boolean draining;
+
+        private Follower(boolean isStream, Consumer<ApiResponse> consumer, Executor executor) {
+            this.isStream = isStream;
+            this.consumer = consumer;
+            this.executor = executor;
+        }
+
+        void accept(ApiResponse response) {
+            offer(() -> {
+                try {
+                    consumer.accept(response);
+                } catch (Throwable cause) {
+                    future.completeExceptionally(cause);
+                }
+            });
+        }
+
+        void complete(ApiResponse response, Throwable ex) {
+            offer(() -> {
+                if (null != ex) {
+                    future.completeExceptionally(ex);
+                } else {
+                    future.complete(response);
+                }
+            });
+        }
+
+        private void offer(Runnable action) {
+            synchronized (this) {
+                pending.add(action);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException cause) {
+                future.completeExceptionally(cause);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                final Runnable action;
+                synchronized (this) {
+                    action = pending.poll();
+                    if (null == action) {
+                        draining = false;
+                        return;
+                    }
+                }
+                if (!future.isDone()) {
+                    action.run();
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,71 @@
+package io.github.oldmanpushcart.internal.qianfan4j.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.oldmanpushcart.internal.qianfan4j.util.JacksonUtils;
+import io.github.oldmanpushcart.internal.qianfan4j.util.LruCache;
+import io.github.oldmanpushcart.qianfan4j.chat.FunctionCall;
+import io.github.oldmanpushcart.qianfan4j.chat.function.ChatFn;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 对话函数结果缓存
+ * <p>按函数名称分区，分区内以规范化后的调用参数为键；缓存的是调用结果的Future，因此并发的相同调用会共享同一次执行</p>
+ */
+public class ChatFunctionCache {
+
+    private static final ObjectMapper mapper = JacksonUtils.mapper();
+    private final Map<String, LruCache<String, CompletableFuture<String>>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * 函数调用
+     *
+     * @param config  缓存配置
+     * @param call    函数调用
+     * @param calling 实际的函数调用，返回结果JSON
+     * @return 结果JSON
+     */
+    public CompletableFuture<String> call(ChatFn.Cache config, FunctionCall call, Supplier<CompletableFuture<String>> calling) {
+
+        // 未开启缓存，直接调用
+        if (!config.enabled()) {
+            return calling.get();
+        }
+
+        final var cache = caches.computeIfAbsent(call.name(), name -> new LruCache<>(
+                config.capacity(),
+                Duration.ofNanos(config.unit().toNanos(config.expire()))
+        ));
+        final var key = JacksonUtils.canonical(mapper, call.arguments());
+
+        // 已有相同调用(正在执行或已完成)，直接共享结果
+        final var promise = new CompletableFuture<String>();
+        final var existed = cache.putIfAbsent(key, promise);
+        if (null != existed) {
+            return existed;
+        }
+
+        // 执行调用，失败的结果不保留在缓存中
+        try {
+            calling.get().whenComplete((result, ex) -> {
+                if (null != ex) {
+                    cache.remove(key, promise);
+                    promise.completeExceptionally(ex);
+                } else {
+                    promise.complete(result);
+                }
+            });
+        } catch (Throwable cause) {
+            cache.remove(key, promise);
+            promise.completeExceptionally(cause);
+            throw cause;
+        }
+
+        return promise;
+    }
+
+}
@@ -3,6 +3,7 @@ package io.github.oldmanpushcart.internal.qianfan4j.chat;
 import io.github.oldmanpushcart.internal.qianfan4j.base.algo.AlgoRequestBuilderImpl;
 import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
 import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.HistoryPolicy;
 import io.github.oldmanpushcart.qianfan4j.chat.function.ChatFunction;
 import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
 
@@ -14,8 +15,9 @@ import static java.util.Objects.requireNonNull;
 public class ChatRequestBuilderImpl extends AlgoRequestBuilderImpl<ChatModel, ChatRequest, ChatRequest.Builder>
         implements ChatRequest.Builder {
 
-    private List<Message> messages = new ArrayList<>();
+    private MessageList messages = MessageList.EMPTY;
     private List<ChatFunction<?, ?>> functions = new ArrayList<>();
+    private HistoryPolicy historyPolicy = HistoryPolicy.ALL;
 
     public ChatRequestBuilderImpl() {
 
@@ -23,13 +25,25 @@ public class ChatRequestBuilderImpl extends AlgoRequestBuilderImpl<ChatModel, Ch
 
     public ChatRequestBuilderImpl(ChatRequest request) {
         super(request);
-        this.messages = request.messages();
-        this.functions = request.functions();
+        this.messages = ChatRequestImpl.snapshot(request);
+        this.functions = new ArrayList<>(request.functions());
+        this.historyPolicy = request.historyPolicy();
+    }
+
+    /**
+     * 以指定的消息快照代替请求当前的消息构造
+     *
+     * @param request  对话请求
+     * @param messages 消息快照
+     */
+    ChatRequestBuilderImpl(ChatRequest request, List<Message> messages) {
+        this(request);
+        this.messages = MessageList.of(messages);
     }
 
     @Override
     public ChatRequest.Builder messages(Message... messages) {
-        this.messages.addAll(List.of(messages));
+        this.messages = this.messages.append(messages);
         return this;
     }
 
@@ -37,8 +51,15 @@ public class ChatRequestBuilderImpl extends AlgoRequestBuilderImpl<ChatModel, Ch
     public ChatRequest.Builder functions(boolean isReplace, ChatFunction<?, ?>... functions) {
         if (isReplace) {
             this.functions = new ArrayList<>(List.of(functions));
+        } else {
+            this.functions.addAll(List.of(functions));
         }
-        this.functions.addAll(List.of(functions));
+        return this;
+    }
+
+    @Override
+    public ChatRequest.Builder historyPolicy(HistoryPolicy policy) {
+        this.historyPolicy = requireNonNull(policy);
         return this;
     }
 
@@ -50,7 +71,8 @@ public class ChatRequestBuilderImpl extends AlgoRequestBuilderImpl<ChatModel, Ch
                 option(),
                 user(),
                 messages,
-                functions
+                functions,
+                historyPolicy
         );
     }
 
@@ -2,34 +2,70 @@ package io.github.oldmanpushcart.internal.qianfan4j.chat;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.github.oldmanpushcart.internal.qianfan4j.base.algo.AlgoRequestImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.base.api.http.ByteBufferBodyPublisher;
+import io.github.oldmanpushcart.qianfan4j.base.algo.TokenEstimator;
 import io.github.oldmanpushcart.qianfan4j.base.api.Option;
 import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
 import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
 import io.github.oldmanpushcart.qianfan4j.chat.ChatResponse;
+import io.github.oldmanpushcart.qianfan4j.chat.HistoryPolicy;
 import io.github.oldmanpushcart.qianfan4j.chat.function.ChatFunction;
 import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Function;
 
+@JsonPropertyOrder({"messages"})
 public class ChatRequestImpl extends AlgoRequestImpl<ChatModel, ChatResponse> implements ChatRequest {
 
-    @JsonProperty("messages")
-    private final List<Message> messages;
+    private static final byte[] MESSAGES_PREFIX = "{\"messages\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] COMMA = {','};
+    private static final VarHandle MESSAGES;
+
+    static {
+        try {
+            MESSAGES = MethodHandles.lookup().findVarHandle(ChatRequestImpl.class, "messages", MessageList.class);
+        } catch (ReflectiveOperationException cause) {
+            throw new ExceptionInInitializerError(cause);
+        }
+    }
+
+    // 当前的消息快照；对话完成后推进为包含应答的新快照
+    private volatile MessageList messages;
+
+    // 对外的可修改视图，修改同样以推进快照完成
+    private final MessagesView view = new MessagesView();
 
     @JsonSerialize(contentUsing = ChatFunctionJsonSerializer.class)
     @JsonProperty("functions")
     @JsonInclude(JsonInclude.Include.NON_EMPTY)
     private final List<ChatFunction<?, ?>> functions;
 
+    private final HistoryPolicy historyPolicy;
+
     private final String _string;
 
-    protected ChatRequestImpl(Duration timeout, ChatModel model, Option option, String user, List<Message> messages, List<ChatFunction<?, ?>> functions) {
+    protected ChatRequestImpl(Duration timeout, ChatModel model, Option option, String user, MessageList messages, List<ChatFunction<?, ?>> functions, HistoryPolicy historyPolicy) {
         super(timeout, model, option, user, ChatResponseImpl.class);
         this.messages = messages;
         this.functions = functions;
+        this.historyPolicy = historyPolicy;
         this._string = "qianfan://chat/%s".formatted(model.name());
     }
 
@@ -40,12 +76,208 @@ public class ChatRequestImpl extends AlgoRequestImpl<ChatModel, ChatResponse> im
 
     @Override
     public List<Message> messages() {
+        return view;
+    }
+
+    /**
+     * 获取当前的消息快照，之后的修改与对话不影响已获取的快照
+     *
+     * @return 消息快照
+     */
+    MessageList snapshot() {
         return messages;
     }
 
+    /**
+     * 获取请求当前的消息快照
+     *
+     * @param request 对话请求
+     * @return 消息快照
+     */
+    static MessageList snapshot(ChatRequest request) {
+        return request instanceof ChatRequestImpl impl
+                ? impl.snapshot()
+                : MessageList.of(request.messages());
+    }
+
+    /**
+     * 推进消息快照；仅当当前快照仍为期望值时才推进，并发的对话不会互相覆盖
+     *
+     * @param expect 期望的当前快照
+     * @param update 新的快照
+     * @return 是否推进成功
+     */
+    boolean advance(List<Message> expect, List<Message> update) {
+        return expect instanceof MessageList list
+                && MESSAGES.compareAndSet(this, list, MessageList.of(update));
+    }
+
     @Override
     public List<ChatFunction<?, ?>> functions() {
         return functions;
     }
 
+    @Override
+    public HistoryPolicy historyPolicy() {
+        return historyPolicy;
+    }
+
+    /**
+     * 获取发送的消息列表，由对话历史策略以未校准的估算器从全部消息中选出
+     * <p>用于序列化(请求键、日志)；实际的请求体以客户端的估算器选择，开启校准时裁剪的位置可能不同</p>
+     *
+     * @return 发送的消息列表
+     */
+    @JsonProperty("messages")
+    @JsonSerialize(using = MessagesJsonSerializer.class)
+    public List<Message> sendingMessages() {
+        return historyPolicy.apply(TokenEstimator.of(model()), messages);
+    }
+
+    /**
+     * 拼接请求体：除消息外的部分正常序列化，消息使用按位置缓存的JSON，每轮对话只需序列化新增的消息；
+     * 发送的消息由对话历史策略以客户端的估算器选出
+     */
+    @Override
+    protected HttpRequest.BodyPublisher newBodyPublisher(ObjectMapper mapper, TokenEstimator estimator) {
+        final var snapshot = messages;
+        final var sending = historyPolicy.apply(estimator, snapshot);
+        final byte[] envelope;
+        try {
+            envelope = mapper.writer()
+                    .withAttribute(MessagesJsonSerializer.SPLICING, Boolean.TRUE)
+                    .writeValueAsBytes(this);
+        } catch (JsonProcessingException cause) {
+            throw new IllegalArgumentException("parse object to json failed!", cause);
+        }
+
+        // 消息总是第一个属性：{"messages":[]...}
+        if (!startsWith(envelope, MESSAGES_PREFIX) || envelope[MESSAGES_PREFIX.length] != ']') {
+            return super.newBodyPublisher(mapper, estimator);
+        }
+
+        final var buffers = new ArrayList<ByteBuffer>((sending.size() << 1) + 2);
+        buffers.add(ByteBuffer.wrap(envelope, 0, MESSAGES_PREFIX.length));
+
+        // 发送的消息是全部消息的有序子集，顺序匹配位置以使用缓存；匹配不到的消息(例如策略生成的)直接编码
+        final Function<Message, byte[]> encoder = message -> encode(mapper, message);
+        var index = 0;
+        for (final var message : sending) {
+            if (buffers.size() > 1) {
+                buffers.add(ByteBuffer.wrap(COMMA));
+            }
+            var found = index;
+            while (found < snapshot.size() && snapshot.get(found) != message) {
+                found++;
+            }
+            if (found < snapshot.size()) {
+                buffers.add(ByteBuffer.wrap(snapshot.encoded(found, encoder)));
+                index = found + 1;
+            } else {
+                buffers.add(ByteBuffer.wrap(encoder.apply(message)));
+            }
+        }
+
+        buffers.add(ByteBuffer.wrap(envelope, MESSAGES_PREFIX.length, envelope.length - MESSAGES_PREFIX.length));
+        return ByteBufferBodyPublisher.of(buffers);
+    }
+
+    private static byte[] encode(ObjectMapper mapper, Message message) {
+        try {
+            return mapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException cause) {
+            throw new IllegalArgumentException("parse object to json failed!", cause);
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        return bytes.length > prefix.length
+                && Arrays.equals(bytes, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * 消息列表的可修改视图
+     * <p>
+     * 读取总是反映当前快照；在末尾追加消息时原地推进快照，O(1)；其他修改(插入、替换、删除)复制全部消息后推进。
+     * 修改以CAS推进快照，与并发的对话和修改不会互相覆盖
+     * </p>
+     */
+    private final class MessagesView extends AbstractList<Message> implements RandomAccess {
+
+        @Override
+        public Message get(int index) {
+            return messages.get(index);
+        }
+
+        @Override
+        public int size() {
+            return messages.size();
+        }
+
+        // 总是追加在当前快照的末尾，不受并发追加影响
+        @Override
+        public boolean add(Message message) {
+            Objects.requireNonNull(message);
+            MessageList expect;
+            do {
+                expect = messages;
+            } while (!MESSAGES.compareAndSet(ChatRequestImpl.this, expect, expect.append(message)));
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public void add(int index, Message message) {
+            Objects.requireNonNull(message);
+            MessageList expect;
+            MessageList update;
+            do {
+                expect = messages;
+                if (index == expect.size()) {
+                    update = expect.append(message);
+                } else {
+                    final var copy = new ArrayList<>(expect);
+                    copy.add(index, message);
+                    update = MessageList.of(copy);
+                }
+            } while (!MESSAGES.compareAndSet(ChatRequestImpl.this, expect, update));
+            modCount++;
+        }
+
+        @Override
+        public Message set(int index, Message message) {
+            Objects.requireNonNull(message);
+            MessageList expect;
+            Message previous;
+            List<Message> copy;
+            do {
+                expect = messages;
+                copy = new ArrayList<>(expect);
+                previous = copy.set(index, message);
+            } while (!MESSAGES.compareAndSet(ChatRequestImpl.this, expect, MessageList.of(copy)));
+            return previous;
+        }
+
+        @Override
+        public Message remove(int index) {
+            MessageList expect;
+            Message removed;
+            List<Message> copy;
+            do {
+                expect = messages;
+                copy = new ArrayList<>(expect);
+                removed = copy.remove(index);
+            } while (!MESSAGES.compareAndSet(ChatRequestImpl.this, expect, MessageList.of(copy)));
+            modCount++;
+            return removed;
+        }
+
+        @Override
+        public void clear() {
+            messages = MessageList.EMPTY;
+            modCount++;
+        }
+
+    }
+
 }
@@ -37,13 +37,27 @@ public class ChatResponseHandler implements Function<ChatResponse, CompletionSta
     private static final Pattern subTaskSplitPattern = Pattern.compile("\\[(.*?)]");
 
     private final QianFanClient client;
+    private final ChatFunctionCache functionCache;
     private final ChatRequest request;
     private final Consumer<ChatResponse> consumer;
 
-    public ChatResponseHandler(QianFanClient client, ChatRequest request, Consumer<ChatResponse> consumer) {
+    // 发出请求时的消息快照
+    private final MessageList sent;
+
+    /**
+     * 构造对话应答处理器；须在请求发出前构造，以记录发出时的消息快照
+     *
+     * @param client        千帆客户端
+     * @param functionCache 函数结果缓存
+     * @param request       对话请求
+     * @param consumer      应答消费者
+     */
+    public ChatResponseHandler(QianFanClient client, ChatFunctionCache functionCache, ChatRequest request, Consumer<ChatResponse> consumer) {
         this.client = client;
+        this.functionCache = functionCache;
         this.request = request;
         this.consumer = consumer;
+        this.sent = ChatRequestImpl.snapshot(request);
     }
 
     @Override
@@ -59,11 +73,15 @@ public class ChatResponseHandler implements Function<ChatResponse, CompletionSta
             return handingFunctionCall(response);
         }
 
-        return completedFuture(response)
-                .thenApply(v -> {
-                    request.messages().add(Message.ofAi(v.content()));
-                    return v;
-                });
+        advance(sent.append(Message.ofAi(response.content())));
+        return completedFuture(response);
+    }
+
+    // 将请求的消息快照推进为包含本轮对话的新快照；请求已被并发的对话推进时放弃
+    private void advance(List<Message> update) {
+        if (request instanceof ChatRequestImpl impl && !impl.advance(sent, update) && logger.isDebugEnabled()) {
+            logger.debug("{}/messages changed concurrently, skip advance!", request);
+        }
     }
 
     // 处理函数调用
@@ -83,18 +101,19 @@ public class ChatResponseHandler implements Function<ChatResponse, CompletionSta
                 .findFirst()
                 .orElseThrow(() -> new IllegalArgumentException("function: %s not found!".formatted(call.name())));
 
-        // 执行函数调用
-        return calling(function, call)
+        // 执行函数调用(开启了结果缓存的函数优先使用缓存)
+        final var anCache = function.getClass().getAnnotation(ChatFn.class).cache();
+        return functionCache.call(anCache, call, () -> calling(function, call))
                 .thenCompose(resultJson -> {
                     if (logger.isDebugEnabled()) {
                         logger.debug("{}/function => {}", request, compact(mapper, resultJson));
                     }
-                    final var fnRequest = ChatRequest.newBuilder(request)
+                    final var fnRequest = new ChatRequestBuilderImpl(request, sent)
                             .messages(ofFunctionCall(call), ofFunction(call.name(), resultJson))
                             .functions(true, function)
                             .build();
                     return client.chat(fnRequest).stream(consumer)
-                            .thenCompose(v -> executeTask(v, queue));
+                            .thenCompose(v -> executeTask(v, queue, fnRequest));
                 });
     }
 
@@ -142,18 +161,19 @@ public class ChatResponseHandler implements Function<ChatResponse, CompletionSta
         return queue;
     }
 
-    // 执行子任务
-    private CompletableFuture<ChatResponse> executeTask(ChatResponse response, Queue<String> queue) {
+    // 执行子任务；每个子任务接续上一个请求的消息，全部完成后推进原请求
+    private CompletableFuture<ChatResponse> executeTask(ChatResponse response, Queue<String> queue, ChatRequest previous) {
         if (queue.isEmpty()) {
+            advance(ChatRequestImpl.snapshot(previous));
             return completedFuture(response);
         }
         final var task = queue.poll();
-        final var taskRequest = ChatRequest.newBuilder(request)
+        final var taskRequest = new ChatRequestBuilderImpl(request, ChatRequestImpl.snapshot(previous))
                 .messages(Message.ofUser(task))
                 .functions(true, parseSubTaskFunctionList(request.functions(), task))
                 .build();
         return client.chat(taskRequest).stream(consumer)
-                .thenCompose(taskResponse -> executeTask(taskResponse, queue));
+                .thenCompose(taskResponse -> executeTask(taskResponse, queue, taskRequest));
     }
 
     // 解析子任务函数集合
@@ -0,0 +1,127 @@
+package io.github.oldmanpushcart.internal.qianfan4j.chat;
+
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 持久化消息列表
+ * <p>
+ * 不可变的消息列表，追加时返回新的列表。多个列表共享同一个底层数组，每个列表只可见数组的前{@code size}个元素：
+ * 追加时以CAS占用数组中紧随其后的位置，占用成功则原地写入，O(1)；同一列表被多次追加(会话分叉)时，
+ * 只有第一次可以原地写入，其余复制数组。
+ * </p>
+ * <p>数组中的每个位置一经写入不再改变，因此可以按位置缓存消息序列化后的JSON，并随数组在各个快照间共享</p>
+ */
+final class MessageList extends AbstractList<Message> implements RandomAccess {
+
+    static final MessageList EMPTY = new MessageList(new Buffer(0), 0);
+
+    private static final VarHandle ENCODED = MethodHandles.arrayElementVarHandle(byte[][].class);
+
+    private final Buffer buffer;
+    private final int size;
+
+    private MessageList(Buffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * 从普通列表构造
+     *
+     * @param messages 消息列表
+     * @return 持久化消息列表
+     */
+    static MessageList of(List<Message> messages) {
+        return messages instanceof MessageList list
+                ? list
+                : EMPTY.append(messages.toArray(Message[]::new));
+    }
+
+    /**
+     * 追加消息
+     *
+     * @param messages 消息
+     * @return 追加后的列表，原列表不变
+     */
+    MessageList append(Message... messages) {
+        for (final var message : messages) {
+            Objects.requireNonNull(message);
+        }
+        if (messages.length == 0) {
+            return this;
+        }
+        final var length = size + messages.length;
+
+        // 占用底层数组中紧随其后的位置，原地写入
+        if (length <= buffer.elements.length && buffer.claimed.compareAndSet(size, length)) {
+            System.arraycopy(messages, 0, buffer.elements, size, messages.length);
+            return new MessageList(buffer, length);
+        }
+
+        // 容量不足或已被其他分支占用，复制到新的数组
+        final var grown = new Buffer(Math.max(length, Math.max(size << 1, 8)));
+        System.arraycopy(buffer.elements, 0, grown.elements, 0, size);
+        for (int i = 0; i < size; i++) {
+            ENCODED.setRelease(grown.encoded, i, ENCODED.getAcquire(buffer.encoded, i));
+        }
+        System.arraycopy(messages, 0, grown.elements, size, messages.length);
+        grown.claimed.set(length);
+        return new MessageList(grown, length);
+    }
+
+    @Override
+    public Message get(int index) {
+        return buffer.elements[Objects.checkIndex(index, size)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取指定位置的消息序列化后的JSON，首次获取时编码并缓存；并发时可能重复编码，结果相同
+     *
+     * @param index   位置
+     * @param encoder 编码函数
+     * @return UTF-8编码的JSON
+     */
+    byte[] encoded(int index, Function<Message, byte[]> encoder) {
+        Objects.checkIndex(index, size);
+        final var cached = (byte[]) ENCODED.getAcquire(buffer.encoded, index);
+        if (null != cached) {
+            return cached;
+        }
+        final var encoded = encoder.apply(buffer.elements[index]);
+        ENCODED.setRelease(buffer.encoded, index, encoded);
+        return encoded;
+    }
+
+    /**
+     * 底层数组
+     */
+    private static final class Buffer {
+
+        private final Message[] elements;
+        private final byte[][] encoded;
+
+        // 已被占用的长度
+        private final AtomicInteger claimed = new AtomicInteger();
+
+        private Buffer(int capacity) {
+            this.elements = new Message[capacity];
+            this.encoded = new byte[capacity][];
+        }
+
+    }
+
+}
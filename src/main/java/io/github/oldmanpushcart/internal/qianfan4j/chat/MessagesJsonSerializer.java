@@ -0,0 +1,32 @@
+package io.github.oldmanpushcart.internal.qianfan4j.chat;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 对话消息列表序列化
+ * <p>序列化属性中包含{@link #SPLICING}时只输出空数组，由调用者拼接已缓存的消息JSON</p>
+ */
+public class MessagesJsonSerializer extends JsonSerializer<List<Message>> {
+
+    /**
+     * 序列化属性：拼接模式
+     */
+    static final String SPLICING = "qianfan4j.chat.messages.splicing";
+
+    @Override
+    public void serialize(List<Message> messages, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        if (Boolean.TRUE.equals(provider.getAttribute(SPLICING))) {
+            generator.writeStartArray();
+            generator.writeEndArray();
+        } else {
+            provider.defaultSerializeValue(messages, generator);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package io.github.oldmanpushcart.internal.qianfan4j.chat;
+
+import io.github.oldmanpushcart.qianfan4j.base.algo.TokenEstimator;
+import io.github.oldmanpushcart.qianfan4j.chat.HistoryPolicy;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 滑动窗口历史策略
+ *
+ * @param maxTokens   TOKEN预算
+ * @param pinnedTurns 固定保留的最早轮次数
+ */
+public record SlidingWindowHistoryPolicy(int maxTokens, int pinnedTurns) implements HistoryPolicy {
+
+    /**
+     * 全部发送的窗口
+     */
+    private static final Window ALL = new Window(0, 0);
+
+    @Override
+    public List<Message> apply(TokenEstimator estimator, List<Message> messages) {
+        final var window = window(estimator, messages);
+        if (window.isAll()) {
+            return messages;
+        }
+        final var selected = new ArrayList<Message>(messages.size() - window.resumeAt() + window.pinnedEnd());
+        selected.addAll(messages.subList(0, window.pinnedEnd()));
+        selected.addAll(messages.subList(window.resumeAt(), messages.size()));
+        return Collections.unmodifiableList(selected);
+    }
+
+    /**
+     * 计算需要发送的消息范围，不生成消息列表；用于只需要估算发送内容的场景
+     *
+     * @param estimator 当前模型的TOKEN估算器
+     * @param messages  全部消息
+     * @return 发送的消息范围
+     */
+    public Window window(TokenEstimator estimator, List<Message> messages) {
+
+        // 全部历史在预算内，无需裁剪
+        if (estimator.estimate(messages) <= maxTokens) {
+            return ALL;
+        }
+
+        // 切分轮次：starts[i]为第i轮的起始位置，第一轮之前的非用户消息归入第一轮
+        final var starts = new int[messages.size() + 1];
+        var turns = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            if (i == 0 || messages.get(i).role() == Message.Role.USER) {
+                starts[turns++] = i;
+            }
+        }
+        starts[turns] = messages.size();
+        if (turns <= 1) {
+            return ALL;
+        }
+
+        // 最后一轮与固定轮次必须保留
+        final var pinned = Math.min(pinnedTurns, turns - 1);
+        var total = cost(estimator, messages, starts, turns - 1);
+        for (int turn = 0; turn < pinned; turn++) {
+            total += cost(estimator, messages, starts, turn);
+        }
+
+        // 从最近的轮次向前扩展窗口，直到超出预算
+        var first = turns - 1;
+        while (first > pinned) {
+            final var cost = cost(estimator, messages, starts, first - 1);
+            if (total + cost > maxTokens) {
+                break;
+            }
+            total += cost;
+            first--;
+        }
+        return first == pinned ? ALL : new Window(starts[pinned], starts[first]);
+    }
+
+    private static int cost(TokenEstimator estimator, List<Message> messages, int[] starts, int turn) {
+        return estimator.estimate(messages.subList(starts[turn], starts[turn + 1]));
+    }
+
+    /**
+     * 发送的消息范围：发送{@code [0, pinnedEnd)}与{@code [resumeAt, size)}，两段相接时即为全部消息
+     *
+     * @param pinnedEnd 固定轮次的结束位置
+     * @param resumeAt  最近轮次的起始位置
+     */
+    public record Window(int pinnedEnd, int resumeAt) {
+
+        /**
+         * 是否发送全部消息
+         *
+         * @return 是否发送全部消息
+         */
+        public boolean isAll() {
+            return pinnedEnd == resumeAt;
+        }
+
+    }
+
+}
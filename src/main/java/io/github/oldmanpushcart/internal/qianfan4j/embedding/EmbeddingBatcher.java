@@ -0,0 +1,180 @@
+package io.github.oldmanpushcart.internal.qianfan4j.embedding;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.oldmanpushcart.internal.qianfan4j.base.api.ApiInvoker;
+import io.github.oldmanpushcart.internal.qianfan4j.util.JacksonUtils;
+import io.github.oldmanpushcart.qianfan4j.base.algo.Usage;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.qianfan4j.embedding.Embedding;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+/**
+ * 向量计算请求合并
+ * <p>
+ * 将并发的单文本向量计算请求按(模型, 用户, 选项, 超时)分组，在窗口期内或达到模型的单次最大文本数量时合并为一次请求，
+ * 再按序号将结果分发给各自的调用者。合并请求的用量只计入第一个调用者的应答，其余调用者的用量为空，保证用量合计不变。
+ * </p>
+ */
+public class EmbeddingBatcher {
+
+    private static final ObjectMapper mapper = JacksonUtils.mapper();
+
+    private final Executor delayed;
+    private final Map<String, Batch> batches = new HashMap<>();
+
+    /**
+     * 构造向量计算请求合并
+     *
+     * @param window   合并窗口
+     * @param executor 线程池
+     */
+    public EmbeddingBatcher(Duration window, Executor executor) {
+        this.delayed = CompletableFuture.delayedExecutor(window.toNanos(), TimeUnit.NANOSECONDS, executor);
+    }
+
+    /**
+     * 在API调用器之前叠加请求合并
+     *
+     * @param delegate 被装饰的API调用器
+     * @return 带请求合并的API调用器
+     */
+    public ApiInvoker decorate(ApiInvoker delegate) {
+        return new ApiInvoker() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public <R extends ApiResponse> CompletableFuture<R> execute(ApiRequest<R> request, BinaryOperator<R> accumulator, Consumer<R> consumer) {
+                return request instanceof EmbeddingRequest embeddingRequest && isBatchable(embeddingRequest)
+                        ? (CompletableFuture<R>) batchingExecute(delegate, embeddingRequest, (Consumer<EmbeddingResponse>) consumer)
+                        : delegate.execute(request, accumulator, consumer);
+            }
+        };
+    }
+
+    private static boolean isBatchable(EmbeddingRequest request) {
+        return request.texts().size() == 1 && request.model().batchSize() > 1;
+    }
+
+    // 只有以下内容都相同的请求才能合并
+    private static String key(EmbeddingRequest request) {
+        return "%s\n%s\n%s\n%s".formatted(
+                request.model().remote(),
+                request.user(),
+                request.timeout(),
+                JacksonUtils.toJson(mapper, JacksonUtils.canonical(mapper, mapper.valueToTree(request.option().export())))
+        );
+    }
+
+    private CompletableFuture<EmbeddingResponse> batchingExecute(ApiInvoker delegate, EmbeddingRequest request, Consumer<EmbeddingResponse> consumer) {
+        final var key = key(request);
+        final var promise = new CompletableFuture<EmbeddingResponse>();
+        final Batch full;
+        synchronized (batches) {
+            var batch = batches.get(key);
+            if (null == batch) {
+                final var created = new Batch(request);
+                batches.put(key, created);
+                delayed.execute(() -> {
+                    if (remove(key, created)) {
+                        flush(delegate, created);
+                    }
+                });
+                batch = created;
+            }
+            batch.texts.add(request.texts().get(0));
+            batch.promises.add(promise);
+            full = batch.texts.size() >= request.model().batchSize() && remove(key, batch) ? batch : null;
+        }
+        if (null != full) {
+            flush(delegate, full);
+        }
+        return promise.thenApply(response -> {
+            consumer.accept(response);
+            return response;
+        });
+    }
+
+    private boolean remove(String key, Batch batch) {
+        synchronized (batches) {
+            return batches.remove(key, batch);
+        }
+    }
+
+    // 发送合并后的请求并分发结果
+    private void flush(ApiInvoker delegate, Batch batch) {
+        final var request = EmbeddingRequest.newBuilder(batch.first)
+                .texts(true, batch.texts)
+                .build();
+        final CompletableFuture<EmbeddingResponse> future;
+        try {
+            future = delegate.execute(request, (r1, r2) -> r2, r -> {
+            });
+        } catch (Throwable cause) {
+            batch.promises.forEach(promise -> promise.completeExceptionally(cause));
+            return;
+        }
+        future.whenComplete((response, ex) -> {
+            if (null != ex) {
+                batch.promises.forEach(promise -> promise.completeExceptionally(ex));
+                return;
+            }
+            try {
+                dispatch(batch, response);
+            } catch (Throwable cause) {
+                // 已分发的调用者不受影响，其余调用者以该异常失败，不会一直等待
+                batch.promises.forEach(promise -> promise.completeExceptionally(cause));
+            }
+        });
+    }
+
+    // 按序号分发结果；序号超出范围说明应答与请求不对应，整批失败
+    private static void dispatch(Batch batch, EmbeddingResponse response) {
+        final var vectors = new float[batch.texts.size()][];
+        for (final var embedding : response.embeddings()) {
+            final var index = embedding.index();
+            if (index < 0 || index >= vectors.length) {
+                throw new IllegalStateException("embedding index out of range: %d, texts: %d".formatted(index, vectors.length));
+            }
+            vectors[index] = embedding.vector();
+        }
+        for (int index = 0; index < vectors.length; index++) {
+            final var promise = batch.promises.get(index);
+            if (null == vectors[index]) {
+                promise.completeExceptionally(new IllegalStateException("embedding missing at index: %d".formatted(index)));
+                continue;
+            }
+            promise.complete(new EmbeddingResponseImpl(
+                    response.uuid(),
+                    response.ret(),
+                    index == 0 ? response.usage() : Usage.ofEmpty(),
+                    List.of(new Embedding(0, vectors[index]))
+            ));
+        }
+    }
+
+    // 待发送的合并请求
+    private static class Batch {
+
+        private final EmbeddingRequest first;
+        private final List<String> texts = new ArrayList<>();
+        private final List<CompletableFuture<EmbeddingResponse>> promises = new ArrayList<>();
+
+        private Batch(EmbeddingRequest first) {
+            this.first = first;
+        }
+
+    }
+
+}
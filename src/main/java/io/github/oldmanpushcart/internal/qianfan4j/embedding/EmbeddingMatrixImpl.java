@@ -0,0 +1,74 @@
+package io.github.oldmanpushcart.internal.qianfan4j.embedding;
+
+import io.github.oldmanpushcart.qianfan4j.embedding.Embedding;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingMatrix;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+/**
+ * 向量矩阵实现
+ *
+ * @param data      行优先的数据
+ * @param rows      行数
+ * @param dimension 维度
+ */
+public record EmbeddingMatrixImpl(float[] data, int rows, int dimension) implements EmbeddingMatrix {
+
+    /**
+     * 空矩阵
+     */
+    public static final EmbeddingMatrixImpl EMPTY = new EmbeddingMatrixImpl(new float[0], 0, 0);
+
+    /**
+     * 从向量列表构建矩阵；向量按{@link Embedding#index()}排列
+     *
+     * @param embeddings 向量列表
+     * @return 矩阵
+     */
+    public static EmbeddingMatrixImpl of(List<Embedding> embeddings) {
+        if (null == embeddings || embeddings.isEmpty()) {
+            return EMPTY;
+        }
+        final var rows = embeddings.size();
+        final var dimension = embeddings.get(0).vector().length;
+        final var data = new float[rows * dimension];
+        for (final var embedding : embeddings) {
+            final var vector = embedding.vector();
+            if (vector.length != dimension || embedding.index() < 0 || embedding.index() >= rows) {
+                throw new IllegalArgumentException("illegal embedding at index: %d".formatted(embedding.index()));
+            }
+            System.arraycopy(vector, 0, data, embedding.index() * dimension, dimension);
+        }
+        return new EmbeddingMatrixImpl(data, rows, dimension);
+    }
+
+    @Override
+    public float get(int row, int column) {
+        if (column < 0 || column >= dimension) {
+            throw new IndexOutOfBoundsException(column);
+        }
+        return data[checkRow(row) * dimension + column];
+    }
+
+    @Override
+    public FloatBuffer row(int row) {
+        return FloatBuffer.wrap(data, checkRow(row) * dimension, dimension)
+                .slice()
+                .asReadOnlyBuffer();
+    }
+
+    @Override
+    public FloatBuffer buffer() {
+        return FloatBuffer.wrap(data, 0, rows * dimension)
+                .asReadOnlyBuffer();
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        return row;
+    }
+
+}
@@ -0,0 +1,95 @@
+package io.github.oldmanpushcart.internal.qianfan4j.embedding;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 向量矩阵反序列化
+ * <p>流式读取{@code data[].embedding}，直接写入一块连续的{@code float[]}，不产生中间的节点和装箱对象</p>
+ */
+public class EmbeddingMatrixJsonDeserializer extends JsonDeserializer<EmbeddingMatrixImpl> {
+
+    @Override
+    public EmbeddingMatrixImpl deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return (EmbeddingMatrixImpl) context.handleUnexpectedToken(EmbeddingMatrixImpl.class, parser);
+        }
+
+        var data = new float[1024];
+        var indices = new int[16];
+        var size = 0;
+        var rows = 0;
+        var dimension = -1;
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            final var start = size;
+            var index = rows;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var name = parser.currentName();
+                parser.nextToken();
+                switch (name) {
+                    case "index" -> index = parser.getIntValue();
+                    case "embedding" -> {
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            if (size == data.length) {
+                                data = Arrays.copyOf(data, data.length << 1);
+                            }
+                            data[size++] = parser.getFloatValue();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+
+            // 所有向量的维度必须相同
+            if (dimension < 0) {
+                dimension = size - start;
+            } else if (size - start != dimension) {
+                throw JsonMappingException.from(parser, "embedding dimension mismatch, expect=%d, actual=%d".formatted(dimension, size - start));
+            }
+
+            if (rows == indices.length) {
+                indices = Arrays.copyOf(indices, indices.length << 1);
+            }
+            indices[rows++] = index;
+        }
+
+        if (rows == 0) {
+            return EmbeddingMatrixImpl.EMPTY;
+        }
+        return new EmbeddingMatrixImpl(reorder(parser, data, size, indices, rows, dimension), rows, dimension);
+    }
+
+    // 按index排列各行；通常已经有序，此时只截断多余的容量
+    private static float[] reorder(JsonParser parser, float[] data, int size, int[] indices, int rows, int dimension) throws JsonMappingException {
+        var ordered = true;
+        for (int row = 0; row < rows; row++) {
+            if (indices[row] != row) {
+                ordered = false;
+                break;
+            }
+        }
+        if (ordered) {
+            return data.length == size ? data : Arrays.copyOf(data, size);
+        }
+
+        final var target = new float[size];
+        final var filled = new boolean[rows];
+        for (int row = 0; row < rows; row++) {
+            final var index = indices[row];
+            if (index < 0 || index >= rows || filled[index]) {
+                throw JsonMappingException.from(parser, "illegal embedding index: %d".formatted(index));
+            }
+            filled[index] = true;
+            System.arraycopy(data, row * dimension, target, index * dimension, dimension);
+        }
+        return target;
+    }
+
+}
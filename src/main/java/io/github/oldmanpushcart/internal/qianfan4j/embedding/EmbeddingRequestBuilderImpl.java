@@ -12,8 +12,20 @@ public class EmbeddingRequestBuilderImpl extends AlgoRequestBuilderImpl<Embeddin
 
     private final List<String> texts = new ArrayList<>();
 
+    public EmbeddingRequestBuilderImpl() {
+
+    }
+
+    public EmbeddingRequestBuilderImpl(EmbeddingRequest request) {
+        super(request);
+        this.texts.addAll(request.texts());
+    }
+
     @Override
-    public EmbeddingRequest.Builder texts(List<String> texts) {
+    public EmbeddingRequest.Builder texts(boolean isReplace, List<String> texts) {
+        if (isReplace) {
+            this.texts.clear();
+        }
         this.texts.addAll(texts);
         return this;
     }
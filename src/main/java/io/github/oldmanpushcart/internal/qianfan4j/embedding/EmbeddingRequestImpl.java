@@ -58,22 +58,53 @@ public class EmbeddingRequestImpl extends AlgoRequestImpl<EmbeddingModel, Embedd
         return content;
     }
 
+    // 逐字符扫描，将每个embedding数组替换为长度说明，避免为了打日志重新解析整个应答
     @Override
     protected String wrapLoggingResponseBody(String body) {
-        String content;
-        try {
-            final var node = JacksonUtils.toNode(mapper, body);
-            node.get("data").forEach(embedding -> {
-                final var embeddingNode = (ObjectNode) embedding;
-                final var size = embeddingNode.get("embedding").size() * Float.BYTES;
-                embeddingNode.put("embedding", "...(embedding, size: %d bytes)".formatted(size));
-            });
-            content = node.toString();
-        } catch (Exception cause) {
-            // ignore
-            content = body;
+        final var key = "\"embedding\"";
+        final var builder = new StringBuilder(Math.min(body.length(), 1024));
+        var from = 0;
+        while (true) {
+            final var found = body.indexOf(key, from);
+            if (found < 0) {
+                break;
+            }
+
+            // 跳过冒号和空白，要求紧接着是数组
+            var position = found + key.length();
+            while (position < body.length() && (body.charAt(position) == ':' || Character.isWhitespace(body.charAt(position)))) {
+                position++;
+            }
+            if (position >= body.length() || body.charAt(position) != '[') {
+                builder.append(body, from, position);
+                from = position;
+                continue;
+            }
+
+            // 数组内只有数字，统计逗号即可得到维度
+            var dimension = 0;
+            var empty = true;
+            var close = position + 1;
+            for (; close < body.length() && body.charAt(close) != ']'; close++) {
+                final var ch = body.charAt(close);
+                if (ch == ',') {
+                    dimension++;
+                } else if (!Character.isWhitespace(ch)) {
+                    empty = false;
+                }
+            }
+            if (!empty) {
+                dimension++;
+            }
+
+            builder.append(body, from, found)
+                    .append(key)
+                    .append(":\"...(embedding, size: ")
+                    .append(dimension * Float.BYTES)
+                    .append(" bytes)\"");
+            from = Math.min(close + 1, body.length());
         }
-        return content;
+        return builder.append(body, from, body.length()).toString();
     }
 
 }
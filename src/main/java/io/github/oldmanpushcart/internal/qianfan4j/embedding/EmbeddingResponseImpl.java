@@ -2,25 +2,49 @@ package io.github.oldmanpushcart.internal.qianfan4j.embedding;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import io.github.oldmanpushcart.internal.qianfan4j.base.algo.AlgoResponseImpl;
 import io.github.oldmanpushcart.qianfan4j.base.algo.Usage;
 import io.github.oldmanpushcart.qianfan4j.base.api.Ret;
 import io.github.oldmanpushcart.qianfan4j.embedding.Embedding;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingMatrix;
 import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 public class EmbeddingResponseImpl extends AlgoResponseImpl implements EmbeddingResponse {
 
-    private final List<Embedding> embeddings;
+    private final EmbeddingMatrix matrix;
+    private volatile List<Embedding> embeddings;
 
-    private EmbeddingResponseImpl(String uuid, Ret ret, Usage usage, List<Embedding> embeddings) {
+    public EmbeddingResponseImpl(String uuid, Ret ret, Usage usage, EmbeddingMatrix matrix) {
         super(uuid, ret, usage);
+        this.matrix = Objects.requireNonNullElse(matrix, EmbeddingMatrixImpl.EMPTY);
+    }
+
+    public EmbeddingResponseImpl(String uuid, Ret ret, Usage usage, List<Embedding> embeddings) {
+        this(uuid, ret, usage, EmbeddingMatrixImpl.of(embeddings));
         this.embeddings = embeddings;
     }
 
+    @Override
+    public EmbeddingMatrix matrix() {
+        return matrix;
+    }
+
+    // 向量列表按需从矩阵中复制
     @Override
     public List<Embedding> embeddings() {
+        if (null == embeddings) {
+            final var list = new ArrayList<Embedding>(matrix.rows());
+            for (int row = 0; row < matrix.rows(); row++) {
+                list.add(new Embedding(row, matrix.copyRow(row)));
+            }
+            embeddings = Collections.unmodifiableList(list);
+        }
         return embeddings;
     }
 
@@ -40,10 +64,11 @@ public class EmbeddingResponseImpl extends AlgoResponseImpl implements Embedding
             Usage usage,
 
             @JsonProperty("data")
-            List<Embedding> embeddings
+            @JsonDeserialize(using = EmbeddingMatrixJsonDeserializer.class)
+            EmbeddingMatrixImpl matrix
 
     ) {
-        return new EmbeddingResponseImpl(uuid, Ret.of(code, msg), usage, embeddings);
+        return new EmbeddingResponseImpl(uuid, Ret.of(code, msg), usage, matrix);
     }
 
 }
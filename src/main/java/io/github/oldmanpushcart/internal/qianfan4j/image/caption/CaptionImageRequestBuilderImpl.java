@@ -5,13 +5,15 @@ import io.github.oldmanpushcart.qianfan4j.image.caption.CaptionImageModel;
 import io.github.oldmanpushcart.qianfan4j.image.caption.CaptionImageRequest;
 
 import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.Objects;
 
 public class CaptionImageRequestBuilderImpl extends AlgoRequestBuilderImpl<CaptionImageModel, CaptionImageRequest, CaptionImageRequest.Builder>
         implements CaptionImageRequest.Builder {
 
     private String prompt;
-    private BufferedImage image;
+    private CaptionImageSource image;
 
     @Override
     public CaptionImageRequest.Builder prompt(String prompt) {
@@ -21,7 +23,24 @@ public class CaptionImageRequestBuilderImpl extends AlgoRequestBuilderImpl<Capti
 
     @Override
     public CaptionImageRequest.Builder image(BufferedImage image) {
-        this.image = Objects.requireNonNull(image);
+        this.image = new CaptionImageSource.Decoded(Objects.requireNonNull(image));
+        return this;
+    }
+
+    @Override
+    public CaptionImageRequest.Builder image(byte[] encoded) {
+        return image(ByteBuffer.wrap(encoded));
+    }
+
+    @Override
+    public CaptionImageRequest.Builder image(ByteBuffer encoded) {
+        this.image = new CaptionImageSource.Encoded(encoded.asReadOnlyBuffer());
+        return this;
+    }
+
+    @Override
+    public CaptionImageRequest.Builder image(Path path) {
+        this.image = new CaptionImageSource.File(Objects.requireNonNull(path));
         return this;
     }
 
@@ -16,11 +16,11 @@ public class CaptionImageRequestImpl extends AlgoRequestImpl<CaptionImageModel,
     @JsonProperty("prompt")
     private final String prompt;
 
-    @JsonSerialize(using = BufferedImageJsonSerializer.class)
+    @JsonSerialize(using = CaptionImageSourceJsonSerializer.class)
     @JsonProperty("image")
-    private final BufferedImage image;
+    private final CaptionImageSource image;
 
-    protected CaptionImageRequestImpl(Duration timeout, CaptionImageModel model, Option option, String user, String prompt, BufferedImage image) {
+    protected CaptionImageRequestImpl(Duration timeout, CaptionImageModel model, Option option, String user, String prompt, CaptionImageSource image) {
         super(timeout, model, option, user, CaptionImageResponseImpl.class);
         this.prompt = prompt;
         this.image = image;
@@ -33,7 +33,26 @@ public class CaptionImageRequestImpl extends AlgoRequestImpl<CaptionImageModel,
 
     @Override
     public BufferedImage image() {
+        return image.decode();
+    }
+
+    /**
+     * 获取图片来源
+     *
+     * @return 图片来源
+     */
+    CaptionImageSource source() {
         return image;
     }
 
+    /**
+     * 以新的图片来源复制请求
+     *
+     * @param image 图片来源
+     * @return 新的请求
+     */
+    CaptionImageRequestImpl withImage(CaptionImageSource image) {
+        return new CaptionImageRequestImpl(timeout(), model(), option(), user(), prompt, image);
+    }
+
 }
@@ -0,0 +1,148 @@
+package io.github.oldmanpushcart.internal.qianfan4j.image.caption;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.github.oldmanpushcart.internal.qianfan4j.util.ImageUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 图生文的图片来源
+ * <p>已编码的图片(字节、缓冲区、文件)在序列化时直接以base64写入请求体，不解码、不转码，也不产生完整的base64字符串</p>
+ */
+sealed interface CaptionImageSource {
+
+    /**
+     * 解码为图片
+     *
+     * @return 图片
+     */
+    BufferedImage decode();
+
+    /**
+     * 以base64写入JSON
+     *
+     * @param generator JSON生成器
+     * @throws IOException 读取或写入失败
+     */
+    void writeBase64(JsonGenerator generator) throws IOException;
+
+    /**
+     * 已解码的图片，序列化时编码为PNG
+     *
+     * @param image 图片
+     */
+    record Decoded(BufferedImage image) implements CaptionImageSource {
+
+        @Override
+        public BufferedImage decode() {
+            return image;
+        }
+
+        @Override
+        public void writeBase64(JsonGenerator generator) throws IOException {
+            generator.writeString(ImageUtils.imageToBase64(image));
+        }
+
+    }
+
+    /**
+     * 已编码的图片数据
+     *
+     * @param buffer 只读缓冲区，序列化时不改变其位置
+     */
+    record Encoded(ByteBuffer buffer) implements CaptionImageSource {
+
+        @Override
+        public BufferedImage decode() {
+            try (final var input = new ByteBufferInputStream(buffer.duplicate())) {
+                return ImageIO.read(input);
+            } catch (IOException cause) {
+                throw new UncheckedIOException("decode image failed!", cause);
+            }
+        }
+
+        @Override
+        public void writeBase64(JsonGenerator generator) throws IOException {
+            final var duplicate = buffer.duplicate();
+            if (duplicate.hasArray()) {
+                generator.writeBinary(duplicate.array(), duplicate.arrayOffset() + duplicate.position(), duplicate.remaining());
+            } else {
+                generator.writeBinary(new ByteBufferInputStream(duplicate), duplicate.remaining());
+            }
+        }
+
+    }
+
+    /**
+     * 图片文件
+     *
+     * @param path 文件路径
+     */
+    record File(Path path) implements CaptionImageSource {
+
+        @Override
+        public BufferedImage decode() {
+            try {
+                return ImageIO.read(path.toFile());
+            } catch (IOException cause) {
+                throw new UncheckedIOException("decode image: %s failed!".formatted(path), cause);
+            }
+        }
+
+        @Override
+        public void writeBase64(JsonGenerator generator) throws IOException {
+            final var size = Files.size(path);
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("image: %s is too large, size=%d".formatted(path, size));
+            }
+            try (final var input = Files.newInputStream(path)) {
+                generator.writeBinary(input, (int) size);
+            }
+        }
+
+    }
+
+    /**
+     * 以缓冲区为数据源的输入流
+     */
+    final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final var n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+    }
+
+}
@@ -0,0 +1,16 @@
+package io.github.oldmanpushcart.internal.qianfan4j.image.caption;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+public class CaptionImageSourceJsonSerializer extends JsonSerializer<CaptionImageSource> {
+
+    @Override
+    public void serialize(CaptionImageSource source, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        source.writeBase64(generator);
+    }
+
+}
@@ -0,0 +1,85 @@
+package io.github.oldmanpushcart.internal.qianfan4j.image.caption;
+
+import io.github.oldmanpushcart.qianfan4j.image.caption.ImagePreprocessor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+import static java.util.Objects.requireNonNull;
+
+public class ImagePreprocessorBuilderImpl implements ImagePreprocessor.Builder {
+
+    private int maxDimension = 1024;
+    private ImagePreprocessor.Scaling scaling = ImagePreprocessor.Scaling.QUALITY;
+    private float quality = 0.85f;
+    private int maxBytes;
+    private int capacity = 256;
+    private long cacheBytes = 64L << 20;
+    private Executor executor;
+
+    @Override
+    public ImagePreprocessor.Builder maxDimension(int maxDimension) {
+        this.maxDimension = check(maxDimension, maxDimension > 0, "maxDimension must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public ImagePreprocessor.Builder scaling(ImagePreprocessor.Scaling scaling) {
+        this.scaling = requireNonNull(scaling);
+        return this;
+    }
+
+    @Override
+    public ImagePreprocessor.Builder quality(float quality) {
+        this.quality = check(quality, quality > 0 && quality <= 1, "quality must be in (0,1]");
+        return this;
+    }
+
+    @Override
+    public ImagePreprocessor.Builder maxBytes(int maxBytes) {
+        this.maxBytes = check(maxBytes, maxBytes > 0, "maxBytes must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public ImagePreprocessor.Builder capacity(int capacity) {
+        this.capacity = check(capacity, capacity > 0, "capacity must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public ImagePreprocessor.Builder cacheBytes(long cacheBytes) {
+        this.cacheBytes = check(cacheBytes, cacheBytes > 0, "cacheBytes must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public ImagePreprocessor.Builder executor(Executor executor) {
+        this.executor = requireNonNull(executor);
+        return this;
+    }
+
+    @Override
+    public ImagePreprocessor build() {
+        return new ImagePreprocessorImpl(maxDimension, scaling, quality, maxBytes, capacity, cacheBytes,
+                null != executor ? executor : newDefaultExecutor());
+    }
+
+    // 默认线程池：线程数不超过CPU核数，空闲时回收全部线程；守护线程，不阻止JVM退出
+    private static Executor newDefaultExecutor() {
+        final var threads = Runtime.getRuntime().availableProcessors();
+        final var sequence = new AtomicInteger();
+        final var executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final var thread = new Thread(runnable, "qianfan4j-image-preprocessor-%d".formatted(sequence.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+}
@@ -0,0 +1,324 @@
+package io.github.oldmanpushcart.internal.qianfan4j.image.caption;
+
+import io.github.oldmanpushcart.internal.qianfan4j.base.api.ApiInvoker;
+import io.github.oldmanpushcart.internal.qianfan4j.util.LruCache;
+import io.github.oldmanpushcart.internal.qianfan4j.util.StringUtils;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.qianfan4j.cache.CacheStats;
+import io.github.oldmanpushcart.qianfan4j.image.caption.ImagePreprocessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+import static io.github.oldmanpushcart.qianfan4j.Constants.LOGGER_NAME;
+
+/**
+ * 图片预处理器实现
+ * <p>
+ * 编码结果按数量和字节数双重限制缓存，处理中的结果单独保存用于合并并发的相同图片。
+ * 缓存不持有调用者的缓冲区：原样使用的调用者数据在缓存前复制一份
+ * </p>
+ */
+public class ImagePreprocessorImpl implements ImagePreprocessor {
+
+    private final static Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+
+    // 超出字节预算时的最低编码质量、每次降低的质量和缩小的比例
+    private static final float MIN_QUALITY = 0.5f;
+    private static final float QUALITY_STEP = 0.1f;
+    private static final float SHRINK_RATIO = 0.75f;
+
+    // 超出字节预算时缩小的最小边长，再小则放弃满足预算
+    private static final int MIN_DIMENSION = 64;
+
+    private final int maxDimension;
+    private final Scaling scaling;
+    private final float quality;
+    private final int maxBytes;
+    private final Executor executor;
+    private final LruCache<String, ByteBuffer> cache;
+    private final ConcurrentHashMap<String, CompletableFuture<ByteBuffer>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    ImagePreprocessorImpl(int maxDimension, Scaling scaling, float quality, int maxBytes, int capacity, long cacheBytes, Executor executor) {
+        this.maxDimension = maxDimension;
+        this.scaling = scaling;
+        this.quality = quality;
+        this.maxBytes = maxBytes;
+        this.executor = executor;
+        this.cache = new LruCache<>(capacity, null, cacheBytes, ByteBuffer::capacity);
+    }
+
+    @Override
+    public CompletableFuture<ByteBuffer> process(BufferedImage image) {
+        return process(new CaptionImageSource.Decoded(Objects.requireNonNull(image)));
+    }
+
+    @Override
+    public CompletableFuture<ByteBuffer> process(ByteBuffer encoded) {
+        return process(new CaptionImageSource.Encoded(encoded.asReadOnlyBuffer()));
+    }
+
+    @Override
+    public CompletableFuture<ByteBuffer> process(Path path) {
+        return process(new CaptionImageSource.File(Objects.requireNonNull(path)));
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.get(), misses.get(), cache.size());
+    }
+
+    /**
+     * 在API调用器之前叠加图片预处理；只处理图生文请求，预处理完成后以编码结果发出请求
+     *
+     * @param delegate 被装饰的API调用器
+     * @return 带图片预处理的API调用器
+     */
+    public ApiInvoker decorate(ApiInvoker delegate) {
+        return new ApiInvoker() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <R extends ApiResponse> CompletableFuture<R> execute(ApiRequest<R> request, BinaryOperator<R> accumulator, Consumer<R> consumer) {
+                if (!(request instanceof CaptionImageRequestImpl caption)) {
+                    return delegate.execute(request, accumulator, consumer);
+                }
+                return process(caption.source())
+                        .thenCompose(buffer -> delegate.execute(
+                                (ApiRequest<R>) caption.withImage(new CaptionImageSource.Encoded(buffer)),
+                                accumulator,
+                                consumer
+                        ));
+            }
+        };
+    }
+
+    // 在线程池中计算内容摘要，相同内容的并发处理共享同一次编码，失败的结果不缓存
+    private CompletableFuture<ByteBuffer> process(CaptionImageSource source) {
+        return CompletableFuture
+                .supplyAsync(() -> {
+                    final var input = Input.of(source);
+                    final var cached = cache.get(input.key());
+                    if (null != cached) {
+                        hits.incrementAndGet();
+                        return CompletableFuture.completedFuture(cached);
+                    }
+                    final var promise = new CompletableFuture<ByteBuffer>();
+                    final var existed = pending.putIfAbsent(input.key(), promise);
+                    if (null != existed) {
+                        hits.incrementAndGet();
+                        return existed;
+                    }
+                    misses.incrementAndGet();
+                    try {
+                        final var encoded = retain(input, encode(input));
+                        cache.put(input.key(), encoded);
+                        promise.complete(encoded);
+                    } catch (Throwable cause) {
+                        promise.completeExceptionally(cause);
+                    } finally {
+                        pending.remove(input.key(), promise);
+                    }
+                    return promise;
+                }, executor)
+                .thenCompose(promise -> promise);
+    }
+
+    // 原样使用调用者的缓冲区时复制一份，缓存不持有调用者的数据
+    private static ByteBuffer retain(Input input, ByteBuffer encoded) {
+        if (!input.borrowed() || encoded != input.original()) {
+            return encoded;
+        }
+        final var copy = ByteBuffer.allocate(encoded.remaining());
+        copy.put(encoded.duplicate()).flip();
+        return copy.asReadOnlyBuffer();
+    }
+
+    // 缩放并编码，尽量满足字节预算
+    private ByteBuffer encode(Input input) throws IOException {
+        final var image = input.image();
+
+        // 无法解码的数据原样发送，由服务端判断
+        if (null == image) {
+            return input.original();
+        }
+
+        // 原图为JPEG且尺寸和大小都满足时无需转码
+        final var original = input.original();
+        final var isFit = Math.max(image.getWidth(), image.getHeight()) <= maxDimension;
+        if (null != original && isFit && isJpeg(original) && isWithinBudget(original.remaining())) {
+            return original;
+        }
+
+        var scaled = scale(image, maxDimension);
+        var q = quality;
+        var bytes = writeJpeg(scaled, q);
+        while (!isWithinBudget(bytes.length)) {
+            final var dimension = Math.max(scaled.getWidth(), scaled.getHeight());
+            if (q > MIN_QUALITY) {
+                q = Math.max(MIN_QUALITY, q - QUALITY_STEP);
+            } else if (dimension > MIN_DIMENSION) {
+                scaled = scale(scaled, Math.max(MIN_DIMENSION, (int) (dimension * SHRINK_RATIO)));
+            } else {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("image/preprocess exceeded budget: {} > {}", bytes.length, maxBytes);
+                }
+                break;
+            }
+            bytes = writeJpeg(scaled, q);
+        }
+
+        // 原图尺寸满足且更小(如简单的PNG)时使用原图
+        if (null != original && isFit && original.remaining() <= bytes.length) {
+            return original;
+        }
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    private boolean isWithinBudget(int size) {
+        return maxBytes <= 0 || size <= maxBytes;
+    }
+
+    private static boolean isJpeg(ByteBuffer buffer) {
+        final var position = buffer.position();
+        return buffer.remaining() >= 2
+                && (buffer.get(position) & 0xFF) == 0xFF
+                && (buffer.get(position + 1) & 0xFF) == 0xD8;
+    }
+
+    // 缩放到长边不超过最大边长，同时转为不透明的RGB(JPEG不支持透明通道，透明部分以白色填充)
+    private BufferedImage scale(BufferedImage image, int dimension) {
+        final var ratio = Math.min(1d, (double) dimension / Math.max(image.getWidth(), image.getHeight()));
+        final var width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        final var height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        // 质量优先：每次减半直到不足目标的两倍，避免一次大比例插值丢失细节
+        var current = image;
+        if (scaling == Scaling.QUALITY) {
+            while (current.getWidth() / 2 >= width * 2 && current.getHeight() / 2 >= height * 2) {
+                current = draw(current, current.getWidth() / 2, current.getHeight() / 2, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            }
+        }
+        final var interpolation = scaling == Scaling.QUALITY
+                ? RenderingHints.VALUE_INTERPOLATION_BICUBIC
+                : RenderingHints.VALUE_INTERPOLATION_BILINEAR;
+        return current == image && ratio == 1d && image.getType() == BufferedImage.TYPE_INT_RGB
+                ? image
+                : draw(current, width, height, interpolation);
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height, Object interpolation) {
+        final var target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final var graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] writeJpeg(BufferedImage image, float quality) throws IOException {
+        final var writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (final var output = new ByteArrayOutputStream();
+             final var stream = ImageIO.createImageOutputStream(output)) {
+            final var param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+            stream.flush();
+            return output.toByteArray();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * 预处理的输入
+     *
+     * @param key      内容摘要
+     * @param original 原始编码数据，输入为已解码图片时为{@code null}
+     * @param borrowed 原始编码数据是否为调用者的缓冲区
+     * @param source   图片来源
+     */
+    private record Input(String key, ByteBuffer original, boolean borrowed, CaptionImageSource source) {
+
+        static Input of(CaptionImageSource source) {
+            if (source instanceof CaptionImageSource.Decoded decoded) {
+                return new Input(digest(decoded.image()), null, false, source);
+            }
+            if (source instanceof CaptionImageSource.Encoded encoded) {
+                return of(encoded.buffer(), true);
+            }
+            final var path = ((CaptionImageSource.File) source).path();
+            try {
+                return of(ByteBuffer.wrap(Files.readAllBytes(path)).asReadOnlyBuffer(), false);
+            } catch (IOException cause) {
+                throw new UncheckedIOException("read image: %s failed!".formatted(path), cause);
+            }
+        }
+
+        private static Input of(ByteBuffer buffer, boolean borrowed) {
+            final var digest = newDigest();
+            digest.update(buffer.duplicate());
+            return new Input("bytes:" + StringUtils.encodeHex(digest.digest()), buffer, borrowed, new CaptionImageSource.Encoded(buffer));
+        }
+
+        // 已解码的图片以像素内容计算摘要，比编码的代价小得多
+        private static String digest(BufferedImage image) {
+            final var digest = newDigest();
+            final var width = image.getWidth();
+            final var row = new int[width];
+            final var bytes = ByteBuffer.allocate(width * Integer.BYTES);
+            digest.update(ByteBuffer.allocate(2 * Integer.BYTES).putInt(width).putInt(image.getHeight()).flip());
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                bytes.clear();
+                bytes.asIntBuffer().put(row);
+                digest.update(bytes);
+            }
+            return "pixels:" + StringUtils.encodeHex(digest.digest());
+        }
+
+        private static MessageDigest newDigest() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException cause) {
+                throw new IllegalStateException("SHA-256 is not supported!", cause);
+            }
+        }
+
+        BufferedImage image() {
+            return source.decode();
+        }
+
+    }
+
+}
@@ -0,0 +1,120 @@
+package io.github.oldmanpushcart.internal.qianfan4j.image.generation;
+
+import io.github.oldmanpushcart.qianfan4j.image.generation.EncodedImage;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+/**
+ * 已编码的生成图片实现
+ */
+class EncodedImageImpl implements EncodedImage {
+
+    private final String base64;
+    private volatile BufferedImage image;
+
+    EncodedImageImpl(String base64) {
+        this.base64 = base64;
+    }
+
+    @Override
+    public String base64() {
+        return base64;
+    }
+
+    @Override
+    public byte[] bytes() {
+        return Base64.getDecoder().decode(base64);
+    }
+
+    @Override
+    public ByteBuffer buffer() {
+        return ByteBuffer.wrap(bytes()).asReadOnlyBuffer();
+    }
+
+    @Override
+    public BufferedImage decode() {
+        var decoded = image;
+        if (null == decoded) {
+            synchronized (this) {
+                decoded = image;
+                if (null == decoded) {
+                    try (final var input = newInputStream()) {
+                        image = decoded = ImageIO.read(input);
+                    } catch (IOException cause) {
+                        throw new UncheckedIOException("decode image failed!", cause);
+                    }
+                }
+            }
+        }
+        return decoded;
+    }
+
+    @Override
+    public void writeTo(OutputStream output) throws IOException {
+        try (final var input = newInputStream()) {
+            input.transferTo(output);
+        }
+    }
+
+    @Override
+    public void writeTo(Path path) throws IOException {
+        try (final var output = Files.newOutputStream(path)) {
+            writeTo(output);
+        }
+    }
+
+    // 边读边解码base64的输入流
+    private InputStream newInputStream() {
+        return Base64.getDecoder().wrap(new Base64InputStream(base64));
+    }
+
+    /**
+     * 以base64字符串为数据源的输入流；base64只包含ASCII字符，逐字符转为字节即可
+     */
+    private static final class Base64InputStream extends InputStream {
+
+        private final String base64;
+        private int position;
+
+        Base64InputStream(String base64) {
+            this.base64 = base64;
+        }
+
+        @Override
+        public int read() {
+            return position < base64.length() ? base64.charAt(position++) & 0x7F : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= base64.length()) {
+                return -1;
+            }
+            final var n = Math.min(length, base64.length() - position);
+            for (int i = 0; i < n; i++) {
+                bytes[offset + i] = (byte) base64.charAt(position + i);
+            }
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return base64.length() - position;
+        }
+
+    }
+
+}
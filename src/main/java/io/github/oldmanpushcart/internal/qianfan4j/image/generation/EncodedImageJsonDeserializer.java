@@ -0,0 +1,21 @@
+package io.github.oldmanpushcart.internal.qianfan4j.image.generation;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import io.github.oldmanpushcart.qianfan4j.image.generation.EncodedImage;
+
+import java.io.IOException;
+
+/**
+ * 生成图片反序列化器；只保留base64数据，不在解析应答时解码
+ */
+public class EncodedImageJsonDeserializer extends JsonDeserializer<EncodedImage> {
+
+    @Override
+    public EncodedImage deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        final var node = context.readTree(parser);
+        return new EncodedImageImpl(node.get("b64_image").asText());
+    }
+
+}
@@ -0,0 +1,123 @@
+package io.github.oldmanpushcart.internal.qianfan4j.image.generation;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageOptions;
+import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageRequest;
+import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageResponse;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+
+/**
+ * 文生图并行生成
+ * <p>
+ * 将生成多张图片的请求拆分为每次只生成一张的子请求，第i个子请求的随机种子为{@code (seed + i) mod 2^32}，
+ * 请求未设置{@link GenerationImageOptions#SEED}时随机选取起始种子。同时在途的子请求不超过并发数，
+ * 每个子请求完成后立即交给消费者并发出下一个子请求。任意子请求失败后不再发出新的子请求。
+ * 子请求以{@link QianFanClient#generationImage(GenerationImageRequest)}发出，经过客户端完整的调用链。
+ * </p>
+ */
+public class GenerationImageFanOut {
+
+    private static final long SEED_BOUND = 1L << 32;
+
+    private final QianFanClient client;
+    private final GenerationImageRequestImpl request;
+    private final long[] seeds;
+    private final GenerationImageResponse[] responses;
+    private final Consumer<GenerationImageResponse> consumer;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final CompletableFuture<GenerationImageResponse> future = new CompletableFuture<>();
+
+    private GenerationImageFanOut(QianFanClient client, GenerationImageRequestImpl request, int total, Consumer<GenerationImageResponse> consumer) {
+        this.client = client;
+        this.request = request;
+        this.seeds = seeds(request, total);
+        this.responses = new GenerationImageResponse[total];
+        this.consumer = consumer;
+        this.remaining = new AtomicInteger(total);
+    }
+
+    /**
+     * 并行生成图片操作
+     *
+     * @param client      千帆客户端
+     * @param request     文生图请求
+     * @param total       生成图片数量
+     * @param parallelism 并发数
+     * @return 操作，消费者按子请求完成的顺序串行调用；结果为合并后的应答，图片按随机种子的顺序排列
+     */
+    public static QianFanClient.Op<GenerationImageResponse> op(QianFanClient client, GenerationImageRequest request, int total, int parallelism) {
+        check(total, total > 0, "total must be greater than 0");
+        check(parallelism, parallelism > 0, "parallelism must be greater than 0");
+        return consumer -> execute(client, request, total, parallelism, consumer);
+    }
+
+    private static CompletableFuture<GenerationImageResponse> execute(QianFanClient client, GenerationImageRequest request, int total, int parallelism, Consumer<GenerationImageResponse> consumer) {
+        final var fanOut = new GenerationImageFanOut(client, (GenerationImageRequestImpl) request, total, consumer);
+        for (int i = 0; i < Math.min(total, parallelism); i++) {
+            fanOut.launch();
+        }
+        return fanOut.future;
+    }
+
+    private static long[] seeds(GenerationImageRequest request, int total) {
+        final var base = request.option().get(GenerationImageOptions.SEED) instanceof Long seed
+                ? seed
+                : ThreadLocalRandom.current().nextLong(SEED_BOUND);
+        final var seeds = new long[total];
+        Arrays.setAll(seeds, index -> (base + index) % SEED_BOUND);
+        return seeds;
+    }
+
+    // 发出下一个子请求
+    private void launch() {
+        final var index = next.getAndIncrement();
+        if (index >= seeds.length || future.isDone()) {
+            return;
+        }
+        final CompletableFuture<GenerationImageResponse> subFuture;
+        try {
+            subFuture = client.generationImage(request.fork(seeds[index])).async();
+        } catch (Throwable cause) {
+            future.completeExceptionally(cause);
+            return;
+        }
+        subFuture.whenComplete((response, ex) -> {
+            if (null != ex) {
+                future.completeExceptionally(ex);
+                return;
+            }
+            responses[index] = response;
+            if (!deliver(response)) {
+                return;
+            }
+            if (remaining.decrementAndGet() == 0) {
+                future.complete(GenerationImageResponseImpl.merge(Arrays.asList(responses)));
+            } else {
+                launch();
+            }
+        });
+    }
+
+    // 串行交给消费者，失败后不再交付
+    private synchronized boolean deliver(GenerationImageResponse response) {
+        if (future.isDone()) {
+            return false;
+        }
+        try {
+            consumer.accept(response);
+            return true;
+        } catch (Throwable cause) {
+            future.completeExceptionally(cause);
+            return false;
+        }
+    }
+
+}
@@ -7,6 +7,7 @@ import io.github.oldmanpushcart.internal.qianfan4j.base.algo.AlgoRequestImpl;
 import io.github.oldmanpushcart.internal.qianfan4j.util.JacksonUtils;
 import io.github.oldmanpushcart.qianfan4j.base.api.Option;
 import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageModel;
+import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageOptions;
 import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageRequest;
 import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageResponse;
 
@@ -39,6 +40,20 @@ public class GenerationImageRequestImpl extends AlgoRequestImpl<GenerationImageM
         return negative;
     }
 
+    /**
+     * 派生只生成一张图片、使用指定随机种子的子请求；选项复制一份，不影响原请求
+     *
+     * @param seed 随机种子
+     * @return 子请求
+     */
+    GenerationImageRequestImpl fork(long seed) {
+        final var option = new Option();
+        option().export().forEach(option::option);
+        option.option(GenerationImageOptions.NUMBERS.name(), 1);
+        option.option(GenerationImageOptions.SEED.name(), seed);
+        return new GenerationImageRequestImpl(timeout(), model(), option, user(), prompt, negative);
+    }
+
     @Override
     protected String wrapLoggingResponseBody(String body) {
         String content;
@@ -6,18 +6,25 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import io.github.oldmanpushcart.internal.qianfan4j.base.algo.AlgoResponseImpl;
 import io.github.oldmanpushcart.qianfan4j.base.algo.Usage;
 import io.github.oldmanpushcart.qianfan4j.base.api.Ret;
+import io.github.oldmanpushcart.qianfan4j.image.generation.EncodedImage;
 import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageResponse;
 
 import java.awt.image.BufferedImage;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.RandomAccess;
 
 public class GenerationImageResponseImpl extends AlgoResponseImpl implements GenerationImageResponse {
 
+    private final List<EncodedImage> encodedImages;
     private final List<BufferedImage> images;
 
-    private GenerationImageResponseImpl(String uuid, Ret ret, Usage usage, List<BufferedImage> images) {
+    private GenerationImageResponseImpl(String uuid, Ret ret, Usage usage, List<EncodedImage> encodedImages) {
         super(uuid, ret, usage);
-        this.images = images;
+        this.encodedImages = null == encodedImages ? List.of() : List.copyOf(encodedImages);
+        this.images = new DecodingList(this.encodedImages);
     }
 
     @Override
@@ -25,6 +32,32 @@ public class GenerationImageResponseImpl extends AlgoResponseImpl implements Gen
         return images;
     }
 
+    @Override
+    public List<EncodedImage> encodedImages() {
+        return encodedImages;
+    }
+
+    /**
+     * 合并多个应答：图片按应答顺序拼接，用量按项累加
+     *
+     * @param responses 应答
+     * @return 合并后的应答
+     */
+    static GenerationImageResponseImpl merge(List<GenerationImageResponse> responses) {
+        final var images = new ArrayList<EncodedImage>();
+        final var costs = new LinkedHashMap<String, Integer>();
+        responses.forEach(response -> {
+            images.addAll(response.encodedImages());
+            if (null != response.usage()) {
+                response.usage().items().forEach(item -> costs.merge(item.name(), item.cost(), Integer::sum));
+            }
+        });
+        final var items = costs.entrySet().stream()
+                .map(entry -> new Usage.Item(entry.getKey(), entry.getValue()))
+                .toList();
+        return new GenerationImageResponseImpl(null, Ret.of(null, null), new Usage(items), images);
+    }
+
     @JsonCreator
     static GenerationImageResponseImpl of(
 
@@ -40,12 +73,35 @@ public class GenerationImageResponseImpl extends AlgoResponseImpl implements Gen
             @JsonProperty("usage")
             Usage usage,
 
-            @JsonDeserialize(contentUsing = BufferedImageJsonDeserializer.class)
+            @JsonDeserialize(contentUsing = EncodedImageJsonDeserializer.class)
             @JsonProperty("data")
-            List<BufferedImage> images
+            List<EncodedImage> images
 
     ) {
         return new GenerationImageResponseImpl(uuid, Ret.of(code, msg), usage, images);
     }
 
+    /**
+     * 访问元素时才解码图片的只读列表
+     */
+    private static final class DecodingList extends AbstractList<BufferedImage> implements RandomAccess {
+
+        private final List<EncodedImage> encodedImages;
+
+        DecodingList(List<EncodedImage> encodedImages) {
+            this.encodedImages = encodedImages;
+        }
+
+        @Override
+        public BufferedImage get(int index) {
+            return encodedImages.get(index).decode();
+        }
+
+        @Override
+        public int size() {
+            return encodedImages.size();
+        }
+
+    }
+
 }
@@ -0,0 +1,126 @@
+package io.github.oldmanpushcart.internal.qianfan4j.replay;
+
+import io.github.oldmanpushcart.internal.qianfan4j.util.StringUtils;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * 录制的HTTP交换，录制文件中的一行
+ *
+ * @param method    请求方法
+ * @param uri       不含查询参数的请求地址
+ * @param body      请求体的SHA-256摘要
+ * @param status    应答状态码
+ * @param headers   应答头
+ * @param headersAt 应答头相对请求发出的到达时间(微秒)
+ * @param chunks    应答体分片
+ */
+record Exchange(String method, String uri, String body, int status, Map<String, List<String>> headers, long headersAt, List<Chunk> chunks) {
+
+    // 获取令牌的地址，含有AK/SK，不录制
+    private static final String TOKEN_PATH = "/oauth/2.0/token";
+
+    /**
+     * 应答体分片
+     *
+     * @param at   相对请求发出的到达时间(微秒)
+     * @param data 分片内容
+     */
+    record Chunk(long at, byte[] data) {
+
+    }
+
+    /**
+     * 交换的匹配键
+     *
+     * @return 匹配键
+     */
+    String key() {
+        return "%s %s %s".formatted(method, uri, body);
+    }
+
+    /**
+     * 去掉查询参数的请求地址
+     *
+     * @param uri 请求地址
+     * @return 不含查询参数的请求地址
+     */
+    static String strip(URI uri) {
+        return "%s://%s%s".formatted(uri.getScheme(), uri.getRawAuthority(), null == uri.getRawPath() ? "" : uri.getRawPath());
+    }
+
+    /**
+     * 是否为获取令牌的请求
+     *
+     * @param request HTTP请求
+     * @return TRUE | FALSE
+     */
+    static boolean isToken(HttpRequest request) {
+        return TOKEN_PATH.equals(request.uri().getPath());
+    }
+
+    /**
+     * 计算请求的匹配键
+     * <p>订阅请求体计算摘要；请求体必须可以重复订阅，客户端生成的请求体都满足</p>
+     *
+     * @param request HTTP请求
+     * @return 匹配键
+     */
+    static CompletableFuture<String> key(HttpRequest request) {
+        return digest(request).thenApply(body -> "%s %s %s".formatted(request.method(), strip(request.uri()), body));
+    }
+
+    /**
+     * 计算请求体的摘要
+     *
+     * @param request HTTP请求
+     * @return 请求体的SHA-256摘要
+     */
+    static CompletableFuture<String> digest(HttpRequest request) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException cause) {
+            return CompletableFuture.failedFuture(new IllegalStateException("SHA-256 is not supported!", cause));
+        }
+        final var future = new CompletableFuture<String>();
+        final var publisher = request.bodyPublisher().orElse(null);
+        if (null == publisher) {
+            future.complete(StringUtils.encodeHex(digest.digest()));
+            return future;
+        }
+        publisher.subscribe(new Flow.Subscriber<>() {
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                digest.update(buffer);
+            }
+
+            @Override
+            public void onError(Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(StringUtils.encodeHex(digest.digest()));
+            }
+
+        });
+        return future;
+    }
+
+}
@@ -0,0 +1,24 @@
+package io.github.oldmanpushcart.internal.qianfan4j.replay;
+
+import io.github.oldmanpushcart.qianfan4j.replay.Recorder;
+
+import java.nio.file.Path;
+
+import static java.util.Objects.requireNonNull;
+
+public class RecorderBuilderImpl implements Recorder.Builder {
+
+    private Path path;
+
+    @Override
+    public Recorder.Builder path(Path path) {
+        this.path = requireNonNull(path);
+        return this;
+    }
+
+    @Override
+    public Recorder build() {
+        return new RecorderImpl(requireNonNull(path, "path is required"));
+    }
+
+}
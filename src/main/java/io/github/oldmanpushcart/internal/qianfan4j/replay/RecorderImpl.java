@@ -0,0 +1,193 @@
+package io.github.oldmanpushcart.internal.qianfan4j.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.oldmanpushcart.internal.qianfan4j.util.JacksonUtils;
+import io.github.oldmanpushcart.qianfan4j.replay.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.github.oldmanpushcart.qianfan4j.Constants.LOGGER_NAME;
+
+/**
+ * HTTP录制器实现
+ */
+public class RecorderImpl implements Recorder {
+
+    private static final ObjectMapper mapper = JacksonUtils.mapper();
+    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final Writer writer;
+    private final AtomicLong recorded = new AtomicLong();
+
+    RecorderImpl(Path path) {
+        try {
+            this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        } catch (IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "qianfan://replay/recorder";
+    }
+
+    @Override
+    public long recorded() {
+        return recorded.get();
+    }
+
+    @Override
+    public void close() {
+        synchronized (writer) {
+            try {
+                writer.close();
+            } catch (IOException cause) {
+                throw new UncheckedIOException(cause);
+            }
+        }
+    }
+
+    // 写入一次交换，每行写完即刷出，进程中断时已完成的交换不会丢失
+    private void write(Exchange exchange) {
+        final var line = JacksonUtils.toJson(mapper, exchange);
+        synchronized (writer) {
+            try {
+                writer.write(line);
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException cause) {
+                throw new UncheckedIOException(cause);
+            }
+        }
+        recorded.incrementAndGet();
+    }
+
+    /**
+     * 在HTTP客户端之前叠加录制
+     *
+     * @param delegate 被装饰的HTTP客户端
+     * @return 带录制的HTTP客户端
+     */
+    public HttpClient decorate(HttpClient delegate) {
+        return new ForwardingHttpClient(delegate) {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+                if (Exchange.isToken(request)) {
+                    return delegate.sendAsync(request, handler);
+                }
+                return Exchange.digest(request).thenCompose(body -> {
+                    final var started = System.nanoTime();
+                    return delegate.sendAsync(request, info -> new RecordingBodySubscriber<>(
+                            request,
+                            body,
+                            info,
+                            elapsed(started),
+                            started,
+                            handler.apply(info)
+                    ));
+                });
+            }
+        };
+    }
+
+    private static long elapsed(long started) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+    }
+
+    /**
+     * 录制应答体的订阅器：复制每个分片后原样转发，应答结束时写入交换
+     *
+     * @param <T> 应答体类型
+     */
+    private class RecordingBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        private final HttpRequest request;
+        private final String body;
+        private final HttpResponse.ResponseInfo info;
+        private final long headersAt;
+        private final long started;
+        private final HttpResponse.BodySubscriber<T> target;
+        private final List<Exchange.Chunk> chunks = new ArrayList<>();
+
+        private RecordingBodySubscriber(HttpRequest request, String body, HttpResponse.ResponseInfo info, long headersAt, long started, HttpResponse.BodySubscriber<T> target) {
+            this.request = request;
+            this.body = body;
+            this.info = info;
+            this.headersAt = headersAt;
+            this.started = started;
+            this.target = target;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return target.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            target.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            final var length = buffers.stream().mapToInt(ByteBuffer::remaining).sum();
+            final var data = new byte[length];
+            var offset = 0;
+            for (final var buffer : buffers) {
+                final var remaining = buffer.remaining();
+                buffer.duplicate().get(data, offset, remaining);
+                offset += remaining;
+            }
+            synchronized (chunks) {
+                chunks.add(new Exchange.Chunk(elapsed(started), data));
+            }
+            target.onNext(buffers);
+        }
+
+        @Override
+        public void onError(Throwable ex) {
+            target.onError(ex);
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                synchronized (chunks) {
+                    write(new Exchange(
+                            request.method(),
+                            Exchange.strip(request.uri()),
+                            body,
+                            info.statusCode(),
+                            info.headers().map(),
+                            headersAt,
+                            List.copyOf(chunks)
+                    ));
+                }
+            } catch (RuntimeException cause) {
+                logger.warn("{} record failed! uri={};", RecorderImpl.this, Exchange.strip(request.uri()), cause);
+            }
+            target.onComplete();
+        }
+
+    }
+
+}
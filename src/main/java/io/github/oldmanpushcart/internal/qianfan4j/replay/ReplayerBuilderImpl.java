@@ -0,0 +1,32 @@
+package io.github.oldmanpushcart.internal.qianfan4j.replay;
+
+import io.github.oldmanpushcart.qianfan4j.replay.Replayer;
+
+import java.nio.file.Path;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+import static java.util.Objects.requireNonNull;
+
+public class ReplayerBuilderImpl implements Replayer.Builder {
+
+    private Path path;
+    private double speed = 1.0;
+
+    @Override
+    public Replayer.Builder path(Path path) {
+        this.path = requireNonNull(path);
+        return this;
+    }
+
+    @Override
+    public Replayer.Builder speed(double speed) {
+        this.speed = check(speed, speed > 0, "speed must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public Replayer build() {
+        return new ReplayerImpl(requireNonNull(path, "path is required"), speed);
+    }
+
+}
@@ -0,0 +1,264 @@
+package io.github.oldmanpushcart.internal.qianfan4j.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.oldmanpushcart.internal.qianfan4j.util.JacksonUtils;
+import io.github.oldmanpushcart.qianfan4j.replay.Replayer;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.base.api.http.HttpHeader.ContentType.MIME_APPLICATION_JSON;
+import static io.github.oldmanpushcart.internal.qianfan4j.base.api.http.HttpHeader.HEADER_CONTENT_TYPE;
+
+/**
+ * HTTP重放器实现
+ */
+public class ReplayerImpl implements Replayer {
+
+    private static final ObjectMapper mapper = JacksonUtils.mapper();
+
+    // 重放时返回的令牌，有效期30天
+    private static final Exchange TOKEN = new Exchange(
+            "GET",
+            null,
+            null,
+            200,
+            Map.of(HEADER_CONTENT_TYPE, List.of(MIME_APPLICATION_JSON)),
+            0,
+            List.of(new Exchange.Chunk(0, "{\"access_token\":\"replay\",\"expires_in\":2592000}".getBytes(StandardCharsets.UTF_8)))
+    );
+
+    private final Map<String, Recorded> recordings;
+    private final double speed;
+    private final AtomicLong replayed = new AtomicLong();
+
+    ReplayerImpl(Path path, double speed) {
+        this.recordings = load(path);
+        this.speed = speed;
+    }
+
+    private static Map<String, Recorded> load(Path path) {
+        try (final var lines = Files.lines(path, StandardCharsets.UTF_8)) {
+            return lines
+                    .filter(line -> !line.isBlank())
+                    .map(line -> JacksonUtils.toObject(mapper, line, Exchange.class))
+                    .collect(Collectors.groupingBy(Exchange::key, HashMap::new, Collectors.toList()))
+                    .entrySet()
+                    .stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> new Recorded(entry.getValue())));
+        } catch (IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+    }
+
+    @Override
+    public long replayed() {
+        return replayed.get();
+    }
+
+    /**
+     * 以重放代替HTTP客户端发出请求；被装饰的客户端只提供配置和线程池
+     *
+     * @param delegate 被装饰的HTTP客户端
+     * @return 重放的HTTP客户端
+     */
+    public HttpClient decorate(HttpClient delegate) {
+        final var executor = delegate.executor().orElseGet(ForkJoinPool::commonPool);
+        return new ForwardingHttpClient(delegate) {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+                final var started = System.nanoTime();
+                if (Exchange.isToken(request)) {
+                    return replay(request, TOKEN, handler, started, executor);
+                }
+                return Exchange.key(request).thenCompose(key -> {
+                    final var recorded = recordings.get(key);
+                    if (null == recorded) {
+                        return CompletableFuture.failedFuture(new IllegalStateException(
+                                "no recording for request: %s %s".formatted(request.method(), Exchange.strip(request.uri()))
+                        ));
+                    }
+                    replayed.incrementAndGet();
+                    return replay(request, recorded.next(), handler, started, executor);
+                });
+            }
+        };
+    }
+
+    // 到达录制的时刻后送达应答头，再由订阅驱动分片
+    private <T> CompletableFuture<HttpResponse<T>> replay(HttpRequest request, Exchange exchange, HttpResponse.BodyHandler<T> handler, long started, Executor executor) {
+        final var headers = HttpHeaders.of(exchange.headers(), (name, value) -> true);
+        final var delay = due(started, exchange.headersAt()) - System.nanoTime();
+        final var delayed = delay > 0
+                ? CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, executor)
+                : executor;
+        return CompletableFuture.supplyAsync(() -> handler.apply(new ResponseInfo(exchange.status(), headers)), delayed)
+                .thenCompose(subscriber -> {
+                    subscriber.onSubscribe(new ReplaySubscription(subscriber, exchange.chunks(), started, executor));
+                    return subscriber.getBody();
+                })
+                .thenApply(body -> new ReplayHttpResponse<>(request, exchange.status(), headers, body));
+    }
+
+    // 录制的到达时间按速度换算为重放的时刻
+    private long due(long started, long at) {
+        return started + (long) (TimeUnit.MICROSECONDS.toNanos(at) / speed);
+    }
+
+    /**
+     * 同一请求的多次录制，依次轮流重放
+     */
+    private static class Recorded {
+
+        private final List<Exchange> exchanges;
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        private Recorded(List<Exchange> exchanges) {
+            this.exchanges = exchanges;
+        }
+
+        Exchange next() {
+            return exchanges.get(Math.floorMod(cursor.getAndIncrement(), exchanges.size()));
+        }
+
+    }
+
+    /**
+     * 按订阅者的需求和录制的时刻发布分片
+     * <p>以工作计数保证同一时刻只有一个线程在发布；分片未到时刻时安排一次延迟的发布</p>
+     */
+    private class ReplaySubscription implements Flow.Subscription {
+
+        private final HttpResponse.BodySubscriber<?> subscriber;
+        private final List<Exchange.Chunk> chunks;
+        private final long started;
+        private final Executor executor;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean done;
+        private volatile boolean waiting;
+        private int index;
+
+        private ReplaySubscription(HttpResponse.BodySubscriber<?> subscriber, List<Exchange.Chunk> chunks, long started, Executor executor) {
+            this.subscriber = subscriber;
+            this.chunks = chunks;
+            this.started = started;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (done) {
+                return;
+            }
+            if (n <= 0) {
+                done = true;
+                subscriber.onError(new IllegalArgumentException("request must be greater than 0, but was %d".formatted(n)));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (!done) {
+                    if (index == chunks.size()) {
+                        done = true;
+                        subscriber.onComplete();
+                        break;
+                    }
+                    if (demand.get() == 0) {
+                        break;
+                    }
+                    final var chunk = chunks.get(index);
+                    final var delay = due(started, chunk.at()) - System.nanoTime();
+                    if (delay > 0) {
+                        if (!waiting) {
+                            waiting = true;
+                            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, executor).execute(() -> {
+                                waiting = false;
+                                drain();
+                            });
+                        }
+                        break;
+                    }
+                    index++;
+                    demand.decrementAndGet();
+                    subscriber.onNext(List.of(ByteBuffer.wrap(chunk.data()).asReadOnlyBuffer()));
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+    }
+
+    /**
+     * 重放的应答信息
+     */
+    private record ResponseInfo(int statusCode, HttpHeaders headers) implements HttpResponse.ResponseInfo {
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+
+    }
+
+    /**
+     * 重放的HTTP应答
+     */
+    private record ReplayHttpResponse<T>(HttpRequest request, int statusCode, HttpHeaders headers, T body) implements HttpResponse<T> {
+
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+
+    }
+
+}
@@ -0,0 +1,65 @@
+package io.github.oldmanpushcart.internal.qianfan4j.scheduler;
+
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiOptions;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.qianfan4j.scheduler.RequestScheduler;
+
+import java.time.Instant;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+import static java.util.Objects.requireNonNull;
+
+public class RequestSchedulerBuilderImpl implements RequestScheduler.Builder {
+
+    private int concurrency = 16;
+    private Integer reserved;
+    private Function<ApiRequest<?>, RequestScheduler.Priority> classifier = request ->
+            request.option().has(ApiOptions.IS_STREAM, true)
+                    ? RequestScheduler.Priority.INTERACTIVE
+                    : RequestScheduler.Priority.BACKGROUND;
+    private ToIntFunction<String> weigher = user -> 1;
+    private Function<ApiRequest<?>, Instant> deadline = request ->
+            null != request.timeout()
+                    ? Instant.now().plus(request.timeout())
+                    : null;
+
+    @Override
+    public RequestScheduler.Builder concurrency(int concurrency) {
+        this.concurrency = check(concurrency, concurrency > 0, "concurrency must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public RequestScheduler.Builder reserved(int reserved) {
+        this.reserved = check(reserved, reserved >= 0, "reserved must be greater than or equal to 0");
+        return this;
+    }
+
+    @Override
+    public RequestScheduler.Builder classifier(Function<ApiRequest<?>, RequestScheduler.Priority> classifier) {
+        this.classifier = requireNonNull(classifier);
+        return this;
+    }
+
+    @Override
+    public RequestScheduler.Builder weigher(ToIntFunction<String> weigher) {
+        this.weigher = requireNonNull(weigher);
+        return this;
+    }
+
+    @Override
+    public RequestScheduler.Builder deadline(Function<ApiRequest<?>, Instant> deadline) {
+        this.deadline = requireNonNull(deadline);
+        return this;
+    }
+
+    @Override
+    public RequestScheduler build() {
+        final var reserved = null == this.reserved ? concurrency / 4 : this.reserved;
+        check(reserved, reserved < concurrency, "reserved must be less than concurrency");
+        return new RequestSchedulerImpl(concurrency, reserved, classifier, weigher, deadline);
+    }
+
+}
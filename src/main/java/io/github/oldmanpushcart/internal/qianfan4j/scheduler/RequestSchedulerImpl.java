@@ -0,0 +1,458 @@
+package io.github.oldmanpushcart.internal.qianfan4j.scheduler;
+
+import io.github.oldmanpushcart.internal.qianfan4j.base.api.ApiInvoker;
+import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoRequest;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.qianfan4j.scheduler.DeadlineExceededException;
+import io.github.oldmanpushcart.qianfan4j.scheduler.QueueStats;
+import io.github.oldmanpushcart.qianfan4j.scheduler.RequestScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * 请求调度器实现
+ * <p>
+ * 每个优先级一个队列，队列内按开始时间公平排队(SFQ)：每个有请求在排队的用户带一个开始标签，新加入的用户从队列虚拟时间开始；
+ * 发出时选择开始标签最小的用户，将队列虚拟时间推进到该标签，该用户的开始标签再加上{@code 1/权重}。
+ * 同一用户的请求按截止时间排序，没有截止时间的请求排在最后。
+ * 只为有请求在排队的用户保留状态，用户数量再多也不会累积。
+ * </p>
+ * <p>
+ * 名额中有{@code reserved}个只留给交互请求，后台和批处理请求合计最多占用其余的名额；
+ * 优先级只决定排队的先后，没有保留名额时运行中的批处理请求可以占满全部名额，交互请求只能等它们结束。
+ * </p>
+ * <p>
+ * 每个模型的请求耗时以指数加权平均估计，耗时从发出到收到第一个应答分片(或请求失败)为止，流式应答再长也不会推高估计；
+ * 估计值随距上次观测的时间按半衰期衰减，长时间没有请求完成时不会一直沿用过时的估计。
+ * 排队的请求在出队时，当前时刻加上估计耗时已超过截止时间的直接丢弃；排队到截止时间仍未发出的由定时器丢弃。
+ * 有空闲名额时请求直接发出，只丢弃已经过了截止时间的请求。
+ * </p>
+ */
+public class RequestSchedulerImpl implements RequestScheduler {
+
+    // 耗时估计的平滑系数
+    private static final double ALPHA = 0.2;
+
+    // 耗时估计的衰减半衰期
+    private static final long HALF_LIFE_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final int concurrency;
+    private final int reserved;
+    private final Function<ApiRequest<?>, Priority> classifier;
+    private final ToIntFunction<String> weigher;
+    private final Function<ApiRequest<?>, Instant> deadline;
+    private final FairQueue[] queues;
+    private final Map<String, Latency> latencies = new HashMap<>();
+    private int running;
+
+    // 运行中的非交互请求数量
+    private int shared;
+
+    RequestSchedulerImpl(int concurrency, int reserved, Function<ApiRequest<?>, Priority> classifier, ToIntFunction<String> weigher, Function<ApiRequest<?>, Instant> deadline) {
+        this.concurrency = concurrency;
+        this.reserved = reserved;
+        this.classifier = classifier;
+        this.weigher = weigher;
+        this.deadline = deadline;
+        this.queues = new FairQueue[Priority.values().length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new FairQueue();
+        }
+    }
+
+    @Override
+    public synchronized QueueStats stats(Priority priority) {
+        final var queue = queues[priority.ordinal()];
+        return new QueueStats(
+                queue.dispatched,
+                queue.shed,
+                queue.size,
+                Duration.ofNanos(queue.totalWaitNanos),
+                Duration.ofNanos(queue.maxWaitNanos)
+        );
+    }
+
+    /**
+     * 在API调用器之前叠加调度
+     *
+     * @param delegate 被装饰的API调用器
+     * @return 带调度的API调用器
+     */
+    public ApiInvoker decorate(ApiInvoker delegate) {
+        return new ApiInvoker() {
+            @Override
+            public <R extends ApiResponse> CompletableFuture<R> execute(ApiRequest<R> request, BinaryOperator<R> accumulator, Consumer<R> consumer) {
+                final var task = new Task<R>(
+                        classifier.apply(request),
+                        request instanceof AlgoRequest<?, ?> algo && null != algo.user() ? algo.user() : "",
+                        request instanceof AlgoRequest<?, ?> algo ? algo.model().name() : request.getClass().getName(),
+                        deadline.apply(request),
+                        first -> delegate.execute(request, accumulator, first.andThen(consumer))
+                );
+                submit(task);
+                return task.future;
+            }
+        };
+    }
+
+    private void submit(Task<?> task) {
+        final DeadlineExceededException cause;
+        synchronized (this) {
+            final var queue = queues[task.priority.ordinal()];
+            if (!isAvailable(task.priority) || isQueued(task.priority)) {
+                final var weight = weigher.applyAsInt(task.user);
+                if (weight <= 0) {
+                    task.future.completeExceptionally(new IllegalArgumentException(
+                            "weight of user: %s must be greater than 0".formatted(task.user)
+                    ));
+                    return;
+                }
+                queue.offer(task, weight);
+                expire(task);
+                return;
+            }
+            cause = checkDeadline(task, System.nanoTime(), 0);
+            if (null == cause) {
+                queue.dispatched++;
+                occupy(task);
+            } else {
+                queue.shed++;
+            }
+        }
+        if (null != cause) {
+            task.future.completeExceptionally(cause);
+        } else {
+            run(task);
+        }
+    }
+
+    // 同级或更高优先级有请求在排队时，新请求排在它们之后
+    private boolean isQueued(Priority priority) {
+        for (int i = 0; i <= priority.ordinal(); i++) {
+            if (queues[i].size > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 是否有该优先级可用的名额：保留名额只留给交互请求
+    private boolean isAvailable(Priority priority) {
+        return running < concurrency
+                && (priority == Priority.INTERACTIVE || shared < concurrency - reserved);
+    }
+
+    private void occupy(Task<?> task) {
+        running++;
+        if (task.priority != Priority.INTERACTIVE) {
+            shared++;
+        }
+    }
+
+    private void vacate(Task<?> task) {
+        running--;
+        if (task.priority != Priority.INTERACTIVE) {
+            shared--;
+        }
+    }
+
+    // 排队的请求到截止时间仍未发出时丢弃
+    private void expire(Task<?> task) {
+        if (null == task.deadline) {
+            return;
+        }
+        final var delay = task.deadlineNanos - System.nanoTime();
+        CompletableFuture.delayedExecutor(Math.max(0, delay), TimeUnit.NANOSECONDS).execute(() -> {
+            final DeadlineExceededException cause;
+            synchronized (this) {
+                final var queue = queues[task.priority.ordinal()];
+                if (!queue.remove(task)) {
+                    return;
+                }
+                queue.shed++;
+                cause = new DeadlineExceededException(task.deadline, Duration.ofNanos(estimate(task.model, System.nanoTime())));
+            }
+            task.future.completeExceptionally(cause);
+        });
+    }
+
+    // 检查请求加上预计耗时能否在截止时间前完成，无法完成时返回丢弃原因
+    private DeadlineExceededException checkDeadline(Task<?> task, long now, long estimated) {
+        if (null == task.deadline) {
+            return null;
+        }
+        return now + estimated - task.deadlineNanos <= 0
+                ? null
+                : new DeadlineExceededException(task.deadline, Duration.ofNanos(estimated));
+    }
+
+    // 模型的估计耗时：指数加权平均按距上次观测的时间衰减，还没有观测到耗时的模型为0
+    private long estimate(String model, long now) {
+        final var latency = latencies.get(model);
+        if (null == latency) {
+            return 0;
+        }
+        return (long) (latency.average * Math.pow(0.5, (double) (now - latency.observed) / HALF_LIFE_NANOS));
+    }
+
+    // 记录请求的耗时：收到第一个应答分片或请求结束时记录，每个请求只记录一次；
+    // 流式应答的后续分片只读取标记，不争用调度器的锁
+    private void observe(Task<?> task) {
+        if (task.observed) {
+            return;
+        }
+        synchronized (this) {
+            if (task.observed) {
+                return;
+            }
+            task.observed = true;
+            record(task);
+        }
+    }
+
+    // 更新模型的耗时估计，由调用方持有调度器的锁
+    private void record(Task<?> task) {
+        final var now = System.nanoTime();
+        final var current = (double) (now - task.started);
+        final var latency = latencies.get(task.model);
+        if (null == latency) {
+            latencies.put(task.model, new Latency(current, now));
+        } else {
+            final var previous = (double) estimate(task.model, now);
+            latency.average = previous + ALPHA * (current - previous);
+            latency.observed = now;
+        }
+    }
+
+    // 依次发出请求：同步结束的请求让出的名额在这里接着发出，排队再长也不会递归
+    private void run(Task<?> task) {
+        var next = task;
+        while (null != next) {
+            next = start(next);
+        }
+    }
+
+    // 发出请求；请求已同步结束时返回接着要发出的请求，否则在请求结束后让出名额
+    private <R> Task<?> start(Task<R> task) {
+        task.started = System.nanoTime();
+        CompletableFuture<R> future;
+        try {
+            future = task.action.apply(response -> observe(task));
+        } catch (Throwable cause) {
+            future = CompletableFuture.failedFuture(cause);
+        }
+        if (future.isDone()) {
+            return future.handle((response, ex) -> complete(task, response, ex)).join();
+        }
+        future.whenComplete((response, ex) -> run(complete(task, response, ex)));
+        return null;
+    }
+
+    // 请求结束：让出名额并通知调用方，返回接着要发出的请求
+    private <R> Task<?> complete(Task<R> task, R response, Throwable ex) {
+        observe(task);
+        final var next = release(task);
+        if (null != ex) {
+            task.future.completeExceptionally(ex);
+        } else {
+            task.future.complete(response);
+        }
+        return next;
+    }
+
+    // 让出名额：按优先级取出下一个可以发出的请求，已被取消的请求同样让出名额后跳过。丢弃的请求在锁外结束
+    private Task<?> release(Task<?> finished) {
+        final var shed = new ArrayList<Map.Entry<Task<?>, DeadlineExceededException>>();
+        try {
+            var vacated = finished;
+            while (true) {
+                final Task<?> next;
+                synchronized (this) {
+                    vacate(vacated);
+                    next = poll(shed);
+                }
+                if (null == next || !next.future.isDone()) {
+                    return next;
+                }
+                vacated = next;
+            }
+        } finally {
+            shed.forEach(entry -> entry.getKey().future.completeExceptionally(entry.getValue()));
+        }
+    }
+
+    // 取出下一个请求并占用名额，跳过没有可用名额的优先级和无法在截止时间前完成的请求
+    private Task<?> poll(List<Map.Entry<Task<?>, DeadlineExceededException>> shed) {
+        final var now = System.nanoTime();
+        for (final var priority : Priority.values()) {
+            if (!isAvailable(priority)) {
+                continue;
+            }
+            final var queue = queues[priority.ordinal()];
+            Task<?> task;
+            while (null != (task = queue.poll())) {
+                final var cause = checkDeadline(task, now, estimate(task.model, now));
+                if (null != cause) {
+                    queue.shed++;
+                    shed.add(Map.entry(task, cause));
+                    continue;
+                }
+                final var wait = now - task.enqueued;
+                queue.dispatched++;
+                queue.totalWaitNanos += wait;
+                queue.maxWaitNanos = Math.max(queue.maxWaitNanos, wait);
+                occupy(task);
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 排队的请求
+     *
+     * @param <R> 应答类型
+     */
+    private static class Task<R> {
+
+        private final Priority priority;
+        private final String user;
+        private final String model;
+        private final Instant deadline;
+        private final Function<Consumer<R>, CompletableFuture<R>> action;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+        private final long enqueued = System.nanoTime();
+        private final long deadlineNanos;
+        private long sequence;
+        private long started;
+        private volatile boolean observed;
+
+        private Task(Priority priority, String user, String model, Instant deadline, Function<Consumer<R>, CompletableFuture<R>> action) {
+            this.priority = priority;
+            this.user = user;
+            this.model = model;
+            this.deadline = deadline;
+            this.action = action;
+            this.deadlineNanos = null == deadline
+                    ? 0
+                    : enqueued + Duration.between(Instant.now(), deadline).toNanos();
+        }
+
+    }
+
+    /**
+     * 模型的耗时估计
+     */
+    private static class Latency {
+
+        private double average;
+        private long observed;
+
+        private Latency(double average, long observed) {
+            this.average = average;
+            this.observed = observed;
+        }
+
+    }
+
+    /**
+     * 用户的排队状态
+     */
+    private static class Flow {
+
+        private final String user;
+        private final PriorityQueue<Task<?>> tasks = new PriorityQueue<>(Comparator
+                .<Task<?>>comparingInt(task -> null == task.deadline ? 1 : 0)
+                .thenComparing((left, right) -> Long.compare(left.deadlineNanos - right.deadlineNanos, 0))
+                .thenComparingLong(task -> task.sequence));
+        private double start;
+        private int weight;
+        private long sequence;
+
+        private Flow(String user) {
+            this.user = user;
+        }
+
+    }
+
+    /**
+     * 加权公平队列(非线程安全，由调度器加锁访问)
+     */
+    private static class FairQueue {
+
+        private final PriorityQueue<Flow> active = new PriorityQueue<>(Comparator
+                .<Flow>comparingDouble(flow -> flow.start)
+                .thenComparingLong(flow -> flow.sequence));
+        private final Map<String, Flow> flows = new HashMap<>();
+        private double virtual;
+        private long sequence;
+        private int size;
+
+        private long dispatched;
+        private long shed;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+
+        void offer(Task<?> task, int weight) {
+            var flow = flows.get(task.user);
+            if (null == flow) {
+                flow = new Flow(task.user);
+                flow.start = virtual;
+                flow.sequence = sequence++;
+                flows.put(task.user, flow);
+                active.add(flow);
+            }
+            flow.weight = weight;
+            task.sequence = sequence++;
+            flow.tasks.add(task);
+            size++;
+        }
+
+        Task<?> poll() {
+            final var flow = active.poll();
+            if (null == flow) {
+                return null;
+            }
+            final var task = flow.tasks.poll();
+            size--;
+            virtual = flow.start;
+            if (flow.tasks.isEmpty()) {
+                flows.remove(flow.user);
+            } else {
+                flow.start += 1d / flow.weight;
+                flow.sequence = sequence++;
+                active.add(flow);
+            }
+            return task;
+        }
+
+        boolean remove(Task<?> task) {
+            final var flow = flows.get(task.user);
+            if (null == flow || !flow.tasks.remove(task)) {
+                return false;
+            }
+            size--;
+            if (flow.tasks.isEmpty()) {
+                flows.remove(flow.user);
+                active.remove(flow);
+            }
+            return true;
+        }
+
+    }
+
+}
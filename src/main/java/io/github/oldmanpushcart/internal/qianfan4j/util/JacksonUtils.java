@@ -13,6 +13,7 @@ import com.fasterxml.jackson.module.jsonSchema.JsonSchemaGenerator;
 import java.lang.reflect.Type;
 import java.util.LinkedHashSet;
 import java.util.TimeZone;
+import java.util.TreeMap;
 
 /**
  * Jackson工具类
@@ -130,6 +131,41 @@ public class JacksonUtils {
         return toJson(mapper, toNode(mapper, json));
     }
 
+    /**
+     * 规范化Json字符串
+     * <p>对象字段按名称排序并压缩，语义相同的Json将得到相同的字符串，可用于生成缓存键</p>
+     *
+     * @param mapper mapper
+     * @param json   json
+     * @return 规范化后的json
+     */
+    public static String canonical(ObjectMapper mapper, String json) {
+        return toJson(mapper, canonical(mapper, toNode(mapper, json)));
+    }
+
+    /**
+     * 规范化Json节点
+     *
+     * @param mapper mapper
+     * @param node   json节点
+     * @return 规范化后的json节点
+     */
+    public static JsonNode canonical(ObjectMapper mapper, JsonNode node) {
+        if (node.isObject()) {
+            final var fields = new TreeMap<String, JsonNode>();
+            node.fields().forEachRemaining(entry -> fields.put(entry.getKey(), canonical(mapper, entry.getValue())));
+            final var sorted = mapper.createObjectNode();
+            fields.forEach(sorted::set);
+            return sorted;
+        }
+        if (node.isArray()) {
+            final var array = mapper.createArrayNode();
+            node.forEach(element -> array.add(canonical(mapper, element)));
+            return array;
+        }
+        return node;
+    }
+
     /**
      * 生成json-schema描述对象
      *
@@ -0,0 +1,183 @@
+package io.github.oldmanpushcart.internal.qianfan4j.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * LRU缓存(线程安全)
+ * <ul>
+ *     <li>容量：超过容量时淘汰最久未被访问的元素</li>
+ *     <li>过期：元素写入超过过期时间后视为不存在，为{@code null}时永不过期</li>
+ *     <li>权重：设置了权重函数时，元素权重之和超过上限同样淘汰最久未被访问的元素；单个权重超过上限的元素不写入</li>
+ * </ul>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LruCache<K, V> {
+
+    private final int capacity;
+    private final long expireNanos;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, Entry<V>> map;
+    private long weight;
+
+    /**
+     * 构造LRU缓存
+     *
+     * @param capacity 容量
+     * @param expire   过期时间
+     */
+    public LruCache(int capacity, Duration expire) {
+        this(capacity, expire, Long.MAX_VALUE, value -> 0);
+    }
+
+    /**
+     * 构造带权重上限的LRU缓存
+     *
+     * @param capacity  容量
+     * @param expire    过期时间
+     * @param maxWeight 权重上限
+     * @param weigher   权重函数，写入时计算一次
+     */
+    public LruCache(int capacity, Duration expire, long maxWeight, ToLongFunction<V> weigher) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be greater than 0");
+        }
+        this.capacity = capacity;
+        this.expireNanos = Objects.isNull(expire) ? Long.MAX_VALUE : expire.toNanos();
+        this.maxWeight = maxWeight;
+        this.weigher = Objects.requireNonNull(weigher);
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.capacity) {
+                    weight -= eldest.getValue().weight();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return System.nanoTime() - entry.created() >= expireNanos;
+    }
+
+    /**
+     * 获取缓存
+     *
+     * @param key 键
+     * @return 值，不存在或已过期时返回{@code null}
+     */
+    public synchronized V get(K key) {
+        final var entry = map.get(key);
+        if (null == entry) {
+            return null;
+        }
+        if (isExpired(entry)) {
+            map.remove(key);
+            weight -= entry.weight();
+            return null;
+        }
+        return entry.value();
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param key   键
+     * @param value 值
+     */
+    public synchronized void put(K key, V value) {
+        final var entryWeight = weigher.applyAsLong(value);
+        final var existed = entryWeight > maxWeight
+                ? map.remove(key)
+                : map.put(key, new Entry<>(value, System.nanoTime(), entryWeight));
+        if (null != existed) {
+            weight -= existed.weight();
+        }
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        weight += entryWeight;
+
+        // 按访问顺序从最久未被访问的元素开始淘汰
+        final var iterator = map.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            weight -= iterator.next().weight();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 如果不存在则写入缓存
+     *
+     * @param key   键
+     * @param value 值
+     * @return 已存在的值；不存在时写入并返回{@code null}
+     */
+    public synchronized V putIfAbsent(K key, V value) {
+        final var existed = get(key);
+        if (null != existed) {
+            return existed;
+        }
+        put(key, value);
+        return null;
+    }
+
+    /**
+     * 删除缓存；仅当当前值与期望值相同时才删除
+     *
+     * @param key   键
+     * @param value 期望值
+     * @return TRUE | FALSE
+     */
+    public synchronized boolean remove(K key, V value) {
+        final var entry = map.get(key);
+        if (null != entry && entry.value() == value) {
+            map.remove(key);
+            weight -= entry.weight();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 缓存元素数量(包含已过期尚未清理的元素)
+     *
+     * @return 元素数量
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * 缓存元素的权重之和(包含已过期尚未清理的元素)
+     *
+     * @return 权重之和
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        map.clear();
+        weight = 0;
+    }
+
+    private record Entry<V>(V value, long created, long weight) {
+
+    }
+
+}
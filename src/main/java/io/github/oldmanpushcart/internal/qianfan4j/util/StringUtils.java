@@ -1,5 +1,8 @@
 package io.github.oldmanpushcart.internal.qianfan4j.util;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -27,6 +30,21 @@ public class StringUtils {
         return new String(out).toLowerCase();
     }
 
+    /**
+     * 计算字符串的SHA-256摘要
+     *
+     * @param string 字符串
+     * @return 十六进制摘要
+     */
+    public static String sha256(String string) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            return encodeHex(digest.digest(string.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException cause) {
+            throw new IllegalStateException("SHA-256 is not supported!", cause);
+        }
+    }
+
     /**
      * 是否为空字符串
      *
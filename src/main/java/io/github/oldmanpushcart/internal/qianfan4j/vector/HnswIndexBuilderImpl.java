@@ -0,0 +1,60 @@
+package io.github.oldmanpushcart.internal.qianfan4j.vector;
+
+import io.github.oldmanpushcart.qianfan4j.vector.HnswIndex;
+import io.github.oldmanpushcart.qianfan4j.vector.Metric;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+import static java.util.Objects.requireNonNull;
+
+public class HnswIndexBuilderImpl implements HnswIndex.Builder {
+
+    private int dimension;
+    private Metric metric = Metric.COSINE;
+    private int capacity = 10000;
+    private int m = 16;
+    private int efConstruction = 200;
+    private int efSearch = 64;
+
+    @Override
+    public HnswIndex.Builder dimension(int dimension) {
+        this.dimension = check(dimension, dimension > 0, "dimension must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public HnswIndex.Builder metric(Metric metric) {
+        this.metric = requireNonNull(metric);
+        return this;
+    }
+
+    @Override
+    public HnswIndex.Builder capacity(int capacity) {
+        this.capacity = check(capacity, capacity > 0, "capacity must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public HnswIndex.Builder m(int m) {
+        this.m = check(m, m >= 2, "m must be greater than or equal to 2");
+        return this;
+    }
+
+    @Override
+    public HnswIndex.Builder efConstruction(int efConstruction) {
+        this.efConstruction = check(efConstruction, efConstruction > 0, "efConstruction must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public HnswIndex.Builder efSearch(int efSearch) {
+        this.efSearch = check(efSearch, efSearch > 0, "efSearch must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public HnswIndex build() {
+        check(dimension, dimension > 0, "dimension is required");
+        return new HnswIndexImpl(dimension, metric, capacity, m, efConstruction, efSearch);
+    }
+
+}
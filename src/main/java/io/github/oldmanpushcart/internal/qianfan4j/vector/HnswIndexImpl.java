@@ -0,0 +1,531 @@
+package io.github.oldmanpushcart.internal.qianfan4j.vector;
+
+import io.github.oldmanpushcart.qianfan4j.vector.HnswIndex;
+import io.github.oldmanpushcart.qianfan4j.vector.Metric;
+import io.github.oldmanpushcart.qianfan4j.vector.Neighbor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * HNSW索引实现
+ * <ul>
+ *     <li>节点：编号、层数、向量、各层的邻居均保存在按节点下标索引的基本类型数组中</li>
+ *     <li>邻居列表：{@code links[node][level]}，第0个元素为邻居数量；读写时以列表本身加锁</li>
+ *     <li>入口：入口节点和最高层作为一个整体原子替换，新节点层数超过最高层时持有入口锁完成整个写入</li>
+ *     <li>余弦相似度：写入和查询时先归一化，之后与内积相同</li>
+ * </ul>
+ */
+public class HnswIndexImpl implements HnswIndex {
+
+    private static final int MAGIC = 0x484E5357;
+    private static final int VERSION = 1;
+
+    // 保存和加载时的读写缓冲大小
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final int dimension;
+    private final Metric metric;
+    private final int capacity;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+
+    private final long[] ids;
+    private final int[] levels;
+    private final float[][] vectors;
+    private final int[][][] links;
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final ReentrantLock entryLock = new ReentrantLock();
+    private volatile Entry entry;
+
+    // 写入共享，保存独占
+    private final ReadWriteLock saveLock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Visited> visitedRef;
+
+    HnswIndexImpl(int dimension, Metric metric, int capacity, int m, int efConstruction, int efSearch) {
+        this.dimension = dimension;
+        this.metric = metric;
+        this.capacity = capacity;
+        this.m = m;
+        this.maxM0 = m << 1;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.ids = new long[capacity];
+        this.levels = new int[capacity];
+        this.vectors = new float[capacity][];
+        this.links = new int[capacity][][];
+        this.visitedRef = ThreadLocal.withInitial(() -> new Visited(capacity));
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public Metric metric() {
+        return metric;
+    }
+
+    @Override
+    public int size() {
+        return Math.min(count.get(), capacity);
+    }
+
+    private float[] prepare(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("dimension mismatch, expect=%d, actual=%d".formatted(dimension, vector.length));
+        }
+        if (metric != Metric.COSINE) {
+            return vector.clone();
+        }
+        var norm = 0d;
+        for (final var v : vector) {
+            norm += v * v;
+        }
+        final var scale = norm > 0 ? (float) (1.0 / Math.sqrt(norm)) : 0f;
+        final var normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    private float score(float[] query, int node) {
+        return Kernels.dot(query, 0, vectors[node], 0, dimension);
+    }
+
+    private int randomLevel() {
+        final var random = ThreadLocalRandom.current().nextDouble();
+        return (int) (-Math.log(1.0 - random) * levelMultiplier);
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? maxM0 : m;
+    }
+
+    // 复制邻居列表
+    private int[] neighbors(int node, int level) {
+        final var list = links[node][level];
+        synchronized (list) {
+            final var copy = new int[list[0]];
+            System.arraycopy(list, 1, copy, 0, copy.length);
+            return copy;
+        }
+    }
+
+    @Override
+    public void add(long id, float[] vector) {
+        final var prepared = prepare(vector);
+        saveLock.readLock().lock();
+        try {
+            final var node = count.getAndIncrement();
+            if (node >= capacity) {
+                count.decrementAndGet();
+                throw new IllegalStateException("index is full, capacity=%d".formatted(capacity));
+            }
+            final var level = randomLevel();
+            final var nodeLinks = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                nodeLinks[l] = new int[maxLinks(l) + 1];
+            }
+            ids[node] = id;
+            levels[node] = level;
+            vectors[node] = prepared;
+            links[node] = nodeLinks;
+            insert(node, level, prepared);
+        } finally {
+            saveLock.readLock().unlock();
+        }
+    }
+
+    private void insert(int node, int level, float[] vector) {
+
+        // 可能成为新的入口时持有入口锁
+        var current = entry;
+        final var isTop = null == current || level > current.level();
+        if (isTop) {
+            entryLock.lock();
+            current = entry;
+        }
+        try {
+
+            if (null == current) {
+                entry = new Entry(node, level);
+                return;
+            }
+
+            // 从最高层贪心下降到新节点的层数
+            var ep = current.node();
+            var epScore = score(vector, ep);
+            for (int l = current.level(); l > level; l--) {
+                var changed = true;
+                while (changed) {
+                    changed = false;
+                    for (final var neighbor : neighbors(ep, l)) {
+                        final var s = score(vector, neighbor);
+                        if (s > epScore) {
+                            epScore = s;
+                            ep = neighbor;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+
+            // 逐层连接
+            for (int l = Math.min(level, current.level()); l >= 0; l--) {
+                final var candidates = searchLayer(vector, ep, efConstruction, l);
+                final var selected = selectNeighbors(candidates, m);
+                final var own = links[node][l];
+                synchronized (own) {
+                    own[0] = selected.length;
+                    System.arraycopy(selected, 0, own, 1, selected.length);
+                }
+                for (final var neighbor : selected) {
+                    connect(neighbor, node, l);
+                }
+                ep = best(candidates);
+            }
+
+            if (level > current.level()) {
+                entry = new Entry(node, level);
+            }
+
+        } finally {
+            if (isTop) {
+                entryLock.unlock();
+            }
+        }
+    }
+
+    // 将node加入neighbor的邻居列表，超出上限时按启发式裁剪
+    private void connect(int neighbor, int node, int level) {
+        final var list = links[neighbor][level];
+        final var max = maxLinks(level);
+        synchronized (list) {
+            final var size = list[0];
+            if (size < max) {
+                list[size + 1] = node;
+                list[0] = size + 1;
+                return;
+            }
+            final var base = vectors[neighbor];
+            final var candidates = new ScoreHeap(size + 1, true);
+            candidates.push(node, score(base, node));
+            for (int i = 1; i <= size; i++) {
+                candidates.push(list[i], score(base, list[i]));
+            }
+            final var selected = selectNeighbors(candidates, max);
+            list[0] = selected.length;
+            System.arraycopy(selected, 0, list, 1, selected.length);
+        }
+    }
+
+    private static int best(ScoreHeap candidates) {
+        var best = candidates.node(0);
+        var bestScore = candidates.score(0);
+        for (int i = 1; i < candidates.size(); i++) {
+            if (candidates.score(i) > bestScore) {
+                bestScore = candidates.score(i);
+                best = candidates.node(i);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 启发式选择邻居：按相似度从高到低，只保留与查询点比与已选邻居都更相似的候选，使邻居分布在不同方向上
+     *
+     * @param candidates 候选(任意堆)
+     * @param max        最大数量
+     * @return 选中的邻居
+     */
+    private int[] selectNeighbors(ScoreHeap candidates, int max) {
+        final var ordered = new ScoreHeap(candidates.size(), true);
+        for (int i = 0; i < candidates.size(); i++) {
+            ordered.push(candidates.node(i), candidates.score(i));
+        }
+        final var selected = new int[Math.min(max, ordered.size())];
+        var size = 0;
+        while (!ordered.isEmpty() && size < selected.length) {
+            final var candidateScore = ordered.topScore();
+            final var candidate = ordered.pop();
+            var keep = true;
+            for (int i = 0; i < size; i++) {
+                if (score(vectors[candidate], selected[i]) > candidateScore) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[size++] = candidate;
+            }
+        }
+        return size == selected.length ? selected : Arrays.copyOf(selected, size);
+    }
+
+    /**
+     * 在单层中搜索
+     *
+     * @param query 查询向量
+     * @param ep    入口节点
+     * @param ef    候选集大小
+     * @param level 层
+     * @return 结果(最小堆，堆顶最不相似)
+     */
+    private ScoreHeap searchLayer(float[] query, int ep, int ef, int level) {
+        final var visited = visitedRef.get().reset();
+        final var candidates = new ScoreHeap(ef, true);
+        final var results = new ScoreHeap(ef + 1, false);
+        final var epScore = score(query, ep);
+        visited.mark(ep);
+        candidates.push(ep, epScore);
+        results.push(ep, epScore);
+        while (!candidates.isEmpty()) {
+            if (candidates.topScore() < results.topScore() && results.size() >= ef) {
+                break;
+            }
+            final var current = candidates.pop();
+            if (levels[current] < level) {
+                continue;
+            }
+            for (final var neighbor : neighbors(current, level)) {
+                if (!visited.mark(neighbor)) {
+                    continue;
+                }
+                final var s = score(query, neighbor);
+                if (results.size() < ef || s > results.topScore()) {
+                    candidates.push(neighbor, s);
+                    results.push(neighbor, s);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<Neighbor> search(float[] query, int k) {
+        final var current = entry;
+        if (null == current || k <= 0) {
+            return List.of();
+        }
+        final var prepared = prepare(query);
+
+        var ep = current.node();
+        for (int l = current.level(); l > 0; l--) {
+            ep = best(searchLayer(prepared, ep, 1, l));
+        }
+
+        final var results = searchLayer(prepared, ep, Math.max(efSearch, k), 0);
+        while (results.size() > k) {
+            results.pop();
+        }
+        final var neighbors = new Neighbor[results.size()];
+        for (int i = neighbors.length - 1; i >= 0; i--) {
+            final var score = results.topScore();
+            neighbors[i] = new Neighbor(ids[results.pop()], score);
+        }
+        return List.of(neighbors);
+    }
+
+    /*
+     * 文件格式：
+     * header : [int magic][int version][int metric][int dimension][int capacity][int m][int efConstruction][int efSearch][int count][int entryNode][int entryLevel]
+     * node   : [long id][int level][float[dimension] vector]{level+1}x[int size][int[maxLinks] neighbors]
+     *
+     * 百万级的索引文件超过2G，不能整体映射，以固定大小的缓冲逐个节点读写
+     */
+    @Override
+    public void save(Path path) throws IOException {
+        saveLock.writeLock().lock();
+        try (final var channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            final var size = size();
+            final var current = entry;
+            var buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(metric.ordinal())
+                    .putInt(dimension)
+                    .putInt(capacity)
+                    .putInt(m)
+                    .putInt(efConstruction)
+                    .putInt(efSearch)
+                    .putInt(size)
+                    .putInt(null == current ? -1 : current.node())
+                    .putInt(null == current ? -1 : current.level());
+            for (int node = 0; node < size; node++) {
+                buffer = drain(channel, buffer, nodeBytes(levels[node]));
+                buffer.putLong(ids[node]).putInt(levels[node]);
+                buffer.asFloatBuffer().put(vectors[node]);
+                buffer.position(buffer.position() + dimension * Float.BYTES);
+                for (int l = 0; l <= levels[node]; l++) {
+                    buffer.asIntBuffer().put(links[node][l]);
+                    buffer.position(buffer.position() + links[node][l].length * Integer.BYTES);
+                }
+            }
+            flush(channel, buffer);
+            channel.force(true);
+        } finally {
+            saveLock.writeLock().unlock();
+        }
+    }
+
+    // 节点除编号和层数之外的字节数
+    private int nodeBytes(int level) {
+        var bytes = dimension * Float.BYTES;
+        for (int l = 0; l <= level; l++) {
+            bytes += (maxLinks(l) + 1) * Integer.BYTES;
+        }
+        return bytes;
+    }
+
+    // 写入前保证缓冲至少有bytes(另加编号和层数)的剩余空间，不足时先写出缓冲中的数据
+    private static ByteBuffer drain(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        final var required = bytes + Long.BYTES + Integer.BYTES;
+        if (buffer.remaining() >= required) {
+            return buffer;
+        }
+        flush(channel, buffer);
+        return buffer.capacity() >= required
+                ? buffer
+                : ByteBuffer.allocateDirect(required);
+    }
+
+    // 写出缓冲中的全部数据
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // 读取前保证缓冲至少有bytes的未读数据，不足时从文件中补充
+    private static ByteBuffer fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        final var target = buffer.capacity() >= bytes
+                ? buffer.compact()
+                : ByteBuffer.allocateDirect(bytes).put(buffer);
+        while (target.position() < bytes) {
+            if (channel.read(target) < 0) {
+                throw new EOFException();
+            }
+        }
+        return target.flip();
+    }
+
+    /**
+     * 加载索引
+     *
+     * @param path 文件路径
+     * @return 索引
+     * @throws IOException 加载失败或文件格式不正确
+     */
+    public static HnswIndexImpl load(Path path) throws IOException {
+        try (final var channel = FileChannel.open(path, READ)) {
+            var buffer = fill(channel, ByteBuffer.allocateDirect(BUFFER_SIZE).flip(), 11 * Integer.BYTES);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("illegal hnsw index file: %s".formatted(path));
+            }
+            final var metric = Metric.values()[buffer.getInt()];
+            final var dimension = buffer.getInt();
+            final var capacity = buffer.getInt();
+            final var m = buffer.getInt();
+            final var efConstruction = buffer.getInt();
+            final var efSearch = buffer.getInt();
+            final var size = buffer.getInt();
+            final var entryNode = buffer.getInt();
+            final var entryLevel = buffer.getInt();
+
+            final var index = new HnswIndexImpl(dimension, metric, capacity, m, efConstruction, efSearch);
+            for (int node = 0; node < size; node++) {
+                buffer = fill(channel, buffer, Long.BYTES + Integer.BYTES);
+                index.ids[node] = buffer.getLong();
+                final var level = buffer.getInt();
+                index.levels[node] = level;
+                buffer = fill(channel, buffer, index.nodeBytes(level));
+                final var vector = new float[dimension];
+                buffer.asFloatBuffer().get(vector);
+                buffer.position(buffer.position() + dimension * Float.BYTES);
+                index.vectors[node] = vector;
+                final var nodeLinks = new int[level + 1][];
+                for (int l = 0; l <= level; l++) {
+                    nodeLinks[l] = new int[index.maxLinks(l) + 1];
+                    buffer.asIntBuffer().get(nodeLinks[l]);
+                    buffer.position(buffer.position() + nodeLinks[l].length * Integer.BYTES);
+                }
+                index.links[node] = nodeLinks;
+            }
+            index.count.set(size);
+            index.entry = entryNode < 0 ? null : new Entry(entryNode, entryLevel);
+            return index;
+        } catch (RuntimeException | EOFException cause) {
+            throw new IOException("illegal hnsw index file: %s".formatted(path), cause);
+        }
+    }
+
+    /**
+     * 入口
+     *
+     * @param node  入口节点
+     * @param level 最高层
+     */
+    private record Entry(int node, int level) {
+
+    }
+
+    /**
+     * 已访问标记；以递增的标签代替清空数组
+     */
+    private static final class Visited {
+
+        private final int[] marks;
+        private int tag;
+
+        private Visited(int capacity) {
+            this.marks = new int[capacity];
+        }
+
+        private Visited reset() {
+            if (++tag == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                tag = 1;
+            }
+            return this;
+        }
+
+        // 标记节点，此前未访问过时返回true
+        private boolean mark(int node) {
+            if (marks[node] == tag) {
+                return false;
+            }
+            marks[node] = tag;
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,32 @@
+package io.github.oldmanpushcart.internal.qianfan4j.vector;
+
+/**
+ * 向量计算内核
+ */
+interface Kernel {
+
+    /**
+     * 内积
+     *
+     * @param a       向量a
+     * @param aOffset 向量a的起始位置
+     * @param b       向量b
+     * @param bOffset 向量b的起始位置
+     * @param length  长度
+     * @return 内积
+     */
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * 欧氏距离的平方
+     *
+     * @param a       向量a
+     * @param aOffset 向量a的起始位置
+     * @param b       向量b
+     * @param bOffset 向量b的起始位置
+     * @param length  长度
+     * @return 欧氏距离的平方
+     */
+    float squareDistance(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+}
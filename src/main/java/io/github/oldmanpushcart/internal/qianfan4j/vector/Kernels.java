@@ -0,0 +1,245 @@
+package io.github.oldmanpushcart.internal.qianfan4j.vector;
+
+import io.github.oldmanpushcart.qianfan4j.vector.Metric;
+import io.github.oldmanpushcart.qianfan4j.vector.Neighbor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static io.github.oldmanpushcart.qianfan4j.Constants.LOGGER_NAME;
+
+/**
+ * 向量计算内核选择与批量计算
+ * <p>
+ * 运行时检测{@code jdk.incubator.vector}模块：启动参数包含{@code --add-modules jdk.incubator.vector}时使用SIMD内核，
+ * 否则使用标量内核。SIMD内核位于{@code src/main/java-incubator}单独编译，模块描述中不依赖孵化模块。可以通过系统属性{@code qianfan4j.vector.scalar=true}强制使用标量内核。
+ * </p>
+ */
+public final class Kernels {
+
+    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+
+    // 并行计算时每个任务处理的最少行数
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private static final Kernel kernel = load();
+
+    private Kernels() {
+
+    }
+
+    private static Kernel load() {
+        final var incubator = ModuleLayer.boot().findModule("jdk.incubator.vector");
+        if (!Boolean.getBoolean("qianfan4j.vector.scalar") && incubator.isPresent()) {
+            try {
+
+                // 模块不声明对孵化模块的依赖(避免编译时的孵化警告)，加载SIMD内核前补充读取关系
+                Kernels.class.getModule().addReads(incubator.get());
+                return (Kernel) Class.forName("io.github.oldmanpushcart.internal.qianfan4j.vector.VectorizedKernel")
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (Throwable cause) {
+                logger.warn("qianfan://vector/kernel load vectorized kernel failed, fallback to scalar!", cause);
+            }
+        }
+        return new ScalarKernel();
+    }
+
+    /**
+     * 是否使用SIMD内核
+     *
+     * @return TRUE | FALSE
+     */
+    public static boolean isVectorized() {
+        return !(kernel instanceof ScalarKernel);
+    }
+
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        return kernel.dot(a, aOffset, b, bOffset, length);
+    }
+
+    public static float squareDistance(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        return kernel.squareDistance(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * int8整数内积
+     */
+    public static int dot(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        var s0 = 0;
+        var s1 = 0;
+        var s2 = 0;
+        var s3 = 0;
+        var i = 0;
+        for (final var bound = length & ~3; i < bound; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * 符号位的汉明距离
+     */
+    public static int hamming(long[] a, int aOffset, long[] b, int bOffset, int words) {
+        var distance = 0;
+        for (int i = 0; i < words; i++) {
+            distance += Long.bitCount(a[aOffset + i] ^ b[bOffset + i]);
+        }
+        return distance;
+    }
+
+    /**
+     * 保存指定维度的符号位所需的long数量
+     */
+    public static int words(int dimension) {
+        return (dimension + 63) >>> 6;
+    }
+
+    /**
+     * 计算查询向量与矩阵中第row行的相似度
+     * <p>余弦相似度要求查询向量已归一化</p>
+     */
+    private static float score(Metric metric, float[] query, float[] matrix, int row, int dimension) {
+        final var offset = row * dimension;
+        final var dot = kernel.dot(query, 0, matrix, offset, dimension);
+        if (metric == Metric.COSINE) {
+            final var norm = kernel.dot(matrix, offset, matrix, offset, dimension);
+            return norm > 0 ? (float) (dot / Math.sqrt(norm)) : 0f;
+        }
+        return dot;
+    }
+
+    static float[] prepare(Metric metric, float[] query) {
+        if (metric != Metric.COSINE) {
+            return query;
+        }
+        final var norm = kernel.dot(query, 0, query, 0, query.length);
+        final var scale = norm > 0 ? (float) (1.0 / Math.sqrt(norm)) : 0f;
+        final var normalized = new float[query.length];
+        for (int i = 0; i < query.length; i++) {
+            normalized[i] = query[i] * scale;
+        }
+        return normalized;
+    }
+
+    // 在[from, to)行中选出相似度最高的k行
+    private static ScoreHeap topK(Metric metric, float[] query, float[] matrix, int dimension, int from, int to, int k) {
+        final var heap = new ScoreHeap(k + 1, false);
+        for (int row = from; row < to; row++) {
+            final var score = score(metric, query, matrix, row, dimension);
+            if (heap.size() < k) {
+                heap.push(row, score);
+            } else if (score > heap.topScore()) {
+                heap.pop();
+                heap.push(row, score);
+            }
+        }
+        return heap;
+    }
+
+    private static List<Neighbor> toNeighbors(ScoreHeap heap) {
+        final var neighbors = new Neighbor[heap.size()];
+        for (int i = neighbors.length - 1; i >= 0; i--) {
+            final var score = heap.topScore();
+            neighbors[i] = new Neighbor(heap.pop(), score);
+        }
+        return List.of(neighbors);
+    }
+
+    private static void check(float[] query, float[] matrix, int dimension, int k) {
+        if (query.length != dimension || dimension <= 0 || matrix.length % dimension != 0) {
+            throw new IllegalArgumentException("dimension mismatch, query=%d, dimension=%d, matrix=%d".formatted(query.length, dimension, matrix.length));
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be greater than 0");
+        }
+    }
+
+    /**
+     * 批量计算相似度最高的k行
+     *
+     * @param metric    相似度度量
+     * @param query     查询向量
+     * @param matrix    行优先的矩阵
+     * @param dimension 维度
+     * @param k         返回数量
+     * @return 近邻，编号为行号，按相似度从高到低排列
+     */
+    public static List<Neighbor> topK(Metric metric, float[] query, float[] matrix, int dimension, int k) {
+        check(query, matrix, dimension, k);
+        return toNeighbors(topK(metric, prepare(metric, query), matrix, dimension, 0, matrix.length / dimension, k));
+    }
+
+    /**
+     * 并行批量计算相似度最高的k行；矩阵被拆分为多段分别选出k行后合并
+     *
+     * @param pool      线程池
+     * @param metric    相似度度量
+     * @param query     查询向量
+     * @param matrix    行优先的矩阵
+     * @param dimension 维度
+     * @param k         返回数量
+     * @return 近邻，编号为行号，按相似度从高到低排列
+     */
+    public static List<Neighbor> parallelTopK(ForkJoinPool pool, Metric metric, float[] query, float[] matrix, int dimension, int k) {
+        check(query, matrix, dimension, k);
+        final var prepared = prepare(metric, query);
+        final var rows = matrix.length / dimension;
+        return toNeighbors(pool.invoke(new TopKTask(metric, prepared, matrix, dimension, 0, rows, k)));
+    }
+
+    private static final class TopKTask extends RecursiveTask<ScoreHeap> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Metric metric;
+        private final float[] query;
+        private final float[] matrix;
+        private final int dimension;
+        private final int from;
+        private final int to;
+        private final int k;
+
+        private TopKTask(Metric metric, float[] query, float[] matrix, int dimension, int from, int to, int k) {
+            this.metric = metric;
+            this.query = query;
+            this.matrix = matrix;
+            this.dimension = dimension;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+        }
+
+        @Override
+        protected ScoreHeap compute() {
+            if (to - from <= Math.max(PARALLEL_THRESHOLD, k)) {
+                return topK(metric, query, matrix, dimension, from, to, k);
+            }
+            final var middle = (from + to) >>> 1;
+            final var left = new TopKTask(metric, query, matrix, dimension, from, middle, k);
+            left.fork();
+            final var merged = new TopKTask(metric, query, matrix, dimension, middle, to, k).compute();
+            final var other = left.join();
+            for (int i = 0; i < other.size(); i++) {
+                if (merged.size() < k) {
+                    merged.push(other.node(i), other.score(i));
+                } else if (other.score(i) > merged.topScore()) {
+                    merged.pop();
+                    merged.push(other.node(i), other.score(i));
+                }
+            }
+            return merged;
+        }
+
+    }
+
+}
@@ -0,0 +1,49 @@
+package io.github.oldmanpushcart.internal.qianfan4j.vector;
+
+import io.github.oldmanpushcart.qianfan4j.vector.Metric;
+import io.github.oldmanpushcart.qianfan4j.vector.QuantizedIndex;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+import static java.util.Objects.requireNonNull;
+
+public class QuantizedIndexBuilderImpl implements QuantizedIndex.Builder {
+
+    private int dimension;
+    private Metric metric = Metric.COSINE;
+    private QuantizedIndex.Encoding encoding = QuantizedIndex.Encoding.INT8;
+    private int capacity = 1024;
+
+    @Override
+    public QuantizedIndex.Builder dimension(int dimension) {
+        this.dimension = check(dimension, dimension > 0, "dimension must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public QuantizedIndex.Builder metric(Metric metric) {
+        this.metric = requireNonNull(metric);
+        return this;
+    }
+
+    @Override
+    public QuantizedIndex.Builder encoding(QuantizedIndex.Encoding encoding) {
+        this.encoding = requireNonNull(encoding);
+        return this;
+    }
+
+    @Override
+    public QuantizedIndex.Builder capacity(int capacity) {
+        this.capacity = check(capacity, capacity > 0, "capacity must be greater than 0");
+        return this;
+    }
+
+    @Override
+    public QuantizedIndex build() {
+        check(dimension, dimension > 0, "dimension is required");
+        check(metric, encoding != QuantizedIndex.Encoding.BINARY || metric == Metric.COSINE, "binary encoding only supports COSINE metric");
+        final var limit = QuantizedIndexImpl.maxCapacity(dimension, encoding);
+        check(capacity, capacity <= limit, "capacity exceeds limit: %d".formatted(limit));
+        return new QuantizedIndexImpl(dimension, metric, encoding, capacity);
+    }
+
+}
@@ -0,0 +1,214 @@
+package io.github.oldmanpushcart.internal.qianfan4j.vector;
+
+import io.github.oldmanpushcart.qianfan4j.vector.BinaryVector;
+import io.github.oldmanpushcart.qianfan4j.vector.Int8Vector;
+import io.github.oldmanpushcart.qianfan4j.vector.Metric;
+import io.github.oldmanpushcart.qianfan4j.vector.Neighbor;
+import io.github.oldmanpushcart.qianfan4j.vector.QuantizedIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
+
+/**
+ * 量化向量索引实现
+ * <p>
+ * 编码连续保存在基本类型数组中：int8编码每行{@code dimension}字节并附带一个缩放系数，二值编码每行{@code words}个long。
+ * 余弦度量在量化前先归一化，使得近似内积即为近似余弦相似度。写入与扩容持有写锁，查询持有读锁。
+ * 编码数组的长度不超过{@link #MAX_ARRAY_LENGTH}，因此容量上限为{@code MAX_ARRAY_LENGTH / 每行宽度}，行内偏移不会溢出。
+ * </p>
+ */
+class QuantizedIndexImpl implements QuantizedIndex {
+
+    // 数组长度上限，部分JVM在数组头部保留若干字
+    static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final int dimension;
+    private final Metric metric;
+    private final Encoding encoding;
+    private final int words;
+    private final int maxCapacity;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids;
+    private byte[] codes;
+    private float[] scales;
+    private long[] bits;
+    private int size;
+
+    QuantizedIndexImpl(int dimension, Metric metric, Encoding encoding, int capacity) {
+        this.dimension = dimension;
+        this.metric = metric;
+        this.encoding = encoding;
+        this.words = Kernels.words(dimension);
+        this.maxCapacity = maxCapacity(dimension, encoding);
+        this.ids = new long[capacity];
+        if (encoding == Encoding.INT8) {
+            this.codes = new byte[length(capacity, dimension)];
+            this.scales = new float[capacity];
+        } else {
+            this.bits = new long[length(capacity, words)];
+        }
+    }
+
+    /**
+     * 计算容量上限
+     *
+     * @param dimension 维度
+     * @param encoding  量化编码
+     * @return 容量上限
+     */
+    static int maxCapacity(int dimension, Encoding encoding) {
+        return MAX_ARRAY_LENGTH / (encoding == Encoding.INT8 ? dimension : Kernels.words(dimension));
+    }
+
+    // 编码数组长度，以long计算并检查上限
+    private static int length(int capacity, int width) {
+        final var length = (long) capacity * width;
+        if (length > MAX_ARRAY_LENGTH) {
+            throw new IllegalStateException("array length exceeds limit, length=%d".formatted(length));
+        }
+        return (int) length;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public Metric metric() {
+        return metric;
+    }
+
+    @Override
+    public Encoding encoding() {
+        return encoding;
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void checkDimension(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("dimension mismatch, expect=%d, actual=%d".formatted(dimension, vector.length));
+        }
+    }
+
+    private void grow() {
+        if (ids.length >= maxCapacity) {
+            throw new IllegalStateException("quantized index is full, capacity=%d".formatted(maxCapacity));
+        }
+        final var capacity = (int) Math.min((long) ids.length << 1, maxCapacity);
+        ids = Arrays.copyOf(ids, capacity);
+        if (encoding == Encoding.INT8) {
+            codes = Arrays.copyOf(codes, length(capacity, dimension));
+            scales = Arrays.copyOf(scales, capacity);
+        } else {
+            bits = Arrays.copyOf(bits, length(capacity, words));
+        }
+    }
+
+    @Override
+    public void add(long id, float[] vector) {
+        checkDimension(vector);
+        final var prepared = Kernels.prepare(metric, vector);
+        lock.writeLock().lock();
+        try {
+            if (size == ids.length) {
+                grow();
+            }
+            ids[size] = id;
+            if (encoding == Encoding.INT8) {
+                final var quantized = Int8Vector.of(prepared);
+                System.arraycopy(quantized.codes(), 0, codes, size * dimension, dimension);
+                scales[size] = quantized.scale();
+            } else {
+                System.arraycopy(BinaryVector.of(prepared).bits(), 0, bits, size * words, words);
+            }
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 按量化编码选出相似度最高的k行，结果为最小堆
+    private ScoreHeap scan(float[] prepared, int k) {
+        final var heap = new ScoreHeap(k + 1, false);
+        final var int8 = encoding == Encoding.INT8 ? Int8Vector.of(prepared) : null;
+        final var binary = encoding == Encoding.BINARY ? BinaryVector.of(prepared) : null;
+        final var width = null != int8 ? dimension : words;
+        for (int row = 0, offset = 0; row < size; row++, offset += width) {
+            final float score = null != int8
+                    ? Kernels.dot(int8.codes(), 0, codes, offset, dimension) * int8.scale() * scales[row]
+                    : 1f - 2f * Kernels.hamming(binary.bits(), 0, bits, offset, words) / dimension;
+            if (heap.size() < k) {
+                heap.push(row, score);
+            } else if (score > heap.topScore()) {
+                heap.pop();
+                heap.push(row, score);
+            }
+        }
+        return heap;
+    }
+
+    @Override
+    public List<Neighbor> search(float[] query, int k) {
+        checkDimension(query);
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be greater than 0");
+        }
+        final var prepared = Kernels.prepare(metric, query);
+        lock.readLock().lock();
+        try {
+            final var heap = scan(prepared, k);
+            final var neighbors = new Neighbor[heap.size()];
+            for (int i = neighbors.length - 1; i >= 0; i--) {
+                final var score = heap.topScore();
+                neighbors[i] = new Neighbor(ids[heap.pop()], score);
+            }
+            return List.of(neighbors);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Neighbor> search(float[] query, int k, int candidates, LongFunction<float[]> originals) {
+        final var approximate = search(query, Math.max(k, candidates));
+        final var prepared = Kernels.prepare(metric, query);
+        final var rescored = new ArrayList<Neighbor>(approximate.size());
+        for (final var candidate : approximate) {
+            final var original = originals.apply(candidate.id());
+            if (null == original) {
+                continue;
+            }
+            checkDimension(original);
+            rescored.add(new Neighbor(candidate.id(), score(prepared, original)));
+        }
+        rescored.sort(Comparator.comparingDouble(Neighbor::score).reversed());
+        return List.copyOf(rescored.subList(0, Math.min(k, rescored.size())));
+    }
+
+    // 精确相似度，余弦度量要求查询向量已归一化
+    private float score(float[] prepared, float[] original) {
+        final var dot = Kernels.dot(prepared, 0, original, 0, dimension);
+        if (metric == Metric.COSINE) {
+            final var norm = Kernels.dot(original, 0, original, 0, dimension);
+            return norm > 0 ? (float) (dot / Math.sqrt(norm)) : 0f;
+        }
+        return dot;
+    }
+
+}
@@ -0,0 +1,51 @@
+package io.github.oldmanpushcart.internal.qianfan4j.vector;
+
+/**
+ * 标量内核；4路展开，用独立的累加器打破加法的依赖链
+ */
+final class ScalarKernel implements Kernel {
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        var s0 = 0f;
+        var s1 = 0f;
+        var s2 = 0f;
+        var s3 = 0f;
+        var i = 0;
+        for (final var bound = length & ~3; i < bound; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public float squareDistance(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        var s0 = 0f;
+        var s1 = 0f;
+        var s2 = 0f;
+        var s3 = 0f;
+        var i = 0;
+        for (final var bound = length & ~3; i < bound; i += 4) {
+            final var d0 = a[aOffset + i] - b[bOffset + i];
+            final var d1 = a[aOffset + i + 1] - b[bOffset + i + 1];
+            final var d2 = a[aOffset + i + 2] - b[bOffset + i + 2];
+            final var d3 = a[aOffset + i + 3] - b[bOffset + i + 3];
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+            s2 += d2 * d2;
+            s3 += d3 * d3;
+        }
+        for (; i < length; i++) {
+            final var d = a[aOffset + i] - b[bOffset + i];
+            s0 += d * d;
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+}
@@ -0,0 +1,94 @@
+package io.github.oldmanpushcart.internal.qianfan4j.vector;
+
+import java.util.Arrays;
+
+/**
+ * 节点堆
+ * <p>以基本类型数组保存(节点, 相似度)，避免装箱；可以是最大堆(堆顶最相似)或最小堆(堆顶最不相似)</p>
+ */
+final class ScoreHeap {
+
+    private final boolean max;
+    private int[] nodes;
+    private float[] scores;
+    private int size;
+
+    ScoreHeap(int capacity, boolean max) {
+        this.max = max;
+        this.nodes = new int[Math.max(capacity, 4)];
+        this.scores = new float[nodes.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int topNode() {
+        return nodes[0];
+    }
+
+    float topScore() {
+        return scores[0];
+    }
+
+    int node(int i) {
+        return nodes[i];
+    }
+
+    float score(int i) {
+        return scores[i];
+    }
+
+    private boolean above(float a, float b) {
+        return max ? a > b : a < b;
+    }
+
+    void push(int node, float score) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size << 1);
+            scores = Arrays.copyOf(scores, size << 1);
+        }
+        var i = size++;
+        while (i > 0) {
+            final var parent = (i - 1) >>> 1;
+            if (!above(score, scores[parent])) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+
+    int pop() {
+        final var top = nodes[0];
+        final var lastNode = nodes[--size];
+        final var lastScore = scores[size];
+        var i = 0;
+        while (true) {
+            var child = (i << 1) + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && above(scores[child + 1], scores[child])) {
+                child++;
+            }
+            if (!above(scores[child], lastScore)) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        nodes[i] = lastNode;
+        scores[i] = lastScore;
+        return top;
+    }
+
+}
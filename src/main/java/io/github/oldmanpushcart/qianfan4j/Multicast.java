@@ -0,0 +1,37 @@
+package io.github.oldmanpushcart.qianfan4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * 多播操作
+ * <p>
+ * 一个执行中的流式操作，应答分发给任意多个订阅者，通过{@link QianFanClient.Op#multicast(int, int, java.util.concurrent.Executor)}创建。
+ * 上游只有一个请求，订阅者随时可以加入：
+ * <ul>
+ *     <li>重放：加入时先收到最近的若干个应答，数量由{@code replay}决定；需要完整内容时应确保重放数量不小于应答数量，或使用{@link #result()}</li>
+ *     <li>背压：每个订阅者按各自{@link Flow.Subscription#request(long)}的数量接收，在线程池中投递，互不影响</li>
+ *     <li>慢订阅者：未投递的应答超过{@code buffer}时，该订阅者被移除并以{@link IllegalStateException}结束，上游不会因此等待</li>
+ * </ul>
+ * 上游结束后，订阅者收到剩余的应答后结束；上游失败时订阅者以相同的异常结束。操作结束后加入的订阅者同样收到重放的应答。
+ * </p>
+ *
+ * @param <R> 应答类型
+ */
+public interface Multicast<R> extends Flow.Publisher<R> {
+
+    /**
+     * 获取操作结果
+     *
+     * @return 操作结果，与{@link QianFanClient.Op#stream(java.util.function.Consumer)}的返回值相同
+     */
+    CompletableFuture<R> result();
+
+    /**
+     * 获取当前订阅者数量
+     *
+     * @return 订阅者数量
+     */
+    int subscribers();
+
+}
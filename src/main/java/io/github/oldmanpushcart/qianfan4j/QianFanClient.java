@@ -1,7 +1,15 @@
 package io.github.oldmanpushcart.qianfan4j;
 
+import io.github.oldmanpushcart.internal.qianfan4j.MulticastImpl;
 import io.github.oldmanpushcart.internal.qianfan4j.QianFanClientImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.image.generation.GenerationImageFanOut;
+import io.github.oldmanpushcart.qianfan4j.base.algo.Model;
+import io.github.oldmanpushcart.qianfan4j.base.algo.TokenEstimator;
 import io.github.oldmanpushcart.qianfan4j.base.api.ApiOptions;
+import io.github.oldmanpushcart.qianfan4j.cache.EmbeddingCache;
+import io.github.oldmanpushcart.qianfan4j.cache.ResponseCache;
+import io.github.oldmanpushcart.qianfan4j.cache.SemanticCache;
+import io.github.oldmanpushcart.qianfan4j.cache.SingleFlight;
 import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
 import io.github.oldmanpushcart.qianfan4j.chat.ChatResponse;
 import io.github.oldmanpushcart.qianfan4j.completion.CompletionRequest;
@@ -10,10 +18,14 @@ import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
 import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse;
 import io.github.oldmanpushcart.qianfan4j.image.caption.CaptionImageRequest;
 import io.github.oldmanpushcart.qianfan4j.image.caption.CaptionImageResponse;
+import io.github.oldmanpushcart.qianfan4j.image.caption.ImagePreprocessor;
 import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageRequest;
 import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageResponse;
 import io.github.oldmanpushcart.qianfan4j.pluginapp.PluginAppRequest;
 import io.github.oldmanpushcart.qianfan4j.pluginapp.PluginAppResponse;
+import io.github.oldmanpushcart.qianfan4j.replay.Recorder;
+import io.github.oldmanpushcart.qianfan4j.replay.Replayer;
+import io.github.oldmanpushcart.qianfan4j.scheduler.RequestScheduler;
 import io.github.oldmanpushcart.qianfan4j.util.Buildable;
 
 import java.time.Duration;
@@ -58,6 +70,25 @@ public interface QianFanClient {
      */
     Op<GenerationImageResponse> generationImage(GenerationImageRequest request);
 
+    /**
+     * 文生图(并行生成)
+     * <p>
+     * 将生成多张图片的请求拆分为每次只生成一张的子请求并发执行，突破单次请求{@link io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageOptions#NUMBERS}的上限。
+     * 第i个子请求的随机种子为{@code SEED + i}，请求未设置SEED时随机选取起始种子。
+     * 流式操作时每个子请求完成后立即消费其应答(只包含一张图片)，不必等待最慢的一张；
+     * 操作结果为合并后的应答，图片按随机种子的顺序排列，用量累加。任意子请求失败后不再发出新的子请求。
+     * 子请求通过{@link #generationImage(GenerationImageRequest)}发出。
+     * </p>
+     *
+     * @param request     文生图请求
+     * @param total       生成图片数量
+     * @param parallelism 同时在途的子请求数量上限
+     * @return 操作
+     */
+    default Op<GenerationImageResponse> generationImage(GenerationImageRequest request, int total, int parallelism) {
+        return GenerationImageFanOut.op(this, request, total, parallelism);
+    }
+
     /**
      * 向量计算
      *
@@ -74,6 +105,17 @@ public interface QianFanClient {
      */
     Op<PluginAppResponse> pluginApp(PluginAppRequest request);
 
+    /**
+     * 获取模型所属模型族的TOKEN估算器
+     * <p>客户端开启TOKEN校准时返回本客户端持续校准的估算器，否则返回未校准的估算器</p>
+     *
+     * @param model 模型
+     * @return 估算器
+     */
+    default TokenEstimator tokenEstimator(Model model) {
+        return TokenEstimator.of(model);
+    }
+
     /**
      * 千帆客户端构造器
      *
@@ -112,6 +154,18 @@ public interface QianFanClient {
          */
         CompletableFuture<R> stream(Consumer<R> consumer);
 
+        /**
+         * 多播操作；立即开始流式操作，应答分发给之后加入的订阅者
+         *
+         * @param replay   订阅者加入时重放的最近应答数量
+         * @param buffer   每个订阅者未投递应答的数量上限，超出时移除该订阅者
+         * @param executor 投递应答的线程池
+         * @return 多播操作
+         */
+        default Multicast<R> multicast(int replay, int buffer, Executor executor) {
+            return MulticastImpl.start(this, replay, buffer, executor);
+        }
+
     }
 
     /**
@@ -151,6 +205,92 @@ public interface QianFanClient {
          */
         Builder connectTimeout(Duration connectTimeout);
 
+        /**
+         * 设置应答缓存；不设置则不缓存
+         *
+         * @param responseCache 应答缓存
+         * @return this
+         */
+        Builder responseCache(ResponseCache responseCache);
+
+        /**
+         * 设置语义缓存；不设置则不缓存
+         *
+         * @param semanticCache 语义缓存
+         * @return this
+         */
+        Builder semanticCache(SemanticCache semanticCache);
+
+        /**
+         * 设置向量缓存；不设置则不缓存
+         *
+         * @param embeddingCache 向量缓存
+         * @return this
+         */
+        Builder embeddingCache(EmbeddingCache embeddingCache);
+
+        /**
+         * 设置向量计算合并窗口；不设置则不合并
+         * <p>
+         * 窗口期内并发的单文本向量计算请求(模型、用户、选项和超时相同)将合并为一次请求发送，
+         * 达到{@link io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingModel#batchSize()}时立即发送。
+         * 合并请求的用量只计入第一个调用者的应答。
+         * </p>
+         *
+         * @param window 合并窗口
+         * @return this
+         */
+        Builder embeddingBatchWindow(Duration window);
+
+        /**
+         * 设置图生文的图片预处理器；不设置则原样发送图片
+         *
+         * @param preprocessor 图片预处理器
+         * @return this
+         */
+        Builder imagePreprocessor(ImagePreprocessor preprocessor);
+
+        /**
+         * 设置请求调度器；不设置则不限制同时发往服务端的请求数量
+         *
+         * @param scheduler 请求调度器
+         * @return this
+         */
+        Builder scheduler(RequestScheduler scheduler);
+
+        /**
+         * 设置相同请求合并；不设置则不合并
+         *
+         * @param singleFlight 相同请求合并
+         * @return this
+         */
+        Builder singleFlight(SingleFlight singleFlight);
+
+        /**
+         * 设置是否以应答的实际用量校准TOKEN估算器，默认不校准
+         * <p>校准状态属于本客户端，每个应答需要重新估算一次实际发送的消息，见{@link QianFanClient#tokenEstimator(Model)}</p>
+         *
+         * @param enable 是否校准
+         * @return this
+         */
+        Builder tokenCalibration(boolean enable);
+
+        /**
+         * 设置HTTP录制器；不设置则不录制
+         *
+         * @param recorder HTTP录制器
+         * @return this
+         */
+        Builder recorder(Recorder recorder);
+
+        /**
+         * 设置HTTP重放器；设置后不再访问服务端，请求由录制文件应答
+         *
+         * @param replayer HTTP重放器
+         * @return this
+         */
+        Builder replayer(Replayer replayer);
+
     }
 
 }
@@ -0,0 +1,79 @@
+package io.github.oldmanpushcart.qianfan4j.base.algo;
+
+import io.github.oldmanpushcart.internal.qianfan4j.base.algo.TokenEstimatorImpl;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+
+import java.util.List;
+
+/**
+ * TOKEN估算器
+ * <p>
+ * 在本地估算文本的TOKEN数量，用于在发出请求前做预算决策。估算基于字符分类：CJK字符按1个计，
+ * 连续的字母数字按1.3个计，其他符号按1个计；再乘以从实际{@link Usage}中持续校准的系数。
+ * 估算过程不使用正则表达式，也不产生对象分配。
+ * </p>
+ * <p>
+ * {@link #of(Model)}返回未校准的估算器，每次调用创建新的实例。客户端开启TOKEN校准后，
+ * 同一客户端内同一模型族(模型名称中第一个{@code -}之前的部分，例如{@code ernie})共享一个估算器，
+ * 收到应答时以实际用量自动校准，通过{@link io.github.oldmanpushcart.qianfan4j.QianFanClient#tokenEstimator(Model)}获取
+ * </p>
+ */
+public interface TokenEstimator {
+
+    /**
+     * 获取模型族
+     *
+     * @return 模型族
+     */
+    String family();
+
+    /**
+     * 获取当前的校准系数
+     *
+     * @return 校准系数，实际TOKEN数量与未校准估算值之比
+     */
+    double ratio();
+
+    /**
+     * 估算文本的TOKEN数量
+     *
+     * @param text 文本
+     * @return TOKEN数量
+     */
+    int estimate(CharSequence text);
+
+    /**
+     * 估算消息列表的TOKEN数量，包含每条消息的格式开销
+     *
+     * @param messages 消息列表
+     * @return TOKEN数量
+     */
+    int estimate(List<Message> messages);
+
+    /**
+     * 估算请求输入的TOKEN数量；支持对话、续写和向量计算请求，其他请求返回{@code 0}
+     *
+     * @param request 算法请求
+     * @return TOKEN数量
+     */
+    int estimate(AlgoRequest<?, ?> request);
+
+    /**
+     * 以实际用量校准
+     *
+     * @param request 算法请求
+     * @param usage   请求的实际用量，取其中的{@code prompt_tokens}
+     */
+    void calibrate(AlgoRequest<?, ?> request, Usage usage);
+
+    /**
+     * 创建模型所属模型族的未校准估算器
+     *
+     * @param model 模型
+     * @return 估算器
+     */
+    static TokenEstimator of(Model model) {
+        return TokenEstimatorImpl.of(model);
+    }
+
+}
@@ -0,0 +1,13 @@
+package io.github.oldmanpushcart.qianfan4j.batch;
+
+/**
+ * 批处理报告
+ *
+ * @param processed 本次处理的输入数量
+ * @param skipped   根据检查点跳过的输入数量
+ * @param retries   重试次数
+ * @param tokens    本次消耗的总用量
+ */
+public record BatchReport(long processed, long skipped, long retries, long tokens) {
+
+}
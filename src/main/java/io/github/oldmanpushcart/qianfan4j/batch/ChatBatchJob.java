@@ -0,0 +1,184 @@
+package io.github.oldmanpushcart.qianfan4j.batch;
+
+import io.github.oldmanpushcart.internal.qianfan4j.batch.ChatBatchJobBuilderImpl;
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.completion.CompletionModel;
+import io.github.oldmanpushcart.qianfan4j.util.Buildable;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * 批量对话任务
+ * <p>
+ * 从JSONL输入中逐行读取请求，以有限的并发执行对话或续写，并将结果逐行写入JSONL输出文件。
+ * 输入每行一个请求，包含{@code messages}的为对话，包含{@code prompt}的为续写，{@code id}和{@code options}可选：
+ * <pre>{@code
+ * {"id":"q1","messages":[{"role":"user","content":"你好"}],"options":{"temperature":0.1}}
+ * {"id":"q2","prompt":"SELECT"}
+ * }</pre>
+ * 输出每行一个结果，{@code index}为输入的行号(从0开始)，失败的请求以{@code error}记录：
+ * <pre>{@code
+ * {"index":0,"id":"q1","content":"你好！","usage":{"prompt_tokens":1,"completion_tokens":3,"total_tokens":4}}
+ * {"index":1,"id":"q2","error":{"code":"336003","message":"..."}}
+ * }</pre>
+ * </p>
+ * <p>
+ * 暂时性失败(网络异常、限流等)按指数退避重试，重试耗尽后任务失败；其他服务端拒绝的请求记录为错误后继续。
+ * 每写出一个结果保存一次检查点，任务中断后以相同的输入重新执行，将截断输出文件中检查点之后的内容，跳过已完成的请求继续执行。
+ * 内存占用只与并发数有关，与输入规模无关。
+ * </p>
+ */
+public interface ChatBatchJob {
+
+    /**
+     * 执行任务；任务将占用{@link Builder#executor(Executor)}中的一个线程读取输入直到结束
+     *
+     * @return 批处理报告
+     */
+    CompletableFuture<BatchReport> run();
+
+    /**
+     * 创建批量对话任务构建器
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new ChatBatchJobBuilderImpl();
+    }
+
+    /**
+     * 输出顺序
+     */
+    enum Order {
+
+        /**
+         * 按输入顺序写出，先完成的结果等待之前的结果写出
+         */
+        INPUT,
+
+        /**
+         * 按完成顺序写出，结果完成后立即写出
+         */
+        COMPLETION
+
+    }
+
+    /**
+     * 批量对话任务构建器
+     */
+    interface Builder extends Buildable<ChatBatchJob, Builder> {
+
+        /**
+         * 设置千帆客户端，必填
+         *
+         * @param client 千帆客户端
+         * @return this
+         */
+        Builder client(QianFanClient client);
+
+        /**
+         * 设置对话模型；输入中有对话请求时必填
+         *
+         * @param model 对话模型
+         * @return this
+         */
+        Builder model(ChatModel model);
+
+        /**
+         * 设置续写模型；输入中有续写请求时必填
+         *
+         * @param model 续写模型
+         * @return this
+         */
+        Builder model(CompletionModel model);
+
+        /**
+         * 设置输入行，与{@link #input(Path)}二选一
+         * <p>输入流按需读取，不会一次性加载到内存中</p>
+         *
+         * @param lines 输入行
+         * @return this
+         */
+        Builder input(Stream<String> lines);
+
+        /**
+         * 设置输入文件(UTF-8 JSONL)，与{@link #input(Stream)}二选一
+         *
+         * @param path 输入文件
+         * @return this
+         */
+        Builder input(Path path);
+
+        /**
+         * 设置输出文件，必填
+         *
+         * @param path 输出文件
+         * @return this
+         */
+        Builder output(Path path);
+
+        /**
+         * 设置检查点文件，默认为输出文件名加上{@code .checkpoint}后缀
+         *
+         * @param path 检查点文件
+         * @return this
+         */
+        Builder checkpoint(Path path);
+
+        /**
+         * 设置输出顺序，默认{@link Order#INPUT}
+         *
+         * @param order 输出顺序
+         * @return this
+         */
+        Builder order(Order order);
+
+        /**
+         * 设置线程池，必填
+         *
+         * @param executor 线程池
+         * @return this
+         */
+        Builder executor(Executor executor);
+
+        /**
+         * 设置同时在途的请求数量，默认4
+         *
+         * @param parallelism 同时在途的请求数量
+         * @return this
+         */
+        Builder parallelism(int parallelism);
+
+        /**
+         * 设置每分钟最多发出的请求数量(包括重试)；不设置则只受并发数限制
+         * <p>应设置为不超过账号的RPM配额，避免触发限流</p>
+         *
+         * @param rpm 每分钟最多发出的请求数量
+         * @return this
+         */
+        Builder rpm(int rpm);
+
+        /**
+         * 设置暂时性失败(网络异常、限流等)的最大重试次数，默认3
+         *
+         * @param maxRetries 最大重试次数
+         * @return this
+         */
+        Builder maxRetries(int maxRetries);
+
+        /**
+         * 设置首次重试的间隔，之后每次翻倍，默认1秒
+         *
+         * @param backoff 首次重试的间隔
+         * @return this
+         */
+        Builder backoff(Duration backoff);
+
+    }
+
+}
@@ -0,0 +1,131 @@
+package io.github.oldmanpushcart.qianfan4j.batch;
+
+import io.github.oldmanpushcart.internal.qianfan4j.batch.EmbeddingBatchJobBuilderImpl;
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingModel;
+import io.github.oldmanpushcart.qianfan4j.util.Buildable;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * 批量向量计算任务
+ * <p>
+ * 将输入文本按模型的单次最大文本数量分批，以有限的并发计算向量，并按输入顺序写入二进制输出文件。
+ * 输出文件中每个向量为一条记录：{@code [int 维度][float[维度] 向量]}，大端字节序。
+ * </p>
+ * <p>
+ * 每批结果按顺序写出后保存检查点(已完成的文本数量和输出文件的位置)。任务中断后以相同的输入重新执行，
+ * 将截断输出文件中检查点之后的内容，跳过已完成的文本继续执行。内存占用只与并发数和批大小有关，与输入规模无关。
+ * </p>
+ */
+public interface EmbeddingBatchJob {
+
+    /**
+     * 执行任务；任务将占用{@link Builder#executor(Executor)}中的一个线程读取输入直到结束
+     *
+     * @return 批处理报告
+     */
+    CompletableFuture<BatchReport> run();
+
+    /**
+     * 创建批量向量计算任务构建器
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new EmbeddingBatchJobBuilderImpl();
+    }
+
+    /**
+     * 批量向量计算任务构建器
+     */
+    interface Builder extends Buildable<EmbeddingBatchJob, Builder> {
+
+        /**
+         * 设置千帆客户端，必填
+         *
+         * @param client 千帆客户端
+         * @return this
+         */
+        Builder client(QianFanClient client);
+
+        /**
+         * 设置向量计算模型，必填
+         *
+         * @param model 向量计算模型
+         * @return this
+         */
+        Builder model(EmbeddingModel model);
+
+        /**
+         * 设置输入文本，与{@link #input(Path)}二选一
+         * <p>输入流按需读取，不会一次性加载到内存中</p>
+         *
+         * @param texts 输入文本
+         * @return this
+         */
+        Builder input(Stream<String> texts);
+
+        /**
+         * 设置输入文件(UTF-8，每行一个文本)，与{@link #input(Stream)}二选一
+         *
+         * @param path 输入文件
+         * @return this
+         */
+        Builder input(Path path);
+
+        /**
+         * 设置输出文件，必填
+         *
+         * @param path 输出文件
+         * @return this
+         */
+        Builder output(Path path);
+
+        /**
+         * 设置检查点文件，默认为输出文件名加上{@code .checkpoint}后缀
+         *
+         * @param path 检查点文件
+         * @return this
+         */
+        Builder checkpoint(Path path);
+
+        /**
+         * 设置线程池，必填
+         *
+         * @param executor 线程池
+         * @return this
+         */
+        Builder executor(Executor executor);
+
+        /**
+         * 设置同时在途的批次数量，默认4
+         *
+         * @param parallelism 同时在途的批次数量
+         * @return this
+         */
+        Builder parallelism(int parallelism);
+
+        /**
+         * 设置暂时性失败(网络异常、限流等)的最大重试次数，默认3
+         *
+         * @param maxRetries 最大重试次数
+         * @return this
+         */
+        Builder maxRetries(int maxRetries);
+
+        /**
+         * 设置首次重试的间隔，之后每次翻倍，默认1秒
+         *
+         * @param backoff 首次重试的间隔
+         * @return this
+         */
+        Builder backoff(Duration backoff);
+
+    }
+
+}
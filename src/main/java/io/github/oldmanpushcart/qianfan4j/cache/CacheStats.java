@@ -0,0 +1,31 @@
+package io.github.oldmanpushcart.qianfan4j.cache;
+
+/**
+ * 缓存统计
+ *
+ * @param hits   命中次数
+ * @param misses 未命中次数
+ * @param size   当前缓存元素数量
+ */
+public record CacheStats(long hits, long misses, long size) {
+
+    /**
+     * 查询总次数
+     *
+     * @return 查询总次数
+     */
+    public long requests() {
+        return hits + misses;
+    }
+
+    /**
+     * 命中率
+     *
+     * @return 命中率，没有查询时为{@code 0}
+     */
+    public double hitRate() {
+        final var requests = requests();
+        return requests == 0 ? 0d : (double) hits / requests;
+    }
+
+}
@@ -0,0 +1,75 @@
+package io.github.oldmanpushcart.qianfan4j.cache;
+
+import io.github.oldmanpushcart.internal.qianfan4j.cache.EmbeddingCacheBuilderImpl;
+import io.github.oldmanpushcart.qianfan4j.util.Buildable;
+
+import java.nio.file.Path;
+
+/**
+ * 向量缓存
+ * <p>
+ * 以(模型名称, 文本摘要)为键缓存向量计算的结果，分为两级：
+ * <ul>
+ *     <li>内存：有界的LRU缓存</li>
+ *     <li>持久化(可选)：内存映射的追加写文件，启动时重建索引，重启后缓存依然有效</li>
+ * </ul>
+ * 向量计算请求中只有未命中的文本才会发往服务端，结果按原始顺序合并回{@link io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse}。
+ * 全部命中时应答的用量为空。
+ * </p>
+ */
+public interface EmbeddingCache extends AutoCloseable {
+
+    /**
+     * 获取缓存统计；命中和未命中按文本计数，持久化开启时缓存元素数量为持久化的向量数量
+     *
+     * @return 缓存统计
+     */
+    CacheStats stats();
+
+    /**
+     * 关闭缓存，将持久化文件刷入磁盘
+     */
+    @Override
+    void close();
+
+    /**
+     * 创建向量缓存构建器
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new EmbeddingCacheBuilderImpl();
+    }
+
+    /**
+     * 向量缓存构建器
+     */
+    interface Builder extends Buildable<EmbeddingCache, Builder> {
+
+        /**
+         * 设置内存中最大缓存向量数量，默认10000
+         *
+         * @param capacity 最大缓存向量数量
+         * @return this
+         */
+        Builder capacity(int capacity);
+
+        /**
+         * 设置持久化文件；不设置则只缓存在内存中
+         *
+         * @param path 持久化文件
+         * @return this
+         */
+        Builder path(Path path);
+
+        /**
+         * 设置持久化文件的最大字节数，默认2GB(也是上限)；写满后新的向量只缓存在内存中
+         *
+         * @param fileBytes 持久化文件的最大字节数
+         * @return this
+         */
+        Builder fileBytes(long fileBytes);
+
+    }
+
+}
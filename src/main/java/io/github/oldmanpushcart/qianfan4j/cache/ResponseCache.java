@@ -0,0 +1,79 @@
+package io.github.oldmanpushcart.qianfan4j.cache;
+
+import io.github.oldmanpushcart.internal.qianfan4j.cache.ResponseCacheBuilderImpl;
+import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoOptions;
+import io.github.oldmanpushcart.qianfan4j.util.Buildable;
+
+import java.time.Duration;
+
+/**
+ * 应答缓存
+ * <p>
+ * 对对话、续写请求的应答做精确匹配缓存。缓存键为请求规范化序列化后的摘要，包含模型、消息、函数和除流式开关、用户标识之外的全部选项。
+ * 命中时不会发起HTTP请求，也不会消耗配额：
+ * <ul>
+ *     <li>块模式：直接返回缓存的应答</li>
+ *     <li>流模式：按原始顺序重放缓存的分片；如果缓存来自块模式，则以最终应答作为唯一分片重放</li>
+ * </ul>
+ * </p>
+ */
+public interface ResponseCache {
+
+    /**
+     * 获取缓存统计
+     *
+     * @return 缓存统计
+     */
+    CacheStats stats();
+
+    /**
+     * 清空缓存
+     */
+    void clear();
+
+    /**
+     * 创建应答缓存构建器
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new ResponseCacheBuilderImpl();
+    }
+
+    /**
+     * 应答缓存构建器
+     */
+    interface Builder extends Buildable<ResponseCache, Builder> {
+
+        /**
+         * 设置最大缓存应答数量，默认1024
+         *
+         * @param capacity 最大缓存应答数量
+         * @return this
+         */
+        Builder capacity(int capacity);
+
+        /**
+         * 设置过期时间，默认10分钟
+         *
+         * @param expire 过期时间
+         * @return this
+         */
+        Builder expire(Duration expire);
+
+        /**
+         * 设置允许缓存的最大{@link AlgoOptions#TEMPERATURE}，默认0.1(只缓存接近贪心解码的请求)
+         * <ul>
+         *     <li>请求的TEMPERATURE高于此值时被视为需要随机结果，不读也不写缓存</li>
+         *     <li>请求未设置TEMPERATURE时按服务端默认值0.8计算</li>
+         *     <li>缓存会让相同请求得到相同应答，设置为1.0将缓存全部请求，采样的随机性随之消失</li>
+         * </ul>
+         *
+         * @param maxTemperature 允许缓存的最大TEMPERATURE
+         * @return this
+         */
+        Builder maxTemperature(float maxTemperature);
+
+    }
+
+}
@@ -0,0 +1,94 @@
+package io.github.oldmanpushcart.qianfan4j.cache;
+
+import io.github.oldmanpushcart.internal.qianfan4j.cache.SemanticCacheBuilderImpl;
+import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoOptions;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingModel;
+import io.github.oldmanpushcart.qianfan4j.util.Buildable;
+
+import java.time.Duration;
+
+/**
+ * 语义缓存
+ * <p>
+ * 对对话请求的最后一条用户消息做向量计算，在此前的应答中查找相似度达到阈值的问题，命中时直接返回缓存的对话应答。
+ * <ul>
+ *     <li>只有上下文(模型、选项、除最后一条以外的消息)完全相同的请求之间才会比较相似度</li>
+ *     <li>携带函数的请求不会被缓存，函数调用的结果通常与时间和外部状态有关</li>
+ *     <li>TEMPERATURE高于{@link Builder#maxTemperature(float)}的请求不会被缓存</li>
+ *     <li>向量计算失败时直接放行请求，不影响对话</li>
+ *     <li>流模式命中时，以完整的对话应答作为唯一分片重放</li>
+ * </ul>
+ * </p>
+ */
+public interface SemanticCache {
+
+    /**
+     * 获取缓存统计
+     *
+     * @return 缓存统计
+     */
+    SemanticCacheStats stats();
+
+    /**
+     * 清空缓存
+     */
+    void clear();
+
+    /**
+     * 创建语义缓存构建器
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new SemanticCacheBuilderImpl();
+    }
+
+    /**
+     * 语义缓存构建器
+     */
+    interface Builder extends Buildable<SemanticCache, Builder> {
+
+        /**
+         * 设置向量计算模型，必填
+         *
+         * @param model 向量计算模型
+         * @return this
+         */
+        Builder model(EmbeddingModel model);
+
+        /**
+         * 设置相似度阈值(余弦相似度)，默认0.95
+         *
+         * @param threshold 相似度阈值，范围 (0, 1.0]
+         * @return this
+         */
+        Builder threshold(float threshold);
+
+        /**
+         * 设置最大缓存应答数量，默认1024；超过时淘汰最早写入的应答
+         * <p>每次查找都会与相同上下文的全部应答比较相似度，开销与容量成正比，因此容量不能超过8192</p>
+         *
+         * @param capacity 最大缓存应答数量，范围 (0, 8192]
+         * @return this
+         */
+        Builder capacity(int capacity);
+
+        /**
+         * 设置过期时间，默认10分钟
+         *
+         * @param expire 过期时间
+         * @return this
+         */
+        Builder expire(Duration expire);
+
+        /**
+         * 设置允许缓存的最大{@link AlgoOptions#TEMPERATURE}，默认0.1；规则与{@link ResponseCache.Builder#maxTemperature(float)}相同
+         *
+         * @param maxTemperature 允许缓存的最大TEMPERATURE
+         * @return this
+         */
+        Builder maxTemperature(float maxTemperature);
+
+    }
+
+}
@@ -0,0 +1,33 @@
+package io.github.oldmanpushcart.qianfan4j.cache;
+
+/**
+ * 语义缓存统计
+ *
+ * @param hits              命中次数
+ * @param misses            未命中次数
+ * @param size              当前缓存元素数量
+ * @param meanHitSimilarity 命中时相似度的平均值
+ * @param meanSimilarity    每次查询最高相似度的平均值(包含未命中)，可用于评估阈值是否合适
+ */
+public record SemanticCacheStats(long hits, long misses, long size, double meanHitSimilarity, double meanSimilarity) {
+
+    /**
+     * 查询总次数
+     *
+     * @return 查询总次数
+     */
+    public long requests() {
+        return hits + misses;
+    }
+
+    /**
+     * 命中率
+     *
+     * @return 命中率，没有查询时为{@code 0}
+     */
+    public double hitRate() {
+        final var requests = requests();
+        return requests == 0 ? 0d : (double) hits / requests;
+    }
+
+}
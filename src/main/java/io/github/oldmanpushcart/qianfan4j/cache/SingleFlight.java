@@ -0,0 +1,56 @@
+package io.github.oldmanpushcart.qianfan4j.cache;
+
+import io.github.oldmanpushcart.internal.qianfan4j.cache.SingleFlightBuilderImpl;
+import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoOptions;
+import io.github.oldmanpushcart.qianfan4j.util.Buildable;
+
+/**
+ * 相同请求合并
+ * <p>
+ * 对话、续写请求在执行期间，相同的请求不再发出，而是跟随正在执行的请求得到同一个应答。
+ * 请求是否相同的判断与{@link ResponseCache}相同：模型、消息、函数和除流式开关、用户标识之外的全部选项。
+ * 跟随的请求不占用连接，也不消耗配额：
+ * <ul>
+ *     <li>块模式：请求结束时得到最终应答</li>
+ *     <li>流模式：先重放已经收到的分片，再接收之后的分片；如果跟随的是块模式的请求，则以最终应答作为唯一分片</li>
+ * </ul>
+ * 跟随的请求与被跟随的请求同时成功或失败，应答在客户端的执行器上送达；各请求的消费器抛出异常只结束该请求。
+ * 请求结束后即不再合并，需要复用已完成的应答请使用{@link ResponseCache}。
+ * </p>
+ */
+public interface SingleFlight {
+
+    /**
+     * 获取合并统计
+     * <p>命中次数为跟随执行中请求的次数，未命中次数为实际发出的请求数量，元素数量为执行中的请求数量</p>
+     *
+     * @return 合并统计
+     */
+    CacheStats stats();
+
+    /**
+     * 创建相同请求合并构建器
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new SingleFlightBuilderImpl();
+    }
+
+    /**
+     * 相同请求合并构建器
+     */
+    interface Builder extends Buildable<SingleFlight, Builder> {
+
+        /**
+         * 设置允许合并的最大{@link AlgoOptions#TEMPERATURE}，默认0.1(只合并接近贪心解码的请求)；规则与{@link ResponseCache.Builder#maxTemperature(float)}相同。
+         * 合并会让相同请求得到相同应答，设置为1.0将合并全部请求，同时到达的请求之间不再有采样的随机性
+         *
+         * @param maxTemperature 允许合并的最大TEMPERATURE
+         * @return this
+         */
+        Builder maxTemperature(float maxTemperature);
+
+    }
+
+}
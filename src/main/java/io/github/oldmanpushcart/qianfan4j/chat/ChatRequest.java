@@ -14,6 +14,11 @@ public interface ChatRequest extends AlgoRequest<ChatModel, ChatResponse> {
 
     /**
      * 获取对话消息列表
+     * <p>
+     * 返回请求当前消息的可修改视图，读取总是反映最新的消息，对话完成后AI的回复同样追加到其中。
+     * 在末尾追加消息为O(1)；插入、替换和删除会复制全部消息。
+     * 派生后续请求推荐使用{@link #newBuilder(ChatRequest)}，派生出的请求与原请求互不影响
+     * </p>
      *
      * @return 对话消息列表
      */
@@ -26,6 +31,13 @@ public interface ChatRequest extends AlgoRequest<ChatModel, ChatResponse> {
      */
     List<ChatFunction<?, ?>> functions();
 
+    /**
+     * 获取对话历史策略
+     *
+     * @return 对话历史策略
+     */
+    HistoryPolicy historyPolicy();
+
     /**
      * 对话请求构造器
      *
@@ -77,6 +89,14 @@ public interface ChatRequest extends AlgoRequest<ChatModel, ChatResponse> {
          */
         Builder functions(boolean isReplace, ChatFunction<?, ?>... functions);
 
+        /**
+         * 设置对话历史策略，默认{@link HistoryPolicy#ALL}
+         *
+         * @param policy 对话历史策略
+         * @return this
+         */
+        Builder historyPolicy(HistoryPolicy policy);
+
     }
 
 }
@@ -0,0 +1,63 @@
+package io.github.oldmanpushcart.qianfan4j.chat;
+
+import io.github.oldmanpushcart.internal.qianfan4j.chat.SlidingWindowHistoryPolicy;
+import io.github.oldmanpushcart.qianfan4j.base.algo.TokenEstimator;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+
+import java.util.List;
+
+import static io.github.oldmanpushcart.internal.qianfan4j.util.CheckUtils.check;
+
+/**
+ * 对话历史策略
+ * <p>
+ * 对话过程中AI的回复会不断追加到请求的消息列表中，历史策略决定每次请求实际发送哪些消息。
+ * 策略在请求序列化时生效，不修改请求中的消息列表。
+ * </p>
+ * <p>
+ * 裁剪以轮次为单位：一轮从一条用户消息开始，包含其后直到下一条用户消息之前的全部消息，
+ * 因此函数调用消息与函数消息总是成对保留。
+ * </p>
+ */
+@FunctionalInterface
+public interface HistoryPolicy {
+
+    /**
+     * 保留全部历史
+     */
+    HistoryPolicy ALL = (estimator, messages) -> messages;
+
+    /**
+     * 选择需要发送的消息
+     *
+     * @param estimator 当前模型的TOKEN估算器；构建请求体时为客户端的估算器，开启TOKEN校准时已按实际用量校准
+     * @param messages  全部消息
+     * @return 需要发送的消息
+     */
+    List<Message> apply(TokenEstimator estimator, List<Message> messages);
+
+    /**
+     * 滑动窗口：在TOKEN预算内保留最近的轮次
+     *
+     * @param maxTokens TOKEN预算
+     * @return 历史策略
+     */
+    static HistoryPolicy window(int maxTokens) {
+        return window(maxTokens, 0);
+    }
+
+    /**
+     * 滑动窗口：固定保留最早的若干轮次(通常是设定背景的开场)，在剩余的TOKEN预算内保留最近的轮次
+     * <p>最后一轮(当前提问)总是保留，即使其本身已经超出预算</p>
+     *
+     * @param maxTokens   TOKEN预算
+     * @param pinnedTurns 固定保留的最早轮次数
+     * @return 历史策略
+     */
+    static HistoryPolicy window(int maxTokens, int pinnedTurns) {
+        check(maxTokens, maxTokens > 0, "maxTokens must be greater than 0");
+        check(pinnedTurns, pinnedTurns >= 0, "pinnedTurns must be greater than or equal to 0");
+        return new SlidingWindowHistoryPolicy(maxTokens, pinnedTurns);
+    }
+
+}
@@ -4,6 +4,7 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 对话函数注解
@@ -34,6 +35,56 @@ public @interface ChatFn {
      */
     Example[] examples() default {};
 
+    /**
+     * 函数结果缓存
+     * <p>默认不开启；适用于结果只取决于参数的查询类函数</p>
+     *
+     * @return 函数结果缓存
+     */
+    Cache cache() default @Cache(enabled = false);
+
+    /**
+     * 函数结果缓存
+     * <p>
+     * 开启后，函数名称与参数(规范化后的JSON)相同的调用将共享同一个结果：
+     * 缓存在同一个客户端的所有对话之间共享，并发的相同调用只会真正执行一次。
+     * 执行失败的结果不会被缓存。
+     * </p>
+     */
+    @Target(ElementType.ANNOTATION_TYPE)
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Cache {
+
+        /**
+         * 是否开启
+         *
+         * @return TRUE | FALSE
+         */
+        boolean enabled() default true;
+
+        /**
+         * 最大缓存结果数量；超过后淘汰最久未被访问的结果
+         *
+         * @return 最大缓存结果数量
+         */
+        int capacity() default 1024;
+
+        /**
+         * 过期时间
+         *
+         * @return 过期时间
+         */
+        long expire() default 60;
+
+        /**
+         * 过期时间单位
+         *
+         * @return 过期时间单位
+         */
+        TimeUnit unit() default TimeUnit.SECONDS;
+
+    }
+
     /**
      * 函数调用例子
      */
@@ -21,11 +21,7 @@ class FunctionCallMessage extends MessageImpl {
         this.call = call;
     }
 
-    /**
-     * 获取函数调用
-     *
-     * @return 函数调用
-     */
+    @Override
     public FunctionCall call() {
         return call;
     }
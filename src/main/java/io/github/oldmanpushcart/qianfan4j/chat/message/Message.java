@@ -24,6 +24,15 @@ public interface Message {
     @JsonProperty("content")
     String content();
 
+    /**
+     * 获取函数调用
+     *
+     * @return 函数调用，非函数调用消息返回{@code null}
+     */
+    default FunctionCall call() {
+        return null;
+    }
+
     /**
      * AI消息(文本)
      *
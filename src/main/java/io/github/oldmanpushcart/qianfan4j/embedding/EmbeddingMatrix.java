@@ -0,0 +1,61 @@
+package io.github.oldmanpushcart.qianfan4j.embedding;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 向量矩阵
+ * <p>全部向量按行优先连续存放在同一块内存中，第{@code i}行即为{@link EmbeddingRequest#texts()}中第{@code i}个文本的向量</p>
+ */
+public interface EmbeddingMatrix {
+
+    /**
+     * 获取行数(向量数量)
+     *
+     * @return 行数
+     */
+    int rows();
+
+    /**
+     * 获取维度
+     *
+     * @return 维度
+     */
+    int dimension();
+
+    /**
+     * 获取元素
+     *
+     * @param row    行
+     * @param column 列
+     * @return 元素
+     */
+    float get(int row, int column);
+
+    /**
+     * 获取行(向量)；只读视图，不复制数据
+     *
+     * @param row 行
+     * @return 向量
+     */
+    FloatBuffer row(int row);
+
+    /**
+     * 获取全部数据；行优先的只读视图，不复制数据
+     *
+     * @return 全部数据
+     */
+    FloatBuffer buffer();
+
+    /**
+     * 复制行(向量)
+     *
+     * @param row 行
+     * @return 向量
+     */
+    default float[] copyRow(int row) {
+        final var vector = new float[dimension()];
+        row(row).get(vector);
+        return vector;
+    }
+
+}
@@ -5,10 +5,26 @@ import io.github.oldmanpushcart.qianfan4j.base.algo.Model;
 /**
  * 向量计算模型
  *
- * @param name   模型名称
- * @param remote 模型远程地址
+ * @param name      模型名称
+ * @param remote    模型远程地址
+ * @param batchSize 单次请求允许的最大文本数量
  */
-public record EmbeddingModel(String name, String remote) implements Model {
+public record EmbeddingModel(String name, String remote, int batchSize) implements Model {
+
+    /**
+     * 默认的单次请求最大文本数量
+     */
+    public static final int DEFAULT_BATCH_SIZE = 16;
+
+    /**
+     * 向量计算模型，单次请求最大文本数量为{@link #DEFAULT_BATCH_SIZE}
+     *
+     * @param name   模型名称
+     * @param remote 模型远程地址
+     */
+    public EmbeddingModel(String name, String remote) {
+        this(name, remote, DEFAULT_BATCH_SIZE);
+    }
 
     public static final EmbeddingModel EMBEDDING_V1 = new EmbeddingModel(
             "embedding-1.0",
@@ -27,7 +43,8 @@ public record EmbeddingModel(String name, String remote) implements Model {
 
     public static final EmbeddingModel TAO_8K = new EmbeddingModel(
             "tao-8k",
-            "https://aip.baidubce.com/rpc/2.0/ai_custom/v1/wenxinworkshop/embeddings/tao_8k"
+            "https://aip.baidubce.com/rpc/2.0/ai_custom/v1/wenxinworkshop/embeddings/tao_8k",
+            1
     );
 
 }
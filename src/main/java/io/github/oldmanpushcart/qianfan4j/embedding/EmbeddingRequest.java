@@ -23,6 +23,16 @@ public interface EmbeddingRequest extends AlgoRequest<EmbeddingModel, EmbeddingR
         return new EmbeddingRequestBuilderImpl();
     }
 
+    /**
+     * 创建构建器
+     *
+     * @param request 向量计算请求
+     * @return 构建器
+     */
+    static Builder newBuilder(EmbeddingRequest request) {
+        return new EmbeddingRequestBuilderImpl(request);
+    }
+
     /**
      * 构建器
      */
@@ -44,7 +54,18 @@ public interface EmbeddingRequest extends AlgoRequest<EmbeddingModel, EmbeddingR
          * @param texts 文本集合
          * @return this
          */
-        Builder texts(List<String> texts);
+        default Builder texts(List<String> texts) {
+            return texts(false, texts);
+        }
+
+        /**
+         * 设置文本集合
+         *
+         * @param isReplace 是否替换
+         * @param texts     文本集合
+         * @return this
+         */
+        Builder texts(boolean isReplace, List<String> texts);
 
     }
 
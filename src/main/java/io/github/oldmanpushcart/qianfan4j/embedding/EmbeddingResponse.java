@@ -1,5 +1,6 @@
 package io.github.oldmanpushcart.qianfan4j.embedding;
 
+import io.github.oldmanpushcart.internal.qianfan4j.embedding.EmbeddingMatrixImpl;
 import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoResponse;
 
 import java.util.List;
@@ -17,4 +18,14 @@ public interface EmbeddingResponse extends AlgoResponse {
      */
     List<Embedding> embeddings();
 
+    /**
+     * 获取向量矩阵
+     * <p>全部向量按行优先连续存放，行号与{@link EmbeddingRequest#texts()}中的顺序对应；适合批量的相似度计算</p>
+     *
+     * @return 向量矩阵
+     */
+    default EmbeddingMatrix matrix() {
+        return EmbeddingMatrixImpl.of(embeddings());
+    }
+
 }
@@ -4,6 +4,8 @@ import io.github.oldmanpushcart.internal.qianfan4j.image.caption.CaptionImageReq
 import io.github.oldmanpushcart.qianfan4j.base.algo.AlgoRequest;
 
 import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 
 /**
  * 图生文请求
@@ -18,7 +20,7 @@ public interface CaptionImageRequest extends AlgoRequest<CaptionImageModel, Capt
     String prompt();
 
     /**
-     * 获取图片
+     * 获取图片；以编码数据或文件设置的图片在调用时解码
      *
      * @return 图片
      */
@@ -47,13 +49,39 @@ public interface CaptionImageRequest extends AlgoRequest<CaptionImageModel, Capt
         Builder prompt(String prompt);
 
         /**
-         * 设置图片
+         * 设置图片；请求时编码为PNG
          *
          * @param image 图片
          * @return this
          */
         Builder image(BufferedImage image);
 
+        /**
+         * 设置已编码的图片(JPEG、PNG等)；请求时原样以base64发送，不做解码和转码
+         * <p>数组不做复制，构建后不应再修改</p>
+         *
+         * @param encoded 编码后的图片数据
+         * @return this
+         */
+        Builder image(byte[] encoded);
+
+        /**
+         * 设置已编码的图片(JPEG、PNG等)；使用缓冲区中剩余的数据，请求时原样以base64发送
+         * <p>缓冲区内容不做复制，构建后不应再修改；缓冲区的位置不会被改变</p>
+         *
+         * @param encoded 编码后的图片数据
+         * @return this
+         */
+        Builder image(ByteBuffer encoded);
+
+        /**
+         * 设置图片文件；请求时从文件流式读取并以base64发送
+         *
+         * @param path 图片文件
+         * @return this
+         */
+        Builder image(Path path);
+
     }
 
 }
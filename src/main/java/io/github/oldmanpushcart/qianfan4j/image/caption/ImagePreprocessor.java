@@ -0,0 +1,155 @@
+package io.github.oldmanpushcart.qianfan4j.image.caption;
+
+import io.github.oldmanpushcart.internal.qianfan4j.image.caption.ImagePreprocessorBuilderImpl;
+import io.github.oldmanpushcart.qianfan4j.cache.CacheStats;
+import io.github.oldmanpushcart.qianfan4j.util.Buildable;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 图片预处理器
+ * <p>
+ * 在图生文请求发出前将图片缩放到最大边长以内并重新编码为JPEG，步骤如下：
+ * <ul>
+ *     <li>缩放：长边超过{@link Builder#maxDimension(int)}时等比缩小</li>
+ *     <li>编码：以{@link Builder#quality(float)}编码为JPEG；原图为JPEG且无需缩放时原样使用</li>
+ *     <li>预算：设置了{@link Builder#maxBytes(int)}时逐步降低质量，仍超出则继续缩小</li>
+ *     <li>去重：以图片内容的SHA-256为键缓存编码结果，相同的图片只编码一次；缓存按数量和字节数双重限制，且不持有调用者的缓冲区</li>
+ * </ul>
+ * 解码、缩放和编码都在{@link Builder#executor(Executor)}中执行，不占用HTTP线程。
+ * 通过{@link io.github.oldmanpushcart.qianfan4j.QianFanClient.Builder#imagePreprocessor(ImagePreprocessor)}设置后对所有图生文请求生效。
+ * </p>
+ */
+public interface ImagePreprocessor {
+
+    /**
+     * 预处理图片
+     *
+     * @param image 图片
+     * @return 编码后的图片数据(只读)
+     */
+    CompletableFuture<ByteBuffer> process(BufferedImage image);
+
+    /**
+     * 预处理已编码的图片；使用缓冲区中剩余的数据，缓冲区的位置不会被改变
+     *
+     * @param encoded 编码后的图片数据
+     * @return 编码后的图片数据(只读)
+     */
+    CompletableFuture<ByteBuffer> process(ByteBuffer encoded);
+
+    /**
+     * 预处理图片文件
+     *
+     * @param path 图片文件
+     * @return 编码后的图片数据(只读)
+     */
+    CompletableFuture<ByteBuffer> process(Path path);
+
+    /**
+     * 获取编码结果缓存的统计
+     *
+     * @return 缓存统计
+     */
+    CacheStats stats();
+
+    /**
+     * 创建图片预处理器构建器
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new ImagePreprocessorBuilderImpl();
+    }
+
+    /**
+     * 缩放方式
+     */
+    enum Scaling {
+
+        /**
+         * 速度优先：一次双线性插值缩放
+         */
+        SPEED,
+
+        /**
+         * 质量优先：逐级减半后双三次插值缩放，大比例缩小时细节和锯齿表现更好
+         */
+        QUALITY
+
+    }
+
+    /**
+     * 图片预处理器构建器
+     */
+    interface Builder extends Buildable<ImagePreprocessor, Builder> {
+
+        /**
+         * 设置图片长边的最大像素，默认1024
+         *
+         * @param maxDimension 最大边长
+         * @return this
+         */
+        Builder maxDimension(int maxDimension);
+
+        /**
+         * 设置缩放方式，默认{@link Scaling#QUALITY}
+         *
+         * @param scaling 缩放方式
+         * @return this
+         */
+        Builder scaling(Scaling scaling);
+
+        /**
+         * 设置JPEG编码质量，取值(0,1]，默认0.85
+         *
+         * @param quality 编码质量
+         * @return this
+         */
+        Builder quality(float quality);
+
+        /**
+         * 设置编码后的字节预算；不设置则不限制
+         * <p>超出预算时逐步降低编码质量(最低0.5)，仍超出则按比例缩小图片，直到满足预算或图片过小</p>
+         *
+         * @param maxBytes 字节预算
+         * @return this
+         */
+        Builder maxBytes(int maxBytes);
+
+        /**
+         * 设置编码结果缓存的最大数量，默认256
+         *
+         * @param capacity 最大数量
+         * @return this
+         */
+        Builder capacity(int capacity);
+
+        /**
+         * 设置编码结果缓存的字节上限，默认64MB
+         * <p>超出时淘汰最久未使用的结果，超过上限的单个结果不缓存；原样使用的调用者数据在缓存前复制，复制的字节同样计入</p>
+         *
+         * @param cacheBytes 字节上限
+         * @return this
+         */
+        Builder cacheBytes(long cacheBytes);
+
+        /**
+         * 设置执行读取、解码、缩放和编码的线程池
+         * <p>
+         * 默认使用预处理器专用的线程池：线程数为CPU核数，空闲时回收，线程为守护线程。
+         * 图片处理包含文件读取和ImageIO的阻塞操作，不应使用{@link java.util.concurrent.ForkJoinPool#commonPool()}或HTTP线程池
+         * </p>
+         *
+         * @param executor 线程池
+         * @return this
+         */
+        Builder executor(Executor executor);
+
+    }
+
+}
@@ -0,0 +1,60 @@
+package io.github.oldmanpushcart.qianfan4j.image.generation;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * 已编码的生成图片
+ * <p>保留应答中的base64数据，只在需要时解码：只需要保存图片时可以直接{@link #writeTo(Path)}，无需解码像素</p>
+ */
+public interface EncodedImage {
+
+    /**
+     * 获取base64编码的图片数据
+     *
+     * @return base64
+     */
+    String base64();
+
+    /**
+     * 获取编码后的图片数据(通常为PNG)；每次调用都会解码出新的数组
+     *
+     * @return 图片数据
+     */
+    byte[] bytes();
+
+    /**
+     * 获取编码后的图片数据(通常为PNG)
+     *
+     * @return 只读缓冲区
+     */
+    ByteBuffer buffer();
+
+    /**
+     * 解码为图片；首次调用时解码，之后返回同一个图片
+     *
+     * @return 图片
+     */
+    BufferedImage decode();
+
+    /**
+     * 将编码后的图片数据写入输出流；边解码base64边写入，不产生完整的中间数组
+     * <p>不会关闭输出流</p>
+     *
+     * @param output 输出流
+     * @throws IOException 写入失败
+     */
+    void writeTo(OutputStream output) throws IOException;
+
+    /**
+     * 将编码后的图片数据写入文件；文件已存在时覆盖
+     *
+     * @param path 文件路径
+     * @throws IOException 写入失败
+     */
+    void writeTo(Path path) throws IOException;
+
+}
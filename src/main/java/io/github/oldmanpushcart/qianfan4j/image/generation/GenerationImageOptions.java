@@ -17,7 +17,7 @@ public interface GenerationImageOptions {
      * 随机种子
      */
     SimpleOpt<Long> SEED = new SimpleOpt<>("seed", Long.class,
-            v -> check(v, v >= 0L && v <= 1L << 32 - 1, "NUMBERS must be in range [1, 4]")
+            v -> check(v, v >= 0L && v <= (1L << 32) - 1, "SEED must be in range [0, 2^32 - 1]")
     );
 
     /**
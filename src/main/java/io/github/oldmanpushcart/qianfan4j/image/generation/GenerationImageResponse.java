@@ -11,10 +11,17 @@ import java.util.List;
 public interface GenerationImageResponse extends AlgoResponse {
 
     /**
-     * 生成图片列表
+     * 生成图片列表；访问元素时才解码图片
      *
      * @return 图片列表
      */
     List<BufferedImage> images();
 
+    /**
+     * 已编码的生成图片列表；只需要保存或转发图片时无需解码
+     *
+     * @return 已编码的图片列表
+     */
+    List<EncodedImage> encodedImages();
+
 }
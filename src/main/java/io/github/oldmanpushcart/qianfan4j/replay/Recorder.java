@@ -0,0 +1,59 @@
+package io.github.oldmanpushcart.qianfan4j.replay;
+
+import io.github.oldmanpushcart.internal.qianfan4j.replay.RecorderBuilderImpl;
+import io.github.oldmanpushcart.qianfan4j.util.Buildable;
+
+import java.nio.file.Path;
+
+/**
+ * HTTP录制器
+ * <p>
+ * 记录客户端与服务端之间的每一次HTTP交换，供{@link Replayer}离线重放。每次交换在应答结束时写入一行JSON：
+ * <ul>
+ *     <li>请求：方法、不含查询参数的地址(不记录{@code access_token})、请求体的摘要</li>
+ *     <li>应答：状态码、应答头，以及应答体的每个分片和它相对请求发出时刻的到达时间</li>
+ * </ul>
+ * 获取令牌的请求含有AK/SK，从不记录。请求失败(连接中断等)的交换不记录。
+ * 通过{@link io.github.oldmanpushcart.qianfan4j.QianFanClient.Builder#recorder(Recorder)}设置，使用完毕后关闭。
+ * </p>
+ */
+public interface Recorder extends AutoCloseable {
+
+    /**
+     * 获取已记录的交换数量
+     *
+     * @return 已记录的交换数量
+     */
+    long recorded();
+
+    /**
+     * 关闭录制文件
+     */
+    @Override
+    void close();
+
+    /**
+     * 创建HTTP录制器构建器
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new RecorderBuilderImpl();
+    }
+
+    /**
+     * HTTP录制器构建器
+     */
+    interface Builder extends Buildable<Recorder, Builder> {
+
+        /**
+         * 设置录制文件，已存在的文件将被覆盖
+         *
+         * @param path 录制文件
+         * @return this
+         */
+        Builder path(Path path);
+
+    }
+
+}
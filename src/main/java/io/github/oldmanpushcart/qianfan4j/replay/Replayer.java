@@ -0,0 +1,62 @@
+package io.github.oldmanpushcart.qianfan4j.replay;
+
+import io.github.oldmanpushcart.internal.qianfan4j.replay.ReplayerBuilderImpl;
+import io.github.oldmanpushcart.qianfan4j.util.Buildable;
+
+import java.nio.file.Path;
+
+/**
+ * HTTP重放器
+ * <p>
+ * 以{@link Recorder}录制的文件代替服务端，不发起任何网络请求，用于离线测量客户端自身的CPU和内存开销：
+ * <ul>
+ *     <li>匹配：按方法、不含查询参数的地址和请求体的摘要匹配录制的交换；同一请求录制了多次时依次轮流重放</li>
+ *     <li>节奏：应答头和每个分片按录制时的到达时间除以{@code speed}送达</li>
+ *     <li>令牌：获取令牌的请求直接返回固定的令牌，不需要有效的AK/SK</li>
+ * </ul>
+ * 没有匹配的录制时请求以{@link IllegalStateException}失败。
+ * 通过{@link io.github.oldmanpushcart.qianfan4j.QianFanClient.Builder#replayer(Replayer)}设置。
+ * </p>
+ */
+public interface Replayer {
+
+    /**
+     * 获取已重放的交换数量
+     *
+     * @return 已重放的交换数量
+     */
+    long replayed();
+
+    /**
+     * 创建HTTP重放器构建器
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new ReplayerBuilderImpl();
+    }
+
+    /**
+     * HTTP重放器构建器
+     */
+    interface Builder extends Buildable<Replayer, Builder> {
+
+        /**
+         * 设置录制文件
+         *
+         * @param path 录制文件
+         * @return this
+         */
+        Builder path(Path path);
+
+        /**
+         * 设置重放速度，默认1.0(原始节奏)；2.0为两倍速，{@link Double#POSITIVE_INFINITY}为不等待
+         *
+         * @param speed 重放速度
+         * @return this
+         */
+        Builder speed(double speed);
+
+    }
+
+}
@@ -0,0 +1,47 @@
+package io.github.oldmanpushcart.qianfan4j.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * 请求截止时间已无法满足
+ * <p>请求在排队时被调度器丢弃，没有发往服务端：排队到截止时间仍未发出，或按该模型观测到的耗时，请求出队后已无法在截止时间前完成</p>
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Instant deadline;
+    private final Duration estimated;
+
+    /**
+     * 请求截止时间已无法满足
+     *
+     * @param deadline  请求截止时间
+     * @param estimated 预计请求耗时
+     */
+    public DeadlineExceededException(Instant deadline, Duration estimated) {
+        super("deadline: %s cannot be met, estimated latency: %s".formatted(deadline, estimated));
+        this.deadline = deadline;
+        this.estimated = estimated;
+    }
+
+    /**
+     * 获取请求截止时间
+     *
+     * @return 请求截止时间
+     */
+    public Instant deadline() {
+        return deadline;
+    }
+
+    /**
+     * 获取预计请求耗时
+     *
+     * @return 预计请求耗时
+     */
+    public Duration estimated() {
+        return estimated;
+    }
+
+}
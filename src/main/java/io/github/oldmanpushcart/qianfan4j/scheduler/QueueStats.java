@@ -0,0 +1,25 @@
+package io.github.oldmanpushcart.qianfan4j.scheduler;
+
+import java.time.Duration;
+
+/**
+ * 排队统计
+ *
+ * @param dispatched 已发出的请求数量
+ * @param shed       因截止时间无法满足而丢弃的请求数量
+ * @param waiting    当前排队的请求数量
+ * @param totalWait  已发出的请求累计排队时间
+ * @param maxWait    已发出的请求最长排队时间
+ */
+public record QueueStats(long dispatched, long shed, int waiting, Duration totalWait, Duration maxWait) {
+
+    /**
+     * 平均排队时间
+     *
+     * @return 平均排队时间，没有发出请求时为{@link Duration#ZERO}
+     */
+    public Duration meanWait() {
+        return dispatched == 0 ? Duration.ZERO : totalWait.dividedBy(dispatched);
+    }
+
+}
@@ -0,0 +1,118 @@
+package io.github.oldmanpushcart.qianfan4j.scheduler;
+
+import io.github.oldmanpushcart.internal.qianfan4j.scheduler.RequestSchedulerBuilderImpl;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.qianfan4j.util.Buildable;
+
+import java.time.Instant;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * 请求调度器
+ * <p>
+ * 限制同时发往服务端的请求数量，超出的请求排队等待，按以下规则发出：
+ * <ul>
+ *     <li>优先级：高优先级的队列非空时总是先发出；优先级只决定排队的先后，运行中的请求不会让出名额，
+ *     因此保留一部分名额({@link Builder#reserved(int)})只给交互请求，后台和批处理请求占满其余名额时交互请求依然可以立即发出</li>
+ *     <li>公平：同一优先级内按用户({@link io.github.oldmanpushcart.qianfan4j.base.algo.AlgoRequest#user()})加权公平排队，
+ *     请求多的用户不会挤占其他用户，权重为2的用户发出的请求是权重为1的用户的两倍</li>
+ *     <li>截止时间：同一用户的请求按截止时间从早到晚发出；排队的请求按该模型观测到的首个应答耗时已无法在截止时间前完成时不再发出，
+ *     排队到截止时间仍未发出的请求到期即丢弃，都以{@link DeadlineExceededException}快速失败，过载时名额留给还来得及完成的请求；
+ *     有空闲名额时请求直接发出</li>
+ * </ul>
+ * 调度器位于缓存之后，命中缓存的请求不排队。
+ * 通过{@link io.github.oldmanpushcart.qianfan4j.QianFanClient.Builder#scheduler(RequestScheduler)}设置。
+ * </p>
+ */
+public interface RequestScheduler {
+
+    /**
+     * 获取优先级的排队统计
+     *
+     * @param priority 优先级
+     * @return 排队统计
+     */
+    QueueStats stats(Priority priority);
+
+    /**
+     * 创建请求调度器构建器
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new RequestSchedulerBuilderImpl();
+    }
+
+    /**
+     * 优先级，从高到低
+     */
+    enum Priority {
+
+        /**
+         * 交互：用户正在等待的请求
+         */
+        INTERACTIVE,
+
+        /**
+         * 后台：没有用户等待，但需要尽快完成的请求
+         */
+        BACKGROUND,
+
+        /**
+         * 批处理：只在空闲时发出的请求
+         */
+        BATCH
+
+    }
+
+    /**
+     * 请求调度器构建器
+     */
+    interface Builder extends Buildable<RequestScheduler, Builder> {
+
+        /**
+         * 设置同时发往服务端的请求数量上限，默认16
+         *
+         * @param concurrency 请求数量上限
+         * @return this
+         */
+        Builder concurrency(int concurrency);
+
+        /**
+         * 设置只留给{@link Priority#INTERACTIVE}请求的名额数量，必须小于请求数量上限；默认为请求数量上限的四分之一(向下取整)。
+         * 后台和批处理请求合计最多占用其余的名额，设置为0时可以占满全部名额
+         *
+         * @param reserved 保留名额数量
+         * @return this
+         */
+        Builder reserved(int reserved);
+
+        /**
+         * 设置请求的优先级分类；默认流式请求为{@link Priority#INTERACTIVE}，其他请求为{@link Priority#BACKGROUND}
+         *
+         * @param classifier 优先级分类
+         * @return this
+         */
+        Builder classifier(Function<ApiRequest<?>, Priority> classifier);
+
+        /**
+         * 设置用户的权重，必须大于0；默认所有用户的权重都为1，未设置用户的请求视为同一个用户
+         *
+         * @param weigher 用户权重
+         * @return this
+         */
+        Builder weigher(ToIntFunction<String> weigher);
+
+        /**
+         * 设置请求的截止时间，在请求提交时计算，返回{@code null}表示没有截止时间；
+         * 默认为提交时刻加上{@link ApiRequest#timeout()}，未设置超时的请求没有截止时间
+         *
+         * @param deadline 请求截止时间
+         * @return this
+         */
+        Builder deadline(Function<ApiRequest<?>, Instant> deadline);
+
+    }
+
+}
@@ -0,0 +1,54 @@
+package io.github.oldmanpushcart.qianfan4j.vector;
+
+import io.github.oldmanpushcart.internal.qianfan4j.vector.Kernels;
+import io.github.oldmanpushcart.qianfan4j.embedding.Embedding;
+
+/**
+ * 二值量化向量
+ * <p>每个分量只保留符号(大于0为1)，64个分量压缩为一个long，为float的1/32；向量间以汉明距离比较</p>
+ *
+ * @param bits      符号位
+ * @param dimension 维度
+ */
+public record BinaryVector(long[] bits, int dimension) {
+
+    /**
+     * 量化
+     *
+     * @param vector 向量
+     * @return 量化向量
+     */
+    public static BinaryVector of(float[] vector) {
+        final var bits = new long[Kernels.words(vector.length)];
+        for (int i = 0; i < vector.length; i++) {
+            if (vector[i] > 0) {
+                bits[i >>> 6] |= 1L << (i & 63);
+            }
+        }
+        return new BinaryVector(bits, vector.length);
+    }
+
+    /**
+     * 量化
+     *
+     * @param embedding 向量计算结果
+     * @return 量化向量
+     */
+    public static BinaryVector of(Embedding embedding) {
+        return of(embedding.vector());
+    }
+
+    /**
+     * 汉明距离
+     *
+     * @param other 另一个量化向量
+     * @return 汉明距离
+     */
+    public int hamming(BinaryVector other) {
+        if (dimension != other.dimension) {
+            throw new IllegalArgumentException("dimension mismatch, a=%d, b=%d".formatted(dimension, other.dimension));
+        }
+        return Kernels.hamming(bits, 0, other.bits, 0, bits.length);
+    }
+
+}
@@ -0,0 +1,177 @@
+package io.github.oldmanpushcart.qianfan4j.vector;
+
+import io.github.oldmanpushcart.internal.qianfan4j.vector.HnswIndexBuilderImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.vector.HnswIndexImpl;
+import io.github.oldmanpushcart.qianfan4j.embedding.Embedding;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse;
+import io.github.oldmanpushcart.qianfan4j.util.Buildable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * HNSW近似最近邻索引
+ * <p>
+ * 进程内的向量索引，支持并发的写入与查询。节点数据保存在基本类型数组中，容量在构建时确定。
+ * 索引可以保存为文件，并通过内存映射的方式加载。
+ * </p>
+ */
+public interface HnswIndex {
+
+    /**
+     * 获取维度
+     *
+     * @return 维度
+     */
+    int dimension();
+
+    /**
+     * 获取相似度度量
+     *
+     * @return 相似度度量
+     */
+    Metric metric();
+
+    /**
+     * 获取向量数量
+     *
+     * @return 向量数量
+     */
+    int size();
+
+    /**
+     * 写入向量
+     *
+     * @param id     向量编号，由调用者决定，索引不检查重复
+     * @param vector 向量
+     */
+    void add(long id, float[] vector);
+
+    /**
+     * 写入向量
+     *
+     * @param id        向量编号
+     * @param embedding 向量计算结果
+     */
+    default void add(long id, Embedding embedding) {
+        add(id, embedding.vector());
+    }
+
+    /**
+     * 写入向量计算应答中的全部向量，第{@code i}个向量的编号为{@code firstId + i}
+     *
+     * @param firstId  第一个向量的编号
+     * @param response 向量计算应答
+     */
+    default void addAll(long firstId, EmbeddingResponse response) {
+        final var matrix = response.matrix();
+        for (int row = 0; row < matrix.rows(); row++) {
+            add(firstId + row, matrix.copyRow(row));
+        }
+    }
+
+    /**
+     * 查询最相似的向量
+     *
+     * @param query 查询向量
+     * @param k     返回数量
+     * @return 近邻，按相似度从高到低排列
+     */
+    List<Neighbor> search(float[] query, int k);
+
+    /**
+     * 查询最相似的向量
+     *
+     * @param query 查询向量
+     * @param k     返回数量
+     * @return 近邻，按相似度从高到低排列
+     */
+    default List<Neighbor> search(Embedding query, int k) {
+        return search(query.vector(), k);
+    }
+
+    /**
+     * 保存索引；保存期间写入将被阻塞
+     *
+     * @param path 文件路径
+     * @throws IOException 保存失败
+     */
+    void save(Path path) throws IOException;
+
+    /**
+     * 加载索引
+     *
+     * @param path 文件路径
+     * @return 索引
+     * @throws IOException 加载失败或文件格式不正确
+     */
+    static HnswIndex load(Path path) throws IOException {
+        return HnswIndexImpl.load(path);
+    }
+
+    /**
+     * 创建索引构建器
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new HnswIndexBuilderImpl();
+    }
+
+    /**
+     * 索引构建器
+     */
+    interface Builder extends Buildable<HnswIndex, Builder> {
+
+        /**
+         * 设置维度，必填
+         *
+         * @param dimension 维度
+         * @return this
+         */
+        Builder dimension(int dimension);
+
+        /**
+         * 设置相似度度量，默认{@link Metric#COSINE}
+         *
+         * @param metric 相似度度量
+         * @return this
+         */
+        Builder metric(Metric metric);
+
+        /**
+         * 设置容量(最大向量数量)，默认10000
+         *
+         * @param capacity 容量
+         * @return this
+         */
+        Builder capacity(int capacity);
+
+        /**
+         * 设置每个节点在上层的最大连接数(M)，第0层为其2倍，默认16
+         *
+         * @param m 最大连接数
+         * @return this
+         */
+        Builder m(int m);
+
+        /**
+         * 设置构建时的候选集大小(efConstruction)，默认200
+         *
+         * @param efConstruction 构建时的候选集大小
+         * @return this
+         */
+        Builder efConstruction(int efConstruction);
+
+        /**
+         * 设置查询时的候选集大小(efSearch)，默认64；实际取值不小于查询的返回数量
+         *
+         * @param efSearch 查询时的候选集大小
+         * @return this
+         */
+        Builder efSearch(int efSearch);
+
+    }
+
+}
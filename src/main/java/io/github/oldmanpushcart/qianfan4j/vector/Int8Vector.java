@@ -0,0 +1,82 @@
+package io.github.oldmanpushcart.qianfan4j.vector;
+
+import io.github.oldmanpushcart.internal.qianfan4j.vector.Kernels;
+import io.github.oldmanpushcart.qianfan4j.embedding.Embedding;
+
+/**
+ * int8量化向量
+ * <p>对称的标量量化：{@code v ≈ code * scale}，其中{@code scale = max(|v|) / 127}；每个分量1字节，为float的1/4</p>
+ *
+ * @param codes 量化后的分量
+ * @param scale 缩放系数
+ */
+public record Int8Vector(byte[] codes, float scale) {
+
+    /**
+     * 量化
+     *
+     * @param vector 向量
+     * @return 量化向量
+     */
+    public static Int8Vector of(float[] vector) {
+        var max = 0f;
+        for (final var v : vector) {
+            max = Math.max(max, Math.abs(v));
+        }
+        final var scale = max / 127f;
+        final var codes = new byte[vector.length];
+        if (scale > 0) {
+            final var inverse = 1f / scale;
+            for (int i = 0; i < vector.length; i++) {
+                codes[i] = (byte) Math.round(vector[i] * inverse);
+            }
+        }
+        return new Int8Vector(codes, scale);
+    }
+
+    /**
+     * 量化
+     *
+     * @param embedding 向量计算结果
+     * @return 量化向量
+     */
+    public static Int8Vector of(Embedding embedding) {
+        return of(embedding.vector());
+    }
+
+    /**
+     * 获取维度
+     *
+     * @return 维度
+     */
+    public int dimension() {
+        return codes.length;
+    }
+
+    /**
+     * 还原为近似的浮点向量
+     *
+     * @return 浮点向量
+     */
+    public float[] decode() {
+        final var vector = new float[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            vector[i] = codes[i] * scale;
+        }
+        return vector;
+    }
+
+    /**
+     * 近似内积；整数内积乘以双方的缩放系数
+     *
+     * @param other 另一个量化向量
+     * @return 近似内积
+     */
+    public float dot(Int8Vector other) {
+        if (codes.length != other.codes.length) {
+            throw new IllegalArgumentException("dimension mismatch, a=%d, b=%d".formatted(codes.length, other.codes.length));
+        }
+        return Kernels.dot(codes, 0, other.codes, 0, codes.length) * scale * other.scale;
+    }
+
+}
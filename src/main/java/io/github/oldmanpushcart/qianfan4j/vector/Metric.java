@@ -0,0 +1,18 @@
+package io.github.oldmanpushcart.qianfan4j.vector;
+
+/**
+ * 相似度度量
+ */
+public enum Metric {
+
+    /**
+     * 余弦相似度；向量写入和查询时先归一化，取值范围 [-1, 1]
+     */
+    COSINE,
+
+    /**
+     * 内积；向量按原样参与计算
+     */
+    DOT_PRODUCT
+
+}
@@ -0,0 +1,11 @@
+package io.github.oldmanpushcart.qianfan4j.vector;
+
+/**
+ * 近邻
+ *
+ * @param id    向量编号
+ * @param score 相似度，越大越相似
+ */
+public record Neighbor(long id, float score) {
+
+}
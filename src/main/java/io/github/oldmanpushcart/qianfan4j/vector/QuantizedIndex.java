@@ -0,0 +1,182 @@
+package io.github.oldmanpushcart.qianfan4j.vector;
+
+import io.github.oldmanpushcart.internal.qianfan4j.vector.QuantizedIndexBuilderImpl;
+import io.github.oldmanpushcart.qianfan4j.embedding.Embedding;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse;
+import io.github.oldmanpushcart.qianfan4j.util.Buildable;
+
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * 量化向量索引
+ * <p>
+ * 向量以量化编码连续保存，查询时暴力扫描全部编码：int8编码使用整数内积，二值编码使用汉明距离。
+ * 量化会损失精度，查询时可以先按编码选出较多的候选，再由调用者提供原始向量做一次浮点重排。
+ * </p>
+ */
+public interface QuantizedIndex {
+
+    /**
+     * 获取维度
+     *
+     * @return 维度
+     */
+    int dimension();
+
+    /**
+     * 获取相似度度量
+     *
+     * @return 相似度度量
+     */
+    Metric metric();
+
+    /**
+     * 获取量化编码
+     *
+     * @return 量化编码
+     */
+    Encoding encoding();
+
+    /**
+     * 获取向量数量
+     *
+     * @return 向量数量
+     */
+    int size();
+
+    /**
+     * 写入向量，索引只保存量化编码
+     *
+     * @param id     向量编号，由调用者决定，索引不检查重复
+     * @param vector 向量
+     */
+    void add(long id, float[] vector);
+
+    /**
+     * 写入向量
+     *
+     * @param id        向量编号
+     * @param embedding 向量计算结果
+     */
+    default void add(long id, Embedding embedding) {
+        add(id, embedding.vector());
+    }
+
+    /**
+     * 写入向量计算应答中的全部向量，第{@code i}个向量的编号为{@code firstId + i}
+     *
+     * @param firstId  第一个向量的编号
+     * @param response 向量计算应答
+     */
+    default void addAll(long firstId, EmbeddingResponse response) {
+        final var matrix = response.matrix();
+        for (int row = 0; row < matrix.rows(); row++) {
+            add(firstId + row, matrix.copyRow(row));
+        }
+    }
+
+    /**
+     * 按量化编码查询最相似的向量
+     * <p>返回的相似度为近似值；二值编码时为符号一致的比例换算到[-1, 1]</p>
+     *
+     * @param query 查询向量
+     * @param k     返回数量
+     * @return 近邻，按相似度从高到低排列
+     */
+    List<Neighbor> search(float[] query, int k);
+
+    /**
+     * 查询最相似的向量，并以原始向量重排
+     * <p>先按量化编码选出{@code candidates}个候选，再以原始向量计算精确相似度，返回其中最高的{@code k}个</p>
+     *
+     * @param query      查询向量
+     * @param k          返回数量
+     * @param candidates 候选数量，实际取值不小于{@code k}
+     * @param originals  按编号获取原始向量，返回{@code null}的候选将被丢弃
+     * @return 近邻，按精确相似度从高到低排列
+     */
+    List<Neighbor> search(float[] query, int k, int candidates, LongFunction<float[]> originals);
+
+    /**
+     * 查询最相似的向量
+     *
+     * @param query 查询向量
+     * @param k     返回数量
+     * @return 近邻，按相似度从高到低排列
+     */
+    default List<Neighbor> search(Embedding query, int k) {
+        return search(query.vector(), k);
+    }
+
+    /**
+     * 创建索引构建器
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new QuantizedIndexBuilderImpl();
+    }
+
+    /**
+     * 量化编码
+     */
+    enum Encoding {
+
+        /**
+         * int8标量量化，每个分量1字节
+         */
+        INT8,
+
+        /**
+         * 二值量化，每个分量1比特
+         * <p>
+         * 只保留符号，相似度为符号一致的比例换算到[-1, 1]，近似的是归一化向量间的夹角，
+         * 因此只支持{@link Metric#COSINE}度量
+         * </p>
+         */
+        BINARY
+
+    }
+
+    /**
+     * 索引构建器
+     */
+    interface Builder extends Buildable<QuantizedIndex, Builder> {
+
+        /**
+         * 设置维度，必填
+         *
+         * @param dimension 维度
+         * @return this
+         */
+        Builder dimension(int dimension);
+
+        /**
+         * 设置相似度度量，默认{@link Metric#COSINE}
+         *
+         * @param metric 相似度度量
+         * @return this
+         */
+        Builder metric(Metric metric);
+
+        /**
+         * 设置量化编码，默认{@link Encoding#INT8}；{@link Encoding#BINARY}只能与{@link Metric#COSINE}搭配
+         *
+         * @param encoding 量化编码
+         * @return this
+         */
+        Builder encoding(Encoding encoding);
+
+        /**
+         * 设置初始容量，超出时自动扩容，默认1024
+         * <p>编码保存在单个数组中，容量上限约为{@code Integer.MAX_VALUE / 每行宽度}(int8为维度字节，二值为{@code ⌈维度/64⌉}个long)，达到上限后写入失败</p>
+         *
+         * @param capacity 初始容量
+         * @return this
+         */
+        Builder capacity(int capacity);
+
+    }
+
+}
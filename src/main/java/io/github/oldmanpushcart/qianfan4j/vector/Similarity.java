@@ -0,0 +1,127 @@
+package io.github.oldmanpushcart.qianfan4j.vector;
+
+import io.github.oldmanpushcart.internal.qianfan4j.embedding.EmbeddingMatrixImpl;
+import io.github.oldmanpushcart.internal.qianfan4j.vector.Kernels;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingMatrix;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 相似度计算
+ * <p>
+ * 启动参数包含{@code --add-modules jdk.incubator.vector}时使用SIMD实现，否则使用展开的标量循环，
+ * 可以通过{@link #isVectorized()}确认当前使用的实现。
+ * </p>
+ */
+public final class Similarity {
+
+    private Similarity() {
+
+    }
+
+    /**
+     * 是否使用SIMD实现
+     *
+     * @return TRUE | FALSE
+     */
+    public static boolean isVectorized() {
+        return Kernels.isVectorized();
+    }
+
+    private static void checkLength(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("dimension mismatch, a=%d, b=%d".formatted(a.length, b.length));
+        }
+    }
+
+    /**
+     * 内积
+     *
+     * @param a 向量a
+     * @param b 向量b
+     * @return 内积
+     */
+    public static float dot(float[] a, float[] b) {
+        checkLength(a, b);
+        return Kernels.dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * 余弦相似度
+     *
+     * @param a 向量a
+     * @param b 向量b
+     * @return 余弦相似度，任一向量为零向量时返回{@code 0}
+     */
+    public static float cosine(float[] a, float[] b) {
+        checkLength(a, b);
+        final var norm = (double) Kernels.dot(a, 0, a, 0, a.length) * Kernels.dot(b, 0, b, 0, b.length);
+        return norm > 0 ? (float) (Kernels.dot(a, 0, b, 0, a.length) / Math.sqrt(norm)) : 0f;
+    }
+
+    /**
+     * 欧氏距离
+     *
+     * @param a 向量a
+     * @param b 向量b
+     * @return 欧氏距离
+     */
+    public static float l2(float[] a, float[] b) {
+        checkLength(a, b);
+        return (float) Math.sqrt(Kernels.squareDistance(a, 0, b, 0, a.length));
+    }
+
+    /**
+     * 计算矩阵中与查询向量最相似的k行
+     *
+     * @param metric    相似度度量
+     * @param query     查询向量
+     * @param matrix    行优先的矩阵
+     * @param dimension 维度
+     * @param k         返回数量
+     * @return 近邻，编号为行号，按相似度从高到低排列
+     */
+    public static List<Neighbor> topK(Metric metric, float[] query, float[] matrix, int dimension, int k) {
+        return Kernels.topK(metric, query, matrix, dimension, k);
+    }
+
+    /**
+     * 计算向量矩阵中与查询向量最相似的k行
+     *
+     * @param metric 相似度度量
+     * @param query  查询向量
+     * @param matrix 向量矩阵
+     * @param k      返回数量
+     * @return 近邻，编号为行号，按相似度从高到低排列
+     */
+    public static List<Neighbor> topK(Metric metric, float[] query, EmbeddingMatrix matrix, int k) {
+        return topK(metric, query, data(matrix), matrix.dimension(), k);
+    }
+
+    /**
+     * 并行计算矩阵中与查询向量最相似的k行，适合大规模的候选集
+     *
+     * @param pool      线程池
+     * @param metric    相似度度量
+     * @param query     查询向量
+     * @param matrix    行优先的矩阵
+     * @param dimension 维度
+     * @param k         返回数量
+     * @return 近邻，编号为行号，按相似度从高到低排列
+     */
+    public static List<Neighbor> parallelTopK(ForkJoinPool pool, Metric metric, float[] query, float[] matrix, int dimension, int k) {
+        return Kernels.parallelTopK(pool, metric, query, matrix, dimension, k);
+    }
+
+    // 优先直接使用矩阵的底层数组
+    private static float[] data(EmbeddingMatrix matrix) {
+        if (matrix instanceof EmbeddingMatrixImpl impl) {
+            return impl.data();
+        }
+        final var data = new float[matrix.rows() * matrix.dimension()];
+        matrix.buffer().get(data);
+        return data;
+    }
+
+}
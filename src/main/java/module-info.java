@@ -11,6 +11,8 @@ open module qianfan4j {
     exports io.github.oldmanpushcart.qianfan4j;
     exports io.github.oldmanpushcart.qianfan4j.base.api;
     exports io.github.oldmanpushcart.qianfan4j.base.algo;
+    exports io.github.oldmanpushcart.qianfan4j.batch;
+    exports io.github.oldmanpushcart.qianfan4j.cache;
     exports io.github.oldmanpushcart.qianfan4j.chat.message;
     exports io.github.oldmanpushcart.qianfan4j.chat.function;
     exports io.github.oldmanpushcart.qianfan4j.chat;
@@ -19,5 +21,8 @@ open module qianfan4j {
     exports io.github.oldmanpushcart.qianfan4j.image.generation;
     exports io.github.oldmanpushcart.qianfan4j.embedding;
     exports io.github.oldmanpushcart.qianfan4j.pluginapp;
+    exports io.github.oldmanpushcart.qianfan4j.replay;
+    exports io.github.oldmanpushcart.qianfan4j.scheduler;
+    exports io.github.oldmanpushcart.qianfan4j.vector;
 
 }
\ No newline at end of file
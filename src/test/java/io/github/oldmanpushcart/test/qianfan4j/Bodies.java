@@ -0,0 +1,67 @@
+package io.github.oldmanpushcart.test.qianfan4j;
+
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * 读取请求实际发送的请求体
+ */
+public class Bodies {
+
+    /**
+     * 读取请求体，并校验声明的长度与实际一致
+     *
+     * @param request 请求
+     * @return 请求体
+     */
+    public static byte[] bytes(ApiRequest<?> request) {
+        final var publisher = request.newHttpRequest("token").bodyPublisher().orElseThrow();
+        final var output = new ByteArrayOutputStream();
+        final var completed = new CompletableFuture<Void>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                while (item.hasRemaining()) {
+                    output.write(item.get());
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.complete(null);
+            }
+
+        });
+        completed.join();
+        Assertions.assertEquals(publisher.contentLength(), output.size());
+        return output.toByteArray();
+    }
+
+    /**
+     * 以UTF-8读取请求体
+     *
+     * @param request 请求
+     * @return 请求体
+     */
+    public static String string(ApiRequest<?> request) {
+        return new String(bytes(request), StandardCharsets.UTF_8);
+    }
+
+}
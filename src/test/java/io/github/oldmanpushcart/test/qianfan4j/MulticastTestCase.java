@@ -0,0 +1,126 @@
+package io.github.oldmanpushcart.test.qianfan4j;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class MulticastTestCase {
+
+    /**
+     * 由测试控制应答的操作
+     */
+    private static class ManualOp implements QianFanClient.Op<Integer> {
+
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+        private Consumer<Integer> consumer;
+
+        @Override
+        public CompletableFuture<Integer> stream(Consumer<Integer> consumer) {
+            this.consumer = consumer;
+            return future;
+        }
+
+    }
+
+    /**
+     * 记录收到的应答；初始请求数量之外不再请求
+     */
+    private static class Recorder implements Flow.Subscriber<Integer> {
+
+        private final long initial;
+        private final List<Integer> items = new CopyOnWriteArrayList<>();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Recorder(long initial) {
+            this.initial = initial;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(initial);
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+
+    }
+
+    @Test
+    public void test$multicast$late_replay() throws Exception {
+        final var op = new ManualOp();
+        final var multicast = op.multicast(2, 16, ForkJoinPool.commonPool());
+
+        final var early = new Recorder(Long.MAX_VALUE);
+        multicast.subscribe(early);
+        for (int i = 0; i < 5; i++) {
+            op.consumer.accept(i);
+        }
+
+        // 加入时重放最近的2个应答，再接收之后的应答
+        final var late = new Recorder(Long.MAX_VALUE);
+        multicast.subscribe(late);
+        op.consumer.accept(5);
+        op.future.complete(15);
+
+        early.done.get(1, TimeUnit.SECONDS);
+        late.done.get(1, TimeUnit.SECONDS);
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4, 5), early.items);
+        Assertions.assertEquals(List.of(3, 4, 5), late.items);
+        Assertions.assertEquals(15, multicast.result().join());
+
+        // 结束后加入的订阅者收到重放的应答后结束
+        final var after = new Recorder(Long.MAX_VALUE);
+        multicast.subscribe(after);
+        after.done.get(1, TimeUnit.SECONDS);
+        Assertions.assertEquals(List.of(4, 5), after.items);
+    }
+
+    @Test
+    public void test$multicast$slow_subscriber() throws Exception {
+        final var op = new ManualOp();
+        final var multicast = op.multicast(0, 4, ForkJoinPool.commonPool());
+
+        final var fast = new Recorder(Long.MAX_VALUE);
+        final var slow = new Recorder(1);
+        multicast.subscribe(fast);
+        multicast.subscribe(slow);
+        Assertions.assertEquals(2, multicast.subscribers());
+
+        // 慢订阅者被移除，上游不受影响；等待快订阅者收到后再发出下一个应答
+        for (int i = 0; i < 10; i++) {
+            op.consumer.accept(i);
+            final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (fast.items.size() <= i && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+        }
+        Assertions.assertEquals(1, multicast.subscribers());
+        op.future.complete(45);
+
+        fast.done.get(1, TimeUnit.SECONDS);
+        Assertions.assertEquals(10, fast.items.size());
+        final var ex = Assertions.assertThrows(Exception.class, () -> slow.done.get(1, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+}
@@ -0,0 +1,92 @@
+package io.github.oldmanpushcart.test.qianfan4j;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 构造重放用的录制文件，离线测试以此代替服务端
+ */
+public class Recording {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<Map<String, Object>> exchanges = new ArrayList<>();
+
+    /**
+     * 录制一次JSON应答
+     *
+     * @param request 请求
+     * @param body    应答JSON
+     * @return this
+     */
+    public Recording json(ApiRequest<?> request, String body) {
+        return exchange(request, "application/json", List.of(body));
+    }
+
+    /**
+     * 录制一次流式应答，每个分片间隔100毫秒
+     *
+     * @param request 请求
+     * @param events  应答分片JSON
+     * @return this
+     */
+    public Recording stream(ApiRequest<?> request, List<String> events) {
+        return exchange(request, "text/event-stream", events.stream()
+                .map("data: %s\n\n"::formatted)
+                .toList());
+    }
+
+    private Recording exchange(ApiRequest<?> request, String contentType, List<String> bodies) {
+        final var httpRequest = request.newHttpRequest("token");
+        final var remote = httpRequest.uri();
+        final var chunks = new ArrayList<Map<String, Object>>();
+        for (int i = 0; i < bodies.size(); i++) {
+            chunks.add(Map.of("at", (i + 1) * 100_000L, "data", bodies.get(i).getBytes(StandardCharsets.UTF_8)));
+        }
+        exchanges.add(Map.of(
+                "method", httpRequest.method(),
+                "uri", "%s://%s%s".formatted(remote.getScheme(), remote.getRawAuthority(), remote.getRawPath()),
+                "body", digest(request),
+                "status", 200,
+                "headers", Map.of("content-type", List.of(contentType)),
+                "headers_at", 50_000L,
+                "chunks", chunks
+        ));
+        return this;
+    }
+
+    /**
+     * 写入录制文件
+     *
+     * @param path 文件路径
+     * @return 文件路径
+     * @throws Exception 写入失败
+     */
+    public Path write(Path path) throws Exception {
+        final var lines = new StringBuilder();
+        for (final var exchange : exchanges) {
+            lines.append(mapper.writeValueAsString(exchange)).append('\n');
+        }
+        Files.writeString(path, lines);
+        return path;
+    }
+
+    // 请求体的SHA-256摘要
+    private static String digest(ApiRequest<?> request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Bodies.bytes(request)));
+        } catch (Exception cause) {
+            throw new IllegalStateException(cause);
+        }
+    }
+
+}
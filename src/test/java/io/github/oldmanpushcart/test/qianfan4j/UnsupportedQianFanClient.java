@@ -0,0 +1,52 @@
+package io.github.oldmanpushcart.test.qianfan4j;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatResponse;
+import io.github.oldmanpushcart.qianfan4j.completion.CompletionRequest;
+import io.github.oldmanpushcart.qianfan4j.completion.CompletionResponse;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse;
+import io.github.oldmanpushcart.qianfan4j.image.caption.CaptionImageRequest;
+import io.github.oldmanpushcart.qianfan4j.image.caption.CaptionImageResponse;
+import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageRequest;
+import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageResponse;
+import io.github.oldmanpushcart.qianfan4j.pluginapp.PluginAppRequest;
+import io.github.oldmanpushcart.qianfan4j.pluginapp.PluginAppResponse;
+
+/**
+ * 离线测试用的客户端替身，全部操作都不支持；测试只覆盖需要的操作
+ */
+public abstract class UnsupportedQianFanClient implements QianFanClient {
+
+    @Override
+    public Op<ChatResponse> chat(ChatRequest request) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Op<CompletionResponse> completion(CompletionRequest request) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Op<CaptionImageResponse> captionImage(CaptionImageRequest request) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Op<GenerationImageResponse> generationImage(GenerationImageRequest request) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Op<EmbeddingResponse> embedding(EmbeddingRequest request) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Op<PluginAppResponse> pluginApp(PluginAppRequest request) {
+        throw new UnsupportedOperationException();
+    }
+
+}
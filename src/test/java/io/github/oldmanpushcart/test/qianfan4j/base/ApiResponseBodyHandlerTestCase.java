@@ -0,0 +1,121 @@
+package io.github.oldmanpushcart.test.qianfan4j.base;
+
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatResponse;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 应答处理器的流模式：直接向订阅器推送SSE分片，不访问服务端
+ */
+public class ApiResponseBodyHandlerTestCase {
+
+    private static final String HANDLER = "io.github.oldmanpushcart.internal.qianfan4j.base.api.ApiResponseBodyHandler";
+
+    // 应答处理器在内部包中，通过反射创建(模块是open的)
+    @SuppressWarnings("unchecked")
+    private static HttpResponse.BodySubscriber<ChatResponse> subscriber(Consumer<ChatResponse> consumer) throws Exception {
+        final var request = ChatRequest.newBuilder()
+                .model(ChatModel.ERNIE_V4)
+                .messages(Message.ofUser("你好"))
+                .build();
+        final BinaryOperator<ChatResponse> accumulator = (left, right) -> right;
+        final var handler = (HttpResponse.BodyHandler<ChatResponse>) Class.forName(HANDLER)
+                .getConstructor(Function.class, BinaryOperator.class, Consumer.class)
+                .newInstance(request.responseDeserializer(), accumulator, consumer);
+        return handler.apply(new HttpResponse.ResponseInfo() {
+
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return HttpHeaders.of(Map.of("content-type", List.of("text/event-stream")), (name, value) -> true);
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+
+        });
+    }
+
+    private static List<ByteBuffer> event(String result, boolean isEnd) {
+        final var data = "data: {\"id\":\"as-stream\",\"result\":\"%s\",\"is_end\":%s,\"usage\":{\"total_tokens\":1}}\n\n"
+                .formatted(result, isEnd);
+        return List.of(ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void test$handler$stream$consume() throws Exception {
+        final var results = new ArrayList<String>();
+        final var subscription = new RecordingSubscription();
+        final var subscriber = subscriber(response -> results.add(response.content()));
+        subscriber.onSubscribe(subscription);
+        subscriber.onNext(event("你", false));
+        Assertions.assertEquals(List.of("你"), results);
+        subscriber.onNext(event("好", false));
+        subscriber.onNext(event("！", true));
+        subscriber.onComplete();
+        Assertions.assertEquals(List.of("你", "好", "！"), results);
+        Assertions.assertEquals("！", subscriber.getBody().toCompletableFuture().join().content());
+        Assertions.assertEquals(4, subscription.requested);
+        Assertions.assertFalse(subscription.cancelled);
+    }
+
+    @Test
+    public void test$handler$stream$consumer_failure() throws Exception {
+
+        // 消费器抛出异常：取消订阅，应答以该异常失败
+        final var subscription = new RecordingSubscription();
+        final var subscriber = subscriber(response -> {
+            throw new IllegalStateException("consumer failed!");
+        });
+        subscriber.onSubscribe(subscription);
+        subscriber.onNext(event("你", false));
+        Assertions.assertTrue(subscription.cancelled);
+        Assertions.assertEquals(1, subscription.requested);
+        final var ex = Assertions.assertThrows(CompletionException.class, () -> subscriber.getBody().toCompletableFuture().join());
+        Assertions.assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+    /**
+     * 记录请求数量和取消的订阅
+     */
+    private static class RecordingSubscription implements Flow.Subscription {
+
+        private long requested;
+        private boolean cancelled;
+
+        @Override
+        public void request(long n) {
+            requested += n;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+    }
+
+}
@@ -0,0 +1,203 @@
+package io.github.oldmanpushcart.test.qianfan4j.base;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.base.algo.TokenEstimator;
+import io.github.oldmanpushcart.qianfan4j.base.algo.Usage;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.FunctionCall;
+import io.github.oldmanpushcart.qianfan4j.chat.HistoryPolicy;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingModel;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
+import io.github.oldmanpushcart.qianfan4j.replay.Replayer;
+import io.github.oldmanpushcart.test.qianfan4j.Recording;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+public class TokenEstimatorTestCase {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void test$token$estimate$text() {
+        final var estimator = TokenEstimator.of(new ChatModel("estimate-text", "http://localhost"));
+        Assertions.assertEquals("estimate", estimator.family());
+        Assertions.assertEquals(0, estimator.estimate(""));
+        Assertions.assertEquals(4, estimator.estimate("你好世界"));
+        Assertions.assertEquals(3, estimator.estimate("hello world"));
+        // 长单词按每4个字符计
+        Assertions.assertEquals(5, estimator.estimate("internationalization"));
+        // 中英混排与标点：4个汉字 + 1个单词 + 1个全角标点 + 1个半角标点
+        Assertions.assertEquals(8, estimator.estimate("今天天气Java，!"));
+        // 扩展区汉字(代理对)按1个字符计
+        Assertions.assertEquals(2, estimator.estimate("𠀀𠀁"));
+    }
+
+    @Test
+    public void test$token$estimate$request() {
+        final var estimator = TokenEstimator.of(new ChatModel("estimate-request", "http://localhost"));
+        final var messages = List.of(
+                Message.ofUser("你好"),
+                Message.ofFunctionCall(new FunctionCall("echo", "{}")),
+                Message.ofFunction("echo", "好")
+        );
+        // 3条消息的格式开销12 + 你好2 + echo(1.3){}(2) + 好1 = 18.3
+        Assertions.assertEquals(19, estimator.estimate(messages));
+
+        final var request = EmbeddingRequest.newBuilder()
+                .model(EmbeddingModel.BGE_LARGE_ZH)
+                .texts("你好", "世界")
+                .build();
+        Assertions.assertEquals(4, estimator.estimate(request));
+    }
+
+    @Test
+    public void test$token$calibrate() {
+        final var model = new ChatModel("calibrate-v1", "http://localhost");
+        final var estimator = TokenEstimator.of(model);
+        Assertions.assertEquals(1.0, estimator.ratio());
+
+        // 实际用量是估算值的1.5倍，多次校准后收敛
+        final var request = ChatRequest.newBuilder()
+                .model(model)
+                .messages(Message.ofUser("今天天气怎么样"))
+                .build();
+        final var raw = estimator.estimate(request);
+        final var usage = new Usage(List.of(
+                new Usage.Item("prompt_tokens", (int) (raw * 1.5)),
+                new Usage.Item("total_tokens", raw * 10)
+        ));
+        for (int i = 0; i < 100; i++) {
+            estimator.calibrate(request, usage);
+        }
+        Assertions.assertEquals(1.5, estimator.ratio(), 0.05);
+        Assertions.assertEquals((int) (raw * 1.5), estimator.estimate(request), 1);
+
+        // 没有输入用量时不校准
+        estimator.calibrate(request, Usage.ofEmpty());
+        Assertions.assertEquals(1.5, estimator.ratio(), 0.05);
+
+        // 估算器不共享，校准只影响当前实例
+        Assertions.assertEquals(1.0, TokenEstimator.of(new ChatModel("calibrate-v2", "http://localhost")).ratio());
+    }
+
+    @Test
+    public void test$token$calibrate$client() throws Exception {
+        final var model = new ChatModel("client-v1", "http://localhost/chat");
+        final var raw = TokenEstimator.of(model).estimate(request(model));
+        final var replayer = Replayer.newBuilder()
+                .path(new Recording()
+                        .json(request(model), """
+                                {"id":"as-calibrate","is_end":true,"result":"晴","usage":{"prompt_tokens":%d,"total_tokens":%d}}"""
+                                .formatted(raw * 3, raw * 3 + 1))
+                        .write(dir.resolve("recording.jsonl")))
+                .speed(Double.POSITIVE_INFINITY)
+                .build();
+        final var calibrated = client(replayer, true);
+        final var uncalibrated = client(replayer, false);
+
+        // 开启校准的客户端内同一模型族共享估算器
+        final var estimator = calibrated.tokenEstimator(model);
+        Assertions.assertSame(estimator, calibrated.tokenEstimator(new ChatModel("client-v2", "http://localhost/chat")));
+        Assertions.assertNotSame(estimator, uncalibrated.tokenEstimator(model));
+
+        // 实际用量是估算值的3倍：1.0 + 0.1 * (3 - 1)
+        calibrated.chat(request(model)).async().join();
+        Assertions.assertEquals(1.2, estimator.ratio(), 1e-6);
+
+        // 未开启校准的客户端与其他客户端互不影响
+        uncalibrated.chat(request(model)).async().join();
+        Assertions.assertEquals(1.0, uncalibrated.tokenEstimator(model).ratio());
+        Assertions.assertEquals(1.2, estimator.ratio(), 1e-6);
+    }
+
+    @Test
+    public void test$token$estimate$window() {
+
+        // 三轮对话：滑动窗口的估算按选出的范围计算，与选出的消息列表一致
+        final var model = new ChatModel("window-v1", "http://localhost/chat");
+        final var estimator = TokenEstimator.of(model);
+        final var messages = List.of(
+                Message.ofUser("你好"), Message.ofAi("你好！"),
+                Message.ofUser("今天天气怎么样"), Message.ofAi("晴"),
+                Message.ofUser("明天呢")
+        );
+        for (final var policy : List.of(HistoryPolicy.ALL, HistoryPolicy.window(12), HistoryPolicy.window(20, 1), HistoryPolicy.window(1000))) {
+            final var request = ChatRequest.newBuilder()
+                    .model(model)
+                    .historyPolicy(policy)
+                    .messages(messages.toArray(Message[]::new))
+                    .build();
+            Assertions.assertEquals(estimator.estimate(policy.apply(estimator, messages)), estimator.estimate(request), policy.toString());
+        }
+    }
+
+    @Test
+    public void test$token$calibrate$history() throws Exception {
+
+        // 两轮对话未校准时估算为23，在预算30以内全部发送；校准系数接近3时超出预算，只发送最后一轮
+        final var model = new ChatModel("history-v1", "http://localhost/chat");
+        final var trimmed = ChatRequest.newBuilder()
+                .model(model)
+                .messages(Message.ofUser("明天呢"))
+                .build();
+        final var replayer = Replayer.newBuilder()
+                .path(new Recording()
+                        .json(trimmed, """
+                                {"id":"as-trimmed","is_end":true,"result":"trimmed","usage":{"total_tokens":1}}""")
+                        .json(history(model), """
+                                {"id":"as-full","is_end":true,"result":"full","usage":{"total_tokens":1}}""")
+                        .write(dir.resolve("recording.jsonl")))
+                .speed(Double.POSITIVE_INFINITY)
+                .build();
+        final var calibrated = client(replayer, true);
+        final var estimator = calibrated.tokenEstimator(model);
+        final var raw = estimator.estimate(request(model));
+        final var usage = new Usage(List.of(new Usage.Item("prompt_tokens", raw * 3)));
+        for (int i = 0; i < 100; i++) {
+            estimator.calibrate(request(model), usage);
+        }
+        Assertions.assertEquals(3.0, estimator.ratio(), 0.05);
+
+        // 请求体按客户端校准后的估算器裁剪
+        Assertions.assertEquals("trimmed", calibrated.chat(history(model)).async().join().content());
+        Assertions.assertEquals("full", client(replayer, false).chat(history(model)).async().join().content());
+    }
+
+    private static ChatRequest history(ChatModel model) {
+        return ChatRequest.newBuilder()
+                .model(model)
+                .historyPolicy(HistoryPolicy.window(30))
+                .messages(
+                        Message.ofUser("今天天气怎么样"),
+                        Message.ofAi("晴"),
+                        Message.ofUser("明天呢")
+                )
+                .build();
+    }
+
+    private static ChatRequest request(ChatModel model) {
+        return ChatRequest.newBuilder()
+                .model(model)
+                .messages(Message.ofUser("今天天气怎么样"))
+                .build();
+    }
+
+    private static QianFanClient client(Replayer replayer, boolean calibration) {
+        return QianFanClient.newBuilder()
+                .ak("replay")
+                .sk("replay")
+                .executor(Executors.newCachedThreadPool())
+                .replayer(replayer)
+                .tokenCalibration(calibration)
+                .build();
+    }
+
+}
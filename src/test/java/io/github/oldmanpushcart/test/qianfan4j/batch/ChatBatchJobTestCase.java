@@ -0,0 +1,180 @@
+package io.github.oldmanpushcart.test.qianfan4j.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiException;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.qianfan4j.batch.ChatBatchJob;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatResponse;
+import io.github.oldmanpushcart.qianfan4j.completion.CompletionModel;
+import io.github.oldmanpushcart.qianfan4j.completion.CompletionRequest;
+import io.github.oldmanpushcart.qianfan4j.completion.CompletionResponse;
+import io.github.oldmanpushcart.test.qianfan4j.UnsupportedQianFanClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+public class ChatBatchJobTestCase {
+
+    private static final int TOTAL = 60;
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    // 偶数行为对话，奇数行为续写，第7行缺少请求内容
+    private static List<String> lines() {
+        return IntStream.range(0, TOTAL)
+                .mapToObj(i -> i == 7
+                        ? "{\"id\":\"q7\"}"
+                        : i % 2 == 0
+                        ? "{\"id\":\"q%d\",\"messages\":[{\"role\":\"user\",\"content\":\"%d\"}],\"options\":{\"temperature\":0.1}}".formatted(i, i)
+                        : "{\"id\":\"q%d\",\"prompt\":\"%d\"}".formatted(i, i))
+                .toList();
+    }
+
+    private ChatBatchJob newJob(QianFanClient client, ChatBatchJob.Order order, int maxRetries) {
+        return ChatBatchJob.newBuilder()
+                .client(client)
+                .model(ChatModel.ERNIE_V4)
+                .model(CompletionModel.SQL_CODER_7B)
+                .input(lines().stream())
+                .output(dir.resolve("results.jsonl"))
+                .order(order)
+                .executor(ForkJoinPool.commonPool())
+                .parallelism(4)
+                .maxRetries(maxRetries)
+                .backoff(Duration.ofMillis(1))
+                .build();
+    }
+
+    private List<JsonNode> readOutput() throws IOException {
+        final var nodes = new ArrayList<JsonNode>();
+        for (final var line : Files.readAllLines(dir.resolve("results.jsonl"))) {
+            nodes.add(mapper.readTree(line));
+        }
+        return nodes;
+    }
+
+    // 每个请求恰好输出一次，内容为输入的值
+    private static void assertOutput(List<JsonNode> nodes) {
+        Assertions.assertEquals(TOTAL, nodes.size());
+        final var seen = new boolean[TOTAL];
+        for (final var node : nodes) {
+            final var index = node.get("index").asInt();
+            Assertions.assertFalse(seen[index]);
+            seen[index] = true;
+            Assertions.assertEquals("q" + index, node.get("id").asText());
+            if (index == 7) {
+                Assertions.assertEquals("invalid_request", node.at("/error/code").asText());
+            } else if (index == 11) {
+                Assertions.assertEquals("336003", node.at("/error/code").asText());
+            } else {
+                Assertions.assertEquals((index % 2 == 0 ? "chat:" : "completion:") + index, node.get("content").asText());
+                Assertions.assertEquals(1, node.at("/usage/total_tokens").asInt());
+            }
+        }
+    }
+
+    @Test
+    public void test$chat_batch$input_order() throws IOException {
+        final var calls = new AtomicInteger();
+        final var client = new FakeClient(content -> calls.incrementAndGet() % 5 == 0);
+        final var report = newJob(client, ChatBatchJob.Order.INPUT, 3).run().join();
+        Assertions.assertEquals(TOTAL, report.processed());
+        Assertions.assertTrue(report.retries() > 0);
+        Assertions.assertEquals(TOTAL - 2, report.tokens());
+
+        final var nodes = readOutput();
+        assertOutput(nodes);
+        for (int i = 0; i < TOTAL; i++) {
+            Assertions.assertEquals(i, nodes.get(i).get("index").asInt());
+        }
+    }
+
+    @Test
+    public void test$chat_batch$completion_order_resume() throws IOException {
+
+        // 第一次执行在第40个请求时以暂时性错误失败，且不重试
+        final var failing = new FakeClient(content -> content.equals("40"));
+        Assertions.assertThrows(CompletionException.class, () -> newJob(failing, ChatBatchJob.Order.COMPLETION, 0).run().join());
+        Assertions.assertTrue(Files.exists(dir.resolve("results.jsonl.checkpoint")));
+
+        // 第二次执行从检查点继续
+        final var report = newJob(new FakeClient(content -> false), ChatBatchJob.Order.COMPLETION, 0).run().join();
+        Assertions.assertTrue(report.skipped() > 0);
+        Assertions.assertEquals(TOTAL, report.skipped() + report.processed());
+        assertOutput(readOutput());
+
+    }
+
+    /**
+     * 只支持对话和续写的客户端，应答内容为请求的内容；内容为{@code 11}的请求被拒绝，应答随机延迟以打乱完成顺序
+     */
+    private static class FakeClient extends UnsupportedQianFanClient {
+
+        private final Predicate<String> isTransientFailure;
+
+        private FakeClient(Predicate<String> isTransientFailure) {
+            this.isTransientFailure = isTransientFailure;
+        }
+
+        private <R extends ApiResponse> CompletableFuture<R> respond(String content, ResponseFactory<R> factory) {
+            final var delayed = CompletableFuture.delayedExecutor(ThreadLocalRandom.current().nextInt(5), TimeUnit.MILLISECONDS);
+            return CompletableFuture.supplyAsync(() -> {
+                if (isTransientFailure.test(content)) {
+                    throw new ApiException(factory.apply("{\"error_code\":18,\"error_msg\":\"qps limit\"}"));
+                }
+                if (content.equals("11")) {
+                    throw new ApiException(factory.apply("{\"error_code\":336003,\"error_msg\":\"invalid\"}"));
+                }
+                return factory.apply(null);
+            }, delayed);
+        }
+
+        @Override
+        public Op<ChatResponse> chat(ChatRequest request) {
+            final var content = request.messages().get(0).content();
+            return consumer -> respond(content, error -> request.responseDeserializer().apply(null != error ? error : """
+                    {"id":"fake","result":"chat:%s","is_end":true,"usage":{"total_tokens":1}}
+                    """.formatted(content)));
+        }
+
+        @Override
+        public Op<CompletionResponse> completion(CompletionRequest request) {
+            final var content = request.prompt();
+            return consumer -> respond(content, error -> request.responseDeserializer().apply(null != error ? error : """
+                    {"id":"fake","result":"completion:%s","is_end":true,"usage":{"total_tokens":1}}
+                    """.formatted(content)));
+        }
+
+    }
+
+    /**
+     * 以应答JSON构造应答
+     */
+    private interface ResponseFactory<R> {
+
+        R apply(String error);
+
+    }
+
+}
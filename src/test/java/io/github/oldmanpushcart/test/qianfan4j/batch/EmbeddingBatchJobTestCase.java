@@ -0,0 +1,162 @@
+package io.github.oldmanpushcart.test.qianfan4j.batch;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.base.algo.Usage;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiException;
+import io.github.oldmanpushcart.qianfan4j.base.api.Ret;
+import io.github.oldmanpushcart.qianfan4j.batch.EmbeddingBatchJob;
+import io.github.oldmanpushcart.qianfan4j.embedding.Embedding;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingModel;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse;
+import io.github.oldmanpushcart.test.qianfan4j.UnsupportedQianFanClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+public class EmbeddingBatchJobTestCase {
+
+    private static final int TOTAL = 100;
+
+    @TempDir
+    Path dir;
+
+    private static List<String> texts() {
+        return IntStream.range(0, TOTAL).mapToObj(String::valueOf).toList();
+    }
+
+    private EmbeddingBatchJob newJob(QianFanClient client) {
+        return EmbeddingBatchJob.newBuilder()
+                .client(client)
+                .model(EmbeddingModel.EMBEDDING_V1)
+                .input(texts().stream())
+                .output(dir.resolve("vectors.bin"))
+                .executor(ForkJoinPool.commonPool())
+                .parallelism(3)
+                .backoff(Duration.ofMillis(1))
+                .build();
+    }
+
+    // 读取输出文件，每个向量的第一个分量即为文本的值
+    private List<Float> readOutput() throws IOException {
+        final var values = new ArrayList<Float>();
+        try (final var input = new DataInputStream(Files.newInputStream(dir.resolve("vectors.bin")))) {
+            while (input.available() > 0) {
+                final var dimension = input.readInt();
+                final var vector = new float[dimension];
+                for (int i = 0; i < dimension; i++) {
+                    vector[i] = input.readFloat();
+                }
+                values.add(vector[0]);
+            }
+        }
+        return values;
+    }
+
+    private static void assertOutput(List<Float> values) {
+        Assertions.assertEquals(TOTAL, values.size());
+        for (int i = 0; i < TOTAL; i++) {
+            Assertions.assertEquals(i, values.get(i));
+        }
+    }
+
+    @Test
+    public void test$embedding_batch$retry() throws IOException {
+        final var calls = new AtomicInteger();
+        final var client = new FakeClient(request -> calls.incrementAndGet() % 5 == 0, "18");
+        final var report = newJob(client).run().join();
+        Assertions.assertEquals(TOTAL, report.processed());
+        Assertions.assertEquals(0, report.skipped());
+        Assertions.assertTrue(report.retries() > 0);
+        assertOutput(readOutput());
+    }
+
+    @Test
+    public void test$embedding_batch$resume() throws IOException {
+
+        // 第一次执行在第4批时以非暂时性错误失败
+        final var failing = new FakeClient(request -> request.texts().contains("48"), "17");
+        Assertions.assertThrows(CompletionException.class, () -> newJob(failing).run().join());
+        Assertions.assertTrue(Files.exists(dir.resolve("vectors.bin.checkpoint")));
+
+        // 第二次执行从检查点继续
+        final var report = newJob(new FakeClient(request -> false, null)).run().join();
+        Assertions.assertTrue(report.skipped() > 0);
+        Assertions.assertEquals(TOTAL, report.skipped() + report.processed());
+        assertOutput(readOutput());
+
+    }
+
+    /**
+     * 只支持向量计算的客户端，向量为{@code [文本的值, 1.0]}
+     */
+    private static class FakeClient extends UnsupportedQianFanClient {
+
+        private final Predicate<EmbeddingRequest> isFailure;
+        private final String code;
+
+        private FakeClient(Predicate<EmbeddingRequest> isFailure, String code) {
+            this.isFailure = isFailure;
+            this.code = code;
+        }
+
+        @Override
+        public Op<EmbeddingResponse> embedding(EmbeddingRequest request) {
+            return consumer -> {
+                if (isFailure.test(request)) {
+                    final var ret = Ret.of(code, "fake failure");
+                    return CompletableFuture.failedFuture(new ApiException(response(ret, List.of())));
+                }
+                final var embeddings = new ArrayList<Embedding>();
+                for (int i = 0; i < request.texts().size(); i++) {
+                    embeddings.add(new Embedding(i, new float[]{Float.parseFloat(request.texts().get(i)), 1.0f}));
+                }
+                final var response = response(Ret.of(null, null), embeddings);
+                consumer.accept(response);
+                return CompletableFuture.completedFuture(response);
+            };
+        }
+
+        private static EmbeddingResponse response(Ret ret, List<Embedding> embeddings) {
+            return new EmbeddingResponse() {
+
+                @Override
+                public List<Embedding> embeddings() {
+                    return embeddings;
+                }
+
+                @Override
+                public Usage usage() {
+                    return Usage.ofEmpty();
+                }
+
+                @Override
+                public String uuid() {
+                    return "fake";
+                }
+
+                @Override
+                public Ret ret() {
+                    return ret;
+                }
+
+            };
+        }
+
+    }
+
+}
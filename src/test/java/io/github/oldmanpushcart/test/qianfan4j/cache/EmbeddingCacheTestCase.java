@@ -0,0 +1,191 @@
+package io.github.oldmanpushcart.test.qianfan4j.cache;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.cache.EmbeddingCache;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingModel;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse;
+import io.github.oldmanpushcart.qianfan4j.replay.Replayer;
+import io.github.oldmanpushcart.test.qianfan4j.Recording;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * 向量缓存：以重放代替服务端，重放的交换数量即发出的HTTP请求数量；文本a、b、c的向量分别为[1,0]、[0,1]、[1,1]
+ */
+public class EmbeddingCacheTestCase {
+
+    private static final Map<String, String> vectors = Map.of(
+            "a", "[1.0,0.0]",
+            "b", "[0.0,1.0]",
+            "c", "[1.0,1.0]"
+    );
+
+    @TempDir
+    Path dir;
+
+    private Path recording;
+    private Replayer replayer;
+
+    private static EmbeddingRequest request(String... texts) {
+        return EmbeddingRequest.newBuilder()
+                .model(EmbeddingModel.EMBEDDING_V1)
+                .texts(texts)
+                .build();
+    }
+
+    private static String body(String... texts) {
+        final var data = new StringBuilder();
+        for (int index = 0; index < texts.length; index++) {
+            data.append(index == 0 ? "" : ",")
+                    .append("{\"object\":\"embedding\",\"embedding\":%s,\"index\":%d}".formatted(vectors.get(texts[index]), index));
+        }
+        return """
+                {"id":"as-embedding","object":"embedding_list","data":[%s],"usage":{"prompt_tokens":%d,"total_tokens":%d}}"""
+                .formatted(data, texts.length, texts.length);
+    }
+
+    // 只录制缓存未命中时发出的请求
+    @BeforeEach
+    public void setup() throws Exception {
+        final var recording = new Recording();
+        for (final var texts : new String[][]{{"a", "b"}, {"a"}, {"b"}, {"c"}}) {
+            recording.json(request(texts), body(texts));
+        }
+        this.recording = recording.write(dir.resolve("recording.jsonl"));
+    }
+
+    private QianFanClient client(EmbeddingCache cache) {
+        replayer = Replayer.newBuilder()
+                .path(recording)
+                .speed(Double.POSITIVE_INFINITY)
+                .build();
+        return QianFanClient.newBuilder()
+                .ak("replay")
+                .sk("replay")
+                .executor(Executors.newCachedThreadPool())
+                .replayer(replayer)
+                .embeddingCache(cache)
+                .build();
+    }
+
+    private static EmbeddingResponse embedding(QianFanClient client, String... texts) {
+        return client.embedding(request(texts)).async().join();
+    }
+
+    private static void assertVectors(EmbeddingResponse response, String... texts) {
+        Assertions.assertEquals(texts.length, response.embeddings().size());
+        for (int index = 0; index < texts.length; index++) {
+            final var expected = "a".equals(texts[index]) ? new float[]{1, 0}
+                    : "b".equals(texts[index]) ? new float[]{0, 1}
+                    : new float[]{1, 1};
+            Assertions.assertArrayEquals(expected, response.embeddings().get(index).vector());
+            Assertions.assertArrayEquals(expected, response.matrix().copyRow(index));
+        }
+    }
+
+    @Test
+    public void test$embedding_cache$memory() throws Exception {
+        try (final var cache = EmbeddingCache.newBuilder().build()) {
+            final var client = client(cache);
+            assertVectors(embedding(client, "a", "b"), "a", "b");
+
+            // 只计算未命中的c，结果按原始顺序合并
+            final var response = embedding(client, "b", "c", "a");
+            assertVectors(response, "b", "c", "a");
+            Assertions.assertEquals(2, replayer.replayed());
+            Assertions.assertEquals(2, cache.stats().hits());
+            Assertions.assertEquals(3, cache.stats().misses());
+            Assertions.assertEquals(3, cache.stats().size());
+
+            // 全部命中时不发出请求
+            assertVectors(embedding(client, "c", "a"), "c", "a");
+            Assertions.assertEquals(2, replayer.replayed());
+        }
+    }
+
+    @Test
+    public void test$embedding_cache$repeat() throws Exception {
+
+        // 重复的文本只计算一次，但按文本计数
+        try (final var cache = EmbeddingCache.newBuilder().build()) {
+            final var client = client(cache);
+            assertVectors(embedding(client, "a", "a"), "a", "a");
+            Assertions.assertEquals(1, replayer.replayed());
+            Assertions.assertEquals(0, cache.stats().hits());
+            Assertions.assertEquals(2, cache.stats().misses());
+            assertVectors(embedding(client, "a", "a"), "a", "a");
+            Assertions.assertEquals(2, cache.stats().hits());
+            Assertions.assertEquals(2, cache.stats().misses());
+        }
+    }
+
+    @Test
+    public void test$embedding_cache$isolation() throws Exception {
+
+        // 调用方就地修改向量不影响缓存
+        try (final var cache = EmbeddingCache.newBuilder().build()) {
+            final var client = client(cache);
+            embedding(client, "a", "b").embeddings().forEach(embedding -> embedding.vector()[0] = 42);
+            final var hit = embedding(client, "a", "b");
+            assertVectors(hit, "a", "b");
+            hit.embeddings().forEach(embedding -> embedding.vector()[0] = 42);
+            assertVectors(embedding(client, "a", "b"), "a", "b");
+            Assertions.assertEquals(1, replayer.replayed());
+        }
+    }
+
+    @Test
+    public void test$embedding_cache$reload() throws Exception {
+        final var path = dir.resolve("embedding.cache");
+        try (final var cache = EmbeddingCache.newBuilder().path(path).build()) {
+            assertVectors(embedding(client(cache), "a", "b"), "a", "b");
+        }
+
+        // 重启后从持久化文件读取，内存为空也不发出请求
+        try (final var cache = EmbeddingCache.newBuilder().path(path).capacity(1).build()) {
+            final var client = client(cache);
+            Assertions.assertEquals(2, cache.stats().size());
+            assertVectors(embedding(client, "b", "a"), "b", "a");
+            assertVectors(embedding(client, "a", "b"), "a", "b");
+            Assertions.assertEquals(0, replayer.replayed());
+            Assertions.assertEquals(4, cache.stats().hits());
+        }
+    }
+
+    @Test
+    public void test$embedding_cache$file_full() throws Exception {
+
+        // 文件头16字节，每条2维的记录44字节：只能持久化一个向量，其余只缓存在内存中
+        final var path = dir.resolve("embedding.cache");
+        try (final var cache = EmbeddingCache.newBuilder().path(path).fileBytes(16 + 44).build()) {
+            final var client = client(cache);
+            assertVectors(embedding(client, "a", "b"), "a", "b");
+            Assertions.assertEquals(1, cache.stats().size());
+            assertVectors(embedding(client, "a", "b"), "a", "b");
+            Assertions.assertEquals(1, replayer.replayed());
+        }
+
+        // 重启后只有持久化的a命中
+        try (final var cache = EmbeddingCache.newBuilder().path(path).fileBytes(16 + 44).build()) {
+            final var client = client(cache);
+            assertVectors(embedding(client, "a", "b"), "a", "b");
+            Assertions.assertEquals(1, replayer.replayed());
+            Assertions.assertEquals(1, cache.stats().hits());
+            Assertions.assertEquals(1, cache.stats().misses());
+        }
+    }
+
+    @Test
+    public void test$embedding_cache$illegal() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EmbeddingCache.newBuilder().fileBytes(15));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EmbeddingCache.newBuilder().fileBytes(1L << 31));
+    }
+
+}
@@ -0,0 +1,160 @@
+package io.github.oldmanpushcart.test.qianfan4j.cache;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiOptions;
+import io.github.oldmanpushcart.qianfan4j.cache.ResponseCache;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatOptions;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+import io.github.oldmanpushcart.qianfan4j.replay.Replayer;
+import io.github.oldmanpushcart.test.qianfan4j.Recording;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * 应答缓存：以重放代替服务端，重放的交换数量即发出的HTTP请求数量
+ */
+public class ResponseCacheTestCase {
+
+    @TempDir
+    Path dir;
+
+    private Replayer replayer;
+
+    // 对话会把应答追加到请求的消息中，每次对话都需要新的请求
+    private static ChatRequest request(String question, boolean isStream, Float temperature) {
+        final var builder = ChatRequest.newBuilder()
+                .model(ChatModel.ERNIE_V4)
+                .option(ApiOptions.IS_STREAM, isStream)
+                .messages(Message.ofUser(question));
+        if (null != temperature) {
+            builder.option(ChatOptions.TEMPERATURE, temperature);
+        }
+        return builder.build();
+    }
+
+    private static ChatRequest request(String question, boolean isStream) {
+        return request(question, isStream, 0.01f);
+    }
+
+    private QianFanClient client(ResponseCache cache) throws Exception {
+        final var recording = new Recording()
+                .json(request("你好", false), """
+                        {"id":"as-block","is_end":true,"result":"你好！","usage":{"total_tokens":3}}""")
+                .json(request("再见", false), """
+                        {"id":"as-block","is_end":true,"result":"再见！","usage":{"total_tokens":3}}""")
+                .json(request("你好", false, null), """
+                        {"id":"as-block","is_end":true,"result":"你好呀！","usage":{"total_tokens":4}}""")
+                .stream(request("你好", true), List.of(
+                        """
+                                {"id":"as-stream","is_end":false,"result":"你","usage":{"total_tokens":1}}""",
+                        """
+                                {"id":"as-stream","is_end":false,"result":"好","usage":{"total_tokens":2}}""",
+                        """
+                                {"id":"as-stream","is_end":true,"result":"！","usage":{"total_tokens":3}}"""
+                ));
+        replayer = Replayer.newBuilder()
+                .path(recording.write(dir.resolve("recording.jsonl")))
+                .speed(Double.POSITIVE_INFINITY)
+                .build();
+        return QianFanClient.newBuilder()
+                .ak("replay")
+                .sk("replay")
+                .executor(Executors.newCachedThreadPool())
+                .replayer(replayer)
+                .responseCache(cache)
+                .build();
+    }
+
+    private static String chat(QianFanClient client, ChatRequest request) {
+        return client.chat(request).async().join().content();
+    }
+
+    @Test
+    public void test$response_cache$block() throws Exception {
+        final var cache = ResponseCache.newBuilder().build();
+        final var client = client(cache);
+        Assertions.assertEquals("你好！", chat(client, request("你好", false)));
+        Assertions.assertEquals("你好！", chat(client, request("你好", false)));
+
+        // 命中时不发出HTTP请求
+        Assertions.assertEquals(1, replayer.replayed());
+        Assertions.assertEquals(1, cache.stats().hits());
+        Assertions.assertEquals(1, cache.stats().misses());
+        Assertions.assertEquals(1, cache.stats().size());
+    }
+
+    @Test
+    public void test$response_cache$stream() throws Exception {
+        final var cache = ResponseCache.newBuilder().build();
+        final var client = client(cache);
+        final var first = new ArrayList<String>();
+        final var second = new ArrayList<String>();
+        Assertions.assertEquals("你好！", client.chat(request("你好", true)).stream(response -> first.add(response.content())).join().content());
+        Assertions.assertEquals("你好！", client.chat(request("你好", true)).stream(response -> second.add(response.content())).join().content());
+
+        // 命中时按原始顺序重放分片
+        Assertions.assertEquals(List.of("你", "好", "！"), first);
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(1, replayer.replayed());
+        Assertions.assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    public void test$response_cache$expire() throws Exception {
+        final var cache = ResponseCache.newBuilder()
+                .expire(Duration.ofMillis(200))
+                .build();
+        final var client = client(cache);
+        Assertions.assertEquals("你好！", chat(client, request("你好", false)));
+        Thread.sleep(300);
+        Assertions.assertEquals("你好！", chat(client, request("你好", false)));
+        Assertions.assertEquals(2, replayer.replayed());
+        Assertions.assertEquals(0, cache.stats().hits());
+    }
+
+    @Test
+    public void test$response_cache$evict() throws Exception {
+        final var cache = ResponseCache.newBuilder()
+                .capacity(1)
+                .build();
+        final var client = client(cache);
+        Assertions.assertEquals("你好！", chat(client, request("你好", false)));
+        Assertions.assertEquals("再见！", chat(client, request("再见", false)));
+        Assertions.assertEquals("你好！", chat(client, request("你好", false)));
+        Assertions.assertEquals(3, replayer.replayed());
+        Assertions.assertEquals(1, cache.stats().size());
+    }
+
+    @Test
+    public void test$response_cache$temperature() throws Exception {
+
+        // 未设置TEMPERATURE时按0.8计算，高于默认的0.1，不读也不写缓存
+        final var cache = ResponseCache.newBuilder().build();
+        final var client = client(cache);
+        Assertions.assertEquals("你好呀！", chat(client, request("你好", false, null)));
+        Assertions.assertEquals("你好呀！", chat(client, request("你好", false, null)));
+        Assertions.assertEquals(2, replayer.replayed());
+        Assertions.assertEquals(0, cache.stats().hits());
+        Assertions.assertEquals(0, cache.stats().misses());
+
+        // 放宽后缓存
+        final var relaxed = ResponseCache.newBuilder()
+                .maxTemperature(1.0f)
+                .build();
+        final var relaxedClient = client(relaxed);
+        Assertions.assertEquals("你好呀！", chat(relaxedClient, request("你好", false, null)));
+        Assertions.assertEquals("你好呀！", chat(relaxedClient, request("你好", false, null)));
+        Assertions.assertEquals(1, replayer.replayed());
+        Assertions.assertEquals(1, relaxed.stats().hits());
+    }
+
+}
@@ -0,0 +1,234 @@
+package io.github.oldmanpushcart.test.qianfan4j.cache;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiOptions;
+import io.github.oldmanpushcart.qianfan4j.cache.SemanticCache;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatOptions;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingModel;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
+import io.github.oldmanpushcart.qianfan4j.replay.Replayer;
+import io.github.oldmanpushcart.test.qianfan4j.Recording;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * 语义缓存：以重放代替服务端，重放的交换数量即发出的HTTP请求数量
+ * <p>"你好"与"您好"的余弦相似度约为0.99，与"再见"为0；"失败"没有录制向量，向量计算失败</p>
+ */
+public class SemanticCacheTestCase {
+
+    @TempDir
+    Path dir;
+
+    private Replayer replayer;
+
+    // 对话会把应答追加到请求的消息中，每次对话都需要新的请求
+    private static ChatRequest request(Float temperature, Message... messages) {
+        final var builder = ChatRequest.newBuilder()
+                .model(ChatModel.ERNIE_V4)
+                .messages(messages);
+        if (null != temperature) {
+            builder.option(ChatOptions.TEMPERATURE, temperature);
+        }
+        return builder.build();
+    }
+
+    private static ChatRequest request(String question) {
+        return request(0.01f, Message.ofUser(question));
+    }
+
+    // 带一轮历史的对话，与单条消息的对话处于不同的上下文
+    private static ChatRequest followUp(String question) {
+        return request(0.01f, Message.ofUser("在吗"), Message.ofAi("在的"), Message.ofUser(question));
+    }
+
+    private static EmbeddingRequest embedding(String text) {
+        return EmbeddingRequest.newBuilder()
+                .model(EmbeddingModel.EMBEDDING_V1)
+                .texts(text)
+                .build();
+    }
+
+    private static String vector(String vector) {
+        return """
+                {"id":"as-embedding","object":"embedding_list","data":[{"object":"embedding","embedding":%s,"index":0}],"usage":{"prompt_tokens":1,"total_tokens":1}}"""
+                .formatted(vector);
+    }
+
+    private static String answer(String result) {
+        return """
+                {"id":"as-block","is_end":true,"result":"%s","usage":{"total_tokens":3}}"""
+                .formatted(result);
+    }
+
+    @BeforeEach
+    public void setup() throws Exception {
+        final var recording = new Recording()
+                .json(embedding("你好"), vector("[1.0,0.0]"))
+                .json(embedding("您好"), vector("[0.99,0.14]"))
+                .json(embedding("再见"), vector("[0.0,1.0]"))
+                .json(request("你好"), answer("你好！"))
+                .json(request("您好"), answer("您好！"))
+                .json(request("再见"), answer("再见！"))
+                .json(request("失败"), answer("失败了！"))
+                .json(followUp("你好"), answer("又见面了！"))
+                .json(request(null, Message.ofUser("你好")), answer("你好呀！"));
+        replayer = Replayer.newBuilder()
+                .path(recording.write(dir.resolve("recording.jsonl")))
+                .speed(Double.POSITIVE_INFINITY)
+                .build();
+    }
+
+    private QianFanClient client(SemanticCache cache) {
+        return QianFanClient.newBuilder()
+                .ak("replay")
+                .sk("replay")
+                .executor(Executors.newCachedThreadPool())
+                .replayer(replayer)
+                .semanticCache(cache)
+                .build();
+    }
+
+    private static SemanticCache.Builder cache() {
+        return SemanticCache.newBuilder()
+                .model(EmbeddingModel.EMBEDDING_V1)
+                .threshold(0.95f);
+    }
+
+    private static String chat(QianFanClient client, ChatRequest request) {
+        return client.chat(request).async().join().content();
+    }
+
+    @Test
+    public void test$semantic_cache$hit() {
+        final var cache = cache().build();
+        final var client = client(cache);
+        Assertions.assertEquals("你好！", chat(client, request("你好")));
+
+        // 相似度高于阈值：只计算向量，不发出对话请求
+        Assertions.assertEquals("你好！", chat(client, request("您好")));
+        Assertions.assertEquals(3, replayer.replayed());
+        Assertions.assertEquals(1, cache.stats().hits());
+        Assertions.assertEquals(1, cache.stats().misses());
+        Assertions.assertEquals(1, cache.stats().size());
+        Assertions.assertTrue(cache.stats().meanHitSimilarity() > 0.95d);
+
+        // 流模式命中时以完整的应答作为唯一分片
+        final var chunks = new ArrayList<String>();
+        final var stream = ChatRequest.newBuilder()
+                .model(ChatModel.ERNIE_V4)
+                .option(ChatOptions.TEMPERATURE, 0.01f)
+                .option(ApiOptions.IS_STREAM, true)
+                .messages(Message.ofUser("您好"))
+                .build();
+        Assertions.assertEquals("你好！", client.chat(stream).stream(response -> chunks.add(response.content())).join().content());
+        Assertions.assertEquals(List.of("你好！"), chunks);
+        Assertions.assertEquals(4, replayer.replayed());
+    }
+
+    @Test
+    public void test$semantic_cache$miss() {
+
+        // 相似度低于阈值：发出对话请求，并写入缓存
+        final var cache = cache().build();
+        final var client = client(cache);
+        Assertions.assertEquals("你好！", chat(client, request("你好")));
+        Assertions.assertEquals("再见！", chat(client, request("再见")));
+        Assertions.assertEquals(4, replayer.replayed());
+        Assertions.assertEquals(0, cache.stats().hits());
+        Assertions.assertEquals(2, cache.stats().misses());
+        Assertions.assertEquals(2, cache.stats().size());
+
+        // 提高阈值后相似的问题同样未命中
+        final var strict = cache().threshold(0.999f).build();
+        final var strictClient = client(strict);
+        Assertions.assertEquals("你好！", chat(strictClient, request("你好")));
+        Assertions.assertEquals("您好！", chat(strictClient, request("您好")));
+        Assertions.assertEquals(0, strict.stats().hits());
+        Assertions.assertTrue(strict.stats().meanSimilarity() > 0.95d);
+        Assertions.assertEquals(8, replayer.replayed());
+    }
+
+    @Test
+    public void test$semantic_cache$context() {
+
+        // 最后一条消息相同，但历史不同：不比较相似度
+        final var cache = cache().build();
+        final var client = client(cache);
+        Assertions.assertEquals("你好！", chat(client, request("你好")));
+        Assertions.assertEquals("又见面了！", chat(client, followUp("你好")));
+        Assertions.assertEquals(4, replayer.replayed());
+        Assertions.assertEquals(0, cache.stats().hits());
+
+        // 各自的上下文中命中
+        Assertions.assertEquals("又见面了！", chat(client, followUp("您好")));
+        Assertions.assertEquals("你好！", chat(client, request("您好")));
+        Assertions.assertEquals(6, replayer.replayed());
+        Assertions.assertEquals(2, cache.stats().hits());
+    }
+
+    @Test
+    public void test$semantic_cache$expire() throws Exception {
+        final var cache = cache()
+                .expire(Duration.ofMillis(200))
+                .build();
+        final var client = client(cache);
+        Assertions.assertEquals("你好！", chat(client, request("你好")));
+        Thread.sleep(300);
+        Assertions.assertEquals("您好！", chat(client, request("您好")));
+        Assertions.assertEquals(4, replayer.replayed());
+        Assertions.assertEquals(0, cache.stats().hits());
+    }
+
+    @Test
+    public void test$semantic_cache$embedding_failure() {
+
+        // 向量计算失败时直接放行，不读也不写缓存
+        final var cache = cache().build();
+        final var client = client(cache);
+        Assertions.assertEquals("失败了！", chat(client, request("失败")));
+        Assertions.assertEquals("失败了！", chat(client, request("失败")));
+        Assertions.assertEquals(2, replayer.replayed());
+        Assertions.assertEquals(0, cache.stats().hits());
+        Assertions.assertEquals(0, cache.stats().misses());
+        Assertions.assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    public void test$semantic_cache$temperature() {
+
+        // 未设置TEMPERATURE时按0.8计算，高于默认的0.1：不计算向量，不读也不写缓存
+        final var cache = cache().build();
+        final var client = client(cache);
+        Assertions.assertEquals("你好呀！", chat(client, request(null, Message.ofUser("你好"))));
+        Assertions.assertEquals("你好呀！", chat(client, request(null, Message.ofUser("你好"))));
+        Assertions.assertEquals(2, replayer.replayed());
+        Assertions.assertEquals(0, cache.stats().misses());
+
+        // 放宽后缓存
+        final var relaxed = cache().maxTemperature(1.0f).build();
+        final var relaxedClient = client(relaxed);
+        Assertions.assertEquals("你好呀！", chat(relaxedClient, request(null, Message.ofUser("你好"))));
+        Assertions.assertEquals("你好呀！", chat(relaxedClient, request(null, Message.ofUser("你好"))));
+        Assertions.assertEquals(5, replayer.replayed());
+        Assertions.assertEquals(1, relaxed.stats().hits());
+    }
+
+    @Test
+    public void test$semantic_cache$illegal() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SemanticCache.newBuilder().capacity(8193));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SemanticCache.newBuilder().maxTemperature(-1f));
+    }
+
+}
@@ -0,0 +1,185 @@
+package io.github.oldmanpushcart.test.qianfan4j.cache;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiOptions;
+import io.github.oldmanpushcart.qianfan4j.cache.SingleFlight;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatOptions;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatResponse;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+import io.github.oldmanpushcart.qianfan4j.replay.Replayer;
+import io.github.oldmanpushcart.test.qianfan4j.Recording;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 相同请求合并：以重放代替服务端，流式应答每个分片间隔100毫秒
+ */
+public class SingleFlightTestCase {
+
+    @TempDir
+    Path dir;
+
+    private SingleFlight singleFlight;
+    private Replayer replayer;
+
+    // 对话会把应答追加到请求的消息中，每次对话都需要新的请求
+    private static ChatRequest request(boolean isStream) {
+        return ChatRequest.newBuilder()
+                .model(ChatModel.ERNIE_V4)
+                .option(ChatOptions.TEMPERATURE, 0.01f)
+                .option(ApiOptions.IS_STREAM, isStream)
+                .messages(Message.ofUser("你好"))
+                .build();
+    }
+
+    private QianFanClient client() throws Exception {
+        final var recording = new Recording()
+                .json(request(false), """
+                        {"id":"as-block","is_end":true,"result":"你好！","usage":{"total_tokens":3}}""")
+                .stream(request(true), List.of(
+                        """
+                                {"id":"as-stream","is_end":false,"result":"你","usage":{"total_tokens":1}}""",
+                        """
+                                {"id":"as-stream","is_end":false,"result":"好","usage":{"total_tokens":2}}""",
+                        """
+                                {"id":"as-stream","is_end":true,"result":"！","usage":{"total_tokens":3}}"""
+                ));
+        singleFlight = SingleFlight.newBuilder().build();
+        replayer = Replayer.newBuilder()
+                .path(recording.write(dir.resolve("recording.jsonl")))
+                .build();
+        return QianFanClient.newBuilder()
+                .ak("replay")
+                .sk("replay")
+                .executor(Executors.newCachedThreadPool())
+                .replayer(replayer)
+                .singleFlight(singleFlight)
+                .build();
+    }
+
+    @Test
+    public void test$single_flight$coalesce() throws Exception {
+        final var client = client();
+        final var futures = new ArrayList<CompletableFuture<ChatResponse>>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(client.chat(request(false)).async());
+        }
+        futures.forEach(future -> Assertions.assertEquals("你好！", future.join().content()));
+        Assertions.assertEquals(1, replayer.replayed());
+        Assertions.assertEquals(4, singleFlight.stats().hits());
+        Assertions.assertEquals(1, singleFlight.stats().misses());
+        Assertions.assertEquals(0, singleFlight.stats().size());
+    }
+
+    @Test
+    public void test$single_flight$temperature() throws Exception {
+
+        // 默认只合并TEMPERATURE不超过0.1的请求，未设置TEMPERATURE时按0.8计算
+        final var client = client();
+        final var random = ChatRequest.newBuilder()
+                .model(ChatModel.ERNIE_V4)
+                .messages(Message.ofUser("你好"))
+                .build();
+        client.chat(random).async().handle((response, ex) -> response).join();
+        Assertions.assertEquals(0, singleFlight.stats().hits());
+        Assertions.assertEquals(0, singleFlight.stats().misses());
+    }
+
+    @Test
+    public void test$single_flight$replay_then_live() throws Exception {
+
+        // 收到第一个分片后跟随：先重放已收到的分片，再接收之后的分片
+        final var client = client();
+        final var first = new CountDownLatch(1);
+        final var leader = client.chat(request(true)).stream(response -> first.countDown());
+        Assertions.assertTrue(first.await(5, TimeUnit.SECONDS), leader::toString);
+        final var chunks = new CopyOnWriteArrayList<String>();
+        final var follower = client.chat(request(true)).stream(response -> chunks.add(response.content()));
+        Assertions.assertEquals("你好！", leader.join().content());
+        Assertions.assertEquals("你好！", follower.join().content());
+        Assertions.assertEquals(List.of("你", "好", "！"), chunks);
+        Assertions.assertEquals(1, replayer.replayed());
+        Assertions.assertEquals(1, singleFlight.stats().hits());
+    }
+
+    @Test
+    public void test$single_flight$slow_follower() throws Exception {
+
+        // 跟随者的消费器很慢，被跟随的请求仍按原始节奏完成
+        final var client = client();
+        final var first = new CountDownLatch(1);
+        final var started = System.nanoTime();
+        final var leader = client.chat(request(true)).stream(response -> first.countDown());
+        Assertions.assertTrue(first.await(5, TimeUnit.SECONDS), leader::toString);
+        final var follower = client.chat(request(true)).stream(response -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException cause) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assertions.assertEquals("你好！", leader.join().content());
+        Assertions.assertTrue(System.nanoTime() - started < 1_000_000_000L);
+        Assertions.assertFalse(follower.isDone());
+        Assertions.assertEquals("你好！", follower.join().content());
+    }
+
+    @Test
+    public void test$single_flight$leader_failure() throws Exception {
+
+        // 被跟随请求的消费器抛出异常只结束被跟随的请求，跟随者照常收到全部分片
+        final var client = client();
+        final var first = new CountDownLatch(1);
+        final var joined = new CountDownLatch(1);
+        final var leader = client.chat(request(true)).stream(response -> {
+            if (first.getCount() == 0) {
+                throw new IllegalStateException("leader failed!");
+            }
+            first.countDown();
+            try {
+                joined.await();
+            } catch (InterruptedException cause) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assertions.assertTrue(first.await(5, TimeUnit.SECONDS), leader::toString);
+        final var chunks = new CopyOnWriteArrayList<String>();
+        final var follower = client.chat(request(true)).stream(response -> chunks.add(response.content()));
+        joined.countDown();
+        final var ex = Assertions.assertThrows(CompletionException.class, leader::join);
+        Assertions.assertInstanceOf(IllegalStateException.class, ex.getCause());
+        Assertions.assertEquals("你好！", follower.join().content());
+        Assertions.assertEquals(List.of("你", "好", "！"), chunks);
+        Assertions.assertEquals(1, replayer.replayed());
+    }
+
+    @Test
+    public void test$single_flight$follower_failure() throws Exception {
+
+        // 跟随者的消费器抛出异常只结束该跟随者
+        final var client = client();
+        final var first = new CountDownLatch(1);
+        final var leader = client.chat(request(true)).stream(response -> first.countDown());
+        Assertions.assertTrue(first.await(5, TimeUnit.SECONDS), leader::toString);
+        final var follower = client.chat(request(true)).stream(response -> {
+            throw new IllegalStateException("follower failed!");
+        });
+        Assertions.assertEquals("你好！", leader.join().content());
+        final var ex = Assertions.assertThrows(CompletionException.class, follower::join);
+        Assertions.assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+}
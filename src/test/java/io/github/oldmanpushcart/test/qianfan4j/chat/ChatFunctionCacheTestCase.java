@@ -0,0 +1,136 @@
+package io.github.oldmanpushcart.test.qianfan4j.chat;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.FunctionCall;
+import io.github.oldmanpushcart.qianfan4j.chat.function.ChatFn;
+import io.github.oldmanpushcart.qianfan4j.chat.function.ChatFunction;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+import io.github.oldmanpushcart.qianfan4j.replay.Replayer;
+import io.github.oldmanpushcart.test.qianfan4j.Recording;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 函数结果缓存：以重放代替服务端，每次对话先应答函数调用，再应答函数结果
+ */
+public class ChatFunctionCacheTestCase {
+
+    @TempDir
+    Path dir;
+
+    private final LookupFunction function = new LookupFunction();
+    private QianFanClient client;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        final var recording = new Recording();
+        for (final var word : new String[]{"hello", "world"}) {
+            final var arguments = "{\"word\":\"%s\"}".formatted(word);
+            final var result = "{\"word\":\"%s\"}".formatted(word.toUpperCase());
+            recording
+                    .json(request(word), """
+                            {"id":"as-call","is_end":true,"function_call":{"name":"lookup","arguments":%s},"usage":{"total_tokens":1}}"""
+                            .formatted(quote(arguments)))
+                    .json(ChatRequest.newBuilder(request(word))
+                            .messages(
+                                    Message.ofFunctionCall(new FunctionCall("lookup", arguments)),
+                                    Message.ofFunction("lookup", result)
+                            )
+                            .functions(true, function)
+                            .build(), """
+                            {"id":"as-result","is_end":true,"result":"%s","usage":{"total_tokens":1}}"""
+                            .formatted(word.toUpperCase()));
+        }
+        final var replayer = Replayer.newBuilder()
+                .path(recording.write(dir.resolve("recording.jsonl")))
+                .speed(Double.POSITIVE_INFINITY)
+                .build();
+        client = QianFanClient.newBuilder()
+                .ak("replay")
+                .sk("replay")
+                .executor(Executors.newCachedThreadPool())
+                .replayer(replayer)
+                .build();
+    }
+
+    private ChatRequest request(String word) {
+        return ChatRequest.newBuilder()
+                .model(ChatModel.ERNIE_V4)
+                .functions(function)
+                .messages(Message.ofUser("lookup: %s".formatted(word)))
+                .build();
+    }
+
+    private static String quote(String text) {
+        return "\"%s\"".formatted(text.replace("\"", "\\\""));
+    }
+
+    private String chat(String word) {
+        return client.chat(request(word)).async().join().content();
+    }
+
+    @Test
+    public void test$chat$function_cache$hit() {
+        Assertions.assertEquals("HELLO", chat("hello"));
+        Assertions.assertEquals("HELLO", chat("hello"));
+        Assertions.assertEquals(1, function.calls.get());
+    }
+
+    @Test
+    public void test$chat$function_cache$expire() throws Exception {
+        Assertions.assertEquals("HELLO", chat("hello"));
+        Thread.sleep(1200);
+        Assertions.assertEquals("HELLO", chat("hello"));
+        Assertions.assertEquals(2, function.calls.get());
+    }
+
+    @Test
+    public void test$chat$function_cache$evict() {
+        Assertions.assertEquals("HELLO", chat("hello"));
+        Assertions.assertEquals("WORLD", chat("world"));
+        Assertions.assertEquals("HELLO", chat("hello"));
+        Assertions.assertEquals(3, function.calls.get());
+    }
+
+    @Test
+    public void test$chat$function_cache$failure() {
+        function.failures.set(1);
+        Assertions.assertThrows(CompletionException.class, () -> chat("hello"));
+        Assertions.assertEquals("HELLO", chat("hello"));
+        Assertions.assertEquals("HELLO", chat("hello"));
+        Assertions.assertEquals(2, function.calls.get());
+    }
+
+    @ChatFn(name = "lookup", description = "lookup word", cache = @ChatFn.Cache(capacity = 1, expire = 1, unit = TimeUnit.SECONDS))
+    public static class LookupFunction implements ChatFunction<Word, Word> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public CompletableFuture<Word> call(Word word) {
+            calls.incrementAndGet();
+            if (failures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                return CompletableFuture.failedFuture(new IllegalStateException("lookup failed!"));
+            }
+            return CompletableFuture.completedFuture(new Word(word.word().toUpperCase()));
+        }
+
+    }
+
+    public record Word(String word) {
+
+    }
+
+}
@@ -0,0 +1,187 @@
+package io.github.oldmanpushcart.test.qianfan4j.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.oldmanpushcart.qianfan4j.base.algo.TokenEstimator;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatOptions;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.HistoryPolicy;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+import io.github.oldmanpushcart.test.qianfan4j.Bodies;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+public class ChatRequestMessagesTestCase {
+
+    private static final ChatModel model = new ChatModel("messages-test", "http://localhost");
+
+    private static List<String> contents(ChatRequest request) {
+        return request.messages().stream().map(Message::content).toList();
+    }
+
+    @Test
+    public void test$messages$mutable() throws Exception {
+        final var request = ChatRequest.newBuilder()
+                .model(model)
+                .messages(Message.ofUser("1"), Message.ofAi("2"))
+                .build();
+        final var fork = ChatRequest.newBuilder(request).build();
+        final var messages = request.messages();
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> messages.get(2));
+        Assertions.assertThrows(NullPointerException.class, () -> messages.add(null));
+        Assertions.assertThrows(NullPointerException.class, () -> ChatRequest.newBuilder().messages((Message) null));
+
+        // 在末尾追加消息，与修改前派生的请求互不影响
+        messages.add(Message.ofUser("3"));
+        Assertions.assertEquals(List.of("1", "2", "3"), contents(request));
+        Assertions.assertEquals(List.of("1", "2"), contents(fork));
+
+        // 插入、替换、删除
+        messages.add(0, Message.ofUser("0"));
+        messages.set(3, Message.ofUser("three"));
+        messages.remove(1);
+        Assertions.assertEquals(List.of("0", "2", "three"), contents(request));
+
+        // 修改后发送的请求体与当前消息一致
+        final var body = new ObjectMapper().readTree(Bodies.string(request));
+        Assertions.assertEquals(3, body.get("messages").size());
+        Assertions.assertEquals("three", body.get("messages").get(2).get("content").asText());
+
+        messages.clear();
+        Assertions.assertTrue(request.messages().isEmpty());
+        Assertions.assertEquals(List.of("1", "2"), contents(fork));
+    }
+
+    @Test
+    public void test$messages$fork() {
+        final var parent = ChatRequest.newBuilder()
+                .model(model)
+                .messages(Message.ofUser("1"), Message.ofAi("2"))
+                .build();
+
+        // 从同一个请求派生的多个请求互不影响，也不影响原请求
+        final var a = ChatRequest.newBuilder(parent).messages(Message.ofUser("a")).build();
+        final var b = ChatRequest.newBuilder(parent).messages(Message.ofUser("b")).build();
+        final var c = ChatRequest.newBuilder(a).messages(Message.ofAi("c")).build();
+        Assertions.assertEquals(List.of("1", "2"), contents(parent));
+        Assertions.assertEquals(List.of("1", "2", "a"), contents(a));
+        Assertions.assertEquals(List.of("1", "2", "b"), contents(b));
+        Assertions.assertEquals(List.of("1", "2", "a", "c"), contents(c));
+
+        // 构造器不会修改已构建的请求
+        final var builder = ChatRequest.newBuilder(parent);
+        final var built = builder.messages(Message.ofUser("x")).build();
+        builder.messages(Message.ofAi("y"));
+        Assertions.assertEquals(List.of("1", "2", "x"), contents(built));
+        Assertions.assertEquals(List.of("1", "2", "x", "y"), contents(builder.build()));
+    }
+
+    @Test
+    public void test$messages$body() throws Exception {
+        final var mapper = new ObjectMapper();
+        final var parent = ChatRequest.newBuilder()
+                .model(model)
+                .user("user")
+                .option(ChatOptions.COSPLAY, "助手")
+                .messages(Message.ofUser("你好"), Message.ofAi("你好，有什么可以帮你"))
+                .build();
+        final var a = ChatRequest.newBuilder(parent).messages(Message.ofUser("a")).build();
+        final var b = ChatRequest.newBuilder(parent)
+                .messages(Message.ofUser("b"))
+                .historyPolicy(HistoryPolicy.window(1))
+                .build();
+
+        // 策略生成的消息不在全部消息中，直接编码
+        final var summarized = ChatRequest.newBuilder(parent)
+                .messages(Message.ofUser("c"))
+                .historyPolicy((estimator, messages) -> List.of(
+                        Message.ofUser("此前对话的摘要"),
+                        messages.get(messages.size() - 1)
+                ))
+                .build();
+
+        // 多次发送与分叉后，拼接的请求体与直接序列化一致
+        for (final var request : List.of(parent, a, b, a, b, summarized, summarized)) {
+            final var body = mapper.readTree(Bodies.string(request));
+            Assertions.assertEquals(mapper.valueToTree(request), body);
+            Assertions.assertEquals("user", body.get("user_id").asText());
+            Assertions.assertEquals("助手", body.get("system").asText());
+            Assertions.assertEquals(request.historyPolicy().apply(TokenEstimator.of(model), request.messages()).size(), body.get("messages").size());
+            Assertions.assertEquals(
+                    request.messages().get(request.messages().size() - 1).content(),
+                    body.get("messages").get(body.get("messages").size() - 1).get("content").asText()
+            );
+        }
+        Assertions.assertEquals("此前对话的摘要", mapper.readTree(Bodies.string(summarized)).get("messages").get(0).get("content").asText());
+        Assertions.assertEquals("{\"messages\":[]}", Bodies.string(ChatRequest.newBuilder().model(model).build()));
+    }
+
+    @Test
+    public void test$messages$concurrent_fork() throws Exception {
+        final var parent = ChatRequest.newBuilder()
+                .model(model)
+                .messages(Message.ofUser("root"))
+                .build();
+        final var threads = 8;
+        final var rounds = 200;
+        final var latch = new CountDownLatch(1);
+        final var futures = new ArrayList<CompletableFuture<ChatRequest>>();
+        for (int t = 0; t < threads; t++) {
+            final var name = "t" + t;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                var request = parent;
+                for (int i = 0; i < rounds; i++) {
+                    request = ChatRequest.newBuilder(request).messages(Message.ofAi(name + "-" + i)).build();
+                }
+                return request;
+            }));
+        }
+        latch.countDown();
+        for (int t = 0; t < threads; t++) {
+            final var name = "t" + t;
+            final var expect = new ArrayList<String>();
+            expect.add("root");
+            IntStream.range(0, rounds).forEach(i -> expect.add(name + "-" + i));
+            Assertions.assertEquals(expect, contents(futures.get(t).get()));
+        }
+        Assertions.assertEquals(List.of("root"), contents(parent));
+    }
+
+    @Test
+    public void test$messages$concurrent_add() throws Exception {
+        final var request = ChatRequest.newBuilder()
+                .model(model)
+                .messages(Message.ofUser("root"))
+                .build();
+        final var threads = 8;
+        final var rounds = 200;
+        final var futures = IntStream.range(0, threads)
+                .mapToObj(t -> CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < rounds; i++) {
+                        request.messages().add(Message.ofAi("t" + t + "-" + i));
+                    }
+                }))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).get();
+
+        // 并发追加不丢失，每个线程追加的消息保持各自的顺序
+        Assertions.assertEquals(1 + threads * rounds, request.messages().size());
+        for (int t = 0; t < threads; t++) {
+            final var prefix = "t" + t + "-";
+            final var own = contents(request).stream().filter(content -> content.startsWith(prefix)).toList();
+            Assertions.assertEquals(IntStream.range(0, rounds).mapToObj(i -> prefix + i).toList(), own);
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package io.github.oldmanpushcart.test.qianfan4j.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.oldmanpushcart.qianfan4j.base.algo.TokenEstimator;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.FunctionCall;
+import io.github.oldmanpushcart.qianfan4j.chat.HistoryPolicy;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HistoryPolicyTestCase {
+
+    private static final ChatModel model = new ChatModel("history-test", "http://localhost");
+
+    // 10轮对话，第3轮包含函数调用
+    private static List<Message> conversation() {
+        final var messages = new ArrayList<Message>();
+        for (int turn = 0; turn < 10; turn++) {
+            messages.add(Message.ofUser("问题%d：今天天气怎么样".formatted(turn)));
+            if (turn == 3) {
+                messages.add(Message.ofFunctionCall(new FunctionCall("weather", "{\"city\":\"杭州\"}")));
+                messages.add(Message.ofFunction("weather", "{\"weather\":\"晴\"}"));
+            }
+            if (turn < 9) {
+                messages.add(Message.ofAi("回答%d：今天天气晴朗".formatted(turn)));
+            }
+        }
+        return messages;
+    }
+
+    private static void assertTurns(List<Message> selected) {
+        Assertions.assertEquals(Message.Role.USER, selected.get(0).role());
+        Assertions.assertEquals(Message.Role.USER, selected.get(selected.size() - 1).role());
+        for (int i = 0; i < selected.size(); i++) {
+            // 函数调用与函数消息成对出现
+            if (null != selected.get(i).call()) {
+                Assertions.assertEquals(Message.Role.FUNCTION, selected.get(i + 1).role());
+            }
+            if (selected.get(i).role() == Message.Role.FUNCTION) {
+                Assertions.assertNotNull(selected.get(i - 1).call());
+            }
+        }
+    }
+
+    @Test
+    public void test$history$window() {
+        final var estimator = TokenEstimator.of(model);
+        final var messages = conversation();
+        final var total = estimator.estimate(messages);
+
+        // 预算足够时原样返回
+        Assertions.assertSame(messages, HistoryPolicy.window(total).apply(estimator, messages));
+        Assertions.assertSame(messages, HistoryPolicy.ALL.apply(estimator, messages));
+
+        // 预算约为一半
+        final var selected = HistoryPolicy.window(total / 2).apply(estimator, messages);
+        Assertions.assertTrue(selected.size() < messages.size());
+        Assertions.assertTrue(estimator.estimate(selected) <= total / 2);
+        Assertions.assertSame(messages.get(messages.size() - 1), selected.get(selected.size() - 1));
+        assertTurns(selected);
+
+        // 预算极小时只保留当前提问
+        final var last = HistoryPolicy.window(1).apply(estimator, messages);
+        Assertions.assertEquals(List.of(messages.get(messages.size() - 1)), last);
+
+        // 窗口边界落在函数调用轮次中时，整轮丢弃
+        for (int budget = 1; budget < total; budget += 3) {
+            assertTurns(HistoryPolicy.window(budget).apply(estimator, messages));
+        }
+    }
+
+    @Test
+    public void test$history$pinned() {
+        final var estimator = TokenEstimator.of(model);
+        final var messages = conversation();
+        final var selected = HistoryPolicy.window(60, 1).apply(estimator, messages);
+        Assertions.assertSame(messages.get(0), selected.get(0));
+        Assertions.assertSame(messages.get(1), selected.get(1));
+        Assertions.assertEquals(Message.Role.USER, selected.get(2).role());
+        Assertions.assertNotSame(messages.get(2), selected.get(2));
+        assertTurns(selected);
+    }
+
+    @Test
+    public void test$history$serialize() throws Exception {
+        final var messages = conversation();
+        final var request = ChatRequest.newBuilder()
+                .model(model)
+                .messages(messages.toArray(Message[]::new))
+                .historyPolicy(HistoryPolicy.window(1))
+                .build();
+
+        // 请求中保留全部消息，只有发送的消息被裁剪
+        Assertions.assertEquals(messages.size(), request.messages().size());
+        final var node = new ObjectMapper().valueToTree(request);
+        Assertions.assertEquals(1, node.get("messages").size());
+        Assertions.assertEquals(messages.get(messages.size() - 1).content(), node.get("messages").get(0).get("content").asText());
+
+        // 复制请求时保留策略
+        Assertions.assertSame(request.historyPolicy(), ChatRequest.newBuilder(request).build().historyPolicy());
+    }
+
+}
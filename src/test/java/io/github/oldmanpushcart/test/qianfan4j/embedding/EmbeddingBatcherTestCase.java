@@ -0,0 +1,136 @@
+package io.github.oldmanpushcart.test.qianfan4j.embedding;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingModel;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse;
+import io.github.oldmanpushcart.qianfan4j.replay.Replayer;
+import io.github.oldmanpushcart.test.qianfan4j.Recording;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 向量计算请求合并：以重放代替服务端，重放的交换数量即发出的HTTP请求数量
+ */
+public class EmbeddingBatcherTestCase {
+
+    // 单次最多两个文本的模型，与EMBEDDING_V1使用相同的服务端地址
+    private static final EmbeddingModel PAIR = new EmbeddingModel(
+            EmbeddingModel.EMBEDDING_V1.name(),
+            EmbeddingModel.EMBEDDING_V1.remote(),
+            2
+    );
+
+    @TempDir
+    Path dir;
+
+    private Replayer replayer;
+
+    private static EmbeddingRequest request(EmbeddingModel model, String... texts) {
+        return EmbeddingRequest.newBuilder()
+                .model(model)
+                .texts(texts)
+                .build();
+    }
+
+    // 第一份应答中的向量按序号倒序排列，分发时必须按序号而不是位置
+    @BeforeEach
+    public void setup() throws Exception {
+        final var recording = new Recording()
+                .json(request(EmbeddingModel.EMBEDDING_V1, "a", "b"), """
+                        {"id":"as-batch","object":"embedding_list","data":[{"object":"embedding","embedding":[0.0,1.0],"index":1},{"object":"embedding","embedding":[1.0,0.0],"index":0}],"usage":{"total_tokens":2}}""")
+                .json(request(PAIR, "a", "b"), """
+                        {"id":"as-pair","object":"embedding_list","data":[{"object":"embedding","embedding":[1.0,0.0],"index":0},{"object":"embedding","embedding":[0.0,1.0],"index":1}],"usage":{"total_tokens":2}}""")
+                .json(request(EmbeddingModel.EMBEDDING_V1, "x", "y"), """
+                        {"id":"as-broken","object":"embedding_list","data":[{"object":"embedding","embedding":[1.0,0.0],"index":0},{"object":"embedding","embedding":[0.0,1.0],"index":1},{"object":"embedding","embedding":[1.0,1.0],"index":2}],"usage":{"total_tokens":2}}""");
+        replayer = Replayer.newBuilder()
+                .path(recording.write(dir.resolve("recording.jsonl")))
+                .speed(Double.POSITIVE_INFINITY)
+                .build();
+    }
+
+    private QianFanClient client(Duration window) {
+        return QianFanClient.newBuilder()
+                .ak("replay")
+                .sk("replay")
+                .executor(Executors.newCachedThreadPool())
+                .replayer(replayer)
+                .embeddingBatchWindow(window)
+                .build();
+    }
+
+    private static CompletableFuture<EmbeddingResponse> embedding(QianFanClient client, EmbeddingModel model, String text) {
+        return client.embedding(request(model, text)).async().toCompletableFuture();
+    }
+
+    // 限时等待失败：分发出错时调用者不能一直等待
+    private static Throwable failure(CompletableFuture<EmbeddingResponse> future) {
+        return Assertions.assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS)).getCause();
+    }
+
+    @Test
+    public void test$batcher$window() {
+
+        // 窗口期内的请求合并为一次，按序号分发
+        final var client = client(Duration.ofMillis(100));
+        final var a = embedding(client, EmbeddingModel.EMBEDDING_V1, "a");
+        final var b = embedding(client, EmbeddingModel.EMBEDDING_V1, "b");
+        Assertions.assertArrayEquals(new float[]{1, 0}, a.join().embeddings().get(0).vector());
+        Assertions.assertArrayEquals(new float[]{0, 1}, b.join().embeddings().get(0).vector());
+        Assertions.assertEquals(0, a.join().embeddings().get(0).index());
+        Assertions.assertEquals(0, b.join().embeddings().get(0).index());
+        Assertions.assertEquals(1, replayer.replayed());
+
+        // 合并请求的用量只计入第一个调用者
+        Assertions.assertEquals(2, a.join().usage().total());
+        Assertions.assertEquals(0, b.join().usage().total());
+        Assertions.assertTrue(b.join().usage().items().isEmpty());
+    }
+
+    @Test
+    public void test$batcher$batch_size() throws Exception {
+
+        // 达到模型的单次最大文本数量时立即发送，不等待窗口
+        final var client = client(Duration.ofMinutes(10));
+        final var a = embedding(client, PAIR, "a");
+        final var b = embedding(client, PAIR, "b");
+        Assertions.assertArrayEquals(new float[]{1, 0}, a.get(5, TimeUnit.SECONDS).embeddings().get(0).vector());
+        Assertions.assertArrayEquals(new float[]{0, 1}, b.get(5, TimeUnit.SECONDS).embeddings().get(0).vector());
+        Assertions.assertEquals(1, replayer.replayed());
+    }
+
+    @Test
+    public void test$batcher$failure() {
+
+        // 合并请求失败(没有录制)：全部调用者以同一异常失败
+        final var client = client(Duration.ofMillis(100));
+        final var a = embedding(client, EmbeddingModel.EMBEDDING_V1, "b");
+        final var b = embedding(client, EmbeddingModel.EMBEDDING_V1, "a");
+        final var cause = failure(a);
+        Assertions.assertInstanceOf(IllegalStateException.class, cause);
+        Assertions.assertSame(cause, failure(b));
+    }
+
+    @Test
+    public void test$batcher$index_out_of_range() {
+
+        // 应答的向量多于请求的文本，序号超出范围：全部调用者失败，而不是一直等待
+        final var client = client(Duration.ofMillis(100));
+        final var x = embedding(client, EmbeddingModel.EMBEDDING_V1, "x");
+        final var y = embedding(client, EmbeddingModel.EMBEDDING_V1, "y");
+        final var cause = failure(x);
+        Assertions.assertInstanceOf(IllegalStateException.class, cause);
+        Assertions.assertTrue(cause.getMessage().contains("out of range"));
+        Assertions.assertSame(cause, failure(y));
+    }
+
+}
@@ -0,0 +1,98 @@
+package io.github.oldmanpushcart.test.qianfan4j.embedding;
+
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingModel;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingRequest;
+import io.github.oldmanpushcart.qianfan4j.embedding.EmbeddingResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 向量应答的流式解析：以应答JSON直接反序列化，不访问服务端
+ */
+public class EmbeddingMatrixTestCase {
+
+    private static EmbeddingResponse parse(String data) {
+        final var request = EmbeddingRequest.newBuilder()
+                .model(EmbeddingModel.EMBEDDING_V1)
+                .texts("a", "b", "c")
+                .build();
+        return request.responseDeserializer().apply("""
+                {"id":"as-matrix","object":"embedding_list","data":%s,"usage":{"prompt_tokens":3,"total_tokens":3}}
+                """.formatted(data));
+    }
+
+    private static void assertRow(EmbeddingResponse response, int row, float... expected) {
+        Assertions.assertArrayEquals(expected, response.matrix().copyRow(row));
+        Assertions.assertArrayEquals(expected, response.embeddings().get(row).vector());
+        Assertions.assertEquals(row, response.embeddings().get(row).index());
+    }
+
+    @Test
+    public void test$embedding$matrix$shuffled() {
+        final var response = parse("""
+                [
+                    {"object":"embedding","embedding":[2.0,2.5],"index":2},
+                    {"index":0,"extra":{"nested":[1,{"deep":[2,3]}]},"embedding":[0.0,0.5],"object":"embedding"},
+                    {"embedding":[1.0,1.5],"unknown":null,"index":1}
+                ]
+                """);
+        Assertions.assertEquals(3, response.matrix().rows());
+        Assertions.assertEquals(2, response.matrix().dimension());
+        assertRow(response, 0, 0.0f, 0.5f);
+        assertRow(response, 1, 1.0f, 1.5f);
+        assertRow(response, 2, 2.0f, 2.5f);
+        Assertions.assertEquals(3, response.usage().total(item -> item.name().equals("total_tokens")));
+    }
+
+    @Test
+    public void test$embedding$matrix$missing_index() {
+
+        // 缺少index时按到达顺序排列
+        final var response = parse("""
+                [
+                    {"object":"embedding","embedding":[0.0,0.5]},
+                    {"object":"embedding","embedding":[1.0,1.5]},
+                    {"object":"embedding","embedding":[2.0,2.5]}
+                ]
+                """);
+        assertRow(response, 0, 0.0f, 0.5f);
+        assertRow(response, 1, 1.0f, 1.5f);
+        assertRow(response, 2, 2.0f, 2.5f);
+    }
+
+    @Test
+    public void test$embedding$matrix$empty() {
+        Assertions.assertEquals(0, parse("[]").matrix().rows());
+        Assertions.assertTrue(parse("[]").embeddings().isEmpty());
+    }
+
+    @Test
+    public void test$embedding$matrix$illegal() {
+
+        // 缺少embedding：维度不一致
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parse("""
+                [{"index":0,"embedding":[0.0,0.5]},{"index":1},{"index":2,"embedding":[2.0,2.5]}]
+                """));
+
+        // 维度不一致
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parse("""
+                [{"index":0,"embedding":[0.0,0.5]},{"index":1,"embedding":[1.0]},{"index":2,"embedding":[2.0,2.5]}]
+                """));
+
+        // index重复
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parse("""
+                [{"index":1,"embedding":[0.0,0.5]},{"index":1,"embedding":[1.0,1.5]},{"index":2,"embedding":[2.0,2.5]}]
+                """));
+
+        // index越界
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parse("""
+                [{"index":3,"embedding":[0.0,0.5]},{"index":1,"embedding":[1.0,1.5]},{"index":2,"embedding":[2.0,2.5]}]
+                """));
+
+        // data不是数组
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parse("""
+                {"index":0,"embedding":[0.0,0.5]}
+                """));
+    }
+
+}
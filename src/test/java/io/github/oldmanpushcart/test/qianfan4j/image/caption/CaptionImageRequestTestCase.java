@@ -0,0 +1,71 @@
+package io.github.oldmanpushcart.test.qianfan4j.image.caption;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.oldmanpushcart.qianfan4j.image.caption.CaptionImageModel;
+import io.github.oldmanpushcart.qianfan4j.image.caption.CaptionImageRequest;
+import io.github.oldmanpushcart.test.qianfan4j.Bodies;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class CaptionImageRequestTestCase {
+
+    private static byte[] jpeg() throws Exception {
+        final var image = new BufferedImage(64, 32, BufferedImage.TYPE_INT_RGB);
+        final var graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillOval(8, 4, 40, 24);
+        graphics.dispose();
+        final var output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", output);
+        return output.toByteArray();
+    }
+
+    @Test
+    public void test$caption$encoded_image(@TempDir Path dir) throws Exception {
+        final var jpeg = jpeg();
+        final var path = Files.write(dir.resolve("image.jpg"), jpeg);
+
+        // 堆外缓冲区，且位置不为0
+        final var direct = ByteBuffer.allocateDirect(jpeg.length + 3);
+        direct.put(new byte[3]).put(jpeg).flip().position(3);
+
+        final var mapper = new ObjectMapper();
+        for (final var building : List.<Consumer<CaptionImageRequest.Builder>>of(
+                builder -> builder.image(jpeg),
+                builder -> builder.image(ByteBuffer.wrap(jpeg)),
+                builder -> builder.image(direct),
+                builder -> builder.image(path)
+        )) {
+            final var builder = CaptionImageRequest.newBuilder()
+                    .model(new CaptionImageModel("caption-test", "http://localhost"))
+                    .prompt("描述这张图片");
+            building.accept(builder);
+            final var request = builder.build();
+
+            // 原样发送，不做转码；多次发送结果相同
+            for (int i = 0; i < 2; i++) {
+                final var node = mapper.readTree(Bodies.string(request));
+                Assertions.assertEquals("描述这张图片", node.get("prompt").asText());
+                Assertions.assertArrayEquals(jpeg, Base64.getDecoder().decode(node.get("image").asText()));
+            }
+
+            final var image = request.image();
+            Assertions.assertEquals(64, image.getWidth());
+            Assertions.assertEquals(32, image.getHeight());
+        }
+        Assertions.assertEquals(3, direct.position());
+    }
+
+}
@@ -0,0 +1,140 @@
+package io.github.oldmanpushcart.test.qianfan4j.image.caption;
+
+import io.github.oldmanpushcart.qianfan4j.image.caption.ImagePreprocessor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+public class ImagePreprocessorTestCase {
+
+    // 带噪点的大图，PNG编码后体积较大
+    private static BufferedImage photo(int width, int height) {
+        final var random = new Random(7);
+        final var image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final var base = (x * 255 / width) << 16 | (y * 255 / height) << 8;
+                image.setRGB(x, y, 0xFF000000 | base | random.nextInt(64));
+            }
+        }
+        return image;
+    }
+
+    // JPEG不支持透明通道，编码前转为RGB
+    private static BufferedImage rgb(BufferedImage image) {
+        final var rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        rgb.getGraphics().drawImage(image, 0, 0, null);
+        return rgb;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws Exception {
+        final var output = new ByteArrayOutputStream();
+        ImageIO.write(image, format, output);
+        return output.toByteArray();
+    }
+
+    private static BufferedImage decode(ByteBuffer buffer) throws Exception {
+        final var bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return ImageIO.read(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    public void test$image$preprocess$downscale() throws Exception {
+        final var preprocessor = ImagePreprocessor.newBuilder()
+                .maxDimension(256)
+                .build();
+        final var png = encode(photo(1200, 800), "png");
+        final var result = preprocessor.process(ByteBuffer.wrap(png)).join();
+        Assertions.assertTrue(result.isReadOnly());
+        Assertions.assertEquals(0xFF, result.get(0) & 0xFF);
+        Assertions.assertEquals(0xD8, result.get(1) & 0xFF);
+        Assertions.assertTrue(result.remaining() < png.length / 10);
+
+        final var image = decode(result);
+        Assertions.assertEquals(256, image.getWidth());
+        Assertions.assertEquals(171, image.getHeight());
+    }
+
+    @Test
+    public void test$image$preprocess$budget() throws Exception {
+        final var preprocessor = ImagePreprocessor.newBuilder()
+                .maxDimension(1024)
+                .scaling(ImagePreprocessor.Scaling.SPEED)
+                .quality(0.95f)
+                .maxBytes(16 * 1024)
+                .build();
+        final var result = preprocessor.process(photo(1024, 1024)).join();
+        Assertions.assertTrue(result.remaining() <= 16 * 1024);
+        Assertions.assertNotNull(decode(result));
+    }
+
+    @Test
+    public void test$image$preprocess$passthrough() throws Exception {
+        final var preprocessor = ImagePreprocessor.newBuilder().build();
+        final var jpeg = ByteBuffer.wrap(encode(rgb(photo(320, 240)), "jpg"));
+        Assertions.assertTrue(jpeg.remaining() > 0);
+        final var result = preprocessor.process(jpeg).join();
+        Assertions.assertEquals(jpeg, result);
+    }
+
+    @Test
+    public void test$image$preprocess$dedupe() throws Exception {
+        final var preprocessor = ImagePreprocessor.newBuilder()
+                .maxDimension(128)
+                .build();
+        final var png = encode(photo(640, 480), "png");
+        final var first = preprocessor.process(ByteBuffer.wrap(png)).join();
+        final var second = preprocessor.process(ByteBuffer.wrap(png.clone())).join();
+        Assertions.assertSame(first, second);
+
+        final var stats = preprocessor.stats();
+        Assertions.assertEquals(1, stats.hits());
+        Assertions.assertEquals(1, stats.misses());
+        Assertions.assertEquals(1, stats.size());
+    }
+
+    @Test
+    public void test$image$preprocess$cache_bytes() throws Exception {
+        final var first = encode(rgb(photo(320, 240)), "jpg");
+        final var second = encode(rgb(photo(240, 320)), "jpg");
+        final var preprocessor = ImagePreprocessor.newBuilder()
+                .cacheBytes(Math.max(first.length, second.length) + 1)
+                .build();
+
+        // 字节上限只容纳一个结果，写入第二个时淘汰第一个
+        preprocessor.process(ByteBuffer.wrap(first)).join();
+        preprocessor.process(ByteBuffer.wrap(second)).join();
+        Assertions.assertEquals(1, preprocessor.stats().size());
+        preprocessor.process(ByteBuffer.wrap(first)).join();
+        Assertions.assertEquals(0, preprocessor.stats().hits());
+        Assertions.assertEquals(3, preprocessor.stats().misses());
+
+        // 超过上限的单个结果不缓存
+        final var tiny = ImagePreprocessor.newBuilder().cacheBytes(16).build();
+        tiny.process(ByteBuffer.wrap(first)).join();
+        Assertions.assertEquals(0, tiny.stats().size());
+    }
+
+    @Test
+    public void test$image$preprocess$retain_copy() throws Exception {
+        final var preprocessor = ImagePreprocessor.newBuilder().build();
+        final var jpeg = encode(rgb(photo(320, 240)), "jpg");
+        final var original = jpeg.clone();
+        preprocessor.process(ByteBuffer.wrap(jpeg)).join();
+
+        // 调用者之后修改自己的缓冲区，不影响缓存的结果
+        jpeg[jpeg.length / 2] ^= (byte) 0xFF;
+        final var cached = preprocessor.process(ByteBuffer.wrap(original.clone())).join();
+        Assertions.assertEquals(1, preprocessor.stats().hits());
+        Assertions.assertEquals(ByteBuffer.wrap(original), cached);
+    }
+
+}
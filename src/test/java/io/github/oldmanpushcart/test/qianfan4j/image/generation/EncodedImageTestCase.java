@@ -0,0 +1,78 @@
+package io.github.oldmanpushcart.test.qianfan4j.image.generation;
+
+import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageModel;
+import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageRequest;
+import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+public class EncodedImageTestCase {
+
+    private static byte[] png() throws Exception {
+        final var image = new BufferedImage(48, 24, BufferedImage.TYPE_INT_RGB);
+        final var graphics = image.createGraphics();
+        graphics.setColor(Color.CYAN);
+        graphics.fillRect(4, 4, 20, 16);
+        graphics.dispose();
+        final var output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return output.toByteArray();
+    }
+
+    private static GenerationImageResponse response(byte[] png) {
+        final var request = GenerationImageRequest.newBuilder()
+                .model(GenerationImageModel.STABLE_DIFFUSION_XL)
+                .prompt("test")
+                .build();
+        final var json = """
+                {"id":"as-test","data":[{"object":"image","b64_image":"%s","index":0}],"usage":{"prompt_tokens":0,"total_tokens":0}}
+                """.formatted(Base64.getEncoder().encodeToString(png));
+        return request.responseDeserializer().apply(json);
+    }
+
+    @Test
+    public void test$image$encoded$bytes() throws Exception {
+        final var png = png();
+        final var response = response(png);
+        Assertions.assertEquals(1, response.encodedImages().size());
+
+        final var encoded = response.encodedImages().get(0);
+        Assertions.assertArrayEquals(png, encoded.bytes());
+        Assertions.assertEquals(ByteBuffer.wrap(png), encoded.buffer());
+        Assertions.assertTrue(encoded.buffer().isReadOnly());
+
+        final var output = new ByteArrayOutputStream();
+        encoded.writeTo(output);
+        Assertions.assertArrayEquals(png, output.toByteArray());
+    }
+
+    @Test
+    public void test$image$encoded$file(@TempDir Path dir) throws Exception {
+        final var png = png();
+        final var path = dir.resolve("image.png");
+        response(png).encodedImages().get(0).writeTo(path);
+        Assertions.assertArrayEquals(png, Files.readAllBytes(path));
+    }
+
+    @Test
+    public void test$image$encoded$decode() throws Exception {
+        final var response = response(png());
+        final var image = response.images().get(0);
+        Assertions.assertEquals(48, image.getWidth());
+        Assertions.assertEquals(24, image.getHeight());
+        Assertions.assertEquals(Color.CYAN.getRGB(), image.getRGB(10, 10));
+        Assertions.assertSame(image, response.images().get(0));
+        Assertions.assertSame(image, response.encodedImages().get(0).decode());
+    }
+
+}
@@ -0,0 +1,164 @@
+package io.github.oldmanpushcart.test.qianfan4j.image.generation;
+
+import io.github.oldmanpushcart.qianfan4j.image.generation.EncodedImage;
+import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageModel;
+import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageOptions;
+import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageRequest;
+import io.github.oldmanpushcart.qianfan4j.image.generation.GenerationImageResponse;
+import io.github.oldmanpushcart.test.qianfan4j.UnsupportedQianFanClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 文生图并行生成：以只支持单次文生图的客户端替身代替服务端，由测试控制每个子请求完成的顺序
+ */
+public class GenerationImageFanOutTestCase {
+
+    private static final long SEED_BOUND = 1L << 32;
+
+    private static GenerationImageRequest request(Long seed) {
+        final var builder = GenerationImageRequest.newBuilder()
+                .model(GenerationImageModel.STABLE_DIFFUSION_XL)
+                .prompt("猫")
+                .option(GenerationImageOptions.NUMBERS, 4);
+        if (null != seed) {
+            builder.option(GenerationImageOptions.SEED, seed);
+        }
+        return builder.build();
+    }
+
+    private static List<String> contents(List<EncodedImage> images) {
+        return images.stream()
+                .map(image -> new String(image.bytes(), StandardCharsets.UTF_8))
+                .toList();
+    }
+
+    @Test
+    public void test$image$fan_out$seeds() {
+        final var client = new FakeClient();
+        final var future = client.generationImage(request(SEED_BOUND - 2), 4, 2).async();
+
+        // 同时在途的子请求不超过并发数，每个子请求只生成一张
+        Assertions.assertEquals(List.of(SEED_BOUND - 2, SEED_BOUND - 1), client.seeds);
+        client.complete(SEED_BOUND - 2);
+        client.complete(SEED_BOUND - 1);
+        client.complete(0L);
+        client.complete(1L);
+
+        // 种子按2^32取模
+        Assertions.assertEquals(List.of(SEED_BOUND - 2, SEED_BOUND - 1, 0L, 1L), client.seeds);
+        Assertions.assertEquals(List.of(1), client.numbers.stream().distinct().toList());
+        Assertions.assertEquals(4, future.join().encodedImages().size());
+
+        // 未设置种子时随机选取起始种子，之后连续
+        final var random = new FakeClient();
+        random.autoComplete = true;
+        random.generationImage(request(null), 3, 3).async().join();
+        final var base = random.seeds.get(0);
+        Assertions.assertEquals(List.of(base, (base + 1) % SEED_BOUND, (base + 2) % SEED_BOUND), random.seeds);
+    }
+
+    @Test
+    public void test$image$fan_out$merge_order() {
+        final var client = new FakeClient();
+        final var streamed = new CopyOnWriteArrayList<GenerationImageResponse>();
+        final var future = client.generationImage(request(10L), 3, 3).stream(streamed::add);
+
+        // 逆序完成：流式消费按完成顺序，合并结果按种子顺序
+        client.complete(12L);
+        client.complete(11L);
+        client.complete(10L);
+        final var merged = future.join();
+        Assertions.assertEquals(
+                List.of("seed-12", "seed-11", "seed-10"),
+                streamed.stream().flatMap(response -> contents(response.encodedImages()).stream()).toList()
+        );
+        Assertions.assertEquals(List.of("seed-10", "seed-11", "seed-12"), contents(merged.encodedImages()));
+        Assertions.assertEquals(3, merged.usage().total(item -> item.name().equals("total_tokens")));
+    }
+
+    @Test
+    public void test$image$fan_out$failure() {
+        final var client = new FakeClient();
+        final var future = client.generationImage(request(0L), 5, 1).async();
+        client.complete(0L);
+        client.fail(1L);
+
+        // 失败后不再发出新的子请求
+        Assertions.assertThrows(CompletionException.class, future::join);
+        Assertions.assertEquals(List.of(0L, 1L), client.seeds);
+
+        // 消费者失败同样终止
+        final var consuming = new FakeClient();
+        final var consumed = new AtomicInteger();
+        final var failing = consuming.generationImage(request(0L), 5, 1).stream(response -> {
+            if (consumed.incrementAndGet() == 2) {
+                throw new IllegalStateException("consumer failed!");
+            }
+        });
+        consuming.complete(0L);
+        consuming.complete(1L);
+        Assertions.assertThrows(CompletionException.class, failing::join);
+        Assertions.assertEquals(List.of(0L, 1L), consuming.seeds);
+    }
+
+    @Test
+    public void test$image$fan_out$illegal() {
+        final var client = new FakeClient();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> client.generationImage(request(0L), 0, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> client.generationImage(request(0L), 1, 0));
+    }
+
+    /**
+     * 只支持单次文生图的客户端，应答图片的内容为{@code seed-种子}
+     */
+    private static class FakeClient extends UnsupportedQianFanClient {
+
+        private final List<Long> seeds = Collections.synchronizedList(new ArrayList<>());
+        private final List<Integer> numbers = Collections.synchronizedList(new ArrayList<>());
+        private final Map<Long, CompletableFuture<GenerationImageResponse>> futures = new ConcurrentHashMap<>();
+        private final Map<Long, GenerationImageRequest> requests = new ConcurrentHashMap<>();
+        private volatile boolean autoComplete;
+
+        @Override
+        public Op<GenerationImageResponse> generationImage(GenerationImageRequest request) {
+            return consumer -> {
+                final var seed = (Long) request.option().get(GenerationImageOptions.SEED);
+                seeds.add(seed);
+                numbers.add((Integer) request.option().get(GenerationImageOptions.NUMBERS));
+                requests.put(seed, request);
+                final var future = futures.computeIfAbsent(seed, key -> new CompletableFuture<>());
+                if (autoComplete) {
+                    complete(seed);
+                }
+                return future;
+            };
+        }
+
+        private void complete(long seed) {
+            final var image = Base64.getEncoder().encodeToString("seed-%d".formatted(seed).getBytes(StandardCharsets.UTF_8));
+            final var response = requests.get(seed).responseDeserializer().apply("""
+                    {"id":"as-%d","data":[{"object":"image","b64_image":"%s","index":0}],"usage":{"prompt_tokens":1,"total_tokens":1}}
+                    """.formatted(seed, image));
+            futures.get(seed).complete(response);
+        }
+
+        private void fail(long seed) {
+            futures.get(seed).completeExceptionally(new IllegalStateException("fake failure"));
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+package io.github.oldmanpushcart.test.qianfan4j.replay;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.base.api.ApiOptions;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+import io.github.oldmanpushcart.qianfan4j.replay.Recorder;
+import io.github.oldmanpushcart.qianfan4j.replay.Replayer;
+import io.github.oldmanpushcart.test.qianfan4j.Recording;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+
+public class ReplayTestCase {
+
+    @TempDir
+    Path dir;
+
+    private static ChatRequest request(String question) {
+        return ChatRequest.newBuilder()
+                .model(ChatModel.ERNIE_V4)
+                .option(ApiOptions.IS_STREAM, true)
+                .messages(Message.ofUser(question))
+                .build();
+    }
+
+    // 以SSE分片构造录制文件：每个分片间隔100毫秒
+    private Path recording(ChatRequest request, List<String> contents) throws Exception {
+        final var events = new ArrayList<String>();
+        for (int i = 0; i < contents.size(); i++) {
+            events.add("{\"id\":\"as-replay\",\"result\":\"%s\",\"is_end\":%s,\"usage\":{\"total_tokens\":%d}}"
+                    .formatted(contents.get(i), i == contents.size() - 1, i + 1));
+        }
+        return new Recording()
+                .stream(request, events)
+                .write(dir.resolve("recording.jsonl"));
+    }
+
+    private static QianFanClient client(Replayer replayer, Recorder recorder) {
+        final var builder = QianFanClient.newBuilder()
+                .ak("replay")
+                .sk("replay")
+                .executor(Executors.newCachedThreadPool())
+                .replayer(replayer);
+        if (null != recorder) {
+            builder.recorder(recorder);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void test$replay$stream() throws Exception {
+        // 对话会把应答追加到请求的消息中，每次对话都需要新的请求
+        final var path = recording(request("你好"), List.of("你", "好", "！"));
+
+        // 按原始节奏重放
+        final var replayer = Replayer.newBuilder().path(path).build();
+        final var started = System.nanoTime();
+        final var response = client(replayer, null).chat(request("你好")).async().join();
+        Assertions.assertEquals("你好！", response.content());
+        Assertions.assertTrue(System.nanoTime() - started >= 300_000_000L);
+        Assertions.assertEquals(1, replayer.replayed());
+
+        // 重放的同时录制，再重放录制的结果
+        final var rerecorded = dir.resolve("rerecorded.jsonl");
+        try (final var recorder = Recorder.newBuilder().path(rerecorded).build()) {
+            final var fast = Replayer.newBuilder().path(path).speed(Double.POSITIVE_INFINITY).build();
+            Assertions.assertEquals("你好！", client(fast, recorder).chat(request("你好")).async().join().content());
+            Assertions.assertEquals(1, recorder.recorded());
+        }
+        final var again = Replayer.newBuilder().path(rerecorded).speed(Double.POSITIVE_INFINITY).build();
+        Assertions.assertEquals("你好！", client(again, null).chat(request("你好")).async().join().content());
+    }
+
+    @Test
+    public void test$replay$missing() throws Exception {
+        final var path = recording(request("你好"), List.of("你好"));
+        final var replayer = Replayer.newBuilder().path(path).speed(Double.POSITIVE_INFINITY).build();
+        final var ex = Assertions.assertThrows(CompletionException.class, () -> client(replayer, null).chat(request("再见")).async().join());
+        Assertions.assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+}
@@ -0,0 +1,281 @@
+package io.github.oldmanpushcart.test.qianfan4j.scheduler;
+
+import io.github.oldmanpushcart.qianfan4j.QianFanClient;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatModel;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatRequest;
+import io.github.oldmanpushcart.qianfan4j.chat.ChatResponse;
+import io.github.oldmanpushcart.qianfan4j.chat.message.Message;
+import io.github.oldmanpushcart.qianfan4j.replay.Replayer;
+import io.github.oldmanpushcart.qianfan4j.scheduler.DeadlineExceededException;
+import io.github.oldmanpushcart.qianfan4j.scheduler.RequestScheduler;
+import io.github.oldmanpushcart.test.qianfan4j.Recording;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+
+/**
+ * 请求调度：以重放代替服务端，除保留名额的用例外只有一个名额，先发出的请求占住名额，其余请求排队
+ */
+public class RequestSchedulerTestCase {
+
+    @TempDir
+    Path dir;
+
+    private static ChatRequest request(String user, String content) {
+        return ChatRequest.newBuilder()
+                .model(ChatModel.ERNIE_V4)
+                .user(user)
+                .messages(Message.ofUser(content))
+                .build();
+    }
+
+    // 重放速度为2时每个请求耗时约50毫秒，为0.5时约200毫秒
+    private QianFanClient client(RequestScheduler scheduler, double speed, ChatRequest... requests) throws Exception {
+        final var recording = new Recording();
+        for (final var request : requests) {
+            recording.json(request, """
+                    {"id":"as-scheduler","is_end":true,"result":"%s","usage":{"total_tokens":1}}"""
+                    .formatted(request.messages().get(0).content()));
+        }
+        final var replayer = Replayer.newBuilder()
+                .path(recording.write(dir.resolve("recording.jsonl")))
+                .speed(speed)
+                .build();
+        return QianFanClient.newBuilder()
+                .ak("replay")
+                .sk("replay")
+                .executor(Executors.newCachedThreadPool())
+                .replayer(replayer)
+                .scheduler(scheduler)
+                .build();
+    }
+
+    // 依次提交请求，按结束的先后记录应答内容
+    private static List<String> submit(QianFanClient client, List<ChatRequest> requests) {
+        final var order = Collections.synchronizedList(new ArrayList<String>());
+        final var futures = new ArrayList<CompletableFuture<ChatResponse>>();
+        for (final var request : requests) {
+            futures.add(client.chat(request).async()
+                    .whenComplete((response, ex) -> order.add(null == ex ? response.content() : unwrap(ex).getClass().getSimpleName())));
+        }
+        futures.forEach(future -> future.handle((response, ex) -> response).join());
+        return order;
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex;
+    }
+
+    // 按用户设置截止时间：提交时刻加上用户对应的时长，没有对应时长的用户没有截止时间
+    private static RequestScheduler deadlineScheduler(Map<String, Duration> deadlines) {
+        return RequestScheduler.newBuilder()
+                .concurrency(1)
+                .deadline(request -> {
+                    final var duration = deadlines.get(((ChatRequest) request).user());
+                    return null == duration ? null : Instant.now().plus(duration);
+                })
+                .build();
+    }
+
+    @Test
+    public void test$scheduler$priority() throws Exception {
+        final var scheduler = RequestScheduler.newBuilder()
+                .concurrency(1)
+                .classifier(request -> RequestScheduler.Priority.valueOf(((ChatRequest) request).user()))
+                .build();
+        final var requests = List.of(
+                request("BACKGROUND", "blocker"),
+                request("BATCH", "batch-1"),
+                request("BATCH", "batch-2"),
+                request("BACKGROUND", "background"),
+                request("INTERACTIVE", "interactive")
+        );
+        final var client = client(scheduler, 2, requests.toArray(ChatRequest[]::new));
+        Assertions.assertEquals(
+                List.of("blocker", "interactive", "background", "batch-1", "batch-2"),
+                submit(client, requests)
+        );
+    }
+
+    @Test
+    public void test$scheduler$reserved() throws Exception {
+
+        // 三个名额保留一个：批处理请求最多占用两个，交互请求到达时不必等待它们结束
+        final var scheduler = RequestScheduler.newBuilder()
+                .concurrency(3)
+                .reserved(1)
+                .classifier(request -> RequestScheduler.Priority.valueOf(((ChatRequest) request).user()))
+                .build();
+        final var requests = List.of(
+                request("BATCH", "batch-1"),
+                request("BATCH", "batch-2"),
+                request("BATCH", "batch-3"),
+                request("INTERACTIVE", "interactive")
+        );
+        final var client = client(scheduler, 0.5, requests.toArray(ChatRequest[]::new));
+        final var order = submit(client, requests);
+        Assertions.assertEquals("batch-3", order.get(order.size() - 1));
+        Assertions.assertEquals(Duration.ZERO, scheduler.stats(RequestScheduler.Priority.INTERACTIVE).maxWait());
+        Assertions.assertEquals(1, scheduler.stats(RequestScheduler.Priority.INTERACTIVE).dispatched());
+        Assertions.assertTrue(scheduler.stats(RequestScheduler.Priority.BATCH).maxWait().toMillis() >= 150);
+
+        // 不保留名额：批处理请求占满名额，交互请求只能排队等待其中一个结束
+        final var unreserved = RequestScheduler.newBuilder()
+                .concurrency(3)
+                .reserved(0)
+                .classifier(request -> RequestScheduler.Priority.valueOf(((ChatRequest) request).user()))
+                .build();
+        submit(client(unreserved, 0.5, requests.toArray(ChatRequest[]::new)), requests);
+        Assertions.assertTrue(unreserved.stats(RequestScheduler.Priority.INTERACTIVE).maxWait().toMillis() >= 150);
+    }
+
+    @Test
+    public void test$scheduler$reserved$illegal() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RequestScheduler.newBuilder().reserved(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RequestScheduler.newBuilder().concurrency(2).reserved(2).build());
+    }
+
+    @Test
+    public void test$scheduler$fairness() throws Exception {
+
+        // 用户a权重为2，用户b权重为1：同时排队时a发出的请求是b的两倍
+        final var scheduler = RequestScheduler.newBuilder()
+                .concurrency(1)
+                .classifier(request -> RequestScheduler.Priority.BACKGROUND)
+                .weigher(user -> "a".equals(user) ? 2 : 1)
+                .build();
+        final var requests = new ArrayList<ChatRequest>();
+        requests.add(request("blocker", "blocker"));
+        for (int i = 1; i <= 4; i++) {
+            requests.add(request("a", "a-" + i));
+        }
+        for (int i = 1; i <= 4; i++) {
+            requests.add(request("b", "b-" + i));
+        }
+        final var client = client(scheduler, 2, requests.toArray(ChatRequest[]::new));
+        Assertions.assertEquals(
+                List.of("blocker", "a-1", "b-1", "a-2", "b-2", "a-3", "a-4", "b-3", "b-4"),
+                submit(client, requests)
+        );
+    }
+
+    @Test
+    public void test$scheduler$stats() throws Exception {
+        final var scheduler = RequestScheduler.newBuilder()
+                .concurrency(1)
+                .classifier(request -> RequestScheduler.Priority.valueOf(((ChatRequest) request).user()))
+                .build();
+        final var requests = List.of(
+                request("INTERACTIVE", "interactive"),
+                request("BATCH", "batch-1"),
+                request("BATCH", "batch-2")
+        );
+        final var client = client(scheduler, 2, requests.toArray(ChatRequest[]::new));
+        submit(client, requests);
+
+        final var interactive = scheduler.stats(RequestScheduler.Priority.INTERACTIVE);
+        Assertions.assertEquals(1, interactive.dispatched());
+        Assertions.assertEquals(0, interactive.waiting());
+        Assertions.assertEquals(Duration.ZERO, interactive.maxWait());
+
+        // 第一个批处理请求等待交互请求结束，第二个再等待第一个结束
+        final var batch = scheduler.stats(RequestScheduler.Priority.BATCH);
+        Assertions.assertEquals(2, batch.dispatched());
+        Assertions.assertEquals(0, batch.shed());
+        Assertions.assertEquals(0, batch.waiting());
+        Assertions.assertTrue(batch.maxWait().toMillis() >= 80, batch.toString());
+        Assertions.assertTrue(batch.meanWait().compareTo(batch.maxWait()) < 0, batch.toString());
+
+        final var background = scheduler.stats(RequestScheduler.Priority.BACKGROUND);
+        Assertions.assertEquals(0, background.dispatched());
+        Assertions.assertEquals(Duration.ZERO, background.meanWait());
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$scheduler$failure_drain() throws Exception {
+
+        // 没有录制的请求立即失败，排队的大量请求依次发出，不会因递归耗尽栈
+        final var scheduler = RequestScheduler.newBuilder()
+                .concurrency(1)
+                .build();
+        final var blocker = request("blocker", "blocker");
+        final var client = client(scheduler, 2, blocker);
+        final var requests = new ArrayList<ChatRequest>();
+        requests.add(blocker);
+        for (int i = 0; i < 5000; i++) {
+            requests.add(request("missing", "missing-" + i));
+        }
+        final var order = submit(client, requests);
+        Assertions.assertEquals("blocker", order.get(0));
+        Assertions.assertEquals(5001, order.size());
+        Assertions.assertTrue(order.stream().skip(1).noneMatch("StackOverflowError"::equals));
+        Assertions.assertEquals(5001, scheduler.stats(RequestScheduler.Priority.BACKGROUND).dispatched());
+        Assertions.assertThrows(CompletionException.class, () -> client.chat(request("missing", "after")).async().join());
+    }
+
+    @Test
+    public void test$scheduler$deadline$idle() throws Exception {
+
+        // 估计耗时约200毫秒，但有空闲名额时不按估计耗时丢弃，请求直接发出
+        final var scheduler = deadlineScheduler(Map.of("hurry", Duration.ofMillis(50)));
+        final var warmup = request("warmup", "warmup");
+        final var hurry = request("hurry", "hurry");
+        final var client = client(scheduler, 0.5, warmup, hurry);
+        Assertions.assertEquals(List.of("warmup"), submit(client, List.of(warmup)));
+        Assertions.assertEquals(List.of("hurry"), submit(client, List.of(hurry)));
+        Assertions.assertEquals(0, scheduler.stats(RequestScheduler.Priority.BACKGROUND).shed());
+    }
+
+    @Test
+    public void test$scheduler$deadline$estimate() throws Exception {
+
+        // 估计耗时约200毫秒：排队的请求在第200毫秒出队时已无法在第300毫秒的截止时间前完成
+        final var scheduler = deadlineScheduler(Map.of("hurry", Duration.ofMillis(300)));
+        final var warmup = request("warmup", "warmup");
+        final var blocker = request("blocker", "blocker");
+        final var hurry = request("hurry", "hurry");
+        final var client = client(scheduler, 0.5, warmup, blocker, hurry);
+        Assertions.assertEquals(List.of("warmup"), submit(client, List.of(warmup)));
+        Assertions.assertEquals(
+                List.of("DeadlineExceededException", "blocker"),
+                submit(client, List.of(blocker, hurry))
+        );
+        final var stats = scheduler.stats(RequestScheduler.Priority.BACKGROUND);
+        Assertions.assertEquals(2, stats.dispatched());
+        Assertions.assertEquals(1, stats.shed());
+        Assertions.assertEquals(0, stats.waiting());
+    }
+
+    @Test
+    public void test$scheduler$deadline$expire() throws Exception {
+
+        // 排队到截止时间仍未发出的请求到期即丢弃，不必等待占住名额的请求结束
+        final var scheduler = deadlineScheduler(Map.of("hurry", Duration.ofMillis(50)));
+        final var blocker = request("blocker", "blocker");
+        final var hurry = request("hurry", "hurry");
+        final var client = client(scheduler, 0.5, blocker, hurry);
+        final var blocking = client.chat(blocker).async();
+        final var ex = Assertions.assertThrows(CompletionException.class, () -> client.chat(hurry).async().join());
+        Assertions.assertInstanceOf(DeadlineExceededException.class, unwrap(ex));
+        Assertions.assertFalse(blocking.isDone());
+        final var stats = scheduler.stats(RequestScheduler.Priority.BACKGROUND);
+        Assertions.assertEquals(1, stats.shed());
+        Assertions.assertEquals(0, stats.waiting());
+        Assertions.assertEquals("blocker", blocking.join().content());
+        Assertions.assertEquals(1, scheduler.stats(RequestScheduler.Priority.BACKGROUND).dispatched());
+    }
+
+}
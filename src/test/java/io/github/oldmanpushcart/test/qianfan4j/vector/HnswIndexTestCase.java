@@ -0,0 +1,154 @@
+package io.github.oldmanpushcart.test.qianfan4j.vector;
+
+import io.github.oldmanpushcart.qianfan4j.vector.HnswIndex;
+import io.github.oldmanpushcart.qianfan4j.vector.Metric;
+import io.github.oldmanpushcart.qianfan4j.vector.Neighbor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class HnswIndexTestCase {
+
+    private static final int DIMENSION = 32;
+    private static final int SIZE = 3000;
+    private static final int K = 10;
+
+    @TempDir
+    Path dir;
+
+    private static float[][] random(int size, long seed) {
+        return random(size, DIMENSION, seed);
+    }
+
+    private static float[][] random(int size, int dimension, long seed) {
+        final var random = new Random(seed);
+        final var vectors = new float[size][dimension];
+        for (final var vector : vectors) {
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+
+    private static float cosine(float[] a, float[] b) {
+        var dot = 0d;
+        var na = 0d;
+        var nb = 0d;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return (float) (dot / Math.sqrt(na * nb));
+    }
+
+    // 暴力计算的真实近邻
+    private static List<Long> exact(float[][] vectors, float[] query) {
+        return IntStream.range(0, vectors.length)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> -cosine(vectors[i], query)))
+                .limit(K)
+                .map(Integer::longValue)
+                .toList();
+    }
+
+    private static double recall(HnswIndex index, float[][] vectors, float[][] queries) {
+        var hits = 0;
+        for (final var query : queries) {
+            final var expect = new HashSet<>(exact(vectors, query));
+            final var actual = index.search(query, K);
+            Assertions.assertEquals(K, actual.size());
+            for (int i = 1; i < actual.size(); i++) {
+                Assertions.assertTrue(actual.get(i - 1).score() >= actual.get(i).score());
+            }
+            hits += (int) actual.stream().map(Neighbor::id).filter(expect::contains).count();
+        }
+        return (double) hits / (queries.length * K);
+    }
+
+    @Test
+    public void test$hnsw$recall() throws IOException {
+
+        final var vectors = random(SIZE, 1);
+        final var queries = random(50, 2);
+        final var index = HnswIndex.newBuilder()
+                .dimension(DIMENSION)
+                .metric(Metric.COSINE)
+                .capacity(SIZE)
+                .build();
+
+        // 并发写入
+        IntStream.range(0, SIZE)
+                .parallel()
+                .forEach(i -> index.add(i, vectors[i]));
+        Assertions.assertEquals(SIZE, index.size());
+
+        final var recall = recall(index, vectors, queries);
+        Assertions.assertTrue(recall >= 0.9, "recall=%s".formatted(recall));
+
+        // 保存后加载，结果一致
+        final var path = dir.resolve("index.hnsw");
+        index.save(path);
+        final var loaded = HnswIndex.load(path);
+        Assertions.assertEquals(SIZE, loaded.size());
+        for (final var query : queries) {
+            Assertions.assertEquals(index.search(query, K), loaded.search(query, K));
+        }
+
+    }
+
+    @Test
+    public void test$hnsw$save_load$buffered() throws IOException {
+
+        // 文件(约5M)大于读写缓冲，节点跨越多次缓冲读写
+        final var dimension = 1024;
+        final var vectors = random(1200, dimension, 3);
+        final var index = HnswIndex.newBuilder()
+                .dimension(dimension)
+                .metric(Metric.DOT_PRODUCT)
+                .capacity(vectors.length)
+                .build();
+        for (int i = 0; i < vectors.length; i++) {
+            index.add(i, vectors[i]);
+        }
+
+        final var path = dir.resolve("index.hnsw");
+        index.save(path);
+        final var loaded = HnswIndex.load(path);
+        Assertions.assertEquals(vectors.length, loaded.size());
+        for (final var query : random(20, dimension, 4)) {
+            Assertions.assertEquals(index.search(query, K), loaded.search(query, K));
+        }
+
+        // 截断的文件
+        try (final var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) / 2);
+        }
+        Assertions.assertThrows(IOException.class, () -> HnswIndex.load(path));
+
+    }
+
+    @Test
+    public void test$hnsw$full() {
+        final var index = HnswIndex.newBuilder()
+                .dimension(2)
+                .capacity(1)
+                .build();
+        index.add(1, new float[]{1, 0});
+        Assertions.assertThrows(IllegalStateException.class, () -> index.add(2, new float[]{0, 1}));
+        Assertions.assertEquals(List.of(new Neighbor(1, 1.0f)), index.search(new float[]{2, 0}, 3));
+    }
+
+}
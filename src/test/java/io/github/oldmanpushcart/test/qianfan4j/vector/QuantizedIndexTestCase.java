@@ -0,0 +1,146 @@
+package io.github.oldmanpushcart.test.qianfan4j.vector;
+
+import io.github.oldmanpushcart.qianfan4j.vector.BinaryVector;
+import io.github.oldmanpushcart.qianfan4j.vector.Int8Vector;
+import io.github.oldmanpushcart.qianfan4j.vector.Metric;
+import io.github.oldmanpushcart.qianfan4j.vector.Neighbor;
+import io.github.oldmanpushcart.qianfan4j.vector.QuantizedIndex;
+import io.github.oldmanpushcart.qianfan4j.vector.Similarity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class QuantizedIndexTestCase {
+
+    private static float[] random(Random random, int length) {
+        final var vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    @Test
+    public void test$quantized$codecs() {
+        final var random = new Random(1);
+        final var a = random(random, 384);
+        final var b = random(random, 384);
+
+        final var qa = Int8Vector.of(a);
+        final var qb = Int8Vector.of(b);
+        Assertions.assertEquals(Similarity.dot(a, b), qa.dot(qb), 0.02 * Math.sqrt(Similarity.dot(a, a) * Similarity.dot(b, b)));
+        final var decoded = qa.decode();
+        for (int i = 0; i < a.length; i++) {
+            Assertions.assertEquals(a[i], decoded[i], qa.scale() / 2 + 1e-6);
+        }
+
+        final var ba = BinaryVector.of(a);
+        var expect = 0;
+        for (int i = 0; i < a.length; i++) {
+            if ((a[i] > 0) != (b[i] > 0)) {
+                expect++;
+            }
+        }
+        Assertions.assertEquals(expect, ba.hamming(BinaryVector.of(b)));
+        Assertions.assertEquals(0, ba.hamming(ba));
+        Assertions.assertEquals(6, ba.bits().length);
+    }
+
+    @Test
+    public void test$quantized$index$rescore() {
+        final var random = new Random(2);
+        final var dimension = 128;
+        final var rows = 5000;
+        // 真实的向量计算结果通常呈簇状分布，以簇中心加扰动模拟
+        final var centroids = IntStream.range(0, 50).mapToObj(i -> random(random, dimension)).toArray(float[][]::new);
+        final var vectors = IntStream.range(0, rows + 1)
+                .mapToObj(i -> {
+                    final var vector = random(random, dimension);
+                    final var centroid = centroids[random.nextInt(centroids.length)];
+                    for (int j = 0; j < dimension; j++) {
+                        vector[j] = centroid[j] + 0.5f * vector[j];
+                    }
+                    return vector;
+                })
+                .toArray(float[][]::new);
+        final var query = vectors[rows];
+        final var k = 10;
+        final var expect = IntStream.range(0, rows)
+                .boxed()
+                .sorted(Comparator.comparingDouble(row -> -Similarity.cosine(query, vectors[row])))
+                .limit(k)
+                .map(Long::valueOf)
+                .collect(Collectors.toSet());
+
+        for (final var encoding : QuantizedIndex.Encoding.values()) {
+            final var index = QuantizedIndex.newBuilder()
+                    .dimension(dimension)
+                    .encoding(encoding)
+                    .capacity(16)
+                    .build();
+            for (int row = 0; row < rows; row++) {
+                index.add(row, vectors[row]);
+            }
+            Assertions.assertEquals(rows, index.size());
+
+            final var rescored = index.search(query, k, 10 * k, id -> vectors[(int) id]);
+            Assertions.assertEquals(k, rescored.size());
+            Assertions.assertTrue(recall(expect, rescored.stream().map(Neighbor::id).collect(Collectors.toSet())) >= 0.9, encoding.name());
+            for (int i = 1; i < rescored.size(); i++) {
+                Assertions.assertTrue(rescored.get(i - 1).score() >= rescored.get(i).score());
+            }
+            Assertions.assertEquals(Similarity.cosine(query, vectors[(int) rescored.get(0).id()]), rescored.get(0).score(), 1e-5);
+        }
+
+        // int8编码不重排也应有较高的召回
+        final var int8 = QuantizedIndex.newBuilder().dimension(dimension).build();
+        for (int row = 0; row < rows; row++) {
+            int8.add(row, vectors[row]);
+        }
+        Assertions.assertTrue(recall(expect, int8.search(query, k).stream().map(Neighbor::id).collect(Collectors.toSet())) >= 0.8);
+    }
+
+    @Test
+    public void test$quantized$index$illegal() {
+
+        // 二值编码只近似夹角，不支持内积度量
+        Assertions.assertThrows(IllegalArgumentException.class, () -> QuantizedIndex.newBuilder()
+                .dimension(128)
+                .metric(Metric.DOT_PRODUCT)
+                .encoding(QuantizedIndex.Encoding.BINARY)
+                .build());
+
+        // 容量乘以维度超出数组长度上限时在构建时拒绝，而不是溢出后分配错误长度的数组
+        Assertions.assertThrows(IllegalArgumentException.class, () -> QuantizedIndex.newBuilder()
+                .dimension(1 << 30)
+                .capacity(4)
+                .build());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> QuantizedIndex.newBuilder()
+                .dimension(Integer.MAX_VALUE)
+                .encoding(QuantizedIndex.Encoding.BINARY)
+                .capacity(1024)
+                .build());
+
+        // 内积度量的int8编码按原样量化
+        final var index = QuantizedIndex.newBuilder()
+                .dimension(2)
+                .metric(Metric.DOT_PRODUCT)
+                .capacity(1)
+                .build();
+        index.add(1, new float[]{1f, 0f});
+        index.add(2, new float[]{4f, 0f});
+        final var neighbors = index.search(new float[]{1f, 0f}, 2);
+        Assertions.assertEquals(2, neighbors.get(0).id());
+        Assertions.assertEquals(4f, neighbors.get(0).score(), 0.05f);
+    }
+
+    private static double recall(Set<Long> expect, Set<Long> actual) {
+        return actual.stream().filter(expect::contains).count() / (double) expect.size();
+    }
+
+}
@@ -0,0 +1,93 @@
+package io.github.oldmanpushcart.test.qianfan4j.vector;
+
+import io.github.oldmanpushcart.qianfan4j.vector.Metric;
+import io.github.oldmanpushcart.qianfan4j.vector.Neighbor;
+import io.github.oldmanpushcart.qianfan4j.vector.Similarity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class SimilarityTestCase {
+
+    private static float[] random(Random random, int length) {
+        final var vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    @Test
+    public void test$similarity$kernels() {
+        final var random = new Random(1);
+        // 覆盖不能被SIMD宽度整除的长度
+        for (final var length : new int[]{1, 3, 7, 16, 33, 384, 1023}) {
+            final var a = random(random, length);
+            final var b = random(random, length);
+            var dot = 0d;
+            var na = 0d;
+            var nb = 0d;
+            var l2 = 0d;
+            for (int i = 0; i < length; i++) {
+                dot += a[i] * b[i];
+                na += a[i] * a[i];
+                nb += b[i] * b[i];
+                l2 += (a[i] - b[i]) * (a[i] - b[i]);
+            }
+            Assertions.assertEquals(dot, Similarity.dot(a, b), 1e-3 * length);
+            Assertions.assertEquals(dot / Math.sqrt(na * nb), Similarity.cosine(a, b), 1e-4);
+            Assertions.assertEquals(Math.sqrt(l2), Similarity.l2(a, b), 1e-3 * length);
+        }
+        Assertions.assertEquals(0f, Similarity.cosine(new float[2], new float[]{1, 1}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Similarity.dot(new float[2], new float[3]));
+    }
+
+    @Test
+    public void test$similarity$top_k() {
+        final var random = new Random(2);
+        final var dimension = 64;
+        final var rows = 20000;
+        final var matrix = random(random, rows * dimension);
+        final var query = random(random, dimension);
+
+        final var expect = IntStream.range(0, rows)
+                .mapToObj(row -> new Neighbor(row, Similarity.cosine(query, Arrays.copyOfRange(matrix, row * dimension, (row + 1) * dimension))))
+                .sorted(Comparator.comparingDouble(neighbor -> -neighbor.score()))
+                .limit(10)
+                .map(Neighbor::id)
+                .toList();
+
+        final List<Neighbor> serial = Similarity.topK(Metric.COSINE, query, matrix, dimension, 10);
+        final List<Neighbor> parallel = Similarity.parallelTopK(ForkJoinPool.commonPool(), Metric.COSINE, query, matrix, dimension, 10);
+        Assertions.assertEquals(expect, serial.stream().map(Neighbor::id).toList());
+        Assertions.assertEquals(expect, parallel.stream().map(Neighbor::id).toList());
+    }
+
+    @Test
+    public void test$similarity$parity() {
+
+        // 默认执行使用标量内核，test-vectorized执行使用SIMD内核，两者结果与双精度参考值一致
+        Assertions.assertEquals(Boolean.getBoolean("qianfan4j.test.vectorized"), Similarity.isVectorized());
+
+        final var random = new Random(3);
+        for (final var length : new int[]{1, 5, 8, 31, 64, 257, 1536}) {
+            final var a = random(random, length);
+            final var b = random(random, length);
+            var dot = 0d;
+            var l2 = 0d;
+            for (int i = 0; i < length; i++) {
+                dot += (double) a[i] * b[i];
+                l2 += ((double) a[i] - b[i]) * ((double) a[i] - b[i]);
+            }
+            Assertions.assertEquals(dot, Similarity.dot(a, b), 1e-4 * length);
+            Assertions.assertEquals(Math.sqrt(l2), Similarity.l2(a, b), 1e-4 * length);
+        }
+    }
+
+}
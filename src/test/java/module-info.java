@@ -1,6 +1,7 @@
 open module qianfan4j.test {
     requires org.junit.jupiter.api;
     requires qianfan4j;
+    requires java.net.http;
     requires com.fasterxml.jackson.databind;
     requires com.fasterxml.jackson.annotation;
     requires com.fasterxml.jackson.core;